@@ -25,6 +25,8 @@ import java.io.File
 private val NORMAL_VERSION = 8
 private val EXPERIMENTAL_VERSION = 3
 private val DATA_CONTAINER_VERSION = 1
+// Lookups are stored in a different format, so switching the storage rebuilds everything
+private val SEGMENTED_LOOKUPS_DATA_CONTAINER_VERSION = 1001
 
 private val NORMAL_VERSION_FILE_NAME = "format-version.txt"
 private val EXPERIMENTAL_VERSION_FILE_NAME = "experimental-format-version.txt"
@@ -106,7 +108,8 @@ fun experimentalCacheVersion(dataRoot: File): CacheVersion =
                      isEnabled = { IncrementalCompilation.isExperimental() })
 
 fun dataContainerCacheVersion(dataRoot: File): CacheVersion =
-        CacheVersion(ownVersion = DATA_CONTAINER_VERSION,
+        CacheVersion(ownVersion = if (IncrementalCompilation.isSegmentedLookupStorage()) SEGMENTED_LOOKUPS_DATA_CONTAINER_VERSION
+                                  else DATA_CONTAINER_VERSION,
                      versionFile = File(dataRoot, DATA_CONTAINER_VERSION_FILE_NAME),
                      whenVersionChanged = CacheVersion.Action.REBUILD_ALL_KOTLIN,
                      whenTurnedOn = CacheVersion.Action.REBUILD_ALL_KOTLIN,
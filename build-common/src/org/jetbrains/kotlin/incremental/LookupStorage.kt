@@ -19,6 +19,7 @@ package org.jetbrains.kotlin.incremental
 import com.intellij.util.containers.MultiMap
 import com.intellij.util.containers.StringInterner
 import org.jetbrains.annotations.TestOnly
+import org.jetbrains.kotlin.config.IncrementalCompilation
 import org.jetbrains.kotlin.incremental.components.LookupTracker
 import org.jetbrains.kotlin.incremental.components.Position
 import org.jetbrains.kotlin.incremental.components.ScopeKind
@@ -29,10 +30,18 @@ import java.io.File
 import java.util.*
 
 
-open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
+/**
+ * With [isSegmented], lookups are kept in [SegmentedLookupMap]: new lookups are appended on flush instead of rewriting
+ * the whole value, garbage is removed by merging segments in background, and [get] doesn't block.
+ */
+open class LookupStorage @JvmOverloads constructor(
+        private val targetDataDir: File,
+        isSegmented: Boolean = IncrementalCompilation.isSegmentedLookupStorage()
+) : BasicMapsOwner() {
     companion object {
         private val DELETED_TO_SIZE_TRESHOLD = 0.5
         private val MINIMUM_GARBAGE_COLLECTIBLE_SIZE = 10000
+        private val MAX_SEGMENTS = 8
     }
 
     private val String.storageFile: File
@@ -41,7 +50,9 @@ open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
     private val countersFile = "counters".storageFile
     private val idToFile = registerMap(IdToFileMap("id-to-file".storageFile))
     private val fileToId = registerMap(FileToIdMap("file-to-id".storageFile))
-    private val lookupMap = registerMap(LookupMap("lookups".storageFile))
+    // Only one of the two maps is created, so that the unused one is neither opened nor flushed
+    private val lookupMap = if (isSegmented) null else registerMap(LookupMap("lookups".storageFile))
+    private val segmentedLookupMap = if (isSegmented) SegmentedLookupMap(File(targetDataDir, "lookup-segments")) else null
 
     @Volatile
     private var size: Int = 0
@@ -57,14 +68,22 @@ open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
         }
     }
 
-    @Synchronized
     fun get(lookupSymbol: LookupSymbol): Collection<String> {
         val key = LookupSymbolKey(lookupSymbol.name, lookupSymbol.scope)
-        val fileIds = lookupMap[key] ?: return emptySet()
 
-        return fileIds.mapNotNull {
-            // null means it's outdated
-            idToFile[it]?.path
+        if (segmentedLookupMap != null) {
+            // Both the segmented map and the map of file ids can be read concurrently with changes
+            val fileIds = segmentedLookupMap[key] ?: return emptySet()
+            return fileIds.mapNotNull { idToFile[it]?.path }
+        }
+
+        synchronized(this) {
+            val fileIds = lookupMap!![key] ?: return emptySet()
+
+            return fileIds.mapNotNull {
+                // null means it's outdated
+                idToFile[it]?.path
+            }
         }
     }
 
@@ -74,8 +93,14 @@ open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
 
         for ((lookupSymbol, paths) in lookups) {
             val key = LookupSymbolKey(lookupSymbol.name, lookupSymbol.scope)
+
+            if (segmentedLookupMap != null) {
+                segmentedLookupMap.add(key, paths.map { pathToId[it]!! }.toIntArray())
+                continue
+            }
+
             val fileIds = paths.mapTo(HashSet<Int>()) { pathToId[it]!! }
-            fileIds.addAll(lookupMap[key] ?: emptySet())
+            fileIds.addAll(lookupMap!![key] ?: emptySet())
             lookupMap[key] = fileIds
         }
     }
@@ -99,13 +124,24 @@ open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
         size = 0
         deletedCount = 0
 
+        segmentedLookupMap?.clean()
         super.clean()
     }
 
+    @Synchronized
+    override fun close() {
+        try {
+            segmentedLookupMap?.close()
+        }
+        finally {
+            super.close()
+        }
+    }
+
     @Synchronized
     override fun flush(memoryCachesOnly: Boolean) {
         try {
-            removeGarbageIfNeeded()
+            removeGarbageIfNeeded(memoryCachesOnly = memoryCachesOnly)
 
             if (size > 0) {
                 if (!countersFile.exists()) {
@@ -131,13 +167,41 @@ open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
         return id
     }
 
-    private fun removeGarbageIfNeeded(force: Boolean = false) {
+    private fun removeGarbageIfNeeded(force: Boolean = false, memoryCachesOnly: Boolean = false) {
+        if (segmentedLookupMap != null) {
+            if (force) {
+                segmentedLookupMap.compact(aliveFileIds())
+                deletedCount = 0
+            }
+            else if (!memoryCachesOnly) {
+                // A flush of memory caches only keeps the new lookups in memory, the next full flush appends them as a segment
+                segmentedLookupMap.flush()
+
+                if (segmentedLookupMap.segmentCount > MAX_SEGMENTS) {
+                    segmentedLookupMap.compactInBackground(aliveFileIds())
+                    deletedCount = 0
+                }
+            }
+            return
+        }
+
         if (force || (size > MINIMUM_GARBAGE_COLLECTIBLE_SIZE && deletedCount.toDouble() / size > DELETED_TO_SIZE_TRESHOLD)) {
             doRemoveGarbage()
         }
     }
 
+    // Ids are never reused with the segmented map, so the files added after this call are alive as well
+    private fun aliveFileIds(): (Int) -> Boolean {
+        val limit = size
+        val alive = BitSet(limit)
+        for (id in idToFile.keys) {
+            alive.set(id)
+        }
+        return { it >= limit || alive.get(it) }
+    }
+
     private fun doRemoveGarbage() {
+        val lookupMap = lookupMap!!
         for (hash in lookupMap.keys) {
             lookupMap[hash] = lookupMap[hash]!!.filter { it in idToFile }.toSet()
         }
@@ -178,8 +242,8 @@ open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
         val p = Printer(sb)
         val lookupsStrings = lookupSymbols.groupBy { LookupSymbolKey(it.name, it.scope) }
 
-        for (lookup in lookupMap.keys.sorted()) {
-            val fileIds = lookupMap[lookup]!!
+        for (lookup in (segmentedLookupMap?.keys ?: lookupMap!!.keys).sorted()) {
+            val fileIds = segmentedLookupMap?.get(lookup)?.asList() ?: lookupMap!![lookup]!!
 
             val key = if (lookup in lookupsStrings) {
                 lookupsStrings[lookup]!!.map { "${it.scope}#${it.name}" }.sorted().joinToString(", ")
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.incremental.storage
+
+import java.io.*
+import java.nio.IntBuffer
+import java.nio.channels.FileChannel
+import java.util.*
+import java.util.concurrent.*
+
+/**
+ * Lookup symbol -> ids of files where it's looked up, stored in immutable memory-mapped segments.
+ * Each flush appends a segment with the lookups added since the previous flush, a value is the union over all segments.
+ * Segments are merged in background, dropping ids of removed files.
+ *
+ * Reads don't take locks and can run concurrently with anything else.
+ * Adding, flushing, compaction requests and cleaning must not run concurrently with each other.
+ */
+internal class SegmentedLookupMap(private val directory: File) {
+    companion object {
+        private val MAGIC = 0x4B4C4B50
+        private val VERSION = 1
+        private val MANIFEST_NAME = "segments.txt"
+        private val SEGMENT_PREFIX = "segment-"
+        private val SEGMENT_SUFFIX = ".bin"
+
+        // Sizes in ints: magic and version; table start and key count
+        private val HEADER_SIZE = 2
+        private val TRAILER_SIZE = 2
+    }
+
+    // Replaced on flush; it's read before segments, so a reader never misses lookups moved from it to a new segment
+    @Volatile
+    private var pending = ConcurrentHashMap<LookupSymbolKey, IntArray>()
+
+    // Only replaced as a whole under segmentsLock
+    @Volatile
+    private var segments: List<Segment> = emptyList()
+    private val segmentsLock = Any()
+    private var nextSegmentNumber = 0
+
+    private var compactionExecutor: ExecutorService? = null
+    private var compaction: Future<*>? = null
+
+    init {
+        load()
+    }
+
+    val segmentCount: Int
+        get() = segments.size
+
+    // sorted ids, or null if there are none
+    operator fun get(key: LookupSymbolKey): IntArray? {
+        var result = pending[key]
+        for (segment in segments) {
+            val fileIds = segment[key] ?: continue
+            result = if (result == null) fileIds else union(result, fileIds)
+        }
+        return result
+    }
+
+    fun add(key: LookupSymbolKey, fileIds: IntArray) {
+        if (fileIds.isEmpty()) return
+        val sorted = fileIds.copyOf()
+        Arrays.sort(sorted)
+        val existing = pending[key]
+        pending[key] = if (existing == null) unique(sorted) else union(existing, sorted)
+    }
+
+    val keys: Collection<LookupSymbolKey>
+        get() {
+            val result = TreeSet<LookupSymbolKey>(pending.keys)
+            for (segment in segments) {
+                for (i in 0..segment.keyCount - 1) {
+                    result.add(segment.keyAt(i))
+                }
+            }
+            return result
+        }
+
+    fun flush() {
+        val added = pending
+        if (added.isEmpty()) return
+
+        val file = newSegmentFile()
+        SegmentWriter(file).use { writer ->
+            for (key in added.keys.sorted()) {
+                writer.write(key, added[key]!!)
+            }
+        }
+
+        synchronized(segmentsLock) {
+            segments += Segment(file)
+            writeManifest()
+        }
+        pending = ConcurrentHashMap()
+    }
+
+    // Merges all flushed segments into one, ids not satisfying isAlive are dropped.
+    // The result of the previous compaction is awaited first, so at most one runs at a time
+    fun compactInBackground(isAlive: (Int) -> Boolean) {
+        waitForCompaction()
+        val toMerge = segments
+        if (toMerge.isEmpty()) return
+
+        val executor = compactionExecutor ?: Executors.newSingleThreadExecutor { runnable ->
+            Thread(runnable, "Lookup storage compaction").apply { isDaemon = true }
+        }.apply { compactionExecutor = this }
+
+        compaction = executor.submit(Runnable { merge(toMerge, isAlive) })
+    }
+
+    fun compact(isAlive: (Int) -> Boolean) {
+        flush()
+        waitForCompaction()
+        merge(segments, isAlive)
+    }
+
+    fun waitForCompaction() {
+        val current = compaction ?: return
+        compaction = null
+        try {
+            current.get()
+        }
+        catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+    }
+
+    fun clean() {
+        close()
+        synchronized(segmentsLock) {
+            segments = emptyList()
+            nextSegmentNumber = 0
+        }
+        pending = ConcurrentHashMap()
+        directory.listFiles()?.forEach { it.delete() }
+        directory.delete()
+    }
+
+    // lookups which are still pending after a flush of memory caches only are written as the last segment
+    fun close() {
+        try {
+            flush()
+            waitForCompaction()
+        }
+        finally {
+            compactionExecutor?.shutdown()
+            compactionExecutor = null
+        }
+    }
+
+    private fun merge(toMerge: List<Segment>, isAlive: (Int) -> Boolean) {
+        val file = newSegmentFile()
+        var keyCount = 0
+        SegmentWriter(file).use { writer ->
+            val cursors = PriorityQueue<Cursor>(Math.max(toMerge.size, 1))
+            toMerge.filter { it.keyCount > 0 }.mapTo(cursors) { Cursor(it, 0) }
+
+            while (cursors.isNotEmpty()) {
+                val key = cursors.peek().key
+                var fileIds: IntArray? = null
+                while (cursors.isNotEmpty() && cursors.peek().key == key) {
+                    val cursor = cursors.poll()
+                    val segmentIds = cursor.segment.fileIdsAt(cursor.index)
+                    fileIds = if (fileIds == null) segmentIds else union(fileIds, segmentIds)
+                    if (cursor.index + 1 < cursor.segment.keyCount) {
+                        cursors.add(Cursor(cursor.segment, cursor.index + 1))
+                    }
+                }
+
+                val alive = fileIds!!.filter(isAlive)
+                if (alive.isNotEmpty()) {
+                    writer.write(key, alive.toIntArray())
+                    keyCount++
+                }
+            }
+        }
+
+        synchronized(segmentsLock) {
+            val merged = if (keyCount > 0) listOf(Segment(file)) else emptyList()
+            segments = merged + segments.filter { it !in toMerge }
+            writeManifest()
+        }
+
+        if (keyCount == 0) {
+            file.delete()
+        }
+        // Files can't be deleted while they are mapped on some platforms, such files are deleted on the next load
+        toMerge.forEach { it.file.delete() }
+    }
+
+    private fun load() {
+        val manifest = File(directory, MANIFEST_NAME)
+        val names = if (manifest.exists()) manifest.readLines().filter { it.isNotEmpty() } else emptyList()
+        segments = names.map { Segment(File(directory, it)) }
+
+        for (file in directory.listFiles() ?: arrayOf<File>()) {
+            val name = file.name
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                val number = name.removePrefix(SEGMENT_PREFIX).removeSuffix(SEGMENT_SUFFIX).toInt()
+                nextSegmentNumber = Math.max(nextSegmentNumber, number + 1)
+                if (name !in names) {
+                    file.delete()
+                }
+            }
+        }
+    }
+
+    private fun newSegmentFile(): File {
+        directory.mkdirs()
+        val number = synchronized(segmentsLock) { nextSegmentNumber++ }
+        return File(directory, SEGMENT_PREFIX + number + SEGMENT_SUFFIX)
+    }
+
+    // The manifest is replaced rather than rewritten, so it's never seen partially written
+    private fun writeManifest() {
+        val manifest = File(directory, MANIFEST_NAME)
+        val temporary = File(directory, MANIFEST_NAME + ".tmp")
+        temporary.writeText(segments.joinToString("") { it.file.name + "\n" })
+        if (!temporary.renameTo(manifest)) {
+            manifest.delete()
+            if (!temporary.renameTo(manifest)) {
+                throw IOException("Could not write $manifest")
+            }
+        }
+    }
+
+    private class Cursor(val segment: Segment, val index: Int) : Comparable<Cursor> {
+        val key = segment.keyAt(index)
+
+        override fun compareTo(other: Cursor): Int = key.compareTo(other.key)
+    }
+
+    // Layout (in ints): header, postings (count and ids for every key), table (name hash, scope hash and postings start
+    // for every key, sorted by key), trailer
+    private class Segment(val file: File) {
+        private val buffer: IntBuffer
+        private val tableStart: Int
+        val keyCount: Int
+
+        init {
+            val mapped = RandomAccessFile(file, "r").use { it.channel.map(FileChannel.MapMode.READ_ONLY, 0, it.length()) }
+            buffer = mapped.asIntBuffer()
+            val size = buffer.limit()
+            if (size < HEADER_SIZE + TRAILER_SIZE || buffer.get(0) != MAGIC || buffer.get(1) != VERSION) {
+                throw IOException("Lookup storage segment is corrupted: $file")
+            }
+            tableStart = buffer.get(size - 2)
+            keyCount = buffer.get(size - 1)
+        }
+
+        operator fun get(key: LookupSymbolKey): IntArray? {
+            var low = 0
+            var high = keyCount - 1
+            while (low <= high) {
+                val middle = (low + high).ushr(1)
+                val comparison = compare(middle, key)
+                when {
+                    comparison < 0 -> low = middle + 1
+                    comparison > 0 -> high = middle - 1
+                    else -> return fileIdsAt(middle)
+                }
+            }
+            return null
+        }
+
+        fun keyAt(index: Int): LookupSymbolKey =
+                LookupSymbolKey(buffer.get(tableStart + index * 3), buffer.get(tableStart + index * 3 + 1))
+
+        fun fileIdsAt(index: Int): IntArray {
+            val start = buffer.get(tableStart + index * 3 + 2)
+            return IntArray(buffer.get(start)) { buffer.get(start + 1 + it) }
+        }
+
+        // Same order as LookupSymbolKey.compareTo
+        private fun compare(index: Int, key: LookupSymbolKey): Int {
+            val nameComparison = buffer.get(tableStart + index * 3).compareTo(key.nameHash)
+            if (nameComparison != 0) return nameComparison
+            return buffer.get(tableStart + index * 3 + 1).compareTo(key.scopeHash)
+        }
+    }
+
+    // Keys must be written in ascending order
+    private class SegmentWriter(file: File) : Closeable {
+        private val output = DataOutputStream(BufferedOutputStream(FileOutputStream(file)))
+        private var table = IntArray(3 * 16)
+        private var keyCount = 0
+        private var position = HEADER_SIZE
+
+        init {
+            output.writeInt(MAGIC)
+            output.writeInt(VERSION)
+        }
+
+        fun write(key: LookupSymbolKey, fileIds: IntArray) {
+            if (table.size < (keyCount + 1) * 3) {
+                table = table.copyOf(table.size * 2)
+            }
+            table[keyCount * 3] = key.nameHash
+            table[keyCount * 3 + 1] = key.scopeHash
+            table[keyCount * 3 + 2] = position
+            keyCount++
+
+            output.writeInt(fileIds.size)
+            for (id in fileIds) {
+                output.writeInt(id)
+            }
+            position += 1 + fileIds.size
+        }
+
+        override fun close() {
+            try {
+                for (i in 0..keyCount * 3 - 1) {
+                    output.writeInt(table[i])
+                }
+                output.writeInt(position)
+                output.writeInt(keyCount)
+            }
+            finally {
+                output.close()
+            }
+        }
+    }
+}
+
+// Both arrays are sorted and don't contain duplicates, as well as the result
+private fun union(first: IntArray, second: IntArray): IntArray {
+    val result = IntArray(first.size + second.size)
+    var i = 0
+    var j = 0
+    var size = 0
+    while (i < first.size || j < second.size) {
+        val value = when {
+            j == second.size -> first[i++]
+            i == first.size -> second[j++]
+            first[i] < second[j] -> first[i++]
+            first[i] > second[j] -> second[j++]
+            else -> { j++; first[i++] }
+        }
+        result[size++] = value
+    }
+    return if (size == result.size) result else result.copyOf(size)
+}
+
+private fun unique(sorted: IntArray): IntArray {
+    if (sorted.isEmpty()) return sorted
+    var size = 1
+    for (i in 1..sorted.size - 1) {
+        if (sorted[i] != sorted[size - 1]) {
+            sorted[size++] = sorted[i]
+        }
+    }
+    return if (size == sorted.size) sorted else sorted.copyOf(size)
+}
@@ -17,6 +17,7 @@
 package org.jetbrains.kotlin.backend.common.output
 
 import java.io.File
+import java.io.OutputStream
 
 interface OutputFileCollection {
     fun get(relativePath: String): OutputFile?
@@ -35,6 +36,13 @@ interface OutputFile {
     fun asText(): String
 }
 
+/**
+ * An output file which can be written without building all of its content in memory first
+ */
+interface StreamingOutputFile : OutputFile {
+    fun writeTo(output: OutputStream)
+}
+
 class SimpleOutputFile(
         override val sourceFiles: List<File>,
         override val relativePath: String,
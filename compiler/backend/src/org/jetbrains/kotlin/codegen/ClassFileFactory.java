@@ -52,6 +52,8 @@ public class ClassFileFactory implements OutputFileCollection {
     private final Map<FqName, PackageCodegen> package2codegen = new HashMap<FqName, PackageCodegen>();
     private final Map<FqName, MultifileClassCodegen> multifileClass2codegen = new HashMap<FqName, MultifileClassCodegen>();
     private final Map<String, OutAndSourceFileList> generators = new LinkedHashMap<String, OutAndSourceFileList>();
+    // Set while a thread generates a package or a multifile class in parallel with others, see generateSeparately()
+    private final ThreadLocal<SeparateOutput> currentSeparateOutput = new ThreadLocal<SeparateOutput>();
 
     private boolean isDone = false;
 
@@ -75,12 +77,58 @@ public class ClassFileFactory implements OutputFileCollection {
             @NotNull Collection<? extends PsiFile> sourceFiles) {
         String outputFilePath = asmType.getInternalName() + ".class";
         List<File> ioSourceFiles = toIoFilesIgnoringNonPhysical(sourceFiles);
-        state.getProgress().reportOutput(ioSourceFiles, new File(outputFilePath));
+        SeparateOutput separateOutput = currentSeparateOutput.get();
+        if (separateOutput == null) {
+            // Outputs of a separate generation are reported when committed
+            state.getProgress().reportOutput(ioSourceFiles, new File(outputFilePath));
+        }
         ClassBuilder answer = builderFactory.newClassBuilder(origin);
-        generators.put(outputFilePath, new ClassBuilderAndSourceFileList(answer, ioSourceFiles));
+        ClassBuilderAndSourceFileList output = new ClassBuilderAndSourceFileList(answer, ioSourceFiles);
+        if (separateOutput != null) {
+            separateOutput.put(outputFilePath, output);
+        }
+        else {
+            generators.put(outputFilePath, output);
+        }
         return answer;
     }
 
+    /**
+     * Runs the given generation in the current thread so that all classes created by it are kept apart from the other outputs.
+     * The result should be passed to {@link #commit} after all generations running in parallel have finished. Committing the results
+     * in the order in which the generations would have run sequentially gives the same outputs as sequential generation,
+     * provided that the generations don't read the classes produced by each other.
+     */
+    @NotNull
+    SeparateOutput generateSeparately(@NotNull Runnable generation) {
+        assert !isDone : "Already done!";
+        assert currentSeparateOutput.get() == null : "Nested separate generation";
+        SeparateOutput output = new SeparateOutput();
+        currentSeparateOutput.set(output);
+        try {
+            generation.run();
+        }
+        finally {
+            currentSeparateOutput.remove();
+        }
+        return output;
+    }
+
+    void commit(@NotNull SeparateOutput output) {
+        assert currentSeparateOutput.get() == null : "Separate outputs should be committed outside of any separate generation";
+        for (int i = 0; i < output.paths.size(); i++) {
+            String path = output.paths.get(i);
+            OutAndSourceFileList file = output.files.get(i);
+            if (file == null) {
+                generators.remove(path);
+            }
+            else {
+                state.getProgress().reportOutput(file.sourceFiles, new File(path));
+                generators.put(path, file);
+            }
+        }
+    }
+
     void done() {
         if (!isDone) {
             isDone = true;
@@ -188,7 +236,7 @@ public class ClassFileFactory implements OutputFileCollection {
         return ContainerUtil.map(generators.keySet(), new Function<String, OutputFile>() {
             @Override
             public OutputFile fun(String relativeClassFilePath) {
-                return new OutputClassFile(relativeClassFilePath);
+                return new OutputClassFile(relativeClassFilePath, null);
             }
         });
     }
@@ -196,7 +244,12 @@ public class ClassFileFactory implements OutputFileCollection {
     @Override
     @Nullable
     public OutputFile get(@NotNull String relativePath) {
-        return generators.containsKey(relativePath) ? new OutputClassFile(relativePath) : null;
+        SeparateOutput separateOutput = currentSeparateOutput.get();
+        if (separateOutput != null && separateOutput.current.containsKey(relativePath)) {
+            OutAndSourceFileList file = separateOutput.current.get(relativePath);
+            return file != null ? new OutputClassFile(relativePath, file) : null;
+        }
+        return generators.containsKey(relativePath) ? new OutputClassFile(relativePath, null) : null;
     }
 
     @NotNull
@@ -261,9 +314,16 @@ public class ClassFileFactory implements OutputFileCollection {
 
     private class OutputClassFile implements OutputFile {
         private final String relativeClassFilePath;
+        // Not null for a class which is only visible to a separate generation
+        private final OutAndSourceFileList separateFile;
 
-        public OutputClassFile(String relativeClassFilePath) {
+        public OutputClassFile(String relativeClassFilePath, @Nullable OutAndSourceFileList separateFile) {
             this.relativeClassFilePath = relativeClassFilePath;
+            this.separateFile = separateFile;
+        }
+
+        private OutAndSourceFileList getFile() {
+            return separateFile != null ? separateFile : generators.get(relativeClassFilePath);
         }
 
         @NotNull
@@ -275,7 +335,7 @@ public class ClassFileFactory implements OutputFileCollection {
         @NotNull
         @Override
         public List<File> getSourceFiles() {
-            OutAndSourceFileList pair = generators.get(relativeClassFilePath);
+            OutAndSourceFileList pair = getFile();
             if (pair == null) {
                 throw new IllegalStateException("No record for binary file " + relativeClassFilePath);
             }
@@ -287,7 +347,7 @@ public class ClassFileFactory implements OutputFileCollection {
         @Override
         public byte[] asByteArray() {
             try {
-                return generators.get(relativeClassFilePath).asBytes(builderFactory);
+                return getFile().asBytes(builderFactory);
             }
             catch (RuntimeException e) {
                 throw new RuntimeException("Error generating class file " + this.toString() + ": " + e.getMessage(), e);
@@ -298,7 +358,7 @@ public class ClassFileFactory implements OutputFileCollection {
         @Override
         public String asText() {
             try {
-                return generators.get(relativeClassFilePath).asText(builderFactory);
+                return getFile().asText(builderFactory);
             }
             catch (RuntimeException e) {
                 throw new RuntimeException("Error generating class file " + this.toString() + ": " + e.getMessage(), e);
@@ -345,8 +405,31 @@ public class ClassFileFactory implements OutputFileCollection {
     }
 
     public void removeClasses(Set<String> classNamesToRemove) {
+        SeparateOutput separateOutput = currentSeparateOutput.get();
         for (String classInternalName : classNamesToRemove) {
-            generators.remove(classInternalName + ".class");
+            if (separateOutput != null) {
+                separateOutput.put(classInternalName + ".class", null);
+            }
+            else {
+                generators.remove(classInternalName + ".class");
+            }
+        }
+    }
+
+    /**
+     * Classes created and removed by one separate generation, in the order of these operations
+     */
+    static final class SeparateOutput {
+        private final List<String> paths = new ArrayList<String>();
+        // null stands for removal
+        private final List<OutAndSourceFileList> files = new ArrayList<OutAndSourceFileList>();
+        // What this generation sees in place of the common outputs
+        private final Map<String, OutAndSourceFileList> current = new HashMap<String, OutAndSourceFileList>();
+
+        private void put(@NotNull String path, @Nullable OutAndSourceFileList file) {
+            paths.add(path);
+            files.add(file);
+            current.put(path, file);
         }
     }
 
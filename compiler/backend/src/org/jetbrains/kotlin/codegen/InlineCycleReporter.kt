@@ -25,7 +25,13 @@ import org.jetbrains.kotlin.resolve.calls.model.ResolvedCall
 
 class InlineCycleReporter(val diagnostics: DiagnosticSink) {
 
-    val processingFunctions = linkedMapOf<PsiElement, CallableDescriptor>()
+    // Inlining is tracked per thread, since different packages may be generated in parallel
+    private val processingFunctionsInThread = object : ThreadLocal<LinkedHashMap<PsiElement, CallableDescriptor>>() {
+        override fun initialValue() = linkedMapOf<PsiElement, CallableDescriptor>()
+    }
+
+    val processingFunctions: LinkedHashMap<PsiElement, CallableDescriptor>
+        get() = processingFunctionsInThread.get()
 
     fun enterIntoInlining(call: ResolvedCall<*>?): Boolean {
         //null call for default method inlining
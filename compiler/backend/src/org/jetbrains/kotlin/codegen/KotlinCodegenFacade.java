@@ -24,10 +24,14 @@ import org.jetbrains.kotlin.fileClasses.JvmFileClassInfo;
 import org.jetbrains.kotlin.name.FqName;
 import org.jetbrains.kotlin.progress.ProgressIndicatorAndCompilationCanceledStatus;
 import org.jetbrains.kotlin.psi.KtFile;
+import org.jetbrains.kotlin.utils.ExceptionUtilsKt;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.*;
 
 public class KotlinCodegenFacade {
 
@@ -65,6 +69,13 @@ public class KotlinCodegenFacade {
             }
         }
 
+        if (state.isParallelCodegen()) {
+            generateInParallel(filesInPackages, filesInMultifileClasses, state, errorHandler);
+            doCheckCancelled(state);
+            state.getFactory().done();
+            return;
+        }
+
         Set<FqName> obsoleteMultifileClasses = new HashSet<FqName>(state.getObsoleteMultifileClasses());
         for (FqName multifileClassFqName : Sets.union(filesInMultifileClasses.keySet(), obsoleteMultifileClasses)) {
             doCheckCancelled(state);
@@ -81,6 +92,79 @@ public class KotlinCodegenFacade {
         state.getFactory().done();
     }
 
+    /**
+     * Generates multifile classes and packages on {@link GenerationState#getCodegenThreadCount()} threads.
+     * The classes generated for each of them are committed to the factory in the same order as in
+     * the sequential mode, so the outputs don't depend on scheduling.
+     */
+    private static void generateInParallel(
+            @NotNull MultiMap<FqName, KtFile> filesInPackages,
+            @NotNull MultiMap<FqName, KtFile> filesInMultifileClasses,
+            @NotNull final GenerationState state,
+            @NotNull final CompilationErrorHandler errorHandler
+    ) {
+        final ClassFileFactory factory = state.getFactory();
+
+        // Codegens are registered in the factory, which is not thread-safe, so they are created beforehand
+        List<Runnable> generations = new ArrayList<Runnable>();
+
+        Set<FqName> obsoleteMultifileClasses = new HashSet<FqName>(state.getObsoleteMultifileClasses());
+        for (FqName multifileClassFqName : Sets.union(filesInMultifileClasses.keySet(), obsoleteMultifileClasses)) {
+            final MultifileClassCodegen codegen = factory.forMultifileClass(
+                    multifileClassFqName, filesInMultifileClasses.get(multifileClassFqName));
+            generations.add(new Runnable() {
+                @Override
+                public void run() {
+                    codegen.generate(errorHandler);
+                }
+            });
+        }
+
+        Set<FqName> packagesWithObsoleteParts = new HashSet<FqName>(state.getPackagesWithObsoleteParts());
+        for (FqName packageFqName : Sets.union(packagesWithObsoleteParts, filesInPackages.keySet())) {
+            final PackageCodegen codegen = factory.forPackage(packageFqName, filesInPackages.get(packageFqName));
+            generations.add(new Runnable() {
+                @Override
+                public void run() {
+                    codegen.generate(errorHandler);
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(state.getCodegenThreadCount(), generations.size())));
+        try {
+            List<Future<ClassFileFactory.SeparateOutput>> outputs =
+                    new ArrayList<Future<ClassFileFactory.SeparateOutput>>(generations.size());
+            for (final Runnable generation : generations) {
+                outputs.add(executor.submit(new Callable<ClassFileFactory.SeparateOutput>() {
+                    @Override
+                    public ClassFileFactory.SeparateOutput call() {
+                        doCheckCancelled(state);
+                        return factory.generateSeparately(generation);
+                    }
+                }));
+            }
+
+            List<ClassFileFactory.SeparateOutput> results = new ArrayList<ClassFileFactory.SeparateOutput>(outputs.size());
+            for (Future<ClassFileFactory.SeparateOutput> output : outputs) {
+                results.add(output.get());
+            }
+            // Only commit when everything is generated: the generations running in parallel read the factory
+            for (ClassFileFactory.SeparateOutput result : results) {
+                factory.commit(result);
+            }
+        }
+        catch (InterruptedException e) {
+            throw ExceptionUtilsKt.rethrow(e);
+        }
+        catch (ExecutionException e) {
+            throw ExceptionUtilsKt.rethrow(e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
     private static void doCheckCancelled(GenerationState state) {
         if (state.getClassBuilderMode() == ClassBuilderMode.FULL) {
             ProgressIndicatorAndCompilationCanceledStatus.checkCanceled();
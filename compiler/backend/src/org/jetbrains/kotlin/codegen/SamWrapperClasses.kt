@@ -20,12 +20,14 @@ import org.jetbrains.kotlin.codegen.state.GenerationState
 import org.jetbrains.kotlin.psi.KtFile
 import org.jetbrains.kotlin.resolve.inline.InlineUtil
 import org.jetbrains.org.objectweb.asm.Type
+import java.util.concurrent.ConcurrentHashMap
 
 class SamWrapperClasses(private val state: GenerationState) {
 
     private data class WrapperKey(val samType: SamType, val file: KtFile, val insideInline: Boolean)
 
-    private val samInterfaceToWrapperClass = hashMapOf<WrapperKey, Type>()
+    // A wrapper is generated for a file, so a key is never requested by two threads generating different packages at once
+    private val samInterfaceToWrapperClass = ConcurrentHashMap<WrapperKey, Type>()
 
     fun getSamWrapperClass(samType: SamType, file: KtFile, expressionCodegen: ExpressionCodegen): Type {
         val isInsideInline = InlineUtil.isInlineOrContainingInline(expressionCodegen.context.contextDescriptor)
@@ -19,6 +19,7 @@ package org.jetbrains.kotlin.codegen.inline;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import kotlin.jvm.functions.Function0;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.backend.common.CodegenUtil;
@@ -191,11 +192,19 @@ public class InlineCodegen extends CallGenerator {
 
         SMAPAndMethodNode nodeAndSMAP;
         if (functionDescriptor instanceof FictitiousArrayConstructor) {
-            nodeAndSMAP = InlineCodegenUtil.getMethodNode(
-                    IntrinsicArrayConstructorsKt.getBytecode(),
+            nodeAndSMAP = InlineMethodNodeCache.getMethodNode(
+                    IntrinsicArrayConstructorsKt.getClassId().asString(),
                     asmMethod.getName(),
                     asmMethod.getDescriptor(),
-                    IntrinsicArrayConstructorsKt.getClassId()
+                    IntrinsicArrayConstructorsKt.getClassId(),
+                    state.getInlineClassFileHashes(),
+                    state.getInlineCacheStatistics(),
+                    new Function0<byte[]>() {
+                        @Override
+                        public byte[] invoke() {
+                            return IntrinsicArrayConstructorsKt.getBytecode();
+                        }
+                    }
             );
 
             if (nodeAndSMAP == null) {
@@ -212,8 +221,9 @@ public class InlineCodegen extends CallGenerator {
                 throw new IllegalStateException("Couldn't find declaration file for " + containerId);
             }
 
-            nodeAndSMAP = InlineCodegenUtil.getMethodNode(
-                    file.contentsToByteArray(), asmMethod.getName(), asmMethod.getDescriptor(), containerId
+            nodeAndSMAP = InlineMethodNodeCache.getMethodNode(
+                    file, asmMethod.getName(), asmMethod.getDescriptor(), containerId,
+                    state.getInlineClassFileHashes(), state.getInlineCacheStatistics()
             );
 
             if (nodeAndSMAP == null) {
@@ -30,7 +30,6 @@ import org.jetbrains.kotlin.codegen.context.CodegenContext;
 import org.jetbrains.kotlin.codegen.context.CodegenContextUtil;
 import org.jetbrains.kotlin.codegen.context.InlineLambdaContext;
 import org.jetbrains.kotlin.codegen.context.MethodContext;
-import org.jetbrains.kotlin.codegen.intrinsics.IntrinsicArrayConstructorsKt;
 import org.jetbrains.kotlin.codegen.optimization.common.UtilKt;
 import org.jetbrains.kotlin.codegen.state.GenerationState;
 import org.jetbrains.kotlin.codegen.state.JetTypeMapper;
@@ -80,12 +79,11 @@ public class InlineCodegenUtil {
     public static final String INLINE_FUN_VAR_SUFFIX = "$iv";
 
     @Nullable
-    public static SMAPAndMethodNode getMethodNode(
+    public static CompiledMethodNode readMethodNode(
             byte[] classData,
             final String methodName,
-            final String methodDescriptor,
-            ClassId classId
-    ) throws IOException {
+            final String methodDescriptor
+    ) {
         ClassReader cr = new ClassReader(classData);
         final MethodNode[] node = new MethodNode[1];
         final String[] debugInfo = new String[2];
@@ -132,13 +130,7 @@ public class InlineCodegenUtil {
             return null;
         }
 
-        if (classId.equals(IntrinsicArrayConstructorsKt.getClassId())) {
-            // Don't load source map for intrinsic array constructors
-            debugInfo[0] = null;
-        }
-
-        SMAP smap = SMAPParser.parseOrCreateDefault(debugInfo[1], debugInfo[0], classId.asString(), lines[0], lines[1]);
-        return new SMAPAndMethodNode(node[0], smap);
+        return new CompiledMethodNode(node[0], debugInfo[0], debugInfo[1], lines[0], lines[1]);
     }
 
     public static void assertVersionNotGreaterThanJava6(int version, String internalName) {
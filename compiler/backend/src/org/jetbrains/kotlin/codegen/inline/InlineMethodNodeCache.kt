@@ -0,0 +1,163 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.inline
+
+import com.intellij.openapi.vfs.VirtualFile
+import org.jetbrains.kotlin.codegen.intrinsics.classId as intrinsicArrayConstructorsClassId
+import org.jetbrains.kotlin.name.ClassId
+import org.jetbrains.org.objectweb.asm.tree.MethodNode
+import java.security.MessageDigest
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+// Body of a method read from a class file, together with the debug information needed to build its SMAP
+class CompiledMethodNode(
+        val node: MethodNode,
+        private val source: String?,
+        private val debug: String?,
+        private val firstLine: Int,
+        private val lastLine: Int
+) {
+    // methodNode is either the node itself or its copy
+    fun createSMAPAndMethodNode(methodNode: MethodNode, classId: ClassId): SMAPAndMethodNode {
+        // Don't load source map for intrinsic array constructors
+        val source = if (classId == intrinsicArrayConstructorsClassId) null else source
+        return SMAPAndMethodNode(methodNode, SMAPParser.parseOrCreateDefault(debug, source, classId.asString(), firstLine, lastLine))
+    }
+}
+
+/**
+ * Bodies of inline functions read from compiled classes, shared by all compilations in this class loader
+ * (i.e. for the daemon lifetime when running in the daemon).
+ * Entries are identified by a hash of the class file content and the method, so a class file which was rebuilt is parsed
+ * again even if its location, time stamp and length are the same. Each class file is read and hashed once per compilation
+ * (see [ClassFileHashes]), and parsed only on a miss.
+ * Inlining modifies the method node, so a copy of the cached one is returned each time.
+ */
+object InlineMethodNodeCache {
+    private val MAX_SIZE = 2048
+
+    private val cache = object : LinkedHashMap<String, CompiledMethodNode>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, CompiledMethodNode>?) = size > MAX_SIZE
+    }
+
+    // Hashes of the class files used in one compilation (see GenerationState): class files don't change while it runs
+    class ClassFileHashes {
+        private val hashes = ConcurrentHashMap<String, String>()
+
+        internal fun getOrCompute(fileIdentity: String, compute: () -> String): String {
+            return hashes[fileIdentity] ?: compute().apply { hashes.putIfAbsent(fileIdentity, this) }
+        }
+    }
+
+    // Counts of the bodies taken from the cache and read from class files, kept per compilation (see GenerationState)
+    class Statistics {
+        private val reused = AtomicLong()
+        private val read = AtomicLong()
+
+        val reusedCount: Long
+            get() = reused.get()
+
+        val readCount: Long
+            get() = read.get()
+
+        internal fun bodyReused() {
+            reused.incrementAndGet()
+        }
+
+        internal fun bodyRead() {
+            read.incrementAndGet()
+        }
+
+        override fun toString() = "$reusedCount inline function bodies reused, $readCount read from class files"
+    }
+
+    @JvmStatic
+    fun getMethodNode(
+            file: VirtualFile,
+            methodName: String,
+            methodDescriptor: String,
+            classId: ClassId,
+            hashes: ClassFileHashes,
+            statistics: Statistics
+    ): SMAPAndMethodNode? {
+        return getMethodNode(file.path, methodName, methodDescriptor, classId, hashes, statistics) {
+            file.contentsToByteArray()
+        }
+    }
+
+    // fileIdentity is the location of the class file, e.g. the path of a virtual file
+    // readClassData is called at most once per compilation for a cached body, to compute the hash of the class file
+    @JvmStatic
+    fun getMethodNode(
+            fileIdentity: String,
+            methodName: String,
+            methodDescriptor: String,
+            classId: ClassId,
+            hashes: ClassFileHashes,
+            statistics: Statistics,
+            readClassData: () -> ByteArray
+    ): SMAPAndMethodNode? {
+        var classData: ByteArray? = null
+        val contentHash = hashes.getOrCompute(fileIdentity) {
+            val data = readClassData()
+            classData = data
+            hash(data)
+        }
+        val key = contentHash + "#" + methodName + methodDescriptor
+
+        val cached = synchronized(cache) { cache[key] }
+        if (cached != null) {
+            statistics.bodyReused()
+            return cached.createSMAPAndMethodNode(copy(cached.node), classId)
+        }
+
+        statistics.bodyRead()
+        val method = InlineCodegenUtil.readMethodNode(classData ?: readClassData(), methodName, methodDescriptor) ?: return null
+        synchronized(cache) {
+            cache[key] = method
+        }
+        return method.createSMAPAndMethodNode(copy(method.node), classId)
+    }
+
+    @JvmStatic
+    fun clear() {
+        synchronized(cache) {
+            cache.clear()
+        }
+    }
+
+    private fun hash(classData: ByteArray): String {
+        val digest = MessageDigest.getInstance("MD5").digest(classData)
+        val result = StringBuilder(digest.size * 2)
+        for (byte in digest) {
+            result.append(Character.forDigit((byte.toInt() shr 4) and 0xF, 16))
+            result.append(Character.forDigit(byte.toInt() and 0xF, 16))
+        }
+        return result.toString()
+    }
+
+    private fun copy(node: MethodNode): MethodNode {
+        val result = MethodNode(InlineCodegenUtil.API, node.access, node.name, node.desc, node.signature, node.exceptions?.toTypedArray())
+        // Visiting resets labels of the visited node, so a node can't be copied by several threads at once
+        synchronized(node) {
+            node.accept(result)
+        }
+        return result
+    }
+}
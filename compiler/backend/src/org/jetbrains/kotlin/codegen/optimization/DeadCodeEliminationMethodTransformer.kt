@@ -18,20 +18,21 @@ package org.jetbrains.kotlin.codegen.optimization
 
 import org.jetbrains.org.objectweb.asm.tree.MethodNode
 import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer
-import org.jetbrains.kotlin.codegen.optimization.common.OptimizationBasicInterpreter
+import org.jetbrains.kotlin.codegen.optimization.common.findReachableInstructions
 import org.jetbrains.kotlin.codegen.optimization.common.isMeaningful
 
 class DeadCodeEliminationMethodTransformer : MethodTransformer() {
     override fun transform(internalClassName: String, methodNode: MethodNode) {
-        val frames = MethodTransformer.analyze(internalClassName, methodNode, OptimizationBasicInterpreter())
+        // Only reachability is needed here, so frames are not computed
+        val reachable = methodNode.findReachableInstructions()
         val insnList = methodNode.instructions
         val insnsArray = insnList.toArray()
 
         // Do not remove not meaningful nodes (labels/linenumbers) because they can be referred
         // by try/catch blocks or local variables table
         // We remove unneeded ones further after all optimizations by calling CommonPackage.prepareForEmitting(methodNode)
-        insnsArray.zip(frames).filter {
-            it.second == null && it.first.isMeaningful
-        }.forEach { insnList.remove(it.first) }
+        insnsArray.filterIndexed { index, insn ->
+            !reachable[index] && insn.isMeaningful
+        }.forEach { insnList.remove(it) }
     }
 }
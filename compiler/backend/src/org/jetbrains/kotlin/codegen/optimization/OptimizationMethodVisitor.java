@@ -38,9 +38,14 @@ public class OptimizationMethodVisitor extends MethodVisitor {
 
     private static final MethodTransformer MANDATORY_METHOD_TRANSFORMER = new MandatoryMethodTransformer();
 
-    private static final MethodTransformer[] OPTIMIZATION_TRANSFORMERS = new MethodTransformer[] {
+    // These transformers compute a frame for each instruction, so they are skipped for methods too big to be analyzed
+    private static final MethodTransformer[] FRAME_BASED_OPTIMIZATION_TRANSFORMERS = new MethodTransformer[] {
             new RedundantNullCheckMethodTransformer(),
-            new RedundantBoxingMethodTransformer(),
+            new RedundantBoxingMethodTransformer()
+    };
+
+    // These transformers only need the control flow of the method, so they are applied to methods of any size
+    private static final MethodTransformer[] OPTIMIZATION_TRANSFORMERS = new MethodTransformer[] {
             new DeadCodeEliminationMethodTransformer(),
             new RedundantGotoMethodTransformer()
     };
@@ -77,7 +82,12 @@ public class OptimizationMethodVisitor extends MethodVisitor {
 
         if (shouldBeTransformed(methodNode)) {
             MANDATORY_METHOD_TRANSFORMER.transform("fake", methodNode);
-            if (canBeOptimized(methodNode) && !disableOptimization) {
+            if (!disableOptimization) {
+                if (canBeAnalyzed(methodNode)) {
+                    for (MethodTransformer transformer : FRAME_BASED_OPTIMIZATION_TRANSFORMERS) {
+                        transformer.transform("fake", methodNode);
+                    }
+                }
                 for (MethodTransformer transformer : OPTIMIZATION_TRANSFORMERS) {
                     transformer.transform("fake", methodNode);
                 }
@@ -133,7 +143,7 @@ public class OptimizationMethodVisitor extends MethodVisitor {
         return node.instructions.size() > 0;
     }
 
-    private static boolean canBeOptimized(@NotNull MethodNode node) {
+    private static boolean canBeAnalyzed(@NotNull MethodNode node) {
         int totalFramesSizeMb = node.instructions.size() * (node.maxLocals + node.maxStack) / (1024 * 1024);
         return totalFramesSizeMb < MEMORY_LIMIT_BY_METHOD_MB;
     }
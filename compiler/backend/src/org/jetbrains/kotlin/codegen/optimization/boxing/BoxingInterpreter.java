@@ -114,6 +114,18 @@ public class BoxingInterpreter extends OptimizationBasicInterpreter {
         return value;
     }
 
+    /**
+     * Returns false if none of the instructions can produce a {@link BoxedBasicValue}, so the analysis can be skipped
+     */
+    static boolean mayCreateBoxedValues(@NotNull InsnList insnList) {
+        for (AbstractInsnNode insn = insnList.getFirst(); insn != null; insn = insn.getNext()) {
+            if (isBoxing(insn)) return true;
+            // See isNextMethodCallOfProgressionIterator
+            if (insn.getOpcode() == Opcodes.INVOKEINTERFACE && "next".equals(((MethodInsnNode) insn).name)) return true;
+        }
+        return false;
+    }
+
     private static boolean isWrapperClassNameOrNumber(@NotNull String internalClassName) {
         return isWrapperClassName(internalClassName) || internalClassName.equals(Type.getInternalName(Number.class));
     }
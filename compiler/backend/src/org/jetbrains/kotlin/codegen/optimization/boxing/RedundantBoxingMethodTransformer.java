@@ -34,6 +34,9 @@ public class RedundantBoxingMethodTransformer extends MethodTransformer {
 
     @Override
     public void transform(@NotNull String internalClassName, @NotNull MethodNode node) {
+        // Don't analyze the method if no boxed values can appear in it
+        if (!BoxingInterpreter.mayCreateBoxedValues(node.instructions)) return;
+
         RedundantBoxingInterpreter interpreter = new RedundantBoxingInterpreter(node.instructions);
         Frame<BasicValue>[] frames = analyze(
                 internalClassName, node, interpreter
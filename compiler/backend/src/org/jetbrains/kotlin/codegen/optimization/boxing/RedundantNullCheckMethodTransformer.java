@@ -30,11 +30,21 @@ public class RedundantNullCheckMethodTransformer extends MethodTransformer {
 
     @Override
     public void transform(@NotNull String internalClassName, @NotNull MethodNode methodNode) {
+        // Don't analyze the method if there's nothing to optimize
+        if (!hasNullChecks(methodNode.instructions)) return;
+
         while (removeRedundantNullCheckPass(internalClassName, methodNode)) {
             //do nothing
         }
     }
 
+    private static boolean hasNullChecks(@NotNull InsnList insnList) {
+        for (AbstractInsnNode insn = insnList.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn.getOpcode() == Opcodes.IFNULL || insn.getOpcode() == Opcodes.IFNONNULL) return true;
+        }
+        return false;
+    }
+
     private static boolean removeRedundantNullCheckPass(@NotNull String internalClassName, @NotNull MethodNode methodNode) {
         InsnList insnList = methodNode.instructions;
         Frame<BasicValue>[] frames = analyze(
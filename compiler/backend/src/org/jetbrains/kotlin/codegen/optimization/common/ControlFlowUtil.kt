@@ -0,0 +1,85 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.optimization.common
+
+import org.jetbrains.org.objectweb.asm.Opcodes
+import org.jetbrains.org.objectweb.asm.tree.*
+import java.util.*
+
+/**
+ * Finds instructions reachable from the method entry by fall-through, jumps, switches and exception handlers.
+ *
+ * The result is the same as which frames of [org.jetbrains.org.objectweb.asm.tree.analysis.Analyzer] are not null,
+ * because the analyzer follows every control flow edge regardless of values, but no frames are allocated here,
+ * so this is cheap even for methods too big to be analyzed.
+ */
+fun MethodNode.findReachableInstructions(): BooleanArray {
+    val insnList = instructions
+    val size = insnList.size()
+    val reachable = BooleanArray(size)
+    if (size == 0) return reachable
+
+    val handlers = arrayOfNulls<MutableList<Int>>(size)
+    for (tcb in tryCatchBlocks) {
+        val handler = insnList.indexOf(tcb.handler)
+        for (index in insnList.indexOf(tcb.start)..insnList.indexOf(tcb.end) - 1) {
+            val insnHandlers = handlers[index] ?: ArrayList<Int>(1).apply { handlers[index] = this }
+            insnHandlers.add(handler)
+        }
+    }
+
+    val queue = IntArray(size)
+    var top = 0
+
+    fun enqueue(index: Int) {
+        if (index < size && !reachable[index]) {
+            reachable[index] = true
+            queue[top++] = index
+        }
+    }
+
+    enqueue(0)
+    while (top > 0) {
+        val index = queue[--top]
+        val insn = insnList[index]
+
+        when (insn) {
+            is JumpInsnNode -> {
+                if (insn.opcode != Opcodes.GOTO) enqueue(index + 1)
+                enqueue(insnList.indexOf(insn.label))
+            }
+            is TableSwitchInsnNode -> {
+                enqueue(insnList.indexOf(insn.dflt))
+                insn.labels.forEach { enqueue(insnList.indexOf(it)) }
+            }
+            is LookupSwitchInsnNode -> {
+                enqueue(insnList.indexOf(insn.dflt))
+                insn.labels.forEach { enqueue(insnList.indexOf(it)) }
+            }
+            else -> {
+                val opcode = insn.opcode
+                if (opcode != Opcodes.ATHROW && (opcode < Opcodes.IRETURN || opcode > Opcodes.RETURN)) {
+                    enqueue(index + 1)
+                }
+            }
+        }
+
+        handlers[index]?.forEach { enqueue(it) }
+    }
+
+    return reachable
+}
@@ -53,7 +53,8 @@ class BuilderFactoryForDuplicateSignatureDiagnostics(
     // Avoid errors when some classes are not loaded for some reason
     private val typeMapper = JetTypeMapper(bindingContext, ClassBuilderMode.LIGHT_CLASSES, fileClassesProvider, incrementalCache,
                                            IncompatibleClassTracker.DoNothing, moduleName)
-    private val reportDiagnosticsTasks = ArrayList<() -> Unit>()
+    // Classes may be generated in parallel, see GenerationState.codegenThreadCount
+    private val reportDiagnosticsTasks = Collections.synchronizedList(ArrayList<() -> Unit>())
 
     fun reportDiagnostics() {
         reportDiagnosticsTasks.forEach { it() }
@@ -26,6 +26,7 @@ import org.jetbrains.kotlin.codegen.binding.CodegenBinding
 import org.jetbrains.kotlin.codegen.context.CodegenContext
 import org.jetbrains.kotlin.codegen.context.RootContext
 import org.jetbrains.kotlin.codegen.extensions.ClassBuilderInterceptorExtension
+import org.jetbrains.kotlin.codegen.inline.InlineMethodNodeCache
 import org.jetbrains.kotlin.codegen.intrinsics.IntrinsicMethods
 import org.jetbrains.kotlin.codegen.optimization.OptimizationClassBuilderFactory
 import org.jetbrains.kotlin.descriptors.ModuleDescriptor
@@ -67,7 +68,9 @@ class GenerationState @JvmOverloads constructor(
         val outDirectory: File? = null,
         val incrementalCompilationComponents: IncrementalCompilationComponents? = null,
         val generateOpenMultifileClasses: Boolean = false,
-        val progress: Progress = Progress.DEAF
+        val progress: Progress = Progress.DEAF,
+        // number of threads to generate different packages and multifile classes with, see KotlinCodegenFacade
+        val codegenThreadCount: Int = 1
 ) {
     abstract class GenerateClassFilter {
         abstract fun shouldAnnotateClass(processingClassOrObject: KtClassOrObject): Boolean
@@ -95,7 +98,9 @@ class GenerationState @JvmOverloads constructor(
                 incrementalCompilationComponents.getIncrementalCache(targetId)
             else null
 
-    val extraJvmDiagnosticsTrace: BindingTrace = DelegatingBindingTrace(bindingContext, false, "For extra diagnostics in ${this.javaClass}")
+    val isParallelCodegen: Boolean = codegenThreadCount > 1
+
+    val extraJvmDiagnosticsTrace: BindingTrace = createTrace(bindingContext, false, "For extra diagnostics in ${this.javaClass}")
     private val interceptedBuilderFactory: ClassBuilderFactory
     private var used = false
 
@@ -107,7 +112,7 @@ class GenerationState @JvmOverloads constructor(
 
     val moduleName: String = moduleName ?: JvmCodegenUtil.getModuleName(module)
     val classBuilderMode: ClassBuilderMode = builderFactory.classBuilderMode
-    val bindingTrace: BindingTrace = DelegatingBindingTrace(bindingContext, "trace in GenerationState")
+    val bindingTrace: BindingTrace = createTrace(bindingContext, true, "trace in GenerationState")
     val bindingContext: BindingContext = bindingTrace.bindingContext
     val typeMapper: JetTypeMapper = JetTypeMapper(
             this.bindingContext, classBuilderMode, fileClassesProvider, getIncrementalCacheForThisTarget(),
@@ -116,6 +121,8 @@ class GenerationState @JvmOverloads constructor(
     val intrinsics: IntrinsicMethods = IntrinsicMethods()
     val samWrapperClasses: SamWrapperClasses = SamWrapperClasses(this)
     val inlineCycleReporter: InlineCycleReporter = InlineCycleReporter(diagnostics)
+    val inlineClassFileHashes: InlineMethodNodeCache.ClassFileHashes = InlineMethodNodeCache.ClassFileHashes()
+    val inlineCacheStatistics: InlineMethodNodeCache.Statistics = InlineMethodNodeCache.Statistics()
     val mappingsClassesForWhenByEnum: MappingsClassesForWhenByEnum = MappingsClassesForWhenByEnum(this)
     val reflectionTypes: ReflectionTypes = ReflectionTypes(module)
     val jvmRuntimeTypes: JvmRuntimeTypes = JvmRuntimeTypes()
@@ -164,6 +171,12 @@ class GenerationState @JvmOverloads constructor(
         this.factory = ClassFileFactory(this, interceptedBuilderFactory)
     }
 
+    private fun createTrace(parentContext: BindingContext, withParentDiagnostics: Boolean, debugName: String): BindingTrace =
+            if (isParallelCodegen)
+                DelegatingBindingTrace.createThreadSafe(parentContext, withParentDiagnostics, debugName)
+            else
+                DelegatingBindingTrace(parentContext, withParentDiagnostics, debugName)
+
     fun beforeCompile() {
         markUsed()
 
@@ -22,13 +22,15 @@ import org.jetbrains.kotlin.codegen.state.GenerationState;
 import org.jetbrains.kotlin.psi.KtWhenExpression;
 import org.jetbrains.org.objectweb.asm.Type;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 public class MappingsClassesForWhenByEnum {
     private final GenerationState state;
-    private final Set<String> generatedMappingClasses = new HashSet<String>();
+    // Mapping classes are generated per class file, so the check below doesn't race even if packages are generated in parallel
+    private final Set<String> generatedMappingClasses = Collections.synchronizedSet(new HashSet<String>());
     private final MappingClassesForWhenByEnumCodegen mappingsCodegen;
 
     public MappingsClassesForWhenByEnum(@NotNull GenerationState state) {
@@ -73,6 +73,26 @@ public class K2JVMCompilerArguments extends CommonCompilerArguments {
     @Argument(value = "Xskip-metadata-version-check", description = "Try loading binary incompatible classes, may cause crashes")
     public boolean skipMetadataVersionCheck;
 
+    @Argument(value = "Xparallel-parse", description = "Parse source files in parallel before analysis")
+    public boolean parallelParse;
+
+    @Argument(value = "Xparallel-body-resolve", description = "Resolve function bodies of different files in parallel")
+    public boolean parallelBodyResolve;
+
+    @Argument(value = "Xparallel-codegen", description = "Generate class files for different packages in parallel")
+    public boolean parallelCodegen;
+
+    @Argument(value = "Xclasspath-index-cache", description = "Cache the packages of classpath jars in the given directory between compilations")
+    @ValueDescription("<path>")
+    public String classpathIndexCache;
+
+    @Argument(value = "Xuse-old-class-files-reading", description = "Read Java classes from class files with PSI, as in older versions")
+    public boolean useOldClassFilesReading;
+
+    @Argument(value = "Xjar-compression", description = "Compression level of the output jar from 0 (entries are stored uncompressed) to 9")
+    @ValueDescription("<level>")
+    public String jarCompression;
+
     // Paths to output directories for friend modules.
     public String[] friendPaths;
 
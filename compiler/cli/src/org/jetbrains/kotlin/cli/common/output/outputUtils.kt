@@ -17,11 +17,13 @@
 package org.jetbrains.kotlin.cli.common.output.outputUtils
 
 import org.jetbrains.kotlin.backend.common.output.OutputFileCollection
+import org.jetbrains.kotlin.backend.common.output.StreamingOutputFile
 import org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation
 import org.jetbrains.kotlin.cli.common.messages.OutputMessageUtil
 import org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity
 import org.jetbrains.kotlin.cli.common.messages.MessageCollector
 import java.io.File
+import java.io.FileOutputStream
 import com.intellij.openapi.util.io.FileUtil
 
 fun OutputFileCollection.writeAll(outputDir: File, report: (sources: List<File>, output: File) -> Unit) {
@@ -29,7 +31,25 @@ fun OutputFileCollection.writeAll(outputDir: File, report: (sources: List<File>,
         val sources = file.sourceFiles
         val output = File(outputDir, file.relativePath)
         report(sources, output)
-        FileUtil.writeToFile(output, file.asByteArray())
+        if (file is StreamingOutputFile) {
+            writeStreaming(file, output)
+        }
+        else {
+            FileUtil.writeToFile(output, file.asByteArray())
+        }
+    }
+}
+
+// The content is streamed to a temporary file next to the output, so that a failure in the middle leaves no truncated output behind
+private fun writeStreaming(file: StreamingOutputFile, output: File) {
+    FileUtil.createParentDirs(output)
+    val temporary = File.createTempFile(output.name, ".tmp", output.absoluteFile.parentFile)
+    try {
+        FileOutputStream(temporary).buffered().use { file.writeTo(it) }
+        FileUtil.rename(temporary, output)
+    }
+    finally {
+        FileUtil.delete(temporary)
     }
 }
 
@@ -282,6 +282,29 @@ open class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
             configuration.put(JVMConfigurationKeys.MULTIFILE_FACADES_OPEN, arguments.multifileFacadesOpen);
             configuration.put(CLIConfigurationKeys.ALLOW_KOTLIN_PACKAGE, arguments.allowKotlinPackage);
             configuration.put(CLIConfigurationKeys.REPORT_PERF, arguments.reportPerf);
+            if (arguments.parallelParse) {
+                configuration.put(JVMConfigurationKeys.PARSE_THREADS, Runtime.getRuntime().availableProcessors())
+            }
+            if (arguments.parallelBodyResolve) {
+                configuration.put(JVMConfigurationKeys.BODY_RESOLVE_THREADS, Runtime.getRuntime().availableProcessors())
+            }
+            if (arguments.parallelCodegen) {
+                configuration.put(JVMConfigurationKeys.CODEGEN_THREADS, Runtime.getRuntime().availableProcessors())
+            }
+            arguments.classpathIndexCache?.let { configuration.put(JVMConfigurationKeys.CLASSPATH_INDEX_CACHE, File(it)) }
+            configuration.put(JVMConfigurationKeys.USE_PSI_CLASS_FILES_READING, arguments.useOldClassFilesReading)
+            arguments.jarCompression?.let { value ->
+                val level = try { value.toInt() } catch (e: NumberFormatException) { -1 }
+                if (level in 0..9) {
+                    configuration.put(JVMConfigurationKeys.JAR_COMPRESSION_LEVEL, level)
+                }
+                else {
+                    configuration[CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY]!!.report(
+                            CompilerMessageSeverity.WARNING, "Jar compression level should be from 0 to 9, the default is used: $value",
+                            CompilerMessageLocation.NO_LOCATION
+                    )
+                }
+            }
         }
 
         private fun getClasspath(paths: KotlinPaths, arguments: K2JVMCompilerArguments): List<File> {
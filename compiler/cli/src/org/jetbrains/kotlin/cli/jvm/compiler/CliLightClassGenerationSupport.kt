@@ -165,7 +165,7 @@ class CliLightClassGenerationSupport(project: Project) : LightClassGenerationSup
         return NoScopeRecordCliBindingTrace()
     }
 
-    class NoScopeRecordCliBindingTrace : CliBindingTrace() {
+    class NoScopeRecordCliBindingTrace @JvmOverloads constructor(threadSafe: Boolean = false) : CliBindingTrace(threadSafe) {
         override fun <K, V> record(slice: WritableSlice<K, V>, key: K, value: V) {
             if (slice === BindingContext.LEXICAL_SCOPE) {
                 // In the compiler there's no need to keep scopes
@@ -179,7 +179,7 @@ class CliLightClassGenerationSupport(project: Project) : LightClassGenerationSup
         }
     }
 
-    open class CliBindingTrace @TestOnly constructor() : BindingTraceContext() {
+    open class CliBindingTrace @TestOnly @JvmOverloads constructor(threadSafe: Boolean = false) : BindingTraceContext(threadSafe) {
         private var kotlinCodeAnalyzer: KotlinCodeAnalyzer? = null
 
         override fun toString(): String {
@@ -29,6 +29,7 @@ import com.intellij.openapi.vfs.VirtualFileSystem;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import kotlin.Unit;
+import kotlin.jvm.functions.Function0;
 import kotlin.io.FilesKt;
 import kotlin.jvm.functions.Function1;
 import kotlin.sequences.SequencesKt;
@@ -48,6 +49,7 @@ import org.jetbrains.kotlin.utils.ExceptionUtilsKt;
 import org.jetbrains.kotlin.utils.PathUtil;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -75,7 +77,14 @@ public class CompileEnvironmentUtil {
     }
 
     // TODO: includeRuntime should be not a flag but a path to runtime
-    private static void doWriteToJar(ClassFileFactory outputFiles, OutputStream fos, @Nullable FqName mainClass, boolean includeRuntime) {
+    private static void doWriteToJar(
+            ClassFileFactory outputFiles,
+            OutputStream fos,
+            @Nullable FqName mainClass,
+            boolean includeRuntime,
+            int compressionLevel,
+            int threadCount
+    ) {
         try {
             Manifest manifest = new Manifest();
             Attributes mainAttributes = manifest.getMainAttributes();
@@ -84,15 +93,31 @@ public class CompileEnvironmentUtil {
             if (mainClass != null) {
                 mainAttributes.putValue("Main-Class", mainClass.asString());
             }
-            JarOutputStream stream = new JarOutputStream(fos, manifest);
-            for (OutputFile outputFile : outputFiles.asList()) {
-                stream.putNextEntry(new JarEntry(outputFile.getRelativePath()));
-                stream.write(outputFile.asByteArray());
+            final ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+            manifest.write(manifestBytes);
+
+            List<OutputJarWriter.Entry> entries = new ArrayList<OutputJarWriter.Entry>();
+            entries.add(new OutputJarWriter.Entry(JarFile.MANIFEST_NAME, new Function0<byte[]>() {
+                @Override
+                public byte[] invoke() {
+                    return manifestBytes.toByteArray();
+                }
+            }));
+            for (final OutputFile outputFile : outputFiles.asList()) {
+                entries.add(new OutputJarWriter.Entry(outputFile.getRelativePath(), new Function0<byte[]>() {
+                    @Override
+                    public byte[] invoke() {
+                        return outputFile.asByteArray();
+                    }
+                }));
             }
+
+            OutputJarWriter writer = new OutputJarWriter(fos, compressionLevel, threadCount);
+            writer.writeEntries(entries);
             if (includeRuntime) {
-                writeRuntimeToJar(stream);
+                writeRuntimeToJar(writer);
             }
-            stream.finish();
+            writer.finish();
         }
         catch (IOException e) {
             throw new CompileEnvironmentException("Failed to generate jar file", e);
@@ -100,10 +125,25 @@ public class CompileEnvironmentUtil {
     }
 
     public static void writeToJar(File jarPath, boolean jarRuntime, FqName mainClass, ClassFileFactory outputFiles) {
+        writeToJar(jarPath, jarRuntime, mainClass, outputFiles, OutputJarWriter.DEFAULT_COMPRESSION_LEVEL, 1);
+    }
+
+    /**
+     * @param compressionLevel deflate level of the entries from 0 (stored uncompressed) to 9
+     * @param threadCount number of threads to compress the entries with
+     */
+    public static void writeToJar(
+            File jarPath,
+            boolean jarRuntime,
+            FqName mainClass,
+            ClassFileFactory outputFiles,
+            int compressionLevel,
+            int threadCount
+    ) {
         FileOutputStream outputStream = null;
         try {
             outputStream = new FileOutputStream(jarPath);
-            doWriteToJar(outputFiles, outputStream, mainClass, jarRuntime);
+            doWriteToJar(outputFiles, outputStream, mainClass, jarRuntime, compressionLevel, threadCount);
             outputStream.close();
         }
         catch (FileNotFoundException e) {
@@ -117,28 +157,19 @@ public class CompileEnvironmentUtil {
         }
     }
 
-    private static void writeRuntimeToJar(JarOutputStream stream) throws IOException {
+    // Classes of the runtime are copied as they are, without recompressing them
+    private static void writeRuntimeToJar(OutputJarWriter writer) throws IOException {
         File runtimePath = PathUtil.getKotlinPathsForCompiler().getRuntimePath();
         if (!runtimePath.exists()) {
             throw new CompileEnvironmentException("Couldn't find runtime library");
         }
 
-        JarInputStream jis = new JarInputStream(new FileInputStream(runtimePath));
-        try {
-            while (true) {
-                JarEntry e = jis.getNextJarEntry();
-                if (e == null) {
-                    break;
-                }
-                if (FileUtilRt.extensionEquals(e.getName(), "class")) {
-                    stream.putNextEntry(e);
-                    FileUtil.copy(jis, stream);
-                }
+        writer.copyEntries(runtimePath, new Function1<String, Boolean>() {
+            @Override
+            public Boolean invoke(String name) {
+                return FileUtilRt.extensionEquals(name, "class");
             }
-        }
-        finally {
-            jis.close();
-        }
+        });
     }
 
     @NotNull
@@ -20,9 +20,11 @@ import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.util.containers.IntArrayList
 import org.jetbrains.kotlin.name.ClassId
 import org.jetbrains.kotlin.name.FqName
+import java.io.File
 import java.util.ArrayList
 import java.util.EnumSet
-import java.util.HashMap
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicReferenceArray
 
 data class JavaRoot(val file: VirtualFile, val type: JavaRoot.RootType, val prefixFqName: FqName? = null) {
     enum class RootType {
@@ -37,9 +39,10 @@ data class JavaRoot(val file: VirtualFile, val type: JavaRoot.RootType, val pref
 }
 
 // speeds up finding files/classes in classpath/java source roots
-// NOT THREADSAFE, needs to be adapted/removed if we want compiler to be multithreaded
 // the main idea of this class is for each package to store roots which contains it to avoid excessive file system traversal
-class JvmDependenciesIndex(_roots: List<JavaRoot>) {
+// thread-safe: information about a package is immutable once computed, concurrent requests may compute it more than once
+// if cacheDirectory is given, packages of jars are loaded from it instead of traversing the jars (and saved there if they are outdated)
+class JvmDependenciesIndex @JvmOverloads constructor(_roots: List<JavaRoot>, private val cacheDirectory: File? = null) {
 
     //these fields are computed based on _roots passed to constructor which are filled in later
     private val roots: List<JavaRoot> by lazy { _roots.toList() }
@@ -47,33 +50,23 @@ class JvmDependenciesIndex(_roots: List<JavaRoot>) {
     private val maxIndex: Int
         get() = roots.size
 
-    // each "Cache" object corresponds to a package
-    private class Cache {
-        private val innerPackageCaches = HashMap<String, Cache>()
+    // all roots known to contain a package (in the ascending order of indices) and the package directory in each of them
+    // directories of roots found via the persistent cache are only looked up when a search gets to them
+    private class PackageRoots(val packagePath: String, val rootIndices: IntArray, val directories: Array<VirtualFile?>)
 
-        operator fun get(name: String) = innerPackageCaches.getOrPut(name) { Cache() }
+    private val packageRoots = ConcurrentHashMap<FqName, PackageRoots>()
 
-        // indices of roots that are known to contain this package
-        // if this list contains [1, 3, 5] then roots with indices 1, 3 and 5 are known to contain this package, 2 and 4 are known not to (no information about roots 6 or higher)
-        // if this list contains maxIndex that means that all roots containing this package are known
-        val rootIndices = IntArrayList()
-    }
-
-    // root "Cache" object corresponds to DefaultPackage which exists in every root. Roots with non-default fqname are also listed here but
+    // root package exists in every root. Roots with non-default fqname are also listed here but
     // they will be ignored on requests with invalid fqname prefix.
-    private val rootCache: Cache by lazy {
-        with(Cache()) {
-            roots.indices.forEach {
-                rootIndices.add(it)
-            }
-            rootIndices.add(maxIndex)
-            rootIndices.trimToSize()
-            this
-        }
+    private val rootPackageRoots: PackageRoots by lazy {
+        PackageRoots("", IntArray(maxIndex) { it }, Array<VirtualFile?>(maxIndex) { roots[it].file })
     }
 
+    private val persistentCache: PersistentCache? by lazy { cacheDirectory?.let { PersistentCache(it, roots) } }
+
     // holds the request and the result last time we searched for class
     // helps improve several scenarios, LazyJavaResolverContext.findClassInJava being the most important
+    @Volatile
     private var lastClassSearch: Pair<FindClassRequest, SearchResult>? = null
 
 
@@ -110,11 +103,12 @@ class JvmDependenciesIndex(_roots: List<JavaRoot>) {
         fun doSearch() = doSearch(request, handler)
 
         // make a decision based on information saved from last class search
-        if (request !is FindClassRequest || lastClassSearch == null) {
+        val lastSearch = lastClassSearch
+        if (request !is FindClassRequest || lastSearch == null) {
             return doSearch()
         }
         
-        val (cachedRequest, cachedResult) = lastClassSearch!!
+        val (cachedRequest, cachedResult) = lastSearch
         if (cachedRequest.classId != request.classId) {
             return doSearch()
         }
@@ -143,108 +137,105 @@ class JvmDependenciesIndex(_roots: List<JavaRoot>) {
     private fun <T : Any> doSearch(request: SearchRequest, handler: (VirtualFile, JavaRoot.RootType) -> HandleResult<T>): T? {
         val findClassRequest = request as? FindClassRequest
 
-        fun <T : Any> found(packageDirectory: VirtualFile, root: JavaRoot, result: T): T {
-            if (findClassRequest != null) {
-                lastClassSearch = Pair(findClassRequest, SearchResult.Found(packageDirectory, root))
-            }
-            return result
-        }
-
-        fun <T : Any> notFound(): T? {
-            if (findClassRequest != null) {
-                lastClassSearch = Pair(findClassRequest, SearchResult.NotFound)
-            }
-            return null
-        }
+        val packageRoots = getPackageRoots(request.packageFqName)
+        // NOTE: indices manipulation instead of iterating over collections is here for performance reasons
+        for (i in 0..packageRoots.rootIndices.size - 1) {
+            val root = roots[packageRoots.rootIndices[i]]
+            if (root.type !in request.acceptedRootTypes) continue
 
-        fun handle(root: JavaRoot, targetDirInRoot: VirtualFile): T? {
-            if (root.type in request.acceptedRootTypes) {
-                val (result, shouldContinue) = handler(targetDirInRoot, root.type)
-                if (!shouldContinue) {
+            val directoryInRoot = getDirectory(packageRoots, i) ?: continue
+            val (result, shouldContinue) = handler(directoryInRoot, root.type)
+            if (!shouldContinue) {
+                if (result != null) {
+                    if (findClassRequest != null) {
+                        lastClassSearch = Pair(findClassRequest, SearchResult.Found(directoryInRoot, root))
+                    }
                     return result
                 }
             }
-            return null
         }
 
-        // a list of package sub names, ["org", "jb", "kotlin"]
-        val packagesPath = request.packageFqName.pathSegments().map { it.identifier }
-        // a list of caches corresponding to packages, [default, "org", "org.jb", "org.jb.kotlin"]
-        val caches = cachesPath(packagesPath)
-
-        var processedRootsUpTo = -1
-        // traverse caches starting from last, which contains most specific information
-
-        // NOTE: indices manipulation instead of using caches.indices.reversed() is here for performance reasons
-        val cachesLastIndex = caches.lastIndex
-        for (cacheIndex in 0..cachesLastIndex) {
-            val reverseCacheIndex = cachesLastIndex - cacheIndex
-            val cache = caches[reverseCacheIndex]
-            for (i in 0..cache.rootIndices.size() - 1) {
-                val rootIndex = cache.rootIndices[i]
-                if (rootIndex <= processedRootsUpTo) continue // roots with those indices have been processed by now
-
-                val directoryInRoot = travelPath(rootIndex, packagesPath, reverseCacheIndex, caches) ?: continue
-                val root = roots[rootIndex]
-                val result = handle(root, directoryInRoot)
-                if (result != null) {
-                    return found(directoryInRoot, root, result)
-                }
-            }
-            processedRootsUpTo = cache.rootIndices.lastOrNull() ?: processedRootsUpTo
+        if (findClassRequest != null) {
+            lastClassSearch = Pair(findClassRequest, SearchResult.NotFound)
         }
-        
-        return notFound()
+        return null
     }
 
-    // try to find a target directory corresponding to package represented by packagesPath in a given root reprenting by index
-    // possibly filling "Cache" objects with new information
-    private fun travelPath(rootIndex: Int, packagesPath: List<String>, fillCachesAfter: Int, cachesPath: List<Cache>): VirtualFile? {
-        if (rootIndex >= maxIndex) {
-            for (i in (fillCachesAfter + 1)..(cachesPath.size - 1)) {
-                // we all know roots that contain this package by now
-                cachesPath[i].rootIndices.add(maxIndex)
-                cachesPath[i].rootIndices.trimToSize()
-            }
-            return null
-        }
-
-        val pathRoot = roots[rootIndex]
-        val prefixPathSegments = pathRoot.prefixFqName?.pathSegments()
+    private fun getPackageRoots(packageFqName: FqName): PackageRoots {
+        if (packageFqName.isRoot) return rootPackageRoots
 
-        var currentFile = pathRoot.file
+        packageRoots[packageFqName]?.let { return it }
+        val computed = computePackageRoots(packageFqName)
+        return packageRoots.putIfAbsent(packageFqName, computed) ?: computed
+    }
 
-        for (pathIndex in packagesPath.indices) {
-            val subPackageName = packagesPath[pathIndex]
-            if (prefixPathSegments != null && pathIndex < prefixPathSegments.size) {
+    // narrows down the roots of the parent package to the ones which contain the given package
+    private fun computePackageRoots(packageFqName: FqName): PackageRoots {
+        val parent = getPackageRoots(packageFqName.parent())
+        val subPackageName = packageFqName.shortName().asString()
+        val pathIndex = packageFqName.pathSegments().size - 1
+        val packagePath = if (parent.packagePath.isEmpty()) subPackageName else parent.packagePath + "/" + subPackageName
+        val persistentCache = persistentCache
+
+        val rootIndices = IntArrayList(parent.rootIndices.size)
+        val directories = ArrayList<VirtualFile?>(parent.rootIndices.size)
+        for (i in 0..parent.rootIndices.size - 1) {
+            val rootIndex = parent.rootIndices[i]
+            val root = roots[rootIndex]
+            val prefixPathSegments = root.prefixFqName?.pathSegments()
+
+            val contains = persistentCache?.containsPackage(rootIndex, packagePath)
+            val directory = if (prefixPathSegments != null && pathIndex < prefixPathSegments.size) {
                 // Traverse prefix first instead of traversing real directories
-                if (prefixPathSegments[pathIndex].identifier != subPackageName) {
-                    return null
-                }
+                if (prefixPathSegments[pathIndex].identifier == subPackageName) parent.directories[i] else null
+            }
+            else if (contains != null) {
+                if (!contains) continue
+                null
             }
             else {
-                currentFile = currentFile.findChild(subPackageName) ?: return null
+                parent.directories[i]!!.findChild(subPackageName) ?: continue
             }
 
-            val correspondingCacheIndex = pathIndex + 1
-            if (correspondingCacheIndex > fillCachesAfter) {
-                // subPackageName exists in this root
-                cachesPath[correspondingCacheIndex].rootIndices.add(rootIndex)
-            }
+            rootIndices.add(rootIndex)
+            directories.add(directory)
         }
 
-        return currentFile
+        return PackageRoots(packagePath, rootIndices.toArray(), directories.toTypedArray())
+    }
+
+    // the directory is null if the persistent cache is wrong about the root containing the package
+    private fun getDirectory(packageRoots: PackageRoots, i: Int): VirtualFile? {
+        packageRoots.directories[i]?.let { return it }
+        val directory = roots[packageRoots.rootIndices[i]].file.findFileByRelativePath(packageRoots.packagePath)
+        packageRoots.directories[i] = directory
+        return directory
     }
 
-    private fun cachesPath(path: List<String>): List<Cache> {
-        val caches = ArrayList<Cache>()
-        caches.add(rootCache)
-        var currentCache = rootCache
-        for (subPackageName in path) {
-            currentCache = currentCache[subPackageName]
-            caches.add(currentCache)
+    // the cache of each jar is loaded (or created) only when a package is first looked up in it
+    private class PersistentCache(private val directory: File, private val roots: List<JavaRoot>) {
+        private val jarCaches = AtomicReferenceArray<Any>(roots.size)
+
+        // null if the root is not covered by the cache, so its directories have to be traversed
+        fun containsPackage(rootIndex: Int, packagePath: String): Boolean? {
+            val cache = getJarCache(rootIndex) ?: return null
+            return cache.containsPackage(packagePath)
+        }
+
+        private fun getJarCache(rootIndex: Int): JvmDependenciesIndexCache? {
+            val known = jarCaches.get(rootIndex)
+            if (known != null) return known as? JvmDependenciesIndexCache
+
+            val root = roots[rootIndex]
+            val jar = JvmDependenciesIndexCache.getJar(root)
+            val cache = if (jar != null) JvmDependenciesIndexCache.loadOrCreate(directory, jar, root.file) else null
+            jarCaches.set(rootIndex, cache ?: NOT_CACHED)
+            return cache
+        }
+
+        companion object {
+            private val NOT_CACHED = Any()
         }
-        return caches
     }
 
     private data class FindClassRequest(val classId: ClassId, override val acceptedRootTypes: Set<JavaRoot.RootType>) : SearchRequest {
@@ -268,6 +259,3 @@ class JvmDependenciesIndex(_roots: List<JavaRoot>) {
         object NotFound : SearchResult
     }
 }
-
-private fun IntArrayList.lastOrNull() = if (isEmpty) null else get(size() - 1)
-private val IntArrayList.indices: IntRange get() = 0..(size() - 1)
\ No newline at end of file
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler
+
+import com.intellij.openapi.vfs.StandardFileSystems
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.util.io.URLUtil
+import java.io.*
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.*
+
+// Packages contained in a jar on the classpath, stored in a file of the cache directory and memory-mapped on the next run
+// Every jar has its own file, so that only the jars which are actually looked into are walked
+// A file is only valid for exactly the same jar (path, size and modification time)
+// Packages are identified by their relative paths in the jar, e.g. "org/jetbrains/kotlin"
+class JvmDependenciesIndexCache private constructor(private val buffer: ByteBuffer, private val packageOffsetsStart: Int, private val packageCount: Int) {
+    data class Jar(val path: String, val length: Long, val lastModified: Long)
+
+    fun containsPackage(packagePath: String): Boolean {
+        var low = 0
+        var high = packageCount - 1
+        while (low <= high) {
+            val middle = (low + high).ushr(1)
+            val comparison = readString(buffer.getInt(packageOffsetsStart + middle * 4)).compareTo(packagePath)
+            when {
+                comparison < 0 -> low = middle + 1
+                comparison > 0 -> high = middle - 1
+                else -> return true
+            }
+        }
+        return false
+    }
+
+    private fun readString(offset: Int): String {
+        val bytes = ByteArray(buffer.getInt(offset))
+        for (i in bytes.indices) {
+            bytes[i] = buffer.get(offset + 4 + i)
+        }
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    companion object {
+        private const val MAGIC = 0x4B4A4449
+        private const val VERSION = 2
+
+        // null if the root can't be cached, i.e. is not a jar on the local file system
+        @JvmStatic
+        fun getJar(root: JavaRoot): Jar? {
+            if (root.type != JavaRoot.RootType.BINARY || root.prefixFqName != null) return null
+            if (root.file.fileSystem.protocol != StandardFileSystems.JAR_PROTOCOL) return null
+            val ioFile = File(root.file.path.substringBefore(URLUtil.JAR_SEPARATOR))
+            if (!ioFile.isFile) return null
+            return Jar(ioFile.absolutePath, ioFile.length(), ioFile.lastModified())
+        }
+
+        // jars with the same name in different directories get different files
+        @JvmStatic
+        fun getCacheFile(directory: File, jar: Jar): File =
+                File(directory, File(jar.path).name + "-" + Integer.toHexString(jar.path.hashCode()) + ".packages")
+
+        // Loads the packages of the jar from the cache directory or, if they aren't there or are outdated,
+        // walks the jar and saves them there; errors on writing are ignored
+        @JvmStatic
+        fun loadOrCreate(directory: File, jar: Jar, jarRoot: VirtualFile): JvmDependenciesIndexCache {
+            val file = getCacheFile(directory, jar)
+            return load(file, jar) ?: createAndSave(file, jar, jarRoot)
+        }
+
+        // null if the file doesn't exist, is corrupted or was created for another jar
+        @JvmStatic
+        fun load(file: File, jar: Jar): JvmDependenciesIndexCache? {
+            if (!file.isFile) return null
+            try {
+                val buffer = RandomAccessFile(file, "r").use { it.channel.map(FileChannel.MapMode.READ_ONLY, 0, it.length()) }
+                val input = DataInputStream(ByteBufferInputStream(buffer.duplicate()))
+                if (input.readInt() != MAGIC || input.readInt() != VERSION) return null
+                if (input.readUTF() != jar.path || input.readLong() != jar.length || input.readLong() != jar.lastModified) return null
+
+                val packageCount = input.readInt()
+                return JvmDependenciesIndexCache(buffer, buffer.capacity() - input.available(), packageCount)
+            }
+            catch (e: IOException) {
+                return null
+            }
+        }
+
+        private fun createAndSave(file: File, jar: Jar, jarRoot: VirtualFile): JvmDependenciesIndexCache {
+            val packages = TreeSet<String>()
+            collectPackages(jarRoot, "") { packages.add(it) }
+
+            val bytes = ByteArrayOutputStream()
+            with(DataOutputStream(bytes)) {
+                writeInt(MAGIC)
+                writeInt(VERSION)
+                writeUTF(jar.path)
+                writeLong(jar.length)
+                writeLong(jar.lastModified)
+
+                writeInt(packages.size)
+                val packageOffsetsStart = size()
+                var entryOffset = packageOffsetsStart + packages.size * 4
+                for (packagePath in packages) {
+                    writeInt(entryOffset)
+                    entryOffset += 4 + packagePath.toByteArray(Charsets.UTF_8).size
+                }
+                for (packagePath in packages) {
+                    val nameBytes = packagePath.toByteArray(Charsets.UTF_8)
+                    writeInt(nameBytes.size)
+                    write(nameBytes)
+                }
+                flush()
+
+                val result = bytes.toByteArray()
+                save(file, result)
+                return JvmDependenciesIndexCache(ByteBuffer.wrap(result), packageOffsetsStart, packages.size)
+            }
+        }
+
+        private fun collectPackages(directory: VirtualFile, path: String, report: (String) -> Unit) {
+            for (child in directory.children) {
+                if (!child.isDirectory) continue
+                val childPath = if (path.isEmpty()) child.name else path + "/" + child.name
+                report(childPath)
+                collectPackages(child, childPath, report)
+            }
+        }
+
+        private fun save(file: File, bytes: ByteArray) {
+            try {
+                file.absoluteFile.parentFile?.mkdirs()
+                // Another compiler may be reading the old version, so it's replaced rather than rewritten
+                val temporary = File.createTempFile(file.name, ".tmp", file.absoluteFile.parentFile)
+                temporary.writeBytes(bytes)
+                if (!temporary.renameTo(file)) {
+                    file.delete()
+                    if (!temporary.renameTo(file)) {
+                        temporary.delete()
+                    }
+                }
+            }
+            catch (e: IOException) {
+                // The cache is only an optimization
+            }
+        }
+    }
+
+    private class ByteBufferInputStream(private val buffer: ByteBuffer) : InputStream() {
+        override fun read(): Int = if (buffer.hasRemaining()) buffer.get().toInt() and 0xFF else -1
+
+        override fun available(): Int = buffer.remaining()
+    }
+}
@@ -26,11 +26,15 @@ import com.intellij.psi.PsiManager
 import com.intellij.psi.PsiPackage
 import com.intellij.psi.impl.file.PsiPackageImpl
 import com.intellij.psi.search.GlobalSearchScope
+import org.jetbrains.kotlin.load.java.structure.JavaClass
+import org.jetbrains.kotlin.load.java.structure.impl.JavaClassImpl
+import org.jetbrains.kotlin.load.java.structure.impl.classFiles.BinaryJavaClass
 import org.jetbrains.kotlin.name.ClassId
 import org.jetbrains.kotlin.name.FqName
 import org.jetbrains.kotlin.resolve.jvm.KotlinCliJavaFileManager
 import org.jetbrains.kotlin.util.PerformanceCounter
 import java.util.ArrayList
+import java.util.concurrent.ConcurrentHashMap
 import kotlin.properties.Delegates
 
 class KotlinCliJavaFileManagerImpl(private val myPsiManager: PsiManager)
@@ -38,9 +42,27 @@ class KotlinCliJavaFileManagerImpl(private val myPsiManager: PsiManager)
 
     private val perfCounter = PerformanceCounter.create("Find Java class")
     private var index: JvmDependenciesIndex by Delegates.notNull()
+    private var usePsiClassFilesReading = false
+    // Classes referenced from a binary class are looked up in the scope it has been found in, so the scope is a part of the key
+    private val binaryClassCache = ConcurrentHashMap<Pair<VirtualFile, GlobalSearchScope>, BinaryJavaClass>()
 
-    fun initIndex(packagesCache: JvmDependenciesIndex) {
+    fun initIndex(packagesCache: JvmDependenciesIndex, usePsiClassFilesReading: Boolean = false) {
         this.index = packagesCache
+        this.usePsiClassFilesReading = usePsiClassFilesReading
+    }
+
+    override fun findJavaClass(classId: ClassId, searchScope: GlobalSearchScope): JavaClass? {
+        return perfCounter.time {
+            val classNameWithInnerClasses = classId.relativeClassName.asString()
+            index.findClass(classId) { dir, type ->
+                if (type == JavaRoot.RootType.BINARY && !usePsiClassFilesReading) {
+                    findBinaryClassGivenPackage(searchScope, dir, classId)
+                }
+                else {
+                    findClassGivenPackage(searchScope, dir, classNameWithInnerClasses, type)?.let { JavaClassImpl(it) }
+                }
+            }
+        }
     }
 
     override fun findClass(classId: ClassId, searchScope: GlobalSearchScope): PsiClass? {
@@ -97,16 +119,25 @@ class KotlinCliJavaFileManagerImpl(private val myPsiManager: PsiManager)
         return null
     }
 
-    private fun findClassGivenPackage(
-            scope: GlobalSearchScope, packageDir: VirtualFile,
-            classNameWithInnerClasses: String, rootType: JavaRoot.RootType
-    ): PsiClass? {
-        val topLevelClassName = classNameWithInnerClasses.substringBefore('.')
+    private fun findBinaryClassGivenPackage(scope: GlobalSearchScope, packageDir: VirtualFile, classId: ClassId): JavaClass? {
+        val segments = classId.relativeClassName.pathSegments()
+        val vFile = findChildInPackage(scope, packageDir, "${segments.first().asString()}.class") ?: return null
 
-        val vFile = when (rootType) {
-            JavaRoot.RootType.BINARY -> packageDir.findChild("$topLevelClassName.class")
-            JavaRoot.RootType.SOURCE -> packageDir.findChild("$topLevelClassName.java")
-        } ?: return null
+        val key = Pair(vFile, scope)
+        var result = binaryClassCache[key] ?: run {
+            val topLevelClass = BinaryJavaClass(vFile, classId.packageFqName.child(segments.first()), null) { referencedClassId ->
+                findJavaClass(referencedClassId, scope)
+            }
+            binaryClassCache.putIfAbsent(key, topLevelClass) ?: topLevelClass
+        }
+        for (innerClassName in segments.drop(1)) {
+            result = result.findInnerClass(innerClassName) ?: return null
+        }
+        return result
+    }
+
+    private fun findChildInPackage(scope: GlobalSearchScope, packageDir: VirtualFile, fileName: String): VirtualFile? {
+        val vFile = packageDir.findChild(fileName) ?: return null
 
         if (!vFile.isValid) {
             LOG.error("Invalid child of valid parent: ${vFile.path}; ${packageDir.isValid} path=${packageDir.path}")
@@ -115,6 +146,19 @@ class KotlinCliJavaFileManagerImpl(private val myPsiManager: PsiManager)
         if (vFile !in scope) {
             return null
         }
+        return vFile
+    }
+
+    private fun findClassGivenPackage(
+            scope: GlobalSearchScope, packageDir: VirtualFile,
+            classNameWithInnerClasses: String, rootType: JavaRoot.RootType
+    ): PsiClass? {
+        val topLevelClassName = classNameWithInnerClasses.substringBefore('.')
+
+        val vFile = when (rootType) {
+            JavaRoot.RootType.BINARY -> findChildInPackage(scope, packageDir, "$topLevelClassName.class")
+            JavaRoot.RootType.SOURCE -> findChildInPackage(scope, packageDir, "$topLevelClassName.java")
+        } ?: return null
 
         val file = myPsiManager.findFile(vFile) as? PsiClassOwner ?: return null
         return findClassInPsiFile(classNameWithInnerClasses, file)
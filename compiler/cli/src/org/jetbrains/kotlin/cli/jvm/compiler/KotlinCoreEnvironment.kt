@@ -93,6 +93,7 @@ import org.jetbrains.kotlin.script.KotlinScriptDefinitionProvider
 import org.jetbrains.kotlin.utils.PathUtil
 import java.io.File
 import java.util.*
+import java.util.concurrent.TimeUnit
 
 class KotlinCoreEnvironment private constructor(
         parentDisposable: Disposable, 
@@ -127,8 +128,8 @@ class KotlinCoreEnvironment private constructor(
 
         fillClasspath(configuration)
         val fileManager = ServiceManager.getService(project, CoreJavaFileManager::class.java)
-        val index = JvmDependenciesIndex(javaRoots)
-        (fileManager as KotlinCliJavaFileManagerImpl).initIndex(index)
+        val index = JvmDependenciesIndex(javaRoots, configuration.get(JVMConfigurationKeys.CLASSPATH_INDEX_CACHE))
+        (fileManager as KotlinCliJavaFileManagerImpl).initIndex(index, configuration.get(JVMConfigurationKeys.USE_PSI_CLASS_FILES_READING, false))
 
         sourceFiles.addAll(CompileEnvironmentUtil.getKtFiles(project, getSourceRootsCheckingForDuplicates(), this.configuration, {
             message ->
@@ -140,6 +141,15 @@ class KotlinCoreEnvironment private constructor(
             }
         })
 
+        configuration.get(JVMConfigurationKeys.PARSE_THREADS)?.let { threadCount ->
+            val statistics = SourceFilesPreParser.parse(sourceFiles, threadCount)
+            reportPerf("PARSE: $statistics")
+            for (file in statistics.slowestFiles(SLOWEST_PARSED_FILES_TO_REPORT)) {
+                reportPerf("PARSE: ${file.file.virtualFile?.path ?: file.file.name} " +
+                           "(${file.bytes} bytes) in ${TimeUnit.NANOSECONDS.toMillis(file.nanos)} ms")
+            }
+        }
+
         KotlinScriptDefinitionProvider.getInstance(project).setScriptDefinitions(configuration.getList(CommonConfigurationKeys.SCRIPT_DEFINITIONS_KEY))
 
         project.registerService(JvmVirtualFileFinderFactory::class.java, JvmCliVirtualFileFinderFactory(index))
@@ -252,8 +262,17 @@ class KotlinCoreEnvironment private constructor(
         messageCollector.report(severity, message, CompilerMessageLocation.NO_LOCATION)
     }
 
+    private fun reportPerf(message: String) {
+        if (!configuration.get(CLIConfigurationKeys.REPORT_PERF, false)) return
+
+        configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY)
+                ?.report(CompilerMessageSeverity.INFO, "PERF: $message", CompilerMessageLocation.NO_LOCATION)
+    }
+
     companion object {
 
+        private val SLOWEST_PARSED_FILES_TO_REPORT = 10
+
         private val APPLICATION_LOCK = Object()
         private var ourApplicationEnvironment: JavaCoreApplicationEnvironment? = null
         private var ourProjectCount = 0
@@ -29,6 +29,9 @@ import org.jetbrains.kotlin.cli.jvm.config.*
 import org.jetbrains.kotlin.codegen.*
 import org.jetbrains.kotlin.codegen.state.GenerationState
 import org.jetbrains.kotlin.config.CompilerConfiguration
+import org.jetbrains.kotlin.context.GlobalContext
+import org.jetbrains.kotlin.context.GlobalContextWithPerKeyLocking
+import org.jetbrains.kotlin.context.withProject
 import org.jetbrains.kotlin.config.addKotlinSourceRoots
 import org.jetbrains.kotlin.fileClasses.JvmFileClassUtil
 import org.jetbrains.kotlin.idea.MainFunctionDetector
@@ -40,6 +43,7 @@ import org.jetbrains.kotlin.name.Name
 import org.jetbrains.kotlin.name.isSubpackageOf
 import org.jetbrains.kotlin.progress.ProgressIndicatorAndCompilationCanceledStatus
 import org.jetbrains.kotlin.psi.KtFile
+import org.jetbrains.kotlin.resolve.BodyResolveParallelism
 import org.jetbrains.kotlin.resolve.jvm.JvmClassName
 import org.jetbrains.kotlin.resolve.jvm.TopDownAnalyzerFacadeForJVM
 import org.jetbrains.kotlin.util.PerformanceCounter
@@ -73,7 +77,11 @@ object KotlinToJVMBytecodeCompiler {
             jarRuntime: Boolean,
             mainClass: FqName?) {
         if (jarPath != null) {
-            CompileEnvironmentUtil.writeToJar(jarPath, jarRuntime, mainClass, outputFiles)
+            CompileEnvironmentUtil.writeToJar(
+                    jarPath, jarRuntime, mainClass, outputFiles,
+                    configuration.get(JVMConfigurationKeys.JAR_COMPRESSION_LEVEL, OutputJarWriter.DEFAULT_COMPRESSION_LEVEL),
+                    Runtime.getRuntime().availableProcessors()
+            )
         }
         else {
             val messageCollector = configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, MessageCollector.NONE)
@@ -89,8 +97,6 @@ object KotlinToJVMBytecodeCompiler {
             jarPath: File?,
             friendPaths: List<String>,
             jarRuntime: Boolean): Boolean {
-        val outputFiles = hashMapOf<Module, ClassFileFactory>()
-
         ProgressIndicatorAndCompilationCanceledStatus.checkCanceled()
 
         val moduleVisibilityManager = ModuleVisibilityManager.SERVICE.getInstance(environment.project)
@@ -110,30 +116,28 @@ object KotlinToJVMBytecodeCompiler {
 
         result.throwIfError()
 
-        val generationStates = ArrayList<GenerationState>();
-
-        for (module in chunk) {
-            ProgressIndicatorAndCompilationCanceledStatus.checkCanceled()
-            val ktFiles = CompileEnvironmentUtil.getKtFiles(
-                    environment.project, getAbsolutePaths(directory, module), configuration) { s -> throw IllegalStateException("Should have been checked before: " + s) }
-            if (!checkKotlinPackageUsage(environment, ktFiles)) return false
-            val moduleOutputDirectory = File(module.getOutputDirectory())
-            val generationState = generate(environment, result, ktFiles, module, moduleOutputDirectory,
-                                           module.getModuleName())
-            outputFiles.put(module, generationState.factory)
-            generationStates.add(generationState);
-        }
-
+        val generationStates = LinkedHashMap<Module, GenerationState>()
         try {
             for (module in chunk) {
                 ProgressIndicatorAndCompilationCanceledStatus.checkCanceled()
-                writeOutput(configuration, outputFiles[module]!!, File(module.getOutputDirectory()), jarPath, jarRuntime, null)
+                val ktFiles = CompileEnvironmentUtil.getKtFiles(
+                        environment.project, getAbsolutePaths(directory, module), configuration) { s -> throw IllegalStateException("Should have been checked before: " + s) }
+                if (!checkKotlinPackageUsage(environment, ktFiles)) return false
+                val moduleOutputDirectory = File(module.getOutputDirectory())
+                generationStates.put(module, generate(environment, result, ktFiles, module, moduleOutputDirectory,
+                                                      module.getModuleName()))
+            }
+
+            // Nothing is written until every module of the chunk has been generated, so a failure leaves no partial output
+            for ((module, generationState) in generationStates) {
+                ProgressIndicatorAndCompilationCanceledStatus.checkCanceled()
+                writeOutput(configuration, generationState.factory, File(module.getOutputDirectory()), jarPath, jarRuntime, null)
             }
             return true
         }
         finally {
-            for (generationState in generationStates) {
-                generationState.destroy();
+            for (generationState in generationStates.values) {
+                generationState.destroy()
             }
         }
     }
@@ -283,8 +287,14 @@ object KotlinToJVMBytecodeCompiler {
         analyzerWithCompilerReport.analyzeAndReport(
                 environment.getSourceFiles(), object : AnalyzerWithCompilerReport.Analyzer {
             override fun analyze(): AnalysisResult {
-                val sharedTrace = CliLightClassGenerationSupport.NoScopeRecordCliBindingTrace()
-                val moduleContext = TopDownAnalyzerFacadeForJVM.createContextWithSealedModule(environment.project,
+                val bodyResolveParallelism = BodyResolveParallelism.withThreads(
+                        environment.configuration.get(JVMConfigurationKeys.BODY_RESOLVE_THREADS, 1))
+                // The trace may be written to by lazy resolution during parallel code generation as well
+                val parallelCodegen = environment.configuration.get(JVMConfigurationKeys.CODEGEN_THREADS, 1) > 1
+                val sharedTrace = CliLightClassGenerationSupport.NoScopeRecordCliBindingTrace(
+                        bodyResolveParallelism.isParallel || parallelCodegen)
+                val globalContext = if (bodyResolveParallelism.isParallel) GlobalContextWithPerKeyLocking() else GlobalContext()
+                val moduleContext = TopDownAnalyzerFacadeForJVM.createContextWithSealedModule(globalContext.withProject(environment.project),
                                                                                               environment.getModuleName())
 
                 return TopDownAnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationWithCustomContext(
@@ -293,7 +303,8 @@ object KotlinToJVMBytecodeCompiler {
                         sharedTrace,
                         environment.configuration.get(JVMConfigurationKeys.MODULES),
                         environment.configuration.get(JVMConfigurationKeys.INCREMENTAL_COMPILATION_COMPONENTS),
-                        JvmPackagePartProvider(environment))
+                        JvmPackagePartProvider(environment),
+                        bodyResolveParallelism)
             }
 
             override fun reportEnvironmentErrors() {
@@ -368,7 +379,8 @@ object KotlinToJVMBytecodeCompiler {
                 moduleName,
                 outputDirectory,
                 incrementalCompilationComponents,
-                configuration.get(JVMConfigurationKeys.MULTIFILE_FACADES_OPEN, false))
+                configuration.get(JVMConfigurationKeys.MULTIFILE_FACADES_OPEN, false),
+                codegenThreadCount = configuration.get(JVMConfigurationKeys.CODEGEN_THREADS, 1))
         ProgressIndicatorAndCompilationCanceledStatus.checkCanceled()
 
         val generationStart = PerformanceCounter.currentTime()
@@ -384,6 +396,8 @@ object KotlinToJVMBytecodeCompiler {
         val message = "GENERATE: $numberOfSourceFiles files ($numberOfLines lines) ${desc}in $time ms - ${"%.3f".format(speed)} loc/s"
 
         K2JVMCompiler.reportPerf(environment.configuration, message)
+
+        K2JVMCompiler.reportPerf(environment.configuration, "INLINE: ${generationState.inlineCacheStatistics}")
         ProgressIndicatorAndCompilationCanceledStatus.checkCanceled()
 
         AnalyzerWithCompilerReport.reportDiagnostics(
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler
+
+import org.jetbrains.kotlin.utils.rethrow
+import java.io.*
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.zip.CRC32
+import java.util.zip.Deflater
+import java.util.zip.ZipException
+
+/**
+ * Writes a jar file, compressing the given entries on several threads and copying entries of other jars without recompressing them.
+ *
+ * The output only depends on the entries and their order: entries are written in the order they're added, all with the same
+ * modification time, so that compiling the same sources twice gives the same jar. ZIP64 is not supported.
+ */
+class OutputJarWriter(output: OutputStream, private val compressionLevel: Int, private val threadCount: Int) {
+    class Entry(val name: String, val contents: () -> ByteArray)
+
+    private class EntryHeader(
+            val name: ByteArray,
+            val method: Int,
+            val time: Int,
+            val date: Int,
+            val crc: Long,
+            val compressedSize: Long,
+            val size: Long,
+            val extra: ByteArray,
+            val localHeaderOffset: Long
+    )
+
+    private class CompressedEntry(val name: String, val method: Int, val crc: Long, val size: Int, val data: ByteArray)
+
+    private val output = CountingOutputStream(BufferedOutputStream(output, 1 shl 16))
+    private val headers = ArrayList<EntryHeader>()
+    private val names = HashSet<String>()
+
+    init {
+        if (compressionLevel !in 0..9) throw IllegalArgumentException("Compression level should be from 0 to 9: $compressionLevel")
+    }
+
+    fun writeEntries(entries: List<Entry>) {
+        if (threadCount < 2 || entries.size < MIN_ENTRIES_FOR_PARALLEL_COMPRESSION) {
+            for (entry in entries) {
+                write(compress(entry))
+            }
+            return
+        }
+
+        val executor = Executors.newFixedThreadPool(Math.min(threadCount, entries.size))
+        try {
+            // Entries are compressed in any order, but written in the order of the list
+            val results = entries.map { entry -> executor.submit(Callable { compress(entry) }) }
+            for (result in results) {
+                write(result.get())
+            }
+        }
+        catch (e: InterruptedException) {
+            throw rethrow(e)
+        }
+        catch (e: ExecutionException) {
+            throw rethrow(e.cause!!)
+        }
+        finally {
+            executor.shutdownNow()
+        }
+    }
+
+    private fun compress(entry: Entry): CompressedEntry {
+        val bytes = entry.contents()
+        val crc = CRC32()
+        crc.update(bytes)
+        if (compressionLevel == 0) {
+            return CompressedEntry(entry.name, STORED, crc.value, bytes.size, bytes)
+        }
+
+        val deflater = Deflater(compressionLevel, true)
+        try {
+            deflater.setInput(bytes)
+            deflater.finish()
+            val result = ByteArrayOutputStream(bytes.size / 2 + 64)
+            val buffer = ByteArray(1 shl 14)
+            while (!deflater.finished()) {
+                val count = deflater.deflate(buffer)
+                result.write(buffer, 0, count)
+            }
+            return CompressedEntry(entry.name, DEFLATED, crc.value, bytes.size, result.toByteArray())
+        }
+        finally {
+            deflater.end()
+        }
+    }
+
+    private fun write(entry: CompressedEntry) {
+        // The first entry of a jar has an empty extra field with the id 0xCAFE, as in jars written by JarOutputStream
+        val extra = if (headers.isEmpty()) JAR_MAGIC_EXTRA else NO_EXTRA
+        writeEntry(entry.name, entry.method, FIXED_TIME, FIXED_DATE, entry.crc, entry.data.size.toLong(), entry.size.toLong(), extra) {
+            output.write(entry.data)
+        }
+    }
+
+    /**
+     * Copies the entries of the jar accepted by the filter as they are, without decompressing them.
+     */
+    fun copyEntries(jar: File, filter: (String) -> Boolean) {
+        RandomAccessFile(jar, "r").use { file ->
+            val centralDirectory = readCentralDirectory(file, jar)
+            while (centralDirectory.hasRemaining()) {
+                val position = centralDirectory.position()
+                if (centralDirectory.getInt(position) != CENTRAL_DIRECTORY_ENTRY_SIGNATURE) {
+                    throw ZipException("Invalid central directory entry in $jar")
+                }
+                val method = centralDirectory.getShort(position + 10).toInt() and 0xFFFF
+                val time = centralDirectory.getShort(position + 12).toInt() and 0xFFFF
+                val date = centralDirectory.getShort(position + 14).toInt() and 0xFFFF
+                val crc = centralDirectory.getInt(position + 16).toLong() and 0xFFFFFFFFL
+                val compressedSize = centralDirectory.getInt(position + 20).toLong() and 0xFFFFFFFFL
+                val size = centralDirectory.getInt(position + 24).toLong() and 0xFFFFFFFFL
+                val nameLength = centralDirectory.getShort(position + 28).toInt() and 0xFFFF
+                val extraLength = centralDirectory.getShort(position + 30).toInt() and 0xFFFF
+                val commentLength = centralDirectory.getShort(position + 32).toInt() and 0xFFFF
+                val localHeaderOffset = centralDirectory.getInt(position + 42).toLong() and 0xFFFFFFFFL
+
+                val nameBytes = ByteArray(nameLength)
+                centralDirectory.position(position + CENTRAL_DIRECTORY_ENTRY_SIZE)
+                centralDirectory.get(nameBytes)
+                centralDirectory.position(position + CENTRAL_DIRECTORY_ENTRY_SIZE + nameLength + extraLength + commentLength)
+
+                val name = String(nameBytes, Charsets.UTF_8)
+                if (name.endsWith("/") || !filter(name)) continue
+                if (method != STORED && method != DEFLATED) {
+                    throw ZipException("Unsupported compression method $method of $name in $jar")
+                }
+
+                val localHeader = ByteArray(LOCAL_HEADER_SIZE)
+                file.seek(localHeaderOffset)
+                file.readFully(localHeader)
+                val localHeaderBuffer = ByteBuffer.wrap(localHeader).order(ByteOrder.LITTLE_ENDIAN)
+                if (localHeaderBuffer.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+                    throw ZipException("Invalid local header of $name in $jar")
+                }
+                // Lengths of the name and the extra field in the local header may differ from those in the central directory
+                val dataOffset = localHeaderOffset + LOCAL_HEADER_SIZE +
+                                 (localHeaderBuffer.getShort(26).toInt() and 0xFFFF) + (localHeaderBuffer.getShort(28).toInt() and 0xFFFF)
+
+                writeEntry(name, method, time, date, crc, compressedSize, size, NO_EXTRA) {
+                    file.seek(dataOffset)
+                    copy(file, output, compressedSize)
+                }
+            }
+        }
+    }
+
+    private fun readCentralDirectory(file: RandomAccessFile, jar: File): ByteBuffer {
+        val tailSize = Math.min(file.length(), (END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE).toLong()).toInt()
+        val tail = ByteArray(tailSize)
+        file.seek(file.length() - tailSize)
+        file.readFully(tail)
+        val tailBuffer = ByteBuffer.wrap(tail).order(ByteOrder.LITTLE_ENDIAN)
+
+        var position = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE
+        while (position >= 0 && tailBuffer.getInt(position) != END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+            position--
+        }
+        if (position < 0) throw ZipException("End of central directory not found in $jar")
+
+        val centralDirectorySize = tailBuffer.getInt(position + 12).toLong() and 0xFFFFFFFFL
+        val centralDirectoryOffset = tailBuffer.getInt(position + 16).toLong() and 0xFFFFFFFFL
+        if (centralDirectorySize == 0xFFFFFFFFL || centralDirectoryOffset == 0xFFFFFFFFL) {
+            throw ZipException("ZIP64 archives are not supported: $jar")
+        }
+
+        val centralDirectory = ByteArray(centralDirectorySize.toInt())
+        file.seek(centralDirectoryOffset)
+        file.readFully(centralDirectory)
+        return ByteBuffer.wrap(centralDirectory).order(ByteOrder.LITTLE_ENDIAN)
+    }
+
+    private inline fun writeEntry(
+            name: String, method: Int, time: Int, date: Int, crc: Long, compressedSize: Long, size: Long, extra: ByteArray,
+            writeData: () -> Unit
+    ) {
+        if (!names.add(name)) throw ZipException("duplicate entry: $name")
+        if (headers.size == MAX_ENTRY_COUNT) throw ZipException("Too many entries in the jar, ZIP64 is not supported")
+
+        val header = EntryHeader(
+                name.toByteArray(Charsets.UTF_8), method, time, date, crc, compressedSize, size, extra, output.count
+        )
+        headers.add(header)
+
+        val buffer = newHeaderBuffer(LOCAL_HEADER_SIZE)
+        buffer.putInt(LOCAL_HEADER_SIGNATURE)
+        putCommonFields(buffer, header)
+        output.write(buffer.array())
+        output.write(header.name)
+        output.write(header.extra)
+
+        writeData()
+    }
+
+    fun finish() {
+        val centralDirectoryOffset = output.count
+        for (header in headers) {
+            val buffer = newHeaderBuffer(CENTRAL_DIRECTORY_ENTRY_SIZE)
+            buffer.putInt(CENTRAL_DIRECTORY_ENTRY_SIGNATURE)
+            buffer.putShort(VERSION_NEEDED_TO_EXTRACT.toShort()) // version made by
+            putCommonFields(buffer, header)
+            buffer.putShort(0) // comment length
+            buffer.putShort(0) // disk number
+            buffer.putShort(0) // internal attributes
+            buffer.putInt(0) // external attributes
+            buffer.putInt(checkOffset(header.localHeaderOffset))
+            output.write(buffer.array())
+            output.write(header.name)
+            output.write(header.extra)
+        }
+        val centralDirectorySize = output.count - centralDirectoryOffset
+
+        val buffer = newHeaderBuffer(END_OF_CENTRAL_DIRECTORY_SIZE)
+        buffer.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+        buffer.putShort(0) // disk number
+        buffer.putShort(0) // disk with the central directory
+        buffer.putShort(headers.size.toShort())
+        buffer.putShort(headers.size.toShort())
+        buffer.putInt(checkOffset(centralDirectorySize))
+        buffer.putInt(checkOffset(centralDirectoryOffset))
+        buffer.putShort(0) // comment length
+        output.write(buffer.array())
+        output.flush()
+    }
+
+    // Fields from "version needed to extract" to "extra field length", which are the same in local and central headers
+    private fun putCommonFields(buffer: ByteBuffer, header: EntryHeader) {
+        buffer.putShort(VERSION_NEEDED_TO_EXTRACT.toShort())
+        buffer.putShort(UTF8_NAMES_FLAG.toShort())
+        buffer.putShort(header.method.toShort())
+        buffer.putShort(header.time.toShort())
+        buffer.putShort(header.date.toShort())
+        buffer.putInt(header.crc.toInt())
+        buffer.putInt(checkOffset(header.compressedSize))
+        buffer.putInt(checkOffset(header.size))
+        buffer.putShort(header.name.size.toShort())
+        buffer.putShort(header.extra.size.toShort())
+    }
+
+    private fun checkOffset(value: Long): Int {
+        if (value >= 0xFFFFFFFFL) throw ZipException("The jar is too large, ZIP64 is not supported")
+        return value.toInt()
+    }
+
+    private fun newHeaderBuffer(size: Int): ByteBuffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN)
+
+    private fun copy(input: RandomAccessFile, output: OutputStream, length: Long) {
+        val buffer = ByteArray(1 shl 16)
+        var remaining = length
+        while (remaining > 0) {
+            val count = input.read(buffer, 0, Math.min(remaining, buffer.size.toLong()).toInt())
+            if (count < 0) throw EOFException("Unexpected end of the jar")
+            output.write(buffer, 0, count)
+            remaining -= count
+        }
+    }
+
+    private class CountingOutputStream(output: OutputStream) : FilterOutputStream(output) {
+        var count = 0L
+            private set
+
+        override fun write(b: Int) {
+            out.write(b)
+            count++
+        }
+
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            out.write(b, off, len)
+            count += len
+        }
+    }
+
+    companion object {
+        const val DEFAULT_COMPRESSION_LEVEL = 6
+
+        private const val MIN_ENTRIES_FOR_PARALLEL_COMPRESSION = 16
+
+        private const val LOCAL_HEADER_SIGNATURE = 0x04034b50
+        private const val CENTRAL_DIRECTORY_ENTRY_SIGNATURE = 0x02014b50
+        private const val END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50
+
+        private const val LOCAL_HEADER_SIZE = 30
+        private const val CENTRAL_DIRECTORY_ENTRY_SIZE = 46
+        private const val END_OF_CENTRAL_DIRECTORY_SIZE = 22
+        private const val MAX_COMMENT_SIZE = 0xFFFF
+        private const val MAX_ENTRY_COUNT = 0xFFFF
+
+        private const val STORED = 0
+        private const val DEFLATED = 8
+        private const val VERSION_NEEDED_TO_EXTRACT = 20
+        private const val UTF8_NAMES_FLAG = 0x800
+
+        // 1980-02-01 00:00 in the MS-DOS format, the earliest date that's not misinterpreted by tools in any time zone
+        private const val FIXED_TIME = 0
+        private const val FIXED_DATE = (2 shl 5) or 1
+
+        private val JAR_MAGIC_EXTRA = byteArrayOf(0xFE.toByte(), 0xCA.toByte(), 0, 0)
+        private val NO_EXTRA = ByteArray(0)
+    }
+}
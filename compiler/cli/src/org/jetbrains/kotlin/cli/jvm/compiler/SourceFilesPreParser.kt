@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler
+
+import org.jetbrains.kotlin.psi.KtFile
+import org.jetbrains.kotlin.util.PerformanceCounter
+import org.jetbrains.kotlin.utils.rethrow
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Builds the syntax trees of source files in parallel, so that analysis doesn't parse them one by one on first access.
+ */
+object SourceFilesPreParser {
+    class FileStatistics(val file: KtFile, val bytes: Long, val nanos: Long)
+
+    class Statistics(val files: List<FileStatistics>, val threadCount: Int, val wallNanos: Long) {
+        val bytes: Long
+            get() = files.sumByLong { it.bytes }
+
+        val parseNanos: Long
+            get() = files.sumByLong { it.nanos }
+
+        fun slowestFiles(count: Int): List<FileStatistics> = files.sortedByDescending { it.nanos }.take(count)
+
+        override fun toString() =
+                "${files.size} files ($bytes bytes) on $threadCount threads in ${TimeUnit.NANOSECONDS.toMillis(wallNanos)} ms, " +
+                "${TimeUnit.NANOSECONDS.toMillis(parseNanos)} ms in total"
+    }
+
+    @JvmStatic
+    fun parse(files: List<KtFile>, threadCount: Int): Statistics {
+        val start = PerformanceCounter.currentTime()
+        if (threadCount < 2 || files.size < 2) {
+            return Statistics(files.map { parse(it) }, 1, PerformanceCounter.currentTime() - start)
+        }
+
+        val threads = Math.min(threadCount, files.size)
+        val executor = Executors.newFixedThreadPool(threads)
+        try {
+            val results = files.map { file -> executor.submit(Callable { parse(file) }) }
+            return Statistics(results.map { it.get() }, threads, PerformanceCounter.currentTime() - start)
+        }
+        catch (e: InterruptedException) {
+            throw rethrow(e)
+        }
+        catch (e: ExecutionException) {
+            throw rethrow(e.cause!!)
+        }
+        finally {
+            executor.shutdownNow()
+        }
+    }
+
+    private fun parse(file: KtFile): FileStatistics {
+        val start = PerformanceCounter.currentTime()
+        // The file element is created eagerly, its children are lexed and parsed on first access
+        file.node.firstChildNode
+        return FileStatistics(file, file.virtualFile?.length ?: file.textLength.toLong(), PerformanceCounter.currentTime() - start)
+    }
+
+    private inline fun <T> List<T>.sumByLong(selector: (T) -> Long): Long {
+        var sum = 0L
+        for (element in this) {
+            sum += selector(element)
+        }
+        return sum
+    }
+}
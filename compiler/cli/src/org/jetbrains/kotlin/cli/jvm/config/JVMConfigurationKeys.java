@@ -21,6 +21,7 @@ import org.jetbrains.kotlin.config.CompilerConfigurationKey;
 import org.jetbrains.kotlin.load.kotlin.incremental.components.IncrementalCompilationComponents;
 import org.jetbrains.kotlin.modules.Module;
 
+import java.io.File;
 import java.util.List;
 
 public class JVMConfigurationKeys {
@@ -37,6 +38,18 @@ public class JVMConfigurationKeys {
             CompilerConfigurationKey.create("disable optimization");
     public static final CompilerConfigurationKey<Boolean> MULTIFILE_FACADES_OPEN =
             CompilerConfigurationKey.create("compile multifile facade classes as open");
+    public static final CompilerConfigurationKey<Integer> PARSE_THREADS =
+            CompilerConfigurationKey.create("number of threads to parse source files with before analysis");
+    public static final CompilerConfigurationKey<Integer> BODY_RESOLVE_THREADS =
+            CompilerConfigurationKey.create("number of threads to resolve function bodies with");
+    public static final CompilerConfigurationKey<Integer> CODEGEN_THREADS =
+            CompilerConfigurationKey.create("number of threads to generate class files with");
+    public static final CompilerConfigurationKey<File> CLASSPATH_INDEX_CACHE =
+            CompilerConfigurationKey.create("directory to cache the packages of classpath jars in");
+    public static final CompilerConfigurationKey<Boolean> USE_PSI_CLASS_FILES_READING =
+            CompilerConfigurationKey.create("use PSI to read Java classes from class files");
+    public static final CompilerConfigurationKey<Integer> JAR_COMPRESSION_LEVEL =
+            CompilerConfigurationKey.create("compression level of the output jar, 0 to store entries uncompressed");
 
     public static final CompilerConfigurationKey<IncrementalCompilationComponents> INCREMENTAL_COMPILATION_COMPONENTS =
             CompilerConfigurationKey.create("incremental cache provider");
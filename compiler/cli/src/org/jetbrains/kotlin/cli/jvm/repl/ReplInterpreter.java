@@ -58,6 +58,7 @@ import org.jetbrains.kotlin.idea.KotlinLanguage;
 import org.jetbrains.kotlin.name.FqName;
 import org.jetbrains.kotlin.name.Name;
 import org.jetbrains.kotlin.parsing.KotlinParserDefinition;
+import org.jetbrains.kotlin.parsing.KtFileReparser;
 import org.jetbrains.kotlin.psi.KtFile;
 import org.jetbrains.kotlin.psi.KtScript;
 import org.jetbrains.kotlin.resolve.*;
@@ -93,6 +94,8 @@ public class ReplInterpreter {
     private LexicalScope lastLineScope;
     private final List<EarlierLine> earlierLines = Lists.newArrayList();
     private final List<String> previousIncompleteLines = Lists.newArrayList();
+    @Nullable
+    private KtFile incompleteFile;
     private final ReplClassLoader classLoader;
 
     private final PsiFileFactoryImpl psiFileFactory;
@@ -288,10 +291,21 @@ public class ReplInterpreter {
         }
         fullText.append(line);
 
-        LightVirtualFile virtualFile = new LightVirtualFile("line" + lineNumber + KotlinParserDefinition.STD_SCRIPT_EXT, KotlinLanguage.INSTANCE, fullText.toString());
-        virtualFile.setCharset(CharsetToolkit.UTF8_CHARSET);
-        KtFile psiFile = (KtFile) psiFileFactory.trySetupPsiForFile(virtualFile, KotlinLanguage.INSTANCE, true, false);
-        assert psiFile != null : "Script file not analyzed at line " + lineNumber + ": " + fullText;
+        String fileName = "line" + lineNumber + KotlinParserDefinition.STD_SCRIPT_EXT;
+        KtFile psiFile;
+        if (incompleteFile != null) {
+            // Statements completed by the previous lines keep their PSI, only the incomplete one is parsed again.
+            // The script is named after the line which completes it, as if it was parsed from scratch
+            psiFile = incompleteFile;
+            ((ReplLineVirtualFile) psiFile.getViewProvider().getVirtualFile()).setName(fileName);
+            KtFileReparser.reparse(psiFile, fullText.toString());
+        }
+        else {
+            LightVirtualFile virtualFile = new ReplLineVirtualFile(fileName, fullText.toString());
+            virtualFile.setCharset(CharsetToolkit.UTF8_CHARSET);
+            psiFile = (KtFile) psiFileFactory.trySetupPsiForFile(virtualFile, KotlinLanguage.INSTANCE, true, false);
+            assert psiFile != null : "Script file not analyzed at line " + lineNumber + ": " + fullText;
+        }
 
         DiagnosticMessageHolder errorHolder = createDiagnosticHolder();
 
@@ -304,11 +318,13 @@ public class ReplInterpreter {
             }
             else {
                 previousIncompleteLines.add(line);
+                incompleteFile = psiFile;
                 return LineResult.incomplete();
             }
         }
 
         previousIncompleteLines.clear();
+        incompleteFile = null;
 
         if (syntaxErrorReport.isHasErrors()) {
             return LineResult.compileError(errorHolder.getRenderedDiagnostics());
@@ -461,6 +477,27 @@ public class ReplInterpreter {
         );
     }
 
+    // The file of an incomplete input is reused by the next line, which renames it
+    private static class ReplLineVirtualFile extends LightVirtualFile {
+        @NotNull
+        private String name;
+
+        public ReplLineVirtualFile(@NotNull String name, @NotNull String text) {
+            super(name, KotlinLanguage.INSTANCE, text);
+            this.name = name;
+        }
+
+        @NotNull
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        public void setName(@NotNull String name) {
+            this.name = name;
+        }
+    }
+
     private static class ScriptMutableDeclarationProviderFactory implements DeclarationProviderFactory {
         private DeclarationProviderFactory delegateFactory;
         private AdaptablePackageMemberDeclarationProvider rootPackageProvider;
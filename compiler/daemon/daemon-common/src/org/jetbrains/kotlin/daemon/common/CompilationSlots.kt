@@ -0,0 +1,44 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.daemon.common
+
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+
+// limits the number of compilations running at once, the rest are admitted in the order they arrived
+class CompilationSlots(count: Int) {
+    val count: Int = Math.max(count, 1)
+
+    private val semaphore = Semaphore(this.count, true)
+
+    val queueLength: Int get() = semaphore.queueLength
+
+    // returns the time spent waiting in the queue, onWait is called before blocking if no slot is free
+    fun acquire(onWait: () -> Unit = {}): Long {
+        val start = System.nanoTime()
+        // unlike tryAcquire(), the timed version does not barge past the threads already queued
+        if (!semaphore.tryAcquire(0, TimeUnit.SECONDS)) {
+            onWait()
+            semaphore.acquire()
+        }
+        return System.nanoTime() - start
+    }
+
+    fun release() {
+        semaphore.release()
+    }
+}
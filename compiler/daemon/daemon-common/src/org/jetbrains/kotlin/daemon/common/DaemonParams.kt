@@ -48,6 +48,7 @@ val COMPILE_DAEMON_DEFAULT_SHUTDOWN_DELAY_MS: Long = 1000L // 1 sec
 val COMPILE_DAEMON_MEMORY_THRESHOLD_INFINITE: Long = 0L
 val COMPILE_DAEMON_FORCE_SHUTDOWN_DEFAULT_TIMEOUT_MS: Long = 10000L // 10 secs
 val COMPILE_DAEMON_TIMEOUT_INFINITE_MS: Long = 0L
+val COMPILE_DAEMON_DEFAULT_MAX_PARALLEL_COMPILATIONS: Int get() = Runtime.getRuntime().availableProcessors()
 
 val COMPILE_DAEMON_DEFAULT_RUN_DIR_PATH: String get() =
     FileSystem.getRuntimeStateFilesPath("kotlin", "daemon")
@@ -207,7 +208,9 @@ data class DaemonOptions(
         var shutdownDelayMilliseconds: Long = COMPILE_DAEMON_DEFAULT_SHUTDOWN_DELAY_MS,
         var forceShutdownTimeoutMilliseconds: Long = COMPILE_DAEMON_FORCE_SHUTDOWN_DEFAULT_TIMEOUT_MS,
         var verbose: Boolean = false,
-        var reportPerf: Boolean = false
+        var reportPerf: Boolean = false,
+        // compilations started above this limit wait in a queue
+        var maxParallelCompilations: Int = COMPILE_DAEMON_DEFAULT_MAX_PARALLEL_COMPILATIONS
 ) : OptionsGroup {
 
     override val mappers: List<PropMapper<*, *, *>>
@@ -219,7 +222,8 @@ data class DaemonOptions(
                        PropMapper(this, DaemonOptions::shutdownDelayMilliseconds, fromString = { it.toLong() }, skipIf = { it == COMPILE_DAEMON_DEFAULT_SHUTDOWN_DELAY_MS }, mergeDelimiter = "="),
                        PropMapper(this, DaemonOptions::forceShutdownTimeoutMilliseconds, fromString = { it.toLong() }, skipIf = { it == COMPILE_DAEMON_FORCE_SHUTDOWN_DEFAULT_TIMEOUT_MS }, mergeDelimiter = "="),
                        BoolPropMapper(this, DaemonOptions::verbose),
-                       BoolPropMapper(this, DaemonOptions::reportPerf))
+                       BoolPropMapper(this, DaemonOptions::reportPerf),
+                       PropMapper(this, DaemonOptions::maxParallelCompilations, fromString = { it.toInt() }, skipIf = { it == COMPILE_DAEMON_DEFAULT_MAX_PARALLEL_COMPILATIONS }, mergeDelimiter = "="))
 }
 
 // TODO: consider implementing generic approach to it or may be replace getters with ones returning default if necessary
@@ -75,6 +75,12 @@ inline fun ThreadMXBean.threadCpuTime() = if (isCurrentThreadCpuTimeSupported) c
 @Suppress("NOTHING_TO_INLINE")
 inline fun ThreadMXBean.threadUserTime() = if (isCurrentThreadCpuTimeSupported) currentThreadUserTime else 0L
 
+// Bytes allocated by the current thread so far, 0 if the JVM doesn't support counting them
+fun ThreadMXBean.threadAllocatedBytes(): Long {
+    val bean = this as? com.sun.management.ThreadMXBean ?: return 0L
+    return if (bean.isThreadAllocatedMemorySupported && bean.isThreadAllocatedMemoryEnabled) bean.getThreadAllocatedBytes(Thread.currentThread().id) else 0L
+}
+
 @Suppress("NOTHING_TO_INLINE")
 inline fun usedMemory(withGC: Boolean): Long {
     if (withGC) {
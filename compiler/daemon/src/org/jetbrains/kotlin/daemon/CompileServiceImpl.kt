@@ -29,6 +29,7 @@ import org.jetbrains.kotlin.utils.addToStdlib.check
 import java.io.BufferedOutputStream
 import java.io.File
 import java.io.PrintStream
+import java.lang.management.ManagementFactory
 import java.rmi.NoSuchObjectException
 import java.rmi.registry.Registry
 import java.rmi.server.UnicastRemoteObject
@@ -36,6 +37,7 @@ import java.util.*
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
 import java.util.concurrent.locks.ReentrantReadWriteLock
 import java.util.logging.Level
 import java.util.logging.Logger
@@ -86,6 +88,11 @@ class CompileServiceImpl(
         val registered = nowSeconds()
         val secondsSinceRegistered: Long get() = nowSeconds() - registered
         val isAlive: Boolean get() = aliveFlagPath?.let { File(it).exists() } ?: true // assuming that if no file was given, the client is alive
+
+        // accounting of compilations made in a session
+        val compilations = AtomicInteger(0)
+        val queueWaitNanos = AtomicLong(0L)
+        val allocatedBytes = AtomicLong(0L)
     }
 
     private val sessionsIdCounter = AtomicInteger(0)
@@ -94,6 +101,13 @@ class CompileServiceImpl(
 
     private val classpathWatcher = LazyClasspathWatcher(compilerId.compilerClasspath)
 
+    // Compilations run concurrently up to the limit, the rest wait in a fair queue.
+    // Concurrent compilations share the application environment, including the jar file system and the caches of binary classes
+    private val compilationSlots = CompilationSlots(daemonOptions.maxParallelCompilations)
+    private val jarCacheLock = Any()
+    private var activeCompilations = 0
+    private var jarCacheClearRequested = false
+
     enum class Aliveness {
         // !!! ordering of values is used in state comparison
         Dying, LastSession, Alive
@@ -175,9 +189,13 @@ class CompileServiceImpl(
 
     override fun releaseCompileSession(sessionId: Int) = ifAlive_Nothing(minAliveness = Aliveness.LastSession) {
         synchronized(state.sessions) {
-            state.sessions.remove(sessionId)
+            state.sessions.remove(sessionId)?.let {
+                fun Long.ms() = TimeUnit.NANOSECONDS.toMillis(this)
+                log.info("session $sessionId: ${it.compilations.get()} compilations, queue: ${it.queueWaitNanos.get().ms()} ms, " +
+                         "allocated: ${it.allocatedBytes.get() / 1024} kb")
+            }
             log.info("cleaning after session $sessionId")
-            clearJarCache()
+            clearJarCacheWhenIdle()
             if (state.sessions.isEmpty()) {
                 // TODO: and some goes here
             }
@@ -411,15 +429,22 @@ class CompileServiceImpl(
 
                 operationsTracer?.before("compile")
                 compilationsCounter.incrementAndGet()
+                val session = if (sessionId == CompileService.NO_SESSION) null else synchronized(state.sessions) { state.sessions[sessionId] }
                 val rpcProfiler = if (daemonOptions.reportPerf) WallAndThreadTotalProfiler() else DummyProfiler()
                 val eventManger = EventMangerImpl()
                 val compilerMessagesStream = PrintStream(BufferedOutputStream(RemoteOutputStreamClient(compilerMessagesStreamProxy, rpcProfiler), 4096))
                 val serviceOutputStream = PrintStream(BufferedOutputStream(RemoteOutputStreamClient(serviceOutputStreamProxy, rpcProfiler), 4096))
                 try {
-                    checkedCompile(args, serviceOutputStream, rpcProfiler) {
-                        val res = body(compilerMessagesStream, eventManger, rpcProfiler).code
-                        _lastUsedSeconds = nowSeconds()
-                        res
+                    val queueWaitNanos = acquireCompilationSlot()
+                    try {
+                        checkedCompile(args, serviceOutputStream, rpcProfiler, queueWaitNanos, session) {
+                            val res = body(compilerMessagesStream, eventManger, rpcProfiler).code
+                            _lastUsedSeconds = nowSeconds()
+                            res
+                        }
+                    }
+                    finally {
+                        releaseCompilationSlot()
                     }
                 }
                 finally {
@@ -442,7 +467,14 @@ class CompileServiceImpl(
     }
 
 
-    private fun<R> checkedCompile(args: Array<out String>, serviceOut: PrintStream, rpcProfiler: Profiler, body: () -> R): R {
+    private fun<R> checkedCompile(
+            args: Array<out String>,
+            serviceOut: PrintStream,
+            rpcProfiler: Profiler,
+            queueWaitNanos: Long,
+            session: ClientOrSessionProxy?,
+            body: () -> R
+    ): R {
         try {
             if (args.none())
                 throw IllegalArgumentException("Error: empty arguments list.")
@@ -450,8 +482,20 @@ class CompileServiceImpl(
 
             val profiler = if (daemonOptions.reportPerf) WallAndThreadAndMemoryTotalProfiler(withGC = false) else DummyProfiler()
 
+            // Used memory is shared by concurrent compilations, so a compilation is accounted by the memory allocated in its thread
+            // (allocations in the worker threads of the compiler itself are not counted)
+            val threadMXBean = ManagementFactory.getThreadMXBean()
+            val startAllocated = threadMXBean.threadAllocatedBytes()
+
             val res = profiler.withMeasure(null, body)
 
+            val allocated = threadMXBean.threadAllocatedBytes() - startAllocated
+            if (session != null) {
+                session.compilations.incrementAndGet()
+                session.queueWaitNanos.addAndGet(queueWaitNanos)
+                session.allocatedBytes.addAndGet(allocated)
+            }
+
             val endMem = if (daemonOptions.reportPerf) usedMemory(withGC = false) else 0L
 
             log.info("Done with result " + res.toString())
@@ -462,7 +506,7 @@ class CompileServiceImpl(
                 val pc = profiler.getTotalCounters()
                 val rpc = rpcProfiler.getTotalCounters()
 
-                "PERF: Compile on daemon: ${pc.time.ms()} ms; thread: user ${pc.threadUserTime.ms()} ms, sys ${(pc.threadTime - pc.threadUserTime).ms()} ms; rpc: ${rpc.count} calls, ${rpc.time.ms()} ms, thread ${rpc.threadTime.ms()} ms; memory: ${endMem.kb()} kb (${"%+d".format(pc.memory.kb())} kb)".let {
+                "PERF: Compile on daemon: ${pc.time.ms()} ms; thread: user ${pc.threadUserTime.ms()} ms, sys ${(pc.threadTime - pc.threadUserTime).ms()} ms; rpc: ${rpc.count} calls, ${rpc.time.ms()} ms, thread ${rpc.threadTime.ms()} ms; memory: ${endMem.kb()} kb (${"%+d".format(pc.memory.kb())} kb), allocated ${allocated.kb()} kb; queue: ${queueWaitNanos.ms()} ms".let {
                     serviceOut.println(it)
                     log.info(it)
                 }
@@ -484,6 +528,40 @@ class CompileServiceImpl(
         }
     }
 
+    // returns the time spent waiting in the queue
+    private fun acquireCompilationSlot(): Long {
+        val queueWaitNanos = compilationSlots.acquire {
+            log.info("All ${compilationSlots.count} compilation slots are busy, waiting")
+        }
+        synchronized(jarCacheLock) {
+            activeCompilations++
+        }
+        return queueWaitNanos
+    }
+
+    private fun releaseCompilationSlot() {
+        synchronized(jarCacheLock) {
+            if (--activeCompilations == 0 && jarCacheClearRequested) {
+                jarCacheClearRequested = false
+                clearJarCache()
+            }
+        }
+        compilationSlots.release()
+    }
+
+    // the jar cache is shared by all running compilations, so it's cleared only when none of them is running
+    private fun clearJarCacheWhenIdle() {
+        synchronized(jarCacheLock) {
+            if (activeCompilations == 0) {
+                clearJarCache()
+            }
+            else {
+                log.info("jar cache is used by $activeCompilations running compilations, it will be cleared after them")
+                jarCacheClearRequested = true
+            }
+        }
+    }
+
     private fun clearJarCache() {
 //        ZipHandler.clearFileAccessorCache()
         val classloader = javaClass.classLoader
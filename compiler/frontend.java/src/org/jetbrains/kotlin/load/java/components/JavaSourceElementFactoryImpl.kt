@@ -25,7 +25,7 @@ import org.jetbrains.kotlin.load.java.sources.JavaSourceElement
 
 private class JavaSourceElementImpl(override val javaElement: JavaElement) : PsiSourceElement, JavaSourceElement {
     override val psi: PsiElement?
-        get() = (javaElement as JavaElementImpl<*>).psi
+        get() = (javaElement as? JavaElementImpl<*>)?.psi
 }
 
 class JavaSourceElementFactoryImpl : JavaSourceElementFactory {
@@ -37,19 +37,21 @@ class LazyResolveBasedCache(private val resolveSession: ResolveSession) : JavaRe
     }
 
     override fun recordMethod(method: JavaMethod, descriptor: SimpleFunctionDescriptor) {
-        BindingContextUtils.recordFunctionDeclarationToDescriptor(trace, (method as JavaMethodImpl).psi, descriptor)
+        // Classes read from class files without PSI have nothing to record
+        val psiMethod = (method as? JavaMethodImpl)?.psi ?: return
+        BindingContextUtils.recordFunctionDeclarationToDescriptor(trace, psiMethod, descriptor)
     }
 
     override fun recordConstructor(element: JavaElement, descriptor: ConstructorDescriptor) {
-        trace.record(CONSTRUCTOR, (element as JavaElementImpl<*>).psi, descriptor)
+        trace.record(CONSTRUCTOR, (element as? JavaElementImpl<*>)?.psi ?: return, descriptor)
     }
 
     override fun recordField(field: JavaField, descriptor: PropertyDescriptor) {
-        trace.record(VARIABLE, (field as JavaFieldImpl).psi, descriptor)
+        trace.record(VARIABLE, (field as? JavaFieldImpl)?.psi ?: return, descriptor)
     }
 
     override fun recordClass(javaClass: JavaClass, descriptor: ClassDescriptor) {
-        trace.record(CLASS, (javaClass as JavaClassImpl).psi, descriptor)
+        trace.record(CLASS, (javaClass as? JavaClassImpl)?.psi ?: return, descriptor)
     }
 
     private fun findInPackageFragments(fullFqName: FqName): ClassDescriptor? {
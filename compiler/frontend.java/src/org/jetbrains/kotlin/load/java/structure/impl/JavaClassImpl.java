@@ -16,6 +16,7 @@
 
 package org.jetbrains.kotlin.load.java.structure.impl;
 
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
 import com.intellij.psi.impl.PsiSubstitutorImpl;
 import kotlin.collections.ArraysKt;
@@ -35,7 +36,7 @@ import java.util.Map;
 
 import static org.jetbrains.kotlin.load.java.structure.impl.JavaElementCollectionFromPsiArrayUtil.*;
 
-public class JavaClassImpl extends JavaClassifierImpl<PsiClass> implements JavaClass, JavaAnnotationOwnerImpl, JavaModifierListOwnerImpl {
+public class JavaClassImpl extends JavaClassifierImpl<PsiClass> implements VirtualFileBoundJavaClass, JavaAnnotationOwnerImpl, JavaModifierListOwnerImpl {
     public JavaClassImpl(@NotNull PsiClass psiClass) {
         super(psiClass);
         assert !(psiClass instanceof PsiTypeParameter)
@@ -175,6 +176,13 @@ public class JavaClassImpl extends JavaClassifierImpl<PsiClass> implements JavaC
         }
     }
 
+    @Nullable
+    @Override
+    public VirtualFile getVirtualFile() {
+        PsiFile psiFile = getPsi().getContainingFile();
+        return psiFile == null ? null : psiFile.getVirtualFile();
+    }
+
     @NotNull
     @Override
     public JavaType createImmediateType(@NotNull JavaTypeSubstitutor substitutor) {
@@ -183,15 +191,18 @@ public class JavaClassImpl extends JavaClassifierImpl<PsiClass> implements JavaC
     }
 
     @NotNull
-    private static PsiSubstitutor createPsiSubstitutor(@NotNull JavaTypeSubstitutor substitutor) {
+    private PsiSubstitutor createPsiSubstitutor(@NotNull JavaTypeSubstitutor substitutor) {
         Map<PsiTypeParameter, PsiType> substMap = new HashMap<PsiTypeParameter, PsiType>();
         for (Map.Entry<JavaTypeParameter, JavaType> entry : substitutor.getSubstitutionMap().entrySet()) {
+            // Only type parameters of this class and its outer classes are substituted, and they all have PSI
+            if (!(entry.getKey() instanceof JavaTypeParameterImpl)) continue;
+
             PsiTypeParameter key = ((JavaTypeParameterImpl) entry.getKey()).getPsi();
             if (entry.getValue() == null) {
                 substMap.put(key, null);
             }
             else {
-                substMap.put(key, ((JavaTypeImpl) entry.getValue()).getPsi());
+                substMap.put(key, JavaTypeImpl.toPsiType(entry.getValue(), getPsi().getManager()));
             }
         }
 
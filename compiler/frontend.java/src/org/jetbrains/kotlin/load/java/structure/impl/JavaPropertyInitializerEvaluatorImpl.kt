@@ -21,14 +21,17 @@ import com.intellij.psi.util.PsiUtil
 import org.jetbrains.kotlin.descriptors.PropertyDescriptor
 import org.jetbrains.kotlin.load.java.structure.JavaField
 import org.jetbrains.kotlin.load.java.structure.JavaPropertyInitializerEvaluator
+import org.jetbrains.kotlin.load.java.structure.impl.classFiles.BinaryJavaField
 import org.jetbrains.kotlin.resolve.constants.ConstantValue
 import org.jetbrains.kotlin.resolve.constants.ConstantValueFactory
 import org.jetbrains.kotlin.resolve.descriptorUtil.builtIns
 
 class JavaPropertyInitializerEvaluatorImpl : JavaPropertyInitializerEvaluator {
     override fun getInitializerConstant(field: JavaField, descriptor: PropertyDescriptor): ConstantValue<*>? {
-        val initializer = (field as JavaFieldImpl).initializer
-        val evaluated = JavaConstantExpressionEvaluator.computeConstantExpression(initializer, false) ?: return null
+        val evaluated = when (field) {
+            is BinaryJavaField -> field.constantValue
+            else -> JavaConstantExpressionEvaluator.computeConstantExpression((field as JavaFieldImpl).initializer, false)
+        } ?: return null
         val factory = ConstantValueFactory(descriptor.builtIns)
         when (evaluated) {
             //Note: evaluated expression may be of class that does not match field type in some cases
@@ -43,6 +46,8 @@ class JavaPropertyInitializerEvaluatorImpl : JavaPropertyInitializerEvaluator {
     }
 
     override fun isNotNullCompileTimeConstant(field: JavaField): Boolean {
+        if (field is BinaryJavaField) return field.isFinal && field.constantValue != null
+
         // PsiUtil.isCompileTimeConstant returns false for null-initialized fields,
         // see com.intellij.psi.util.IsConstantExpressionVisitor.visitLiteralExpression()
         return PsiUtil.isCompileTimeConstant((field as JavaFieldImpl).psi)
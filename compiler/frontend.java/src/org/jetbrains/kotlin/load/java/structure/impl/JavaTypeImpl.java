@@ -17,14 +17,15 @@
 package org.jetbrains.kotlin.load.java.structure.impl;
 
 import com.intellij.psi.*;
+import com.intellij.psi.impl.PsiSubstitutorImpl;
+import com.intellij.psi.search.GlobalSearchScope;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.jetbrains.kotlin.load.java.structure.JavaAnnotation;
-import org.jetbrains.kotlin.load.java.structure.JavaArrayType;
-import org.jetbrains.kotlin.load.java.structure.JavaType;
+import org.jetbrains.kotlin.builtins.PrimitiveType;
+import org.jetbrains.kotlin.load.java.structure.*;
 import org.jetbrains.kotlin.name.FqName;
 
-import java.util.Collection;
+import java.util.*;
 
 public abstract class JavaTypeImpl<Psi extends PsiType> implements JavaType, JavaAnnotationOwnerImpl {
     private final Psi psiType;
@@ -79,6 +80,106 @@ public abstract class JavaTypeImpl<Psi extends PsiType> implements JavaType, Jav
         });
     }
 
+    /**
+     * Types from classes which were read from class files without PSI are converted to PSI types of the same classes,
+     * so that they can be substituted into classes from Java sources.
+     * Type parameters of such classes have no PSI and are erased to their first upper bound.
+     */
+    @NotNull
+    public static PsiType toPsiType(@NotNull JavaType type, @NotNull PsiManager manager) {
+        if (type instanceof JavaTypeImpl) {
+            return ((JavaTypeImpl<?>) type).getPsi();
+        }
+        if (type instanceof JavaPrimitiveType) {
+            return toPsiPrimitiveType(((JavaPrimitiveType) type).getType());
+        }
+        if (type instanceof JavaArrayType) {
+            return toPsiType(((JavaArrayType) type).getComponentType(), manager).createArrayType();
+        }
+        if (type instanceof JavaWildcardType) {
+            JavaWildcardType wildcardType = (JavaWildcardType) type;
+            JavaType bound = wildcardType.getBound();
+            if (bound == null) {
+                return PsiWildcardType.createUnbounded(manager);
+            }
+            PsiType psiBound = toPsiType(bound, manager);
+            return wildcardType.isExtends()
+                   ? PsiWildcardType.createExtends(manager, psiBound)
+                   : PsiWildcardType.createSuper(manager, psiBound);
+        }
+        if (type instanceof JavaClassifierType) {
+            return toPsiClassType((JavaClassifierType) type, manager, false);
+        }
+        throw new UnsupportedOperationException("Unsupported JavaType: " + type);
+    }
+
+    @NotNull
+    private static PsiClassType toPsiClassType(@NotNull JavaClassifierType type, @NotNull PsiManager manager, boolean erase) {
+        if (!erase && type instanceof JavaClassifierTypeImpl) {
+            return ((JavaClassifierTypeImpl) type).getPsi();
+        }
+
+        GlobalSearchScope scope = GlobalSearchScope.allScope(manager.getProject());
+        PsiElementFactory factory = JavaPsiFacade.getElementFactory(manager.getProject());
+
+        JavaClassifier classifier = type.getClassifier();
+        if (classifier instanceof JavaTypeParameterImpl) {
+            return factory.createType(((JavaTypeParameterImpl) classifier).getPsi());
+        }
+        if (classifier instanceof JavaTypeParameter) {
+            Collection<JavaClassifierType> bounds = ((JavaTypeParameter) classifier).getUpperBounds();
+            return bounds.isEmpty()
+                   ? PsiType.getJavaLangObject(manager, scope)
+                   : toPsiClassType(bounds.iterator().next(), manager, true);
+        }
+
+        PsiClass psiClass = null;
+        if (classifier instanceof JavaClassImpl) {
+            psiClass = ((JavaClassImpl) classifier).getPsi();
+        }
+        else if (classifier instanceof JavaClass) {
+            FqName fqName = ((JavaClass) classifier).getFqName();
+            if (fqName != null) {
+                psiClass = JavaPsiFacade.getInstance(manager.getProject()).findClass(fqName.asString(), scope);
+                if (psiClass == null) {
+                    return factory.createTypeByFQClassName(fqName.asString(), scope);
+                }
+            }
+        }
+        if (psiClass == null) {
+            return factory.createTypeByFQClassName(type.getPresentableText(), scope);
+        }
+
+        List<JavaType> arguments = type.getTypeArguments();
+        if (erase || arguments.isEmpty()) {
+            return factory.createType(psiClass);
+        }
+
+        Map<PsiTypeParameter, PsiType> substitutionMap = new HashMap<PsiTypeParameter, PsiType>();
+        Iterator<JavaType> argumentIterator = arguments.iterator();
+        for (PsiTypeParameter typeParameter : JavaClassifierTypeImpl.getTypeParameters(psiClass)) {
+            if (!argumentIterator.hasNext()) break;
+            substitutionMap.put(typeParameter, toPsiType(argumentIterator.next(), manager));
+        }
+        return factory.createType(psiClass, PsiSubstitutorImpl.createSubstitutor(substitutionMap));
+    }
+
+    @NotNull
+    private static PsiPrimitiveType toPsiPrimitiveType(@Nullable PrimitiveType type) {
+        if (type == null) return PsiType.VOID;
+        switch (type) {
+            case BOOLEAN: return PsiType.BOOLEAN;
+            case CHAR: return PsiType.CHAR;
+            case BYTE: return PsiType.BYTE;
+            case SHORT: return PsiType.SHORT;
+            case INT: return PsiType.INT;
+            case FLOAT: return PsiType.FLOAT;
+            case LONG: return PsiType.LONG;
+            case DOUBLE: return PsiType.DOUBLE;
+            default: throw new IllegalArgumentException("Unknown primitive type: " + type);
+        }
+    }
+
     @NotNull
     @Override
     public JavaArrayType createArrayType() {
@@ -41,13 +41,13 @@ public class JavaTypeProviderImpl implements JavaTypeProvider {
     @NotNull
     @Override
     public JavaWildcardType createUpperBoundWildcard(@NotNull JavaType bound) {
-        return new JavaWildcardTypeImpl(PsiWildcardType.createExtends(manager, ((JavaTypeImpl) bound).getPsi()));
+        return new JavaWildcardTypeImpl(PsiWildcardType.createExtends(manager, JavaTypeImpl.toPsiType(bound, manager)));
     }
 
     @NotNull
     @Override
     public JavaWildcardType createLowerBoundWildcard(@NotNull JavaType bound) {
-        return new JavaWildcardTypeImpl(PsiWildcardType.createSuper(manager, ((JavaTypeImpl) bound).getPsi()));
+        return new JavaWildcardTypeImpl(PsiWildcardType.createSuper(manager, JavaTypeImpl.toPsiType(bound, manager)));
     }
 
     @NotNull
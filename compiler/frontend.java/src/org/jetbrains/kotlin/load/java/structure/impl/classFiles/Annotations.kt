@@ -0,0 +1,144 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles
+
+import org.jetbrains.kotlin.load.java.structure.*
+import org.jetbrains.kotlin.name.ClassId
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.org.objectweb.asm.AnnotationVisitor
+import org.jetbrains.org.objectweb.asm.Opcodes
+import org.jetbrains.org.objectweb.asm.Type
+import java.text.StringCharacterIterator
+import java.util.*
+
+class BinaryJavaAnnotation private constructor(
+        private val desc: String,
+        private val context: ClassifierResolutionContext,
+        private val arguments: Collection<JavaAnnotationArgument>
+) : JavaAnnotation {
+    private val resolvedClassId by lazy { context.mapDescToClassId(desc) }
+
+    override fun getArguments() = arguments
+
+    override fun findArgument(name: Name) = arguments.firstOrNull { it.name == name }
+
+    override fun getClassId(): ClassId = resolvedClassId
+
+    override fun resolve() = context.resolveClass(desc.substring(1, desc.length - 1))
+
+    override fun toString() = javaClass.name + ": " + desc
+
+    companion object {
+        /**
+         * Creates an annotation whose arguments are filled by the returned visitor.
+         */
+        fun createAnnotationAndVisitor(desc: String, context: ClassifierResolutionContext): Pair<JavaAnnotation, AnnotationVisitor> {
+            val arguments = ArrayList<JavaAnnotationArgument>()
+            return Pair(BinaryJavaAnnotation(desc, context, arguments), AnnotationArgumentsVisitor(context, arguments))
+        }
+
+        /**
+         * Adds the annotation to the list and returns the visitor for its arguments, or null for the marker
+         * of synthetic parameters that ASM reports as a parameter annotation.
+         */
+        fun addAnnotation(annotations: MutableCollection<JavaAnnotation>, desc: String, context: ClassifierResolutionContext): AnnotationVisitor? {
+            if (desc == SYNTHETIC_PARAMETER_MARKER) return null
+            val (annotation, visitor) = createAnnotationAndVisitor(desc, context)
+            annotations.add(annotation)
+            return visitor
+        }
+
+        private val SYNTHETIC_PARAMETER_MARKER = "Ljava/lang/Synthetic;"
+    }
+}
+
+private class AnnotationArgumentsVisitor(
+        private val context: ClassifierResolutionContext,
+        private val arguments: MutableCollection<JavaAnnotationArgument>
+) : AnnotationVisitor(Opcodes.ASM5) {
+    override fun visit(name: String?, value: Any?) {
+        arguments.add(createArgument(name?.let { Name.identifier(it) }, value))
+    }
+
+    private fun createArgument(name: Name?, value: Any?): JavaAnnotationArgument = when (value) {
+        is Type -> PlainJavaClassObjectAnnotationArgument(name, value.descriptor, context)
+        // Arrays of primitives are reported at once
+        is BooleanArray -> PlainJavaArrayAnnotationArgument(name, value.map { createArgument(null, it) })
+        is CharArray -> PlainJavaArrayAnnotationArgument(name, value.map { createArgument(null, it) })
+        is ByteArray -> PlainJavaArrayAnnotationArgument(name, value.map { createArgument(null, it) })
+        is ShortArray -> PlainJavaArrayAnnotationArgument(name, value.map { createArgument(null, it) })
+        is IntArray -> PlainJavaArrayAnnotationArgument(name, value.map { createArgument(null, it) })
+        is LongArray -> PlainJavaArrayAnnotationArgument(name, value.map { createArgument(null, it) })
+        is FloatArray -> PlainJavaArrayAnnotationArgument(name, value.map { createArgument(null, it) })
+        is DoubleArray -> PlainJavaArrayAnnotationArgument(name, value.map { createArgument(null, it) })
+        else -> PlainJavaLiteralAnnotationArgument(name, value)
+    }
+
+    override fun visitEnum(name: String?, desc: String, value: String) {
+        arguments.add(PlainJavaEnumValueAnnotationArgument(name?.let { Name.identifier(it) }, desc, value, context))
+    }
+
+    override fun visitAnnotation(name: String?, desc: String): AnnotationVisitor {
+        val (annotation, visitor) = BinaryJavaAnnotation.createAnnotationAndVisitor(desc, context)
+        arguments.add(PlainJavaAnnotationAsAnnotationArgument(name?.let { Name.identifier(it) }, annotation))
+        return visitor
+    }
+
+    override fun visitArray(name: String?): AnnotationVisitor {
+        val elements = ArrayList<JavaAnnotationArgument>()
+        arguments.add(PlainJavaArrayAnnotationArgument(name?.let { Name.identifier(it) }, elements))
+        return AnnotationArgumentsVisitor(context, elements)
+    }
+}
+
+abstract class PlainJavaAnnotationArgument(override val name: Name?) : JavaAnnotationArgument
+
+class PlainJavaLiteralAnnotationArgument(name: Name?, override val value: Any?) : PlainJavaAnnotationArgument(name), JavaLiteralAnnotationArgument
+
+class PlainJavaArrayAnnotationArgument(
+        name: Name?,
+        private val elements: List<JavaAnnotationArgument>
+) : PlainJavaAnnotationArgument(name), JavaArrayAnnotationArgument {
+    override fun getElements() = elements
+}
+
+class PlainJavaEnumValueAnnotationArgument(
+        name: Name?,
+        private val desc: String,
+        private val entryName: String,
+        private val context: ClassifierResolutionContext
+) : PlainJavaAnnotationArgument(name), JavaEnumValueAnnotationArgument {
+    override fun resolve(): JavaField? {
+        val enumClass = context.resolveClass(desc.substring(1, desc.length - 1)) ?: return null
+        return enumClass.fields.firstOrNull { it.isEnumEntry && it.name.asString() == entryName }
+    }
+}
+
+class PlainJavaClassObjectAnnotationArgument(
+        name: Name?,
+        private val desc: String,
+        private val context: ClassifierResolutionContext
+) : PlainJavaAnnotationArgument(name), JavaClassObjectAnnotationArgument {
+    override fun getReferencedType() = BinaryClassSignatureParser.parseTypeString(StringCharacterIterator(desc), context)
+}
+
+class PlainJavaAnnotationAsAnnotationArgument(
+        name: Name?,
+        private val annotation: JavaAnnotation
+) : PlainJavaAnnotationArgument(name), JavaAnnotationAsAnnotationArgument {
+    override fun getAnnotation() = annotation
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles
+
+import org.jetbrains.kotlin.load.java.structure.JavaClassifierType
+import org.jetbrains.kotlin.load.java.structure.JavaType
+import org.jetbrains.kotlin.load.java.structure.JavaTypeParameter
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.kotlin.resolve.jvm.JvmPrimitiveType
+import java.text.CharacterIterator
+import java.util.*
+
+/**
+ * Parses generic signatures (JVMS 4.7.9.1) and descriptors into types that resolve their classifiers lazily in the given context.
+ * Malformed signatures are reported with [IllegalArgumentException], callers fall back to descriptors then.
+ *
+ * @see com.intellij.psi.impl.compiled.SignatureParsing
+ */
+object BinaryClassSignatureParser {
+    private val JAVA_LANG_OBJECT_SIGNATURE = "L$JAVA_LANG_OBJECT;"
+
+    fun parseTypeParameters(signature: CharacterIterator, context: ClassifierResolutionContext): List<JavaTypeParameter> {
+        if (signature.current() != '<') return emptyList()
+
+        val result = ArrayList<JavaTypeParameter>()
+        signature.next()
+        while (signature.current() != '>') {
+            result.add(parseTypeParameter(signature, context))
+        }
+        signature.next()
+        return result
+    }
+
+    private fun parseTypeParameter(signature: CharacterIterator, context: ClassifierResolutionContext): JavaTypeParameter {
+        val name = StringBuilder()
+        while (signature.current() != ':') {
+            name.append(signature.current())
+            next(signature)
+        }
+
+        // As in PSI of class files, the sole java.lang.Object bound is not a bound
+        val bounds = ArrayList<JavaClassifierType>()
+        var objectBound: JavaClassifierType? = null
+        while (signature.current() == ':') {
+            signature.next()
+            // The class bound is empty if there are interface bounds only
+            if (signature.current() == ':') continue
+
+            val isObjectBound = bounds.isEmpty() && isJavaLangObjectAhead(signature)
+            val bound = parseTypeString(signature, context) as? JavaClassifierType
+                        ?: throw IllegalArgumentException("Type parameter bound should be a class type or a type variable: $name")
+            if (isObjectBound) {
+                objectBound = bound
+                continue
+            }
+            if (bounds.isEmpty() && objectBound != null) {
+                bounds.add(objectBound)
+            }
+            bounds.add(bound)
+        }
+
+        return BinaryJavaTypeParameter(Name.identifier(name.toString()), bounds, context.typeProvider)
+    }
+
+    private fun isJavaLangObjectAhead(signature: CharacterIterator): Boolean {
+        val index = signature.index
+        try {
+            for (char in JAVA_LANG_OBJECT_SIGNATURE) {
+                if (signature.current() != char) return false
+                signature.next()
+            }
+            return true
+        }
+        finally {
+            signature.setIndex(index)
+        }
+    }
+
+    /**
+     * Parses a method signature after its type parameters into value parameter types and the return type.
+     */
+    fun parseMethodSignature(signature: CharacterIterator, context: ClassifierResolutionContext): Pair<List<JavaType>, JavaType> {
+        if (signature.current() != '(') throw IllegalArgumentException("Value parameters expected: ${signature.current()}")
+        signature.next()
+
+        val parameterTypes = ArrayList<JavaType>()
+        while (signature.current() != ')') {
+            parameterTypes.add(parseTypeString(signature, context))
+        }
+        signature.next()
+
+        // Thrown exceptions (after '^') don't matter here
+        return Pair(parameterTypes, parseTypeString(signature, context))
+    }
+
+    fun parseTypeString(signature: CharacterIterator, context: ClassifierResolutionContext): JavaType {
+        return when (signature.current()) {
+            'L' -> parseClassTypeSignature(signature, context)
+            'T' -> parseTypeVariableSignature(signature, context)
+            '[' -> {
+                signature.next()
+                PlainJavaArrayType(parseTypeString(signature, context))
+            }
+            else -> {
+                val type = parsePrimitiveType(signature.current())
+                signature.next()
+                type
+            }
+        }
+    }
+
+    fun createClassifierType(internalName: String, context: ClassifierResolutionContext): PlainJavaClassifierType =
+            PlainJavaClassifierType({ context.resolveClass(internalName) }, emptyList(), presentableName(internalName))
+
+    private fun parsePrimitiveType(char: Char): JavaType {
+        if (char == 'V') return PlainJavaPrimitiveType(null)
+        val primitiveType = JvmPrimitiveType.values().firstOrNull { it.desc[0] == char }
+                            ?: throw IllegalArgumentException("Unknown type: $char")
+        return PlainJavaPrimitiveType(primitiveType.primitiveType)
+    }
+
+    private fun parseClassTypeSignature(signature: CharacterIterator, context: ClassifierResolutionContext): JavaClassifierType {
+        val internalName = StringBuilder()
+        // Groups of type arguments of an outer class go before ones of its inner class in signatures: Outer<A>.Inner<B>
+        val argumentGroups = ArrayList<List<JavaType>>()
+
+        signature.next()
+        while (signature.current() != ';') {
+            when (signature.current()) {
+                '<' -> argumentGroups.add(parseTypeArguments(signature, context))
+                '.' -> {
+                    internalName.append('$')
+                    signature.next()
+                }
+                else -> {
+                    internalName.append(signature.current())
+                    next(signature)
+                }
+            }
+        }
+        signature.next()
+
+        val name = internalName.toString()
+        return PlainJavaClassifierType(
+                { context.resolveClass(name) }, argumentGroups.reversed().flatten(), presentableName(name)
+        )
+    }
+
+    private fun parseTypeArguments(signature: CharacterIterator, context: ClassifierResolutionContext): List<JavaType> {
+        val result = ArrayList<JavaType>()
+        signature.next()
+        while (signature.current() != '>') {
+            result.add(parseTypeArgument(signature, context))
+        }
+        signature.next()
+        return result
+    }
+
+    private fun parseTypeArgument(signature: CharacterIterator, context: ClassifierResolutionContext): JavaType {
+        return when (signature.current()) {
+            '*' -> {
+                signature.next()
+                PlainJavaWildcardType(null, false, context.typeProvider)
+            }
+            '+' -> {
+                signature.next()
+                PlainJavaWildcardType(parseTypeString(signature, context), true, context.typeProvider)
+            }
+            '-' -> {
+                signature.next()
+                PlainJavaWildcardType(parseTypeString(signature, context), false, context.typeProvider)
+            }
+            else -> parseTypeString(signature, context)
+        }
+    }
+
+    private fun parseTypeVariableSignature(signature: CharacterIterator, context: ClassifierResolutionContext): JavaClassifierType {
+        val name = StringBuilder()
+        signature.next()
+        while (signature.current() != ';') {
+            name.append(signature.current())
+            next(signature)
+        }
+        signature.next()
+
+        val typeVariableName = name.toString()
+        return PlainJavaClassifierType({ context.resolveTypeParameter(typeVariableName) }, emptyList(), typeVariableName)
+    }
+
+    private fun next(signature: CharacterIterator) {
+        if (signature.next() == CharacterIterator.DONE) throw IllegalArgumentException("Unexpected end of signature")
+    }
+
+    // As the reference name in PSI: the short name of the class
+    private fun presentableName(internalName: String) = internalName.substringAfterLast('/').substringAfterLast('$')
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles
+
+import com.intellij.openapi.vfs.VirtualFile
+import org.jetbrains.kotlin.load.java.structure.*
+import org.jetbrains.kotlin.load.java.structure.impl.VirtualFileBoundJavaClass
+import org.jetbrains.kotlin.name.ClassId
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.org.objectweb.asm.*
+import java.text.StringCharacterIterator
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * A Java class read directly from its class file with ASM, without building PSI for it.
+ *
+ * Only the header of the class (flags, supertypes, the InnerClasses attribute and annotations) is read on creation.
+ * Signatures are parsed and members are read on the first request, and referenced classes are resolved with [classFinder]
+ * only when a type is asked for its classifier.
+ */
+class BinaryJavaClass(
+        override val virtualFile: VirtualFile,
+        private val fqName: FqName,
+        private val outerClass: BinaryJavaClass?,
+        private val classFinder: (ClassId) -> JavaClass?
+) : VirtualFileBoundJavaClass, BinaryJavaModifierListOwner {
+    override var access: Int = 0
+        private set
+
+    private lateinit var internalName: String
+    private var signature: String? = null
+    private var superName: String? = null
+    private var interfaceNames: Array<out String> = emptyArray()
+    private val innerClasses = LinkedHashMap<String, ClassifierResolutionContext.InnerClassInfo>()
+    private val annotationList = ArrayList<JavaAnnotation>(1)
+
+    internal val context: ClassifierResolutionContext =
+            ClassifierResolutionContext.forClass(classFinder, innerClasses, outerClass?.context) { getTypeParameters() }
+
+    private val nestedClasses = ConcurrentHashMap<Name, BinaryJavaClass>()
+
+    init {
+        ClassReader(virtualFile.contentsToByteArray()).accept(
+                HeaderVisitor(), ClassReader.SKIP_CODE or ClassReader.SKIP_DEBUG or ClassReader.SKIP_FRAMES
+        )
+    }
+
+    private inner class HeaderVisitor : ClassVisitor(Opcodes.ASM5) {
+        override fun visit(
+                version: Int, access: Int, name: String, signature: String?, superName: String?, interfaces: Array<out String>?
+        ) {
+            // The access of a nested class is overwritten by its InnerClasses entry below, because the class header has
+            // the flags of the class file (e.g. no 'private' or 'static') rather than of the declaration
+            this@BinaryJavaClass.access = access
+            this@BinaryJavaClass.internalName = name
+            this@BinaryJavaClass.signature = signature
+            this@BinaryJavaClass.superName = superName
+            this@BinaryJavaClass.interfaceNames = interfaces ?: emptyArray()
+        }
+
+        override fun visitInnerClass(name: String, outerName: String?, innerName: String?, access: Int) {
+            // Local and anonymous classes are not members of any class
+            if (outerName == null || innerName == null) return
+
+            innerClasses[name] = ClassifierResolutionContext.InnerClassInfo(outerName, innerName, access)
+            if (name == internalName) {
+                this@BinaryJavaClass.access = access or (this@BinaryJavaClass.access and Opcodes.ACC_DEPRECATED)
+            }
+        }
+
+        override fun visitAnnotation(desc: String, visible: Boolean): AnnotationVisitor? =
+                BinaryJavaAnnotation.addAnnotation(annotationList, desc, context)
+    }
+
+    private class ClassSignature(val typeParameters: List<JavaTypeParameter>, val supertypes: List<JavaClassifierType>)
+
+    private val classSignature by lazy { parseClassSignature() }
+
+    private fun parseClassSignature(): ClassSignature {
+        signature?.let { signature ->
+            try {
+                val iterator = StringCharacterIterator(signature)
+                val typeParameters = BinaryClassSignatureParser.parseTypeParameters(iterator, context)
+                for (typeParameter in typeParameters) {
+                    (typeParameter as BinaryJavaTypeParameter).setOwner(this)
+                }
+
+                val supertypes = ArrayList<JavaClassifierType>()
+                while (iterator.current() != StringCharacterIterator.DONE) {
+                    supertypes.add(BinaryClassSignatureParser.parseTypeString(iterator, context) as JavaClassifierType)
+                }
+                return ClassSignature(typeParameters, normalizeSupertypes(supertypes.firstOrNull(), supertypes.drop(1)))
+            }
+            catch (e: IllegalArgumentException) {
+                // Fall back to the descriptors
+            }
+        }
+
+        return ClassSignature(
+                emptyList(),
+                normalizeSupertypes(
+                        superName?.let { BinaryClassSignatureParser.createClassifierType(it, context) },
+                        interfaceNames.map { BinaryClassSignatureParser.createClassifierType(it, context) }
+                )
+        )
+    }
+
+    // Supertypes are computed as in PSI of class files: interfaces without super-interfaces extend java.lang.Object
+    private fun normalizeSupertypes(superclass: JavaClassifierType?, interfaces: List<JavaClassifierType>): List<JavaClassifierType> {
+        if (internalName == JAVA_LANG_OBJECT) return emptyList()
+
+        if (isInterface()) return if (interfaces.isEmpty()) listOf(createJavaLangObjectType()) else interfaces
+
+        return listOf(superclass ?: createJavaLangObjectType()) + interfaces
+    }
+
+    private fun createJavaLangObjectType() = BinaryClassSignatureParser.createClassifierType(JAVA_LANG_OBJECT, context)
+
+    private class Members(val methods: List<JavaMethod>, val fields: List<JavaField>, val constructors: List<JavaConstructor>)
+
+    private val members by lazy { readMembers() }
+
+    private fun readMembers(): Members {
+        val methods = ArrayList<JavaMethod>()
+        val fields = ArrayList<JavaField>()
+        val constructors = ArrayList<JavaConstructor>()
+
+        // Names of value parameters are stored in the LocalVariableTable attribute of Code, so the code can't be skipped here
+        ClassReader(virtualFile.contentsToByteArray()).accept(object : ClassVisitor(Opcodes.ASM5) {
+            override fun visitMethod(access: Int, name: String, desc: String, signature: String?, exceptions: Array<out String>?): MethodVisitor? {
+                if (access.isSet(Opcodes.ACC_SYNTHETIC) || access.isSet(Opcodes.ACC_BRIDGE) || name == "<clinit>") return null
+                if (isEnum() && isEnumSyntheticMethod(access, name, desc)) return null
+
+                val (member, visitor) = BinaryJavaMethodBase.create(name, access, desc, signature, this@BinaryJavaClass, context)
+                when (member) {
+                    is JavaConstructor -> constructors.add(member)
+                    is JavaMethod -> methods.add(member)
+                }
+                return visitor
+            }
+
+            override fun visitField(access: Int, name: String, desc: String, signature: String?, value: Any?): FieldVisitor? {
+                if (access.isSet(Opcodes.ACC_SYNTHETIC) || !Name.isValidIdentifier(name)) return null
+
+                val (field, visitor) = BinaryJavaField.create(name, access, desc, signature, value, this@BinaryJavaClass, context)
+                fields.add(field)
+                return visitor
+            }
+        }, ClassReader.SKIP_FRAMES)
+
+        return Members(methods, fields, constructors)
+    }
+
+    // values() and valueOf(String) of enums are not shown in PSI of class files either, they're generated by the compiler
+    private fun isEnumSyntheticMethod(access: Int, name: String, desc: String): Boolean {
+        if (!access.isSet(Opcodes.ACC_STATIC)) return false
+        return (name == "values" && desc == "()[L$internalName;") ||
+               (name == "valueOf" && desc == "(Ljava/lang/String;)L$internalName;")
+    }
+
+    /**
+     * Finds a member class of this class, reading it from the class file next to this one.
+     */
+    fun findInnerClass(name: Name): BinaryJavaClass? {
+        nestedClasses[name]?.let { return it }
+
+        val innerInternalName = innerClasses.entries.firstOrNull {
+            it.value.outerInternalName == internalName && it.value.simpleName == name.asString()
+        }?.key ?: return null
+        val file = virtualFile.parent?.findChild(innerInternalName.substringAfterLast('/') + ".class") ?: return null
+
+        val nestedClass = BinaryJavaClass(file, fqName.child(name), this, classFinder)
+        return nestedClasses.putIfAbsent(name, nestedClass) ?: nestedClass
+    }
+
+    override fun getInnerClasses(): Collection<JavaClass> =
+            innerClasses.values
+                    .filter { it.outerInternalName == internalName && !it.access.isSet(Opcodes.ACC_SYNTHETIC) }
+                    .mapNotNull { findInnerClass(Name.identifier(it.simpleName)) }
+
+    override fun getFqName() = fqName
+    override fun getName(): Name = fqName.shortName()
+    override fun getOuterClass() = outerClass
+
+    override fun isInterface() = access.isSet(Opcodes.ACC_INTERFACE)
+    override fun isAnnotationType() = access.isSet(Opcodes.ACC_ANNOTATION)
+    override fun isEnum() = access.isSet(Opcodes.ACC_ENUM)
+
+    override fun getTypeParameters() = classSignature.typeParameters
+    override fun getSupertypes(): Collection<JavaClassifierType> = classSignature.supertypes
+
+    override fun getMethods() = members.methods
+    override fun getFields() = members.fields
+    override fun getConstructors() = members.constructors
+
+    override fun getAnnotations(): Collection<JavaAnnotation> = annotationList
+    override fun findAnnotation(fqName: FqName) = annotationList.findAnnotation(fqName)
+
+    override fun getDefaultType(): JavaClassifierType =
+            PlainJavaClassifierType.create(this, getAllTypeParameters().map { it.type })
+
+    override fun createImmediateType(substitutor: JavaTypeSubstitutor): JavaType {
+        val arguments = getAllTypeParameters().map { substitutor.substitute(it) }
+        // Type parameters mapped to null mean a raw type
+        if (arguments.any { it == null }) return PlainJavaClassifierType.create(this, emptyList())
+        return PlainJavaClassifierType.create(this, arguments.filterNotNull())
+    }
+
+    override fun getOriginKind() = JavaClass.OriginKind.COMPILED
+
+    override fun equals(other: Any?) = other is BinaryJavaClass && fqName == other.fqName && virtualFile == other.virtualFile
+
+    override fun hashCode() = fqName.hashCode() * 31 + virtualFile.hashCode()
+
+    override fun toString() = javaClass.name + ": " + fqName
+}
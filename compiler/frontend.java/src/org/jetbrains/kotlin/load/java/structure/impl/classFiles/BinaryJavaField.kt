@@ -0,0 +1,87 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles
+
+import org.jetbrains.kotlin.load.java.structure.JavaAnnotation
+import org.jetbrains.kotlin.load.java.structure.JavaClass
+import org.jetbrains.kotlin.load.java.structure.JavaField
+import org.jetbrains.kotlin.load.java.structure.JavaType
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.org.objectweb.asm.AnnotationVisitor
+import org.jetbrains.org.objectweb.asm.FieldVisitor
+import org.jetbrains.org.objectweb.asm.Opcodes
+import java.text.StringCharacterIterator
+import java.util.*
+
+class BinaryJavaField(
+        private val name: Name,
+        override val access: Int,
+        private val containingClass: JavaClass,
+        private val type: JavaType,
+        /**
+         * The value of the ConstantValue attribute: a boxed primitive or a String, which are used for compile-time constants
+         */
+        val constantValue: Any?
+) : JavaField, BinaryJavaModifierListOwner {
+    internal val annotationList = ArrayList<JavaAnnotation>(1)
+
+    override fun getName() = name
+    override fun getContainingClass() = containingClass
+    override fun getType() = type
+    override fun isEnumEntry() = access.isSet(Opcodes.ACC_ENUM)
+
+    override fun getAnnotations(): Collection<JavaAnnotation> = annotationList
+    override fun findAnnotation(fqName: FqName) = annotationList.findAnnotation(fqName)
+
+    override fun toString() = javaClass.name + ": " + containingClass.name + "." + name
+
+    companion object {
+        fun create(
+                name: String,
+                access: Int,
+                desc: String,
+                signature: String?,
+                value: Any?,
+                containingClass: JavaClass,
+                context: ClassifierResolutionContext
+        ): Pair<BinaryJavaField, FieldVisitor> {
+            val type = signature?.let {
+                try {
+                    BinaryClassSignatureParser.parseTypeString(StringCharacterIterator(it), context)
+                }
+                catch (e: IllegalArgumentException) {
+                    null
+                }
+            } ?: BinaryClassSignatureParser.parseTypeString(StringCharacterIterator(desc), context)
+
+            // ConstantValue of boolean and char fields is stored as an int
+            val constantValue = when {
+                value !is Int -> value
+                desc == "Z" -> value != 0
+                desc == "C" -> value.toChar()
+                else -> value
+            }
+
+            val field = BinaryJavaField(Name.identifier(name), access, containingClass, type, constantValue)
+            return Pair(field, object : FieldVisitor(Opcodes.ASM5) {
+                override fun visitAnnotation(desc: String, visible: Boolean): AnnotationVisitor? =
+                        BinaryJavaAnnotation.addAnnotation(field.annotationList, desc, context)
+            })
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles
+
+import org.jetbrains.kotlin.load.java.structure.*
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.org.objectweb.asm.AnnotationVisitor
+import org.jetbrains.org.objectweb.asm.Label
+import org.jetbrains.org.objectweb.asm.MethodVisitor
+import org.jetbrains.org.objectweb.asm.Opcodes
+import org.jetbrains.org.objectweb.asm.Type
+import java.text.StringCharacterIterator
+import java.util.*
+
+abstract class BinaryJavaMethodBase(
+        override val access: Int,
+        private val containingClass: JavaClass,
+        internal val parameters: List<BinaryJavaValueParameter>,
+        private val typeParameters: List<JavaTypeParameter>,
+        private val name: Name
+) : JavaMember, JavaTypeParameterListOwner, BinaryJavaModifierListOwner {
+    internal val annotationList = ArrayList<JavaAnnotation>(1)
+
+    override fun getContainingClass() = containingClass
+    override fun getName() = name
+    override fun getTypeParameters() = typeParameters
+
+    override fun getAnnotations(): Collection<JavaAnnotation> = annotationList
+    override fun findAnnotation(fqName: FqName) = annotationList.findAnnotation(fqName)
+
+    override fun toString() = javaClass.name + ": " + containingClass.name + "." + name
+
+    companion object {
+        /**
+         * Creates a method or a constructor from the header of its method_info structure. Annotations and names of value parameters
+         * are filled later by the returned visitor, which should be passed to the class reader.
+         */
+        fun create(
+                name: String,
+                access: Int,
+                desc: String,
+                signature: String?,
+                containingClass: BinaryJavaClass,
+                classContext: ClassifierResolutionContext
+        ): Pair<BinaryJavaMethodBase, MethodVisitor> {
+            val isConstructor = name == "<init>"
+            val typeParameters = ArrayList<JavaTypeParameter>()
+            val context = classContext.forMember { typeParameters }
+
+            val descriptorTypes = BinaryClassSignatureParser.parseMethodSignature(StringCharacterIterator(desc), context)
+            val descParameterTypes = descriptorTypes.first
+            val parsed = parseSignature(signature, context, typeParameters) ?: descriptorTypes
+            // javac doesn't write synthetic parameters of constructors to signatures, but other compilers may do
+            val parameterTypes =
+                    if (parsed.first.size == descParameterTypes.size)
+                        parsed.first.drop(expectedSyntheticParameterCount(isConstructor, containingClass))
+                    else parsed.first
+            val returnType = parsed.second
+
+            val syntheticParameterCount = Math.max(descParameterTypes.size - parameterTypes.size, 0)
+            val isVarargs = access.isSet(Opcodes.ACC_VARARGS)
+            val valueParameters = parameterTypes.mapIndexed { index, type ->
+                BinaryJavaValueParameter(type, isVarargs && index == parameterTypes.lastIndex)
+            }
+
+            val member =
+                    if (isConstructor) BinaryJavaConstructor(access, containingClass, valueParameters, typeParameters)
+                    else BinaryJavaMethod(access, containingClass, valueParameters, typeParameters, Name.identifier(name), returnType)
+
+            for (typeParameter in typeParameters) {
+                (typeParameter as BinaryJavaTypeParameter).setOwner(member)
+            }
+
+            val parameterIndexBySlot = HashMap<Int, Int>()
+            var slot = if (access.isSet(Opcodes.ACC_STATIC)) 0 else 1
+            for ((index, type) in Type.getArgumentTypes(desc).withIndex()) {
+                parameterIndexBySlot[slot] = index - syntheticParameterCount
+                slot += type.size
+            }
+
+            return Pair(member, BinaryJavaMethodVisitor(member, valueParameters, syntheticParameterCount, parameterIndexBySlot, context))
+        }
+
+        private fun parseSignature(
+                signature: String?,
+                context: ClassifierResolutionContext,
+                typeParameters: MutableList<JavaTypeParameter>
+        ): Pair<List<JavaType>, JavaType>? {
+            if (signature == null) return null
+            return try {
+                val iterator = StringCharacterIterator(signature)
+                typeParameters.addAll(BinaryClassSignatureParser.parseTypeParameters(iterator, context))
+                BinaryClassSignatureParser.parseMethodSignature(iterator, context)
+            }
+            catch (e: IllegalArgumentException) {
+                typeParameters.clear()
+                null
+            }
+        }
+
+        // As in PSI of class files: the name and the ordinal of enum constants, the outer instance of inner classes
+        private fun expectedSyntheticParameterCount(isConstructor: Boolean, containingClass: JavaClass) = when {
+            !isConstructor -> 0
+            containingClass.isEnum -> 2
+            containingClass.outerClass != null && !containingClass.isStatic -> 1
+            else -> 0
+        }
+    }
+}
+
+class BinaryJavaMethod(
+        access: Int,
+        containingClass: JavaClass,
+        valueParameters: List<BinaryJavaValueParameter>,
+        typeParameters: List<JavaTypeParameter>,
+        name: Name,
+        private val returnType: JavaType
+) : BinaryJavaMethodBase(access, containingClass, valueParameters, typeParameters, name), JavaMethod {
+    internal var hasDefaultValue = false
+
+    override fun getValueParameters(): List<JavaValueParameter> = parameters
+
+    override fun hasAnnotationParameterDefaultValue() = hasDefaultValue
+
+    override fun getReturnType() = returnType
+}
+
+class BinaryJavaConstructor(
+        access: Int,
+        containingClass: JavaClass,
+        valueParameters: List<BinaryJavaValueParameter>,
+        typeParameters: List<JavaTypeParameter>
+) : BinaryJavaMethodBase(access, containingClass, valueParameters, typeParameters, containingClass.name), JavaConstructor {
+    override fun getValueParameters(): List<JavaValueParameter> = parameters
+}
+
+class BinaryJavaValueParameter(
+        private val type: JavaType,
+        private val isVararg: Boolean
+) : JavaValueParameter {
+    internal val annotationList = ArrayList<JavaAnnotation>(0)
+    internal var parameterName: Name? = null
+
+    override fun getName() = parameterName
+    override fun getType() = type
+    override fun isVararg() = isVararg
+
+    override fun getAnnotations(): Collection<JavaAnnotation> = annotationList
+    override fun findAnnotation(fqName: FqName) = annotationList.findAnnotation(fqName)
+    override fun isDeprecatedInJavaDoc() = false
+
+    override fun toString() = javaClass.name + ": " + (parameterName ?: "<no name>")
+}
+
+private class BinaryJavaMethodVisitor(
+        private val member: BinaryJavaMethodBase,
+        private val valueParameters: List<BinaryJavaValueParameter>,
+        private val syntheticParameterCount: Int,
+        private val parameterIndexBySlot: Map<Int, Int>,
+        private val context: ClassifierResolutionContext
+) : MethodVisitor(Opcodes.ASM5) {
+    private var visitedParameterCount = 0
+
+    override fun visitAnnotation(desc: String, visible: Boolean): AnnotationVisitor? =
+            BinaryJavaAnnotation.addAnnotation(member.annotationList, desc, context)
+
+    override fun visitParameterAnnotation(parameter: Int, desc: String, visible: Boolean): AnnotationVisitor? {
+        val valueParameter = valueParameters.getOrNull(parameter - syntheticParameterCount) ?: return null
+        return BinaryJavaAnnotation.addAnnotation(valueParameter.annotationList, desc, context)
+    }
+
+    override fun visitAnnotationDefault(): AnnotationVisitor? {
+        (member as? BinaryJavaMethod)?.hasDefaultValue = true
+        return null
+    }
+
+    override fun visitParameter(name: String?, access: Int) {
+        setName(visitedParameterCount++ - syntheticParameterCount, name)
+    }
+
+    override fun visitLocalVariable(name: String, desc: String, signature: String?, start: Label, end: Label, index: Int) {
+        setName(parameterIndexBySlot[index] ?: return, name)
+    }
+
+    private fun setName(index: Int, name: String?) {
+        val valueParameter = valueParameters.getOrNull(index) ?: return
+        if (valueParameter.parameterName == null && name != null && Name.isValidIdentifier(name)) {
+            valueParameter.parameterName = Name.identifier(name)
+        }
+    }
+}
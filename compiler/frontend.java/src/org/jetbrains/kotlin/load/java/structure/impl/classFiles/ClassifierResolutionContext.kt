@@ -0,0 +1,79 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles
+
+import org.jetbrains.kotlin.load.java.structure.JavaClass
+import org.jetbrains.kotlin.load.java.structure.JavaTypeParameter
+import org.jetbrains.kotlin.load.java.structure.JavaTypeProvider
+import org.jetbrains.kotlin.name.ClassId
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.name.Name
+
+/**
+ * Resolves names found in a class file: internal names of classes, with the help of the InnerClasses attribute of the file,
+ * and names of type variables, which are looked up in the member, then in the class and then in its outer classes.
+ */
+class ClassifierResolutionContext private constructor(
+        private val classFinder: (ClassId) -> JavaClass?,
+        private val innerClasses: Map<String, InnerClassInfo>,
+        private val typeParameters: () -> List<JavaTypeParameter>,
+        private val parent: ClassifierResolutionContext?
+) {
+    class InnerClassInfo(val outerInternalName: String, val simpleName: String, val access: Int)
+
+    val typeProvider: JavaTypeProvider = PlainJavaTypeProvider(this)
+
+    fun forMember(typeParameters: () -> List<JavaTypeParameter>): ClassifierResolutionContext =
+            ClassifierResolutionContext(classFinder, innerClasses, typeParameters, this)
+
+    fun resolveClass(internalName: String): JavaClass? = classFinder(mapInternalNameToClassId(internalName))
+
+    fun resolveTypeParameter(name: String): JavaTypeParameter? {
+        var context: ClassifierResolutionContext? = this
+        while (context != null) {
+            context.typeParameters().firstOrNull { it.name.asString() == name }?.let { return it }
+            context = context.parent
+        }
+        return null
+    }
+
+    fun mapInternalNameToClassId(internalName: String): ClassId {
+        val info = findInnerClassInfo(internalName)
+                   ?: return ClassId.topLevel(FqName(internalName.replace('/', '.')))
+        return mapInternalNameToClassId(info.outerInternalName).createNestedClassId(Name.identifier(info.simpleName))
+    }
+
+    fun mapDescToClassId(desc: String): ClassId = mapInternalNameToClassId(desc.substring(1, desc.length - 1))
+
+    private fun findInnerClassInfo(internalName: String): InnerClassInfo? {
+        var context: ClassifierResolutionContext? = this
+        while (context != null) {
+            context.innerClasses[internalName]?.let { return it }
+            context = context.parent
+        }
+        return null
+    }
+
+    companion object {
+        fun forClass(
+                classFinder: (ClassId) -> JavaClass?,
+                innerClasses: Map<String, InnerClassInfo>,
+                outerClassContext: ClassifierResolutionContext?,
+                typeParameters: () -> List<JavaTypeParameter>
+        ): ClassifierResolutionContext = ClassifierResolutionContext(classFinder, innerClasses, typeParameters, outerClassContext)
+    }
+}
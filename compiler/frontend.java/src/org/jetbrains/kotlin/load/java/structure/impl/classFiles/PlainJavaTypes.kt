@@ -0,0 +1,181 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles
+
+import org.jetbrains.kotlin.builtins.PrimitiveType
+import org.jetbrains.kotlin.load.java.structure.*
+import org.jetbrains.kotlin.load.java.structure.impl.JavaTypeSubstitutorImpl
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.kotlin.resolve.jvm.JvmPrimitiveType
+import java.util.*
+
+abstract class PlainJavaType : JavaType {
+    override fun createArrayType(): JavaArrayType = PlainJavaArrayType(this)
+
+    abstract val text: String
+
+    override fun toString() = javaClass.name + ": " + text
+}
+
+class PlainJavaPrimitiveType(private val type: PrimitiveType?) : PlainJavaType(), JavaPrimitiveType {
+    override fun getType() = type
+
+    override val text: String
+        get() = type?.let { JvmPrimitiveType.get(it).javaKeywordName } ?: "void"
+
+    override fun equals(other: Any?) = other is PlainJavaPrimitiveType && type == other.type
+
+    override fun hashCode() = type?.hashCode() ?: 0
+}
+
+class PlainJavaArrayType(private val componentType: JavaType) : PlainJavaType(), JavaArrayType {
+    override fun getComponentType() = componentType
+
+    override val text: String
+        get() = (componentType as? PlainJavaType)?.text + "[]"
+
+    override fun equals(other: Any?) = other is PlainJavaArrayType && componentType == other.componentType
+
+    override fun hashCode() = componentType.hashCode() + 1
+}
+
+class PlainJavaWildcardType(
+        private val bound: JavaType?,
+        private val isExtends: Boolean,
+        private val typeProvider: JavaTypeProvider
+) : PlainJavaType(), JavaWildcardType {
+    override fun getBound() = bound
+    override fun isExtends() = isExtends
+    override fun getTypeProvider() = typeProvider
+
+    override val text: String
+        get() = if (bound == null) "?" else (if (isExtends) "? extends " else "? super ") + (bound as? PlainJavaType)?.text
+
+    override fun equals(other: Any?) = other is PlainJavaWildcardType && bound == other.bound && isExtends == other.isExtends
+
+    override fun hashCode() = (bound?.hashCode() ?: 0) * 31 + (if (isExtends) 1 else 0)
+}
+
+/**
+ * A reference to a class or to a type variable from a class file. The classifier is resolved on the first request,
+ * so creating a type, for example a supertype of a class, doesn't load the referenced class.
+ *
+ * Type arguments are listed as in [JavaClassifierType.getTypeArguments]: arguments for the class itself go first,
+ * then ones for its outer classes.
+ */
+class PlainJavaClassifierType(
+        classifierComputation: () -> JavaClassifier?,
+        private val typeArguments: List<JavaType>,
+        private val classifierName: String
+) : PlainJavaType(), JavaClassifierType {
+    private val resolvedClassifier by lazy(classifierComputation)
+
+    override fun getClassifier() = resolvedClassifier
+
+    override fun getSubstitutor(): JavaTypeSubstitutor {
+        val javaClass = resolvedClassifier as? JavaClass ?: return JavaTypeSubstitutor.EMPTY
+        val typeParameters = javaClass.getAllTypeParameters()
+        if (typeParameters.isEmpty()) return JavaTypeSubstitutor.EMPTY
+
+        val substitutionMap = HashMap<JavaTypeParameter, JavaType?>()
+        for ((index, typeParameter) in typeParameters.withIndex()) {
+            // Raw types are represented by mappings to null, as in PSI
+            substitutionMap[typeParameter] = if (index < typeArguments.size) typeArguments[index] else null
+        }
+        return JavaTypeSubstitutorImpl(substitutionMap)
+    }
+
+    override fun getSupertypes(): Collection<JavaClassifierType> {
+        val javaClass = resolvedClassifier as? JavaClass ?: return emptyList()
+        val substitutor = getSubstitutor()
+        return javaClass.supertypes.map { supertype -> substitutor.substitute(supertype) as? JavaClassifierType ?: supertype }
+    }
+
+    override fun getPresentableText() = text
+
+    override val text: String
+        get() = if (typeArguments.isEmpty()) classifierName
+                else typeArguments.joinToString(", ", "$classifierName<", ">") { (it as? PlainJavaType)?.text ?: it.toString() }
+
+    override fun isRaw() = typeArguments.isEmpty() && (resolvedClassifier as? JavaClass)?.getAllTypeParameters()?.isNotEmpty() ?: false
+
+    override fun getTypeArguments() = typeArguments
+
+    override fun getAnnotations() = emptyList<JavaAnnotation>()
+    override fun findAnnotation(fqName: FqName): JavaAnnotation? = null
+    override fun isDeprecatedInJavaDoc() = false
+
+    override fun equals(other: Any?): Boolean {
+        if (other !is PlainJavaClassifierType) return false
+        val classifier = resolvedClassifier
+        return (if (classifier != null) classifier == other.resolvedClassifier else classifierName == other.classifierName) &&
+               typeArguments == other.typeArguments
+    }
+
+    override fun hashCode() = (resolvedClassifier?.hashCode() ?: classifierName.hashCode()) * 31 + typeArguments.hashCode()
+
+    companion object {
+        fun create(javaClass: JavaClass, typeArguments: List<JavaType>) =
+                PlainJavaClassifierType({ javaClass }, typeArguments, javaClass.name.asString())
+    }
+}
+
+class BinaryJavaTypeParameter(
+        private val name: Name,
+        private val upperBounds: Collection<JavaClassifierType>,
+        private val typeProvider: JavaTypeProvider
+) : JavaTypeParameter {
+    private var typeParameterOwner: JavaTypeParameterListOwner? = null
+
+    fun setOwner(owner: JavaTypeParameterListOwner) {
+        typeParameterOwner = owner
+    }
+
+    override fun getName() = name
+    override fun getUpperBounds() = upperBounds
+    override fun getOwner() = typeParameterOwner
+    override fun getTypeProvider() = typeProvider
+
+    override fun getType(): JavaClassifierType = PlainJavaClassifierType({ this }, emptyList(), name.asString())
+
+    override fun toString() = javaClass.name + ": " + name
+}
+
+class PlainJavaTypeProvider(private val context: ClassifierResolutionContext) : JavaTypeProvider {
+    override fun createJavaLangObjectType(): JavaType =
+            PlainJavaClassifierType({ context.resolveClass(JAVA_LANG_OBJECT) }, emptyList(), "Object")
+
+    override fun createUpperBoundWildcard(bound: JavaType): JavaWildcardType = PlainJavaWildcardType(bound, true, this)
+    override fun createLowerBoundWildcard(bound: JavaType): JavaWildcardType = PlainJavaWildcardType(bound, false, this)
+    override fun createUnboundedWildcard(): JavaWildcardType = PlainJavaWildcardType(null, false, this)
+}
+
+/**
+ * Type parameters of the class followed by type parameters of its outer classes, up to the first static one,
+ * in the order of [JavaClassifierType.getTypeArguments].
+ */
+fun JavaClass.getAllTypeParameters(): List<JavaTypeParameter> {
+    var current: JavaClass? = this
+    val result = ArrayList<JavaTypeParameter>()
+    while (current != null) {
+        result.addAll(current.typeParameters)
+        if (current.isStatic) break
+        current = current.outerClass
+    }
+    return result
+}
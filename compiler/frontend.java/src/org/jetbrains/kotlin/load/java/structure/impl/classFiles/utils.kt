@@ -0,0 +1,50 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles
+
+import org.jetbrains.kotlin.descriptors.Visibilities
+import org.jetbrains.kotlin.load.java.JavaVisibilities
+import org.jetbrains.kotlin.load.java.structure.JavaAnnotation
+import org.jetbrains.kotlin.load.java.structure.JavaAnnotationOwner
+import org.jetbrains.kotlin.load.java.structure.JavaModifierListOwner
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.org.objectweb.asm.Opcodes
+
+internal const val JAVA_LANG_OBJECT = "java/lang/Object"
+
+internal fun Int.isSet(flag: Int) = this and flag != 0
+
+interface BinaryJavaModifierListOwner : JavaModifierListOwner, JavaAnnotationOwner {
+    /* protected // KT-3029 */ val access: Int
+
+    override fun isAbstract() = access.isSet(Opcodes.ACC_ABSTRACT)
+    override fun isStatic() = access.isSet(Opcodes.ACC_STATIC)
+    override fun isFinal() = access.isSet(Opcodes.ACC_FINAL)
+
+    override fun getVisibility() = when {
+        access.isSet(Opcodes.ACC_PUBLIC) -> Visibilities.PUBLIC
+        access.isSet(Opcodes.ACC_PRIVATE) -> Visibilities.PRIVATE
+        access.isSet(Opcodes.ACC_PROTECTED) ->
+            if (isStatic()) JavaVisibilities.PROTECTED_STATIC_VISIBILITY else JavaVisibilities.PROTECTED_AND_PACKAGE
+        else -> JavaVisibilities.PACKAGE_VISIBILITY
+    }
+
+    override fun isDeprecatedInJavaDoc() = access.isSet(Opcodes.ACC_DEPRECATED)
+}
+
+internal fun Collection<JavaAnnotation>.findAnnotation(fqName: FqName): JavaAnnotation? =
+        firstOrNull { it.classId?.asSingleFqName() == fqName }
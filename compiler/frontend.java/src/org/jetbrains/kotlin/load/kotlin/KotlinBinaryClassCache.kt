@@ -22,52 +22,115 @@ import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.components.ServiceManager
 import com.intellij.openapi.util.Computable
 import com.intellij.openapi.vfs.VirtualFile
+import java.util.*
+import java.util.concurrent.atomic.AtomicLong
 
 class KotlinBinaryClassCache : Disposable {
-    private class RequestCache {
-        internal var virtualFile: VirtualFile? = null
-        internal var modificationStamp: Long = 0
-        internal var virtualFileKotlinClass: VirtualFileKotlinClass? = null
+    private val cache = KotlinBinaryClassLruCache(DEFAULT_MAX_SIZE)
 
-        fun cache(file: VirtualFile, aClass: VirtualFileKotlinClass?): VirtualFileKotlinClass? {
-            virtualFile = file
-            virtualFileKotlinClass = aClass
-            modificationStamp = file.modificationStamp
-
-            return aClass
-        }
-    }
-
-    private val cache = object : ThreadLocal<RequestCache>() {
-        override fun initialValue(): RequestCache {
-            return RequestCache()
-        }
-    }
+    val statistics: KotlinBinaryClassLruCache.Statistics
+        get() = cache.statistics
 
     override fun dispose() {
         // This is only relevant for tests. We create a new instance of Application for each test, and so a new instance of this service is
-        // also created for each test. However all tests share the same event dispatch thread, which would collect all instances of this
-        // thread-local if they're not removed properly. Each instance would transitively retain VFS resulting in OutOfMemoryError
-        cache.remove()
+        // also created for each test. Cached classes retain VFS, so they're dropped as soon as the application is disposed
+        cache.clear()
     }
 
     companion object {
+        // Estimated size of cached headers, see KotlinBinaryClassLruCache.estimateSize
+        private val DEFAULT_MAX_SIZE = 16L * 1024 * 1024
+
         fun getKotlinBinaryClass(file: VirtualFile, fileContent: ByteArray? = null): KotlinJvmBinaryClass? {
             if (file.fileType !== JavaClassFileType.INSTANCE) return null
 
             val service = ServiceManager.getService(KotlinBinaryClassCache::class.java)
-            val requestCache = service.cache.get()
+            return service.cache.get(file, fileContent)
+        }
+    }
+}
+
+// Least recently used binary classes shared by all threads, bounded by the estimated size of their headers
+// An entry is valid as long as the modification stamp of its file is the same as when it was cached
+class KotlinBinaryClassLruCache(private val maxSize: Long) {
+    class Statistics(val hits: Long, val misses: Long, val evictions: Long, val size: Long, val entries: Int) {
+        override fun toString() = "hits: $hits, misses: $misses, evictions: $evictions, size: $size bytes in $entries entries"
+    }
+
+    private class Entry(val modificationStamp: Long, val kotlinClass: VirtualFileKotlinClass?, val size: Long)
+
+    // guarded by itself
+    private val entries = LinkedHashMap<VirtualFile, Entry>(16, 0.75f, /* accessOrder = */ true)
+    private var size = 0L
+
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+    private val evictions = AtomicLong()
+
+    val statistics: Statistics
+        get() = synchronized(entries) {
+            Statistics(hits.get(), misses.get(), evictions.get(), size, entries.size)
+        }
+
+    fun get(file: VirtualFile, fileContent: ByteArray?): VirtualFileKotlinClass? {
+        val modificationStamp = file.modificationStamp
+        synchronized(entries) {
+            val entry = entries[file]
+            if (entry != null && entry.modificationStamp == modificationStamp) {
+                hits.incrementAndGet()
+                return entry.kotlinClass
+            }
+        }
+
+        misses.incrementAndGet()
+        // Headers are read outside of the lock, so several threads may read the same file at once
+        val aClass = ApplicationManager.getApplication().runReadAction(Computable {
+            //noinspection deprecation
+            VirtualFileKotlinClass.create(file, fileContent)
+        })
+
+        put(file, Entry(modificationStamp, aClass, estimateSize(aClass)))
+        return aClass
+    }
+
+    private fun put(file: VirtualFile, entry: Entry) {
+        synchronized(entries) {
+            val old = entries.put(file, entry)
+            if (old != null) {
+                size -= old.size
+            }
+            size += entry.size
 
-            if (file.modificationStamp == requestCache.modificationStamp && file == requestCache.virtualFile) {
-                return requestCache.virtualFileKotlinClass
+            val iterator = entries.values.iterator()
+            while (size > maxSize && iterator.hasNext()) {
+                val eldest = iterator.next()
+                if (eldest === entry) break
+                iterator.remove()
+                size -= eldest.size
+                evictions.incrementAndGet()
             }
+        }
+    }
+
+    fun clear() {
+        synchronized(entries) {
+            entries.clear()
+            size = 0
+        }
+    }
+
+    companion object {
+        // Roughly the size of an entry with its map node, the class and its header (not including the file which is retained by VFS)
+        private val ENTRY_OVERHEAD = 256L
 
-            val aClass = ApplicationManager.getApplication().runReadAction(Computable {
-                //noinspection deprecation
-                VirtualFileKotlinClass.create(file, fileContent)
-            })
+        private fun estimateSize(aClass: VirtualFileKotlinClass?): Long {
+            if (aClass == null) return ENTRY_OVERHEAD
 
-            return requestCache.cache(file, aClass)
+            val header = aClass.classHeader
+            var chars = 0L
+            header.data?.forEach { chars += it.length }
+            header.strings?.forEach { chars += it.length }
+            return ENTRY_OVERHEAD + 2 * chars
         }
     }
 }
@@ -17,7 +17,7 @@
 package org.jetbrains.kotlin.load.kotlin
 
 import org.jetbrains.kotlin.load.java.structure.JavaClass
-import org.jetbrains.kotlin.load.java.structure.impl.JavaClassImpl
+import org.jetbrains.kotlin.load.java.structure.impl.VirtualFileBoundJavaClass
 import org.jetbrains.kotlin.name.ClassId
 import org.jetbrains.kotlin.utils.sure
 
@@ -28,9 +28,9 @@ abstract class VirtualFileKotlinClassFinder : JvmVirtualFileFinder {
     }
 
     override fun findKotlinClass(javaClass: JavaClass): KotlinJvmBinaryClass? {
-        var file = (javaClass as JavaClassImpl).psi.containingFile!!.virtualFile ?: return null
+        var file = (javaClass as? VirtualFileBoundJavaClass)?.virtualFile ?: return null
         if (javaClass.getOuterClass() != null) {
-            // For nested classes we get a file of the containing class, to get the actual class file for A.B.C,
+            // For nested classes from PSI we get a file of the containing class, to get the actual class file for A.B.C,
             // we take the file for A, take its parent directory, then in this directory we look for A$B$C.class
             file = file.parent!!.findChild(classFileName(javaClass) + ".class").sure { "Virtual file not found for $javaClass" }
         }
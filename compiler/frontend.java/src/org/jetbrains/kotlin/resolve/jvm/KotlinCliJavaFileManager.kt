@@ -19,8 +19,14 @@ package org.jetbrains.kotlin.resolve.jvm
 import com.intellij.psi.PsiClass
 import com.intellij.psi.impl.file.impl.JavaFileManager
 import com.intellij.psi.search.GlobalSearchScope
+import org.jetbrains.kotlin.load.java.structure.JavaClass
 import org.jetbrains.kotlin.name.ClassId
 
 interface KotlinCliJavaFileManager : JavaFileManager {
     fun findClass(classId: ClassId, searchScope: GlobalSearchScope): PsiClass?
+
+    /**
+     * Finds a class without building PSI for it if the class is read from a class file
+     */
+    fun findJavaClass(classId: ClassId, searchScope: GlobalSearchScope): JavaClass?
 }
\ No newline at end of file
@@ -40,6 +40,9 @@ import kotlin.collections.ArraysKt;
 import kotlin.collections.CollectionsKt;
 import kotlin.jvm.functions.Function1;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.load.java.structure.JavaClass;
+import org.jetbrains.kotlin.load.java.structure.impl.JavaClassImpl;
 import org.jetbrains.kotlin.progress.ProgressIndicatorAndCompilationCanceledStatus;
 import org.jetbrains.kotlin.name.ClassId;
 
@@ -112,6 +115,33 @@ public class KotlinJavaPsiFacade {
         return null;
     }
 
+    /**
+     * Same as {@link #findClass(ClassId, GlobalSearchScope)}, but classes from class files are not necessarily backed by PSI
+     */
+    @Nullable
+    public JavaClass findJavaClass(@NotNull ClassId classId, @NotNull GlobalSearchScope scope) {
+        ProgressIndicatorAndCompilationCanceledStatus.checkCanceled();
+
+        if (shouldUseSlowResolve()) {
+            PsiClass psiClass = findClass(classId, scope);
+            return psiClass == null ? null : new JavaClassImpl(psiClass);
+        }
+
+        String qualifiedName = classId.asSingleFqName().asString();
+        for (KotlinPsiElementFinderWrapper finder : finders()) {
+            if (finder instanceof KotlinPsiElementFinderImpl) {
+                JavaClass aClass = ((KotlinPsiElementFinderImpl) finder).findJavaClass(classId, scope);
+                if (aClass != null) return aClass;
+            }
+            else {
+                PsiClass aClass = finder.findClass(qualifiedName, scope);
+                if (aClass != null) return new JavaClassImpl(aClass);
+            }
+        }
+
+        return null;
+    }
+
     @NotNull
     private PsiClass[] findClassesInDumbMode(@NotNull String qualifiedName, @NotNull GlobalSearchScope scope) {
         String packageName = StringUtil.getPackageName(qualifiedName);
@@ -328,6 +358,15 @@ public class KotlinJavaPsiFacade {
             return findClass(classId.asSingleFqName().asString(), scope);
         }
 
+        @Nullable
+        public JavaClass findJavaClass(@NotNull ClassId classId, @NotNull GlobalSearchScope scope) {
+            if (isCliFileManager) {
+                return ((KotlinCliJavaFileManager) javaFileManager).findJavaClass(classId, scope);
+            }
+            PsiClass psiClass = findClass(classId, scope);
+            return psiClass == null ? null : new JavaClassImpl(psiClass);
+        }
+
         @Override
         public PsiPackage findPackage(@NotNull String qualifiedName, @NotNull GlobalSearchScope scope) {
             if (isCliFileManager) {
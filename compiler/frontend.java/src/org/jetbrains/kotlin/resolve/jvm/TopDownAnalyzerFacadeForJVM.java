@@ -24,6 +24,7 @@ import org.jetbrains.kotlin.analyzer.AnalysisResult;
 import org.jetbrains.kotlin.context.ContextKt;
 import org.jetbrains.kotlin.context.ModuleContext;
 import org.jetbrains.kotlin.context.MutableModuleContext;
+import org.jetbrains.kotlin.context.ProjectContext;
 import org.jetbrains.kotlin.descriptors.ModuleDescriptor;
 import org.jetbrains.kotlin.descriptors.PackageFragmentProvider;
 import org.jetbrains.kotlin.descriptors.PackagePartProvider;
@@ -41,6 +42,7 @@ import org.jetbrains.kotlin.name.Name;
 import org.jetbrains.kotlin.psi.KtFile;
 import org.jetbrains.kotlin.resolve.BindingContext;
 import org.jetbrains.kotlin.resolve.BindingTrace;
+import org.jetbrains.kotlin.resolve.BodyResolveParallelism;
 import org.jetbrains.kotlin.resolve.TopDownAnalysisMode;
 import org.jetbrains.kotlin.resolve.jvm.extensions.AnalysisCompletedHandlerExtension;
 import org.jetbrains.kotlin.resolve.jvm.extensions.PackageFragmentProviderExtension;
@@ -63,7 +65,8 @@ public enum TopDownAnalyzerFacadeForJVM {
             @NotNull TopDownAnalysisMode topDownAnalysisMode,
             PackagePartProvider packagePartProvider
     ) {
-        return analyzeFilesWithJavaIntegration(moduleContext, files, trace, topDownAnalysisMode, null, null, packagePartProvider);
+        return analyzeFilesWithJavaIntegration(
+                moduleContext, files, trace, topDownAnalysisMode, null, null, packagePartProvider, BodyResolveParallelism.SEQUENTIAL);
     }
 
     @NotNull
@@ -74,10 +77,25 @@ public enum TopDownAnalyzerFacadeForJVM {
             @Nullable List<Module> modules,
             @Nullable IncrementalCompilationComponents incrementalCompilationComponents,
             @NotNull PackagePartProvider packagePartProvider
+    ) {
+        return analyzeFilesWithJavaIntegrationWithCustomContext(
+                moduleContext, files, trace, modules, incrementalCompilationComponents, packagePartProvider,
+                BodyResolveParallelism.SEQUENTIAL);
+    }
+
+    @NotNull
+    public static AnalysisResult analyzeFilesWithJavaIntegrationWithCustomContext(
+            @NotNull ModuleContext moduleContext,
+            @NotNull Collection<KtFile> files,
+            @NotNull BindingTrace trace,
+            @Nullable List<Module> modules,
+            @Nullable IncrementalCompilationComponents incrementalCompilationComponents,
+            @NotNull PackagePartProvider packagePartProvider,
+            @NotNull BodyResolveParallelism bodyResolveParallelism
     ) {
         return analyzeFilesWithJavaIntegration(
                 moduleContext, files, trace, TopDownAnalysisMode.TopLevelDeclarations, modules, incrementalCompilationComponents,
-                packagePartProvider);
+                packagePartProvider, bodyResolveParallelism);
     }
 
     @NotNull
@@ -88,7 +106,8 @@ public enum TopDownAnalyzerFacadeForJVM {
             @NotNull TopDownAnalysisMode topDownAnalysisMode,
             @Nullable List<Module> modules,
             @Nullable IncrementalCompilationComponents incrementalCompilationComponents,
-            @NotNull PackagePartProvider packagePartProvider
+            @NotNull PackagePartProvider packagePartProvider,
+            @NotNull BodyResolveParallelism bodyResolveParallelism
     ) {
         Project project = moduleContext.getProject();
         List<KtFile> allFiles = JvmAnalyzerFacade.getAllFilesToAnalyze(project, null, files);
@@ -116,7 +135,8 @@ public enum TopDownAnalyzerFacadeForJVM {
                 providerFactory,
                 GlobalSearchScope.allScope(project),
                 lookupTracker,
-                packagePartProvider
+                packagePartProvider,
+                bodyResolveParallelism
         );
 
         List<PackageFragmentProvider> additionalProviders = new ArrayList<PackageFragmentProvider>();
@@ -160,8 +180,13 @@ public enum TopDownAnalyzerFacadeForJVM {
 
     @NotNull
     public static MutableModuleContext createContextWithSealedModule(@NotNull Project project, @NotNull String moduleName) {
+        return createContextWithSealedModule(ContextKt.ProjectContext(project), moduleName);
+    }
+
+    @NotNull
+    public static MutableModuleContext createContextWithSealedModule(@NotNull ProjectContext projectContext, @NotNull String moduleName) {
         MutableModuleContext context = ContextKt.ContextForNewModule(
-                project, Name.special("<" + moduleName + ">"), JvmPlatform.INSTANCE
+                projectContext, Name.special("<" + moduleName + ">"), JvmPlatform.INSTANCE
         );
         context.setDependencies(context.getModule(), JvmPlatform.INSTANCE.getBuiltIns().getBuiltInsModule());
         return context;
@@ -97,6 +97,15 @@ fun GlobalContext(): GlobalContextImpl {
     return GlobalContextImpl(LockBasedStorageManager.createWithExceptionHandling(tracker), tracker)
 }
 
+/**
+ * A global context whose storage manager computes independent lazy values and memoized function keys in parallel,
+ * see [LockBasedStorageManager.createWithPerKeyLocking]
+ */
+fun GlobalContextWithPerKeyLocking(): GlobalContextImpl {
+    val tracker = ExceptionTracker()
+    return GlobalContextImpl(LockBasedStorageManager.createWithPerKeyLocking(tracker), tracker)
+}
+
 fun ProjectContext(project: Project): ProjectContext = ProjectContextImpl(project, GlobalContext())
 fun ModuleContext(module: ModuleDescriptor, project: Project): ModuleContext =
         ModuleContextImpl(module, ProjectContext(project))
@@ -119,8 +128,13 @@ fun ContextForNewModule(
         project: Project,
         moduleName: Name,
         targetPlatform: TargetPlatform
+): MutableModuleContext = ContextForNewModule(ProjectContext(project), moduleName, targetPlatform)
+
+fun ContextForNewModule(
+        projectContext: ProjectContext,
+        moduleName: Name,
+        targetPlatform: TargetPlatform
 ): MutableModuleContext {
-    val projectContext = ProjectContext(project)
     val module = targetPlatform.createModule(moduleName, projectContext.storageManager)
     return MutableModuleContextImpl(module, projectContext)
 }
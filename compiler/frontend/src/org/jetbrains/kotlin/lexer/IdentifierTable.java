@@ -0,0 +1,137 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.lexer;
+
+import com.intellij.util.containers.ConcurrentWeakValueHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.name.Name;
+
+/**
+ * Interns names of identifiers, so that each occurrence of the same identifier in the sources is represented by the same {@link Name}.
+ * Lookups of already interned identifiers take a range of a char sequence and allocate nothing.
+ * The tokens themselves are kept in arrays by PsiBuilder, so names of identifiers are what's left to share after parsing.
+ *
+ * Names are held weakly: a name which isn't referenced anymore is removed from the table, so the table doesn't need to be cleared.
+ */
+public final class IdentifierTable {
+    private static final IdentifierTable DEFAULT = new IdentifierTable();
+
+    @NotNull
+    public static IdentifierTable getDefault() {
+        return DEFAULT;
+    }
+
+    private final ConcurrentWeakValueHashMap<CharRange, Name> names = new ConcurrentWeakValueHashMap<CharRange, Name>();
+
+    private final ThreadLocal<CharRange> lookupKey = new ThreadLocal<CharRange>() {
+        @Override
+        protected CharRange initialValue() {
+            return new CharRange();
+        }
+    };
+
+    @NotNull
+    public Name getName(@NotNull CharSequence text) {
+        return getName(text, 0, text.length());
+    }
+
+    @NotNull
+    public Name getName(@NotNull CharSequence text, int start, int end) {
+        CharRange key = lookupKey.get();
+        key.set(text, start, end);
+        try {
+            Name name = names.get(key);
+            if (name != null) return name;
+        }
+        finally {
+            key.set("", 0, 0);
+        }
+
+        Name newName = Name.identifier(text.subSequence(start, end).toString());
+        String string = newName.asString();
+        CharRange newKey = new CharRange();
+        newKey.set(string, 0, string.length());
+
+        Name existing = names.putIfAbsent(newKey, newName);
+        return existing != null ? existing : newName;
+    }
+
+    /**
+     * @return the name of the identifier in the given range of the text, with backticks removed if it's quoted
+     */
+    @NotNull
+    public Name getUnquotedName(@NotNull CharSequence text, int start, int end) {
+        if (end - start >= 2 && text.charAt(start) == '`' && text.charAt(end - 1) == '`') {
+            return getName(text, start + 1, end - 1);
+        }
+        return getName(text, start, end);
+    }
+
+    @NotNull
+    public Name getUnquotedName(@NotNull CharSequence text) {
+        return getUnquotedName(text, 0, text.length());
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    // Keys in the table are ranges of names' strings, the lookup key of each thread is set to a range of the text being looked up
+    private static final class CharRange {
+        private CharSequence text = "";
+        private int start;
+        private int end;
+        private int hashCode;
+
+        void set(@NotNull CharSequence text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+
+            // Same as String.hashCode()
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + text.charAt(i);
+            }
+            this.hashCode = hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof CharRange)) return false;
+
+            CharRange other = (CharRange) obj;
+            int length = end - start;
+            if (hashCode != other.hashCode || length != other.end - other.start) return false;
+            for (int i = 0; i < length; i++) {
+                if (text.charAt(start + i) != other.text.charAt(other.start + i)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return text.subSequence(start, end).toString();
+        }
+    }
+}
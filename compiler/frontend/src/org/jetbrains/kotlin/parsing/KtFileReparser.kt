@@ -0,0 +1,190 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.parsing
+
+import com.intellij.lang.ASTNode
+import com.intellij.psi.impl.source.tree.CompositeElement
+import com.intellij.psi.impl.source.tree.TreeElement
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.testFramework.LightVirtualFile
+import org.jetbrains.kotlin.KtNodeTypes
+import org.jetbrains.kotlin.lexer.KtTokens
+import org.jetbrains.kotlin.psi.KtFile
+import org.jetbrains.kotlin.psi.KtPsiFactory
+
+/**
+ * Updates the text of a file, parsing only the top-level declarations touched by the change:
+ * all other declarations keep their PSI.
+ *
+ * In scripts, the statements of the script play the role of top-level declarations. Only changes which reach the end of
+ * a script are supported there, which is how the REPL extends an incomplete input.
+ *
+ * The whole file is parsed again if the change is not inside top-level declarations and whitespace between them
+ * (e.g. it's in the package directive or imports), or if the changed declarations can't be parsed on their own.
+ */
+object KtFileReparser {
+    private val FRAGMENT_FILE_NAME = "fragment.kt"
+    private val SCRIPT_FRAGMENT_FILE_NAME = "fragment" + KotlinParserDefinition.STD_SCRIPT_EXT
+
+    /**
+     * @return true if only the changed declarations were parsed
+     */
+    @JvmStatic
+    fun reparse(file: KtFile, newText: String): Boolean {
+        val oldText = file.text
+        if (oldText == newText) return true
+
+        val incremental = reparseDeclarations(file, oldText, newText)
+        if (!incremental) {
+            val newFile = KtPsiFactory(file.project).createFile(file.name, newText)
+            replaceChildren(file, file.node, file.node.firstChildNode, null, newFile.node.firstChildNode)
+        }
+
+        (file.virtualFile as? LightVirtualFile)?.setContent(null, newText, false)
+        return incremental
+    }
+
+    private fun reparseDeclarations(file: KtFile, oldText: String, newText: String): Boolean {
+        val prefix = commonPrefixLength(oldText, newText)
+        val suffix = commonSuffixLength(oldText, newText, Math.min(oldText.length, newText.length) - prefix)
+        val changeStart = prefix
+        val changeEnd = oldText.length - suffix
+
+        val script = file.script
+        val declarations = if (script != null) script.blockExpression.statements else file.declarations
+
+        // A change at the very boundary of a declaration could join it with its neighbour, so the neighbour is parsed too
+        val first = declarations.lastOrNull { it.textRange.startOffset < changeStart }
+                    ?: declarations.firstOrNull { it.textRange.startOffset == changeStart }
+                    ?: return false
+        val last = declarations.firstOrNull { it.textRange.endOffset > changeEnd }
+        // The whitespace after the last statement of a script is outside of its block
+        if (script != null && last != null) return false
+
+        val regionStart = first.textRange.startOffset
+        val regionEnd = last?.textRange?.endOffset ?: oldText.length
+        if (regionEnd < regionStart) return false
+
+        val fragmentFileName = if (script != null) SCRIPT_FRAGMENT_FILE_NAME else FRAGMENT_FILE_NAME
+        val fragmentText = newText.substring(regionStart, regionEnd + newText.length - oldText.length)
+        val fragment = KtPsiFactory(file.project).createFile(fragmentFileName, fragmentText)
+        if (!isSelfContained(fragment, atEndOfFile = last == null)) return false
+
+        if (script != null) {
+            val fragmentScript = fragment.script ?: return false
+            val block = script.blockExpression.node
+            replaceChildren(file, block, findChildAt(block, regionStart), null, fragmentScript.blockExpression.node.firstChildNode)
+            replaceChildren(file, file.node, script.node.treeNext, null, fragmentScript.node.treeNext)
+            return true
+        }
+
+        val oldFirst = findChildAt(file.node, regionStart)
+        var oldEnd: ASTNode? = oldFirst
+        while (oldEnd != null && oldEnd.startOffset < regionEnd) {
+            oldEnd = oldEnd.treeNext
+        }
+
+        var newFirst = fragment.node.firstChildNode
+        while (newFirst != null && (newFirst.elementType == KtNodeTypes.PACKAGE_DIRECTIVE || newFirst.elementType == KtNodeTypes.IMPORT_LIST)) {
+            newFirst = newFirst.treeNext
+        }
+
+        replaceChildren(file, file.node, oldFirst, oldEnd, newFirst)
+        return true
+    }
+
+    private fun findChildAt(parent: ASTNode, offset: Int): ASTNode {
+        var child = parent.firstChildNode
+        while (child.startOffset < offset) {
+            child = child.treeNext
+        }
+        return child
+    }
+
+    // Checks that the fragment would be parsed the same way as a part of the file.
+    // Nothing follows a fragment at the end of the file, so it may be incomplete
+    private fun isSelfContained(fragment: KtFile, atEndOfFile: Boolean): Boolean {
+        if ((fragment.packageDirective?.textLength ?: 0) != 0) return false
+        if ((fragment.importList?.textLength ?: 0) != 0) return false
+        if (fragment.fileAnnotationList != null) return false
+        if (atEndOfFile) return true
+        if (PsiTreeUtil.hasErrorElements(fragment)) return false
+
+        // An unterminated comment at the end would swallow the rest of the file
+        var node: ASTNode? = fragment.node.lastChildNode
+        while (node != null) {
+            if ((node.elementType == KtTokens.BLOCK_COMMENT || node.elementType == KtTokens.DOC_COMMENT) && !isTerminatedComment(node.text)) {
+                return false
+            }
+            node = node.lastChildNode
+        }
+        return true
+    }
+
+    // Block comments can be nested
+    private fun isTerminatedComment(text: String): Boolean {
+        var depth = 0
+        var i = 0
+        while (i < text.length - 1) {
+            if (text[i] == '/' && text[i + 1] == '*') {
+                depth++
+                i += 2
+            }
+            else if (text[i] == '*' && text[i + 1] == '/') {
+                depth--
+                i += 2
+                if (depth == 0) return i == text.length
+            }
+            else {
+                i++
+            }
+        }
+        return false
+    }
+
+    // Raw tree operations don't fire PSI events: nobody listens to them in the compiler
+    private fun replaceChildren(file: KtFile, parent: ASTNode, oldFirst: ASTNode?, oldEnd: ASTNode?, newFirst: ASTNode?) {
+        val parentElement = parent as CompositeElement
+        val oldFirstElement = oldFirst as TreeElement?
+        val oldEndElement = oldEnd as TreeElement?
+        if (newFirst != null) {
+            when {
+                oldFirstElement != null -> oldFirstElement.rawInsertBeforeMe(newFirst as TreeElement)
+                oldEndElement != null -> oldEndElement.rawInsertBeforeMe(newFirst as TreeElement)
+                else -> parentElement.rawAddChildren(newFirst as TreeElement)
+            }
+        }
+        if (oldFirstElement != null && oldFirstElement !== oldEndElement) {
+            oldFirstElement.rawRemoveUpTo(oldEndElement)
+        }
+        parentElement.subtreeChanged()
+        file.subtreeChanged()
+    }
+
+    private fun commonPrefixLength(a: String, b: String): Int {
+        val max = Math.min(a.length, b.length)
+        var i = 0
+        while (i < max && a[i] == b[i]) i++
+        return i
+    }
+
+    private fun commonSuffixLength(a: String, b: String, max: Int): Int {
+        var i = 0
+        while (i < max && a[a.length - 1 - i] == b[b.length - 1 - i]) i++
+        return i
+    }
+}
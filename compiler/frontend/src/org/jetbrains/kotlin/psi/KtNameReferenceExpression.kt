@@ -20,10 +20,11 @@ import com.intellij.lang.ASTNode
 import com.intellij.psi.PsiElement
 import com.intellij.psi.tree.IElementType
 import com.intellij.psi.tree.TokenSet
+import org.jetbrains.kotlin.lexer.IdentifierTable
+import org.jetbrains.kotlin.lexer.KtTokens
+import org.jetbrains.kotlin.name.Name
 import org.jetbrains.kotlin.psi.stubs.KotlinNameReferenceExpressionStub
 import org.jetbrains.kotlin.psi.stubs.elements.KtStubElementTypes
-import org.jetbrains.kotlin.name.Name
-import org.jetbrains.kotlin.lexer.KtTokens
 
 import org.jetbrains.kotlin.lexer.KtTokens.*
 
@@ -43,6 +44,10 @@ class KtNameReferenceExpression : KtExpressionImplStub<KotlinNameReferenceExpres
     }
 
     override fun getReferencedNameAsName(): Name {
+        val stub = getStub()
+        if (stub != null) {
+            return IdentifierTable.getDefault().getName(stub.getReferencedName())
+        }
         return KtSimpleNameExpressionImpl.getReferencedNameAsNameImpl(this)
     }
 
@@ -21,8 +21,9 @@ import com.intellij.psi.PsiElement;
 import com.intellij.util.IncorrectOperationException;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.kotlin.name.Name;
+import org.jetbrains.kotlin.lexer.IdentifierTable;
 import org.jetbrains.kotlin.lexer.KtTokens;
+import org.jetbrains.kotlin.name.Name;
 
 import static org.jetbrains.kotlin.psi.KtPsiFactoryKt.KtPsiFactory;
 
@@ -48,7 +49,7 @@ abstract class KtNamedDeclarationNotStubbed extends KtDeclarationImpl implements
     @Override
     public Name getNameAsName() {
         String name = getName();
-        return name != null ? Name.identifier(name) : null;
+        return name != null ? IdentifierTable.getDefault().getName(name) : null;
     }
 
     @Override
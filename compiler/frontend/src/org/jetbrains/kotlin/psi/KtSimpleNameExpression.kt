@@ -20,6 +20,7 @@ import com.intellij.lang.ASTNode
 import com.intellij.psi.PsiElement
 import com.intellij.psi.PsiReference
 import com.intellij.psi.tree.IElementType
+import org.jetbrains.kotlin.lexer.IdentifierTable
 import org.jetbrains.kotlin.lexer.KtTokens
 import org.jetbrains.kotlin.name.Name
 
@@ -56,6 +57,10 @@ abstract class KtSimpleNameExpressionImpl(node: ASTNode) : KtExpressionImpl(node
         }
 
         fun getReferencedNameAsNameImpl(expresssion: KtSimpleNameExpression): Name {
+            val node = expresssion.getReferencedNameElement().node!!
+            if (node.elementType == KtTokens.IDENTIFIER) {
+                return IdentifierTable.getDefault().getUnquotedName(node.chars)
+            }
             val name = expresssion.getReferencedName()
             return Name.identifier(name)
         }
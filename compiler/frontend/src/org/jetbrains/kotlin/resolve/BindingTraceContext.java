@@ -36,6 +36,9 @@ public class BindingTraceContext implements BindingTrace {
     /* package */ final static boolean TRACK_REWRITES = false;
     /* package */ final static boolean TRACK_WITH_STACK_TRACES = true;
 
+    // Values of the slices written for nearly every expression are kept in identity tables, see SlicedMapWithIdentityTables
+    private final static boolean USE_IDENTITY_TABLES = Boolean.getBoolean("kotlin.binding.context.identity.tables");
+
     private final MutableSlicedMap map;
     private final MutableDiagnosticsWithSuppression mutableDiagnostics;
 
@@ -78,8 +81,27 @@ public class BindingTraceContext implements BindingTrace {
     };
 
     public BindingTraceContext() {
+        this(false);
+    }
+
+    /**
+     * @param threadSafe whether the trace may be read and written from several threads at once, see {@link BodyResolveParallelism}
+     */
+    protected BindingTraceContext(boolean threadSafe) {
+        this(createMap(threadSafe));
+    }
+
+    @NotNull
+    /* package */ static MutableSlicedMap createMap(boolean threadSafe) {
+        if (threadSafe) return SlicedMapImpl.createThreadSafe();
         //noinspection ConstantConditions
-        this(TRACK_REWRITES ? new TrackingSlicedMap(TRACK_WITH_STACK_TRACES) : SlicedMapImpl.create());
+        if (TRACK_REWRITES) return new TrackingSlicedMap(TRACK_WITH_STACK_TRACES);
+        if (USE_IDENTITY_TABLES) {
+            return new SlicedMapWithIdentityTables(
+                    BindingContext.EXPRESSION_TYPE_INFO, BindingContext.REFERENCE_TARGET, BindingContext.RESOLVED_CALL
+            );
+        }
+        return SlicedMapImpl.create();
     }
 
 
@@ -88,6 +110,11 @@ public class BindingTraceContext implements BindingTrace {
         this.mutableDiagnostics = new MutableDiagnosticsWithSuppression(bindingContext, Diagnostics.Companion.getEMPTY());
     }
 
+    @NotNull
+    public static BindingTraceContext createThreadSafe() {
+        return new BindingTraceContext(true);
+    }
+
     @TestOnly
     public static BindingTraceContext createTraceableBindingTrace() {
         return new BindingTraceContext(new TrackingSlicedMap(TRACK_WITH_STACK_TRACES));
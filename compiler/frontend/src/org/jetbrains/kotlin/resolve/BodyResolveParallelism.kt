@@ -0,0 +1,42 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.resolve
+
+/**
+ * Controls whether [BodyResolver] resolves function bodies of different files concurrently.
+ *
+ * Each file is resolved into its own [DelegatingBindingTrace] on a worker thread, and the results are committed
+ * to the main trace in the original file order, so the resulting binding context does not depend on scheduling.
+ * The main trace must be thread-safe (see [BindingTraceContext.createThreadSafe]) when more than one thread is used.
+ */
+open class BodyResolveParallelism {
+
+    open val threadCount: Int
+        get() = 1
+
+    val isParallel: Boolean
+        get() = threadCount > 1
+
+    private class Parallel(override val threadCount: Int) : BodyResolveParallelism()
+
+    companion object {
+        @JvmField val SEQUENTIAL: BodyResolveParallelism = BodyResolveParallelism()
+
+        @JvmStatic fun withThreads(threadCount: Int): BodyResolveParallelism =
+                if (threadCount > 1) Parallel(threadCount) else SEQUENTIAL
+    }
+}
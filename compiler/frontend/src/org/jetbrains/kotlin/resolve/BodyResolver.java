@@ -21,6 +21,7 @@ import com.google.common.collect.Sets;
 import com.intellij.psi.PsiElement;
 import com.intellij.util.containers.Queue;
 import kotlin.Unit;
+import kotlin.jvm.functions.Function0;
 import kotlin.jvm.functions.Function1;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -41,6 +42,7 @@ import org.jetbrains.kotlin.resolve.lazy.ForceResolveUtil;
 import org.jetbrains.kotlin.resolve.scopes.*;
 import org.jetbrains.kotlin.resolve.scopes.receivers.ReceiverValue;
 import org.jetbrains.kotlin.types.*;
+import org.jetbrains.kotlin.types.checker.SubtypingCache;
 import org.jetbrains.kotlin.types.expressions.ExpressionTypingServices;
 import org.jetbrains.kotlin.types.expressions.PreliminaryDeclarationVisitor;
 import org.jetbrains.kotlin.types.expressions.ValueParameterResolver;
@@ -48,8 +50,10 @@ import org.jetbrains.kotlin.types.expressions.typeInfoFactory.TypeInfoFactoryKt;
 import org.jetbrains.kotlin.util.Box;
 import org.jetbrains.kotlin.util.ReenteringLazyValueComputationException;
 import org.jetbrains.kotlin.util.slicedMap.WritableSlice;
+import org.jetbrains.kotlin.utils.ExceptionUtilsKt;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import static org.jetbrains.kotlin.diagnostics.Errors.*;
 import static org.jetbrains.kotlin.resolve.BindingContext.*;
@@ -68,6 +72,7 @@ public class BodyResolver {
     @NotNull private final ValueParameterResolver valueParameterResolver;
     @NotNull private final BodyResolveCache bodyResolveCache;
     @NotNull private final KotlinBuiltIns builtIns;
+    @NotNull private final BodyResolveParallelism parallelism;
 
     public BodyResolver(
             @NotNull AnnotationResolver annotationResolver,
@@ -81,7 +86,8 @@ public class BodyResolver {
             @NotNull BindingTrace trace,
             @NotNull ValueParameterResolver valueParameterResolver,
             @NotNull AnnotationChecker annotationChecker,
-            @NotNull KotlinBuiltIns builtIns
+            @NotNull KotlinBuiltIns builtIns,
+            @NotNull BodyResolveParallelism parallelism
     ) {
         this.annotationResolver = annotationResolver;
         this.bodyResolveCache = bodyResolveCache;
@@ -95,6 +101,7 @@ public class BodyResolver {
         this.trace = new ObservableBindingTrace(trace);
         this.valueParameterResolver = valueParameterResolver;
         this.builtIns = builtIns;
+        this.parallelism = parallelism;
     }
 
     private void resolveBehaviorDeclarationBodies(@NotNull BodiesResolveContext c) {
@@ -753,7 +760,83 @@ public class BodyResolver {
     }
 
     private void resolveFunctionBodies(@NotNull BodiesResolveContext c) {
+        if (parallelism.isParallel() && !c.getTopDownAnalysisMode().isLocalDeclarations() &&
+            bodyResolveCache instanceof BodyResolveCache.ThrowException) {
+            resolveFunctionBodiesInParallel(c);
+            return;
+        }
+
+        resolveFunctionBodies(c, c.getFunctions(), trace);
+    }
+
+    private void resolveFunctionBodiesInParallel(@NotNull final BodiesResolveContext c) {
+        final Map<KtFile, Map<KtNamedFunction, SimpleFunctionDescriptor>> functionsByFile =
+                new LinkedHashMap<KtFile, Map<KtNamedFunction, SimpleFunctionDescriptor>>();
         for (Map.Entry<KtNamedFunction, SimpleFunctionDescriptor> entry : c.getFunctions().entrySet()) {
+            KtFile file = entry.getKey().getContainingKtFile();
+            Map<KtNamedFunction, SimpleFunctionDescriptor> functions = functionsByFile.get(file);
+            if (functions == null) {
+                functions = new LinkedHashMap<KtNamedFunction, SimpleFunctionDescriptor>();
+                functionsByFile.put(file, functions);
+            }
+            functions.put(entry.getKey(), entry.getValue());
+        }
+
+        if (functionsByFile.size() < 2) {
+            resolveFunctionBodies(c, c.getFunctions(), trace);
+            return;
+        }
+
+        // Infer return types in this thread, in the order of the sequential resolve: otherwise a recursion between inferred types of
+        // functions in different files would be detected on whichever function a thread happens to reach first
+        for (SimpleFunctionDescriptor descriptor : c.getFunctions().values()) {
+            computeDeferredType(descriptor.getReturnType());
+        }
+
+        final SubtypingCache subtypingCache = SubtypingCache.getCurrent();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism.getThreadCount(), functionsByFile.size()));
+        try {
+            List<Future<DelegatingBindingTrace>> results = new ArrayList<Future<DelegatingBindingTrace>>(functionsByFile.size());
+            for (final Map.Entry<KtFile, Map<KtNamedFunction, SimpleFunctionDescriptor>> fileEntry : functionsByFile.entrySet()) {
+                results.add(executor.submit(new Callable<DelegatingBindingTrace>() {
+                    @Override
+                    public DelegatingBindingTrace call() {
+                        // Parent diagnostics are not requested here: the main trace is being written to by other threads
+                        final DelegatingBindingTrace fileTrace = new DelegatingBindingTrace(
+                                trace.getBindingContext(), false, "Parallel body resolve for " + fileEntry.getKey().getName());
+                        return SubtypingCache.runWith(subtypingCache, new Function0<DelegatingBindingTrace>() {
+                            @Override
+                            public DelegatingBindingTrace invoke() {
+                                resolveFunctionBodies(c, fileEntry.getValue(), fileTrace);
+                                return fileTrace;
+                            }
+                        });
+                    }
+                }));
+            }
+
+            // Commit in the order of files to keep the resulting binding context independent of scheduling
+            for (Future<DelegatingBindingTrace> result : results) {
+                result.get().addOwnDataTo(trace, null, true);
+            }
+        }
+        catch (InterruptedException e) {
+            throw ExceptionUtilsKt.rethrow(e);
+        }
+        catch (ExecutionException e) {
+            throw ExceptionUtilsKt.rethrow(e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void resolveFunctionBodies(
+            @NotNull BodiesResolveContext c,
+            @NotNull Map<KtNamedFunction, SimpleFunctionDescriptor> functions,
+            @NotNull BindingTrace trace
+    ) {
+        for (Map.Entry<KtNamedFunction, SimpleFunctionDescriptor> entry : functions.entrySet()) {
             KtNamedFunction declaration = entry.getKey();
 
             LexicalScope scope = c.getDeclaringScope(declaration);
@@ -36,8 +36,7 @@ import java.util.List;
 import java.util.Map;
 
 public class DelegatingBindingTrace implements BindingTrace {
-    @SuppressWarnings("ConstantConditions")
-    private final MutableSlicedMap map = BindingTraceContext.TRACK_REWRITES ? new TrackingSlicedMap(BindingTraceContext.TRACK_WITH_STACK_TRACES) : SlicedMapImpl.create();
+    private final MutableSlicedMap map;
 
     private final BindingContext parentContext;
     private final String name;
@@ -89,6 +88,11 @@ public class DelegatingBindingTrace implements BindingTrace {
     }
 
     public DelegatingBindingTrace(BindingContext parentContext, boolean withParentDiagnostics, String debugName) {
+        this(parentContext, withParentDiagnostics, debugName, false);
+    }
+
+    private DelegatingBindingTrace(BindingContext parentContext, boolean withParentDiagnostics, String debugName, boolean threadSafe) {
+        this.map = BindingTraceContext.createMap(threadSafe);
         this.parentContext = parentContext;
         this.name = debugName;
         this.mutableDiagnostics = withParentDiagnostics ?
@@ -100,6 +104,14 @@ public class DelegatingBindingTrace implements BindingTrace {
         this(parentContext, AnalyzingUtils.formDebugNameForBindingTrace(debugName, resolutionSubjectForMessage));
     }
 
+    /**
+     * Creates a trace which may be read and written from several threads at once, provided that the parent context may be read concurrently
+     */
+    @NotNull
+    public static DelegatingBindingTrace createThreadSafe(BindingContext parentContext, boolean withParentDiagnostics, String debugName) {
+        return new DelegatingBindingTrace(parentContext, withParentDiagnostics, debugName, true);
+    }
+
     @Override
     @NotNull
     public BindingContext getBindingContext() {
@@ -30,6 +30,7 @@ import org.jetbrains.kotlin.resolve.lazy.*
 import org.jetbrains.kotlin.resolve.lazy.descriptors.LazyClassDescriptor
 import org.jetbrains.kotlin.resolve.lazy.descriptors.LazyScriptDescriptor
 import org.jetbrains.kotlin.resolve.varianceChecker.VarianceChecker
+import org.jetbrains.kotlin.types.checker.SubtypingCache
 import java.util.*
 
 class LazyTopDownAnalyzer(
@@ -48,7 +49,20 @@ class LazyTopDownAnalyzer(
         private val identifierChecker: IdentifierChecker
 ) {
     fun analyzeDeclarations(topDownAnalysisMode: TopDownAnalysisMode, declarations: Collection<PsiElement>, outerDataFlowInfo: DataFlowInfo): TopDownAnalysisContext {
+        // Local classes are analyzed with the cache of the enclosing analysis
+        if (SubtypingCache.ENABLED && SubtypingCache.getCurrent() == null) {
+            return SubtypingCache.runWith(SubtypingCache()) {
+                doAnalyzeDeclarations(topDownAnalysisMode, declarations, outerDataFlowInfo)
+            }
+        }
+        return doAnalyzeDeclarations(topDownAnalysisMode, declarations, outerDataFlowInfo)
+    }
 
+    private fun doAnalyzeDeclarations(
+            topDownAnalysisMode: TopDownAnalysisMode,
+            declarations: Collection<PsiElement>,
+            outerDataFlowInfo: DataFlowInfo
+    ): TopDownAnalysisContext {
         val c = TopDownAnalysisContext(topDownAnalysisMode, outerDataFlowInfo, declarationScopeProvider)
 
         val topLevelFqNames = HashMultimap.create<FqName, KtElement>()
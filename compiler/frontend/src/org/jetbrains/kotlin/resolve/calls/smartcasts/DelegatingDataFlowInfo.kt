@@ -22,36 +22,29 @@ import org.jetbrains.kotlin.types.*
 import org.jetbrains.kotlin.types.KotlinType
 import org.jetbrains.kotlin.types.TypeUtils
 import org.jetbrains.kotlin.types.typeUtil.*
+import org.jetbrains.kotlin.util.ImmutableHashMap
 
 import java.util.*
 
 import org.jetbrains.kotlin.resolve.calls.smartcasts.Nullability.NOT_NULL
 
+/**
+ * Complete nullability and type info is stored in immutable hash maps,
+ * so a derived data flow info shares everything but the changed values with the original one.
+ */
 internal class DelegatingDataFlowInfo private constructor(
-        private val parent: DataFlowInfo?,
-        private val nullabilityInfo: ImmutableMap<DataFlowValue, Nullability>,
-        // Also immutable
-        private val typeInfo: SetMultimap<DataFlowValue, KotlinType>,
-        /**
-         * Value for which type info was cleared or reassigned at this point
-         * so parent type info should not be in use
-         */
-        private val valueWithGivenTypeInfo: DataFlowValue?
+        private val nullabilityInfo: ImmutableHashMap<DataFlowValue, Nullability>,
+        // Values are immutable non-empty sets
+        private val typeInfo: ImmutableHashMap<DataFlowValue, Set<KotlinType>>
 ) : DataFlowInfo {
 
-    constructor(): this(null, ImmutableMap.of(), newTypeInfo(), null)
+    constructor(): this(ImmutableHashMap.empty(), ImmutableHashMap.empty())
 
     override val completeNullabilityInfo: Map<DataFlowValue, Nullability>
         get() {
-            val result = Maps.newHashMap<DataFlowValue, Nullability>()
-            var info: DelegatingDataFlowInfo? = this
-            while (info != null) {
-                for ((key, value) in info.nullabilityInfo) {
-                    if (!result.containsKey(key)) {
-                        result.put(key, value)
-                    }
-                }
-                info = info.parent as DelegatingDataFlowInfo?
+            val result = Maps.newHashMapWithExpectedSize<DataFlowValue, Nullability>(nullabilityInfo.size())
+            for ((key, value) in nullabilityInfo) {
+                result.put(key, value)
             }
             return result
         }
@@ -59,16 +52,8 @@ internal class DelegatingDataFlowInfo private constructor(
     override val completeTypeInfo: SetMultimap<DataFlowValue, KotlinType>
         get() {
             val result = newTypeInfo()
-            val withGivenTypeInfo = HashSet<DataFlowValue>()
-            var info: DelegatingDataFlowInfo? = this
-            while (info != null) {
-                for (key in info.typeInfo.keySet()) {
-                    if (!withGivenTypeInfo.contains(key)) {
-                        result.putAll(key, info.typeInfo.get(key))
-                    }
-                }
-                info.valueWithGivenTypeInfo?.let { withGivenTypeInfo.add(it) }
-                info = info.parent as DelegatingDataFlowInfo?
+            for ((key, types) in typeInfo) {
+                result.putAll(key, types)
             }
             return result
         }
@@ -82,23 +67,13 @@ internal class DelegatingDataFlowInfo private constructor(
                 key.immanentNullability
             }
             else {
-                nullabilityInfo[key] ?: if (parent != null) {
-                    parent.getCollectedNullability(key)
-                }
-                else {
-                    key.immanentNullability
-                }
+                nullabilityInfo[key] ?: key.immanentNullability
             }
 
-    private fun putNullability(map: MutableMap<DataFlowValue, Nullability>, value: DataFlowValue, nullability: Nullability): Boolean {
-        map.put(value, nullability)
-        return nullability != getCollectedNullability(value)
-    }
-
     override fun getCollectedTypes(key: DataFlowValue) = getCollectedTypes(key, true)
 
     private fun getCollectedTypes(key: DataFlowValue, enrichWithNotNull: Boolean): Set<KotlinType> {
-        val types = collectTypesFromMeAndParents(key)
+        val types = typeInfo[key] ?: emptySet<KotlinType>()
         if (!enrichWithNotNull || getCollectedNullability(key).canBeNull()) {
             return types
         }
@@ -118,7 +93,7 @@ internal class DelegatingDataFlowInfo private constructor(
     override fun getPredictableTypes(key: DataFlowValue) = getPredictableTypes(key, true)
 
     private fun getPredictableTypes(key: DataFlowValue, enrichWithNotNull: Boolean) =
-            if (!key.isPredictable) LinkedHashSet() else getCollectedTypes(key, enrichWithNotNull)
+            if (!key.isPredictable) emptySet<KotlinType>() else getCollectedTypes(key, enrichWithNotNull)
 
     /**
      * Call this function to clear all data flow information about
@@ -127,17 +102,12 @@ internal class DelegatingDataFlowInfo private constructor(
      * @param value
      */
     override fun clearValueInfo(value: DataFlowValue): DataFlowInfo {
-        val builder = Maps.newHashMap<DataFlowValue, Nullability>()
-        putNullability(builder, value, Nullability.UNKNOWN)
-        return create(this, ImmutableMap.copyOf(builder), EMPTY_TYPE_INFO, value)
+        return create(nullabilityInfo.plus(value, Nullability.UNKNOWN), typeInfo.minus(value))
     }
 
     override fun assign(a: DataFlowValue, b: DataFlowValue): DataFlowInfo {
-        val nullability = Maps.newHashMap<DataFlowValue, Nullability>()
         val nullabilityOfB = getPredictableNullability(b)
-        putNullability(nullability, a, nullabilityOfB)
 
-        val newTypeInfo = newTypeInfo()
         var typesForB = getPredictableTypes(b)
         // Own type of B must be recorded separately, e.g. for a constant
         // But if its type is the same as A, there is no reason to do it
@@ -146,82 +116,55 @@ internal class DelegatingDataFlowInfo private constructor(
         if (!b.type.isError && a.type != b.type) {
             typesForB += b.type
         }
-        newTypeInfo.putAll(a, typesForB)
 
-        return create(this, ImmutableMap.copyOf(nullability), if (newTypeInfo.isEmpty) EMPTY_TYPE_INFO else newTypeInfo, a)
+        // Types of A are replaced rather than extended
+        return create(nullabilityInfo.plus(a, nullabilityOfB), withTypes(typeInfo.minus(a), a, typesForB))
     }
 
     override fun equate(a: DataFlowValue, b: DataFlowValue): DataFlowInfo {
-        val builder = Maps.newHashMap<DataFlowValue, Nullability>()
         val nullabilityOfA = getPredictableNullability(a)
         val nullabilityOfB = getPredictableNullability(b)
+        val newNullabilityOfA = nullabilityOfA.refine(nullabilityOfB)
+        val newNullabilityOfB = nullabilityOfB.refine(nullabilityOfA)
 
-        var changed = putNullability(builder, a, nullabilityOfA.refine(nullabilityOfB)) or
-                      putNullability(builder, b, nullabilityOfB.refine(nullabilityOfA))
-
-        val newTypeInfo = newTypeInfo()
-        newTypeInfo.putAll(a, getPredictableTypes(b, false))
-        newTypeInfo.putAll(b, getPredictableTypes(a, false))
+        val typesForA = LinkedHashSet(getPredictableTypes(b, false))
+        val typesForB = LinkedHashSet(getPredictableTypes(a, false))
         if (a.type != b.type) {
             // To avoid recording base types of own type
             if (!a.type.isSubtypeOf(b.type)) {
-                newTypeInfo.put(a, b.type)
+                typesForA.add(b.type)
             }
             if (!b.type.isSubtypeOf(a.type)) {
-                newTypeInfo.put(b, a.type)
+                typesForB.add(a.type)
             }
         }
-        changed = changed or !newTypeInfo.isEmpty
-
-        return if (!changed) {
-            this
-        }
-        else {
-            create(this, ImmutableMap.copyOf(builder), if (newTypeInfo.isEmpty) EMPTY_TYPE_INFO else newTypeInfo)
-        }
-    }
 
-    private fun collectTypesFromMeAndParents(value: DataFlowValue): Set<KotlinType> {
-        val types = LinkedHashSet<KotlinType>()
-
-        var current: DataFlowInfo? = this
-        while (current != null) {
-            if (current is DelegatingDataFlowInfo) {
-                types.addAll(current.typeInfo.get(value))
-                if (value == current.valueWithGivenTypeInfo) {
-                    current = null
-                }
-                else {
-                    current = current.parent
-                }
-            }
-            else {
-                types.addAll(current.getCollectedTypes(value))
-                break
-            }
-        }
+        val changed = newNullabilityOfA != getCollectedNullability(a) || newNullabilityOfB != getCollectedNullability(b) ||
+                      typesForA.isNotEmpty() || typesForB.isNotEmpty()
+        if (!changed) return this
 
-        return types
+        val newNullabilityInfo = nullabilityInfo.plus(a, newNullabilityOfA).plus(b, newNullabilityOfB)
+        return create(newNullabilityInfo, withTypes(withTypes(typeInfo, a, typesForA), b, typesForB))
     }
 
     override fun disequate(a: DataFlowValue, b: DataFlowValue): DataFlowInfo {
-        val builder = Maps.newHashMap<DataFlowValue, Nullability>()
         val nullabilityOfA = getPredictableNullability(a)
         val nullabilityOfB = getPredictableNullability(b)
+        val newNullabilityOfA = nullabilityOfA.refine(nullabilityOfB.invert())
+        val newNullabilityOfB = nullabilityOfB.refine(nullabilityOfA.invert())
+
+        val changed = newNullabilityOfA != getCollectedNullability(a) || newNullabilityOfB != getCollectedNullability(b)
+        if (!changed) return this
 
-        var changed = putNullability(builder, a, nullabilityOfA.refine(nullabilityOfB.invert())) or
-                      putNullability(builder, b, nullabilityOfB.refine(nullabilityOfA.invert()))
-        return if (changed) create(this, ImmutableMap.copyOf(builder), EMPTY_TYPE_INFO) else this
+        return create(nullabilityInfo.plus(a, newNullabilityOfA).plus(b, newNullabilityOfB), typeInfo)
     }
 
     override fun establishSubtyping(value: DataFlowValue, type: KotlinType): DataFlowInfo {
         if (value.type == type) return this
         if (getCollectedTypes(value).contains(type)) return this
         if (!value.type.isFlexible() && value.type.isSubtypeOf(type)) return this
-        val newNullabilityInfo = if (type.isMarkedNullable) EMPTY_NULLABILITY_INFO else ImmutableMap.of(value, NOT_NULL)
-        val newTypeInfo = newTypeInfo()
-        newTypeInfo.put(value, type)
-        return create(this, newNullabilityInfo, newTypeInfo)
+        val newNullabilityInfo = if (type.isMarkedNullable) nullabilityInfo else nullabilityInfo.plus(value, NOT_NULL)
+        return create(newNullabilityInfo, withTypes(typeInfo, value, setOf(type)))
     }
 
     override fun and(other: DataFlowInfo): DataFlowInfo {
@@ -230,23 +173,23 @@ internal class DelegatingDataFlowInfo private constructor(
         if (this === other) return this
 
         assert(other is DelegatingDataFlowInfo) { "Unknown DataFlowInfo type: " + other }
+        other as DelegatingDataFlowInfo
 
-        val nullabilityMapBuilder = Maps.newHashMap<DataFlowValue, Nullability>()
-        for ((key, otherFlags) in other.completeNullabilityInfo) {
+        var newNullabilityInfo = nullabilityInfo
+        for ((key, otherFlags) in other.nullabilityInfo) {
             val thisFlags = getCollectedNullability(key)
             val flags = thisFlags.and(otherFlags)
             if (flags != thisFlags) {
-                nullabilityMapBuilder.put(key, flags)
+                newNullabilityInfo = newNullabilityInfo.plus(key, flags)
             }
         }
 
-        val myTypeInfo = completeTypeInfo
-        val otherTypeInfo = other.completeTypeInfo
-        if (nullabilityMapBuilder.isEmpty() && containsAll(myTypeInfo, otherTypeInfo)) {
-            return this
+        var newTypeInfo = typeInfo
+        for ((key, otherTypes) in other.typeInfo) {
+            newTypeInfo = withTypes(newTypeInfo, key, otherTypes)
         }
 
-        return create(this, ImmutableMap.copyOf(nullabilityMapBuilder), otherTypeInfo)
+        return create(newNullabilityInfo, newTypeInfo)
     }
 
     private fun Set<KotlinType>.containsNothing() = any { KotlinBuiltIns.isNothing(it) }
@@ -262,57 +205,51 @@ internal class DelegatingDataFlowInfo private constructor(
         if (this === other) return this
 
         assert(other is DelegatingDataFlowInfo) { "Unknown DataFlowInfo type: " + other }
+        other as DelegatingDataFlowInfo
 
-        val nullabilityMapBuilder = Maps.newHashMap<DataFlowValue, Nullability>()
-        for ((key, otherFlags) in other.completeNullabilityInfo) {
+        var newNullabilityInfo = ImmutableHashMap.empty<DataFlowValue, Nullability>()
+        for ((key, otherFlags) in other.nullabilityInfo) {
             val thisFlags = getCollectedNullability(key)
-            nullabilityMapBuilder.put(key, thisFlags.or(otherFlags))
+            newNullabilityInfo = newNullabilityInfo.plus(key, thisFlags.or(otherFlags))
         }
 
-        val myTypeInfo = completeTypeInfo
-        val otherTypeInfo = other.completeTypeInfo
-        val newTypeInfo = newTypeInfo()
-
-        for (key in Sets.intersection(myTypeInfo.keySet(), otherTypeInfo.keySet())) {
-            newTypeInfo.putAll(key, myTypeInfo[key].intersect(otherTypeInfo[key]))
+        var newTypeInfo = ImmutableHashMap.empty<DataFlowValue, Set<KotlinType>>()
+        for ((key, otherTypes) in other.typeInfo) {
+            val myTypes = typeInfo[key] ?: continue
+            newTypeInfo = withTypes(newTypeInfo, key, myTypes.intersect(otherTypes))
         }
 
-        return create(null, ImmutableMap.copyOf(nullabilityMapBuilder), newTypeInfo)
+        return create(newNullabilityInfo, newTypeInfo)
     }
 
-    override fun toString() = if (typeInfo.isEmpty && nullabilityInfo.isEmpty()) "EMPTY" else "Non-trivial DataFlowInfo"
-
-    companion object {
-        private val EMPTY_NULLABILITY_INFO = ImmutableMap.of<DataFlowValue, Nullability>()
-        private val EMPTY_TYPE_INFO = newTypeInfo()
+    private fun create(
+            nullabilityInfo: ImmutableHashMap<DataFlowValue, Nullability>,
+            typeInfo: ImmutableHashMap<DataFlowValue, Set<KotlinType>>
+    ): DataFlowInfo {
+        if (nullabilityInfo === this.nullabilityInfo && typeInfo === this.typeInfo) return this
+        if (nullabilityInfo.isEmpty && typeInfo.isEmpty) return DataFlowInfoFactory.EMPTY
+        return DelegatingDataFlowInfo(nullabilityInfo, typeInfo)
+    }
 
-        private fun containsAll(first: SetMultimap<DataFlowValue, KotlinType>, second: SetMultimap<DataFlowValue, KotlinType>) =
-                first.entries().containsAll(second.entries())
+    override fun toString() = if (typeInfo.isEmpty && nullabilityInfo.isEmpty) "EMPTY" else "Non-trivial DataFlowInfo"
 
+    companion object {
         fun newTypeInfo(): SetMultimap<DataFlowValue, KotlinType> = LinkedHashMultimap.create<DataFlowValue, KotlinType>()
 
-        private fun create(parent: DataFlowInfo?,
-                           nullabilityInfo: ImmutableMap<DataFlowValue, Nullability>,
-                           // NB: typeInfo must be mutable here!
-                           typeInfo: SetMultimap<DataFlowValue, KotlinType>,
-                           valueWithGivenTypeInfo: DataFlowValue? = null
-        ): DataFlowInfo {
-            val toDelete = newTypeInfo()
-            for (value in typeInfo.keys()) {
-                for (type in typeInfo[value]) {
-                    // Remove original type (see also KT-10666)
-                    if (value.type == type) {
-                        toDelete.put(value, type)
-                    }
-                }
-            }
-            for ((value, type) in toDelete.entries()) {
-                typeInfo.remove(value, type)
-            }
-            if (nullabilityInfo.isEmpty() && typeInfo.isEmpty && valueWithGivenTypeInfo == null) {
-                return parent ?: DataFlowInfoFactory.EMPTY
+        // New types go before the known ones; the original type of the value is never recorded (see also KT-10666)
+        private fun withTypes(
+                typeInfo: ImmutableHashMap<DataFlowValue, Set<KotlinType>>,
+                value: DataFlowValue,
+                newTypes: Collection<KotlinType>
+        ): ImmutableHashMap<DataFlowValue, Set<KotlinType>> {
+            val knownTypes = typeInfo[value] ?: emptySet<KotlinType>()
+            if (newTypes.all { it == value.type || it in knownTypes }) return typeInfo
+
+            val types = ImmutableSet.builder<KotlinType>()
+            for (type in newTypes) {
+                if (type != value.type) types.add(type)
             }
-            return DelegatingDataFlowInfo(parent, nullabilityInfo, typeInfo, valueWithGivenTypeInfo)
+            return typeInfo.plus(value, types.addAll(knownTypes).build())
         }
     }
 }
@@ -33,7 +33,7 @@ class MutableDiagnosticsWithSuppression @JvmOverloads constructor(
 
     //NOTE: CachedValuesManager is not used because it requires Project passed to this object
     private val cache = CachedValueImpl(CachedValueProvider {
-        val allDiagnostics = delegateDiagnostics.noSuppression().all() + diagnosticList
+        val allDiagnostics = delegateDiagnostics.noSuppression().all() + synchronized(this) { ArrayList(diagnosticList) }
         CachedValueProvider.Result(DiagnosticsWithSuppression(bindingContext, allDiagnostics), modificationTracker)
     })
 
@@ -48,12 +48,13 @@ class MutableDiagnosticsWithSuppression @JvmOverloads constructor(
     //essential that this list is readonly
     fun getOwnDiagnostics(): List<Diagnostic> = diagnosticList
 
-    fun report(diagnostic: Diagnostic) {
+    // Diagnostics may be reported from several threads when bodies are resolved in parallel, see BodyResolveParallelism
+    @Synchronized fun report(diagnostic: Diagnostic) {
         diagnosticList.add(diagnostic)
         modificationTracker.incModificationCount()
     }
 
-    fun clear() {
+    @Synchronized fun clear() {
         diagnosticList.clear()
         modificationTracker.incModificationCount()
     }
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable map from non-null keys to non-null values: a hash array mapped trie.
+ * Modifications return a new map sharing all the nodes except the ones on the path to the modified key with this map.
+ */
+public final class ImmutableHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+    private static final ImmutableHashMap<Object, Object> EMPTY = new ImmutableHashMap<Object, Object>(BitmapNode.EMPTY, 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    public static <K, V> ImmutableHashMap<K, V> empty() {
+        return (ImmutableHashMap<K, V>) EMPTY;
+    }
+
+    private final Node root;
+    private final int size;
+
+    private ImmutableHashMap(@NotNull Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(@NotNull Object key) {
+        return get(key) != null;
+    }
+
+    @Nullable
+    public V get(@NotNull Object key) {
+        //noinspection unchecked
+        return (V) root.get(key, hash(key), 0);
+    }
+
+    // Returns this map if it already has the equal value for the key
+    @NotNull
+    public ImmutableHashMap<K, V> plus(@NotNull K key, @NotNull V value) {
+        int hash = hash(key);
+        Object oldValue = root.get(key, hash, 0);
+        if (value.equals(oldValue)) return this;
+        return new ImmutableHashMap<K, V>(root.plus(key, hash, value, 0), oldValue == null ? size + 1 : size);
+    }
+
+    @NotNull
+    public ImmutableHashMap<K, V> minus(@NotNull Object key) {
+        int hash = hash(key);
+        if (root.get(key, hash, 0) == null) return this;
+        Node newRoot = root.minus(key, hash, 0);
+        return newRoot == null ? ImmutableHashMap.<K, V>empty() : new ImmutableHashMap<K, V>(newRoot, size - 1);
+    }
+
+    // Order of entries is unspecified
+    @NotNull
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        List<Map.Entry<K, V>> entries = new ArrayList<Map.Entry<K, V>>(size);
+        root.addEntriesTo(entries);
+        return entries.iterator();
+    }
+
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static Object[] insertPair(Object[] array, int index, Object first, Object second) {
+        Object[] result = new Object[array.length + 2];
+        System.arraycopy(array, 0, result, 0, index);
+        result[index] = first;
+        result[index + 1] = second;
+        System.arraycopy(array, index, result, index + 2, array.length - index);
+        return result;
+    }
+
+    private static Object[] removePair(Object[] array, int index) {
+        Object[] result = new Object[array.length - 2];
+        System.arraycopy(array, 0, result, 0, index);
+        System.arraycopy(array, index + 2, result, index, array.length - index - 2);
+        return result;
+    }
+
+    private static Object[] replace(Object[] array, int index, Object value) {
+        Object[] result = array.clone();
+        result[index] = value;
+        return result;
+    }
+
+    private static abstract class Node {
+        @Nullable
+        abstract Object get(@NotNull Object key, int hash, int shift);
+
+        // The key must not be mapped to an equal value already
+        @NotNull
+        abstract Node plus(@NotNull Object key, int hash, @NotNull Object value, int shift);
+
+        // The key must be present, null is returned for an empty node
+        @Nullable
+        abstract Node minus(@NotNull Object key, int hash, int shift);
+
+        abstract <K, V> void addEntriesTo(@NotNull List<Map.Entry<K, V>> entries);
+    }
+
+    // Pairs of key and value for every set bit, a null key means that the value is a child node
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] array;
+
+        BitmapNode(int bitmap, @NotNull Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object get(@NotNull Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return null;
+
+            int index = index(bit);
+            Object keyOrNull = array[index];
+            Object valueOrNode = array[index + 1];
+            if (keyOrNull == null) return ((Node) valueOrNode).get(key, hash, shift + BITS);
+            return key.equals(keyOrNull) ? valueOrNode : null;
+        }
+
+        @NotNull
+        @Override
+        Node plus(@NotNull Object key, int hash, @NotNull Object value, int shift) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                return new BitmapNode(bitmap | bit, insertPair(array, index, key, value));
+            }
+
+            Object keyOrNull = array[index];
+            Object valueOrNode = array[index + 1];
+            if (keyOrNull == null) {
+                Node child = ((Node) valueOrNode).plus(key, hash, value, shift + BITS);
+                return new BitmapNode(bitmap, replace(array, index + 1, child));
+            }
+            if (key.equals(keyOrNull)) {
+                return new BitmapNode(bitmap, replace(array, index + 1, value));
+            }
+
+            Node child = createNode(keyOrNull, hash(keyOrNull), valueOrNode, key, hash, value, shift + BITS);
+            Object[] newArray = replace(array, index, null);
+            newArray[index + 1] = child;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        @Override
+        Node minus(@NotNull Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            Object keyOrNull = array[index];
+            if (keyOrNull == null) {
+                Node child = ((Node) array[index + 1]).minus(key, hash, shift + BITS);
+                if (child != null) return new BitmapNode(bitmap, replace(array, index + 1, child));
+            }
+
+            if (bitmap == bit) return null;
+            return new BitmapNode(bitmap & ~bit, removePair(array, index));
+        }
+
+        @Override
+        <K, V> void addEntriesTo(@NotNull List<Map.Entry<K, V>> entries) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).addEntriesTo(entries);
+                }
+                else {
+                    //noinspection unchecked
+                    entries.add(new AbstractMap.SimpleImmutableEntry<K, V>((K) array[i], (V) array[i + 1]));
+                }
+            }
+        }
+
+        @NotNull
+        private static Node createNode(
+                @NotNull Object key1, int hash1, @NotNull Object value1,
+                @NotNull Object key2, int hash2, @NotNull Object value2,
+                int shift
+        ) {
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+            }
+            return EMPTY.plus(key1, hash1, value1, shift).plus(key2, hash2, value2, shift);
+        }
+    }
+
+    // Keys with the same full hash, stored as pairs of key and value
+    private static final class CollisionNode extends Node {
+        private final int hash;
+        private final Object[] array;
+
+        CollisionNode(int hash, @NotNull Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        Object get(@NotNull Object key, int hash, int shift) {
+            if (hash != this.hash) return null;
+            int index = indexOf(key);
+            return index == -1 ? null : array[index + 1];
+        }
+
+        @NotNull
+        @Override
+        Node plus(@NotNull Object key, int hash, @NotNull Object value, int shift) {
+            if (hash != this.hash) {
+                BitmapNode parent = new BitmapNode(bit(this.hash, shift), new Object[] {null, this});
+                return parent.plus(key, hash, value, shift);
+            }
+
+            int index = indexOf(key);
+            if (index == -1) return new CollisionNode(hash, insertPair(array, array.length, key, value));
+            return new CollisionNode(hash, replace(array, index + 1, value));
+        }
+
+        @Override
+        Node minus(@NotNull Object key, int hash, int shift) {
+            if (array.length == 2) return null;
+            return new CollisionNode(hash, removePair(array, indexOf(key)));
+        }
+
+        @Override
+        <K, V> void addEntriesTo(@NotNull List<Map.Entry<K, V>> entries) {
+            for (int i = 0; i < array.length; i += 2) {
+                //noinspection unchecked
+                entries.add(new AbstractMap.SimpleImmutableEntry<K, V>((K) array[i], (V) array[i + 1]));
+            }
+        }
+    }
+}
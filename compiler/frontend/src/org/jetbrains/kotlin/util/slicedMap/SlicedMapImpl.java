@@ -25,9 +25,11 @@ import gnu.trove.THashMap;
 import kotlin.jvm.functions.Function3;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SlicedMapImpl implements MutableSlicedMap {
 
@@ -35,19 +37,61 @@ public class SlicedMapImpl implements MutableSlicedMap {
         return new SlicedMapImpl();
     }
 
-    private final Map<Object, UserDataHolderImpl> map = new THashMap<Object, UserDataHolderImpl>(0);
+    /**
+     * Creates a map that can be read from any number of threads while being written to.
+     * Writes are serialized, reads never block.
+     */
+    public static SlicedMapImpl createThreadSafe() {
+        return new SlicedMapImpl(true);
+    }
+
+    // ConcurrentHashMap doesn't support null keys, so they are replaced with this object in thread-safe maps
+    private static final Object NULL_KEY = new Object();
+
+    private final boolean threadSafe;
+    private final Map<Object, UserDataHolderImpl> map;
     private Multimap<WritableSlice<?, ?>, Object> collectiveSliceKeys = null;
 
+    protected SlicedMapImpl() {
+        this(false);
+    }
+
+    private SlicedMapImpl(boolean threadSafe) {
+        this.threadSafe = threadSafe;
+        this.map = threadSafe
+                   ? new ConcurrentHashMap<Object, UserDataHolderImpl>(16, 0.75f, 4)
+                   : new THashMap<Object, UserDataHolderImpl>(0);
+    }
+
+    private Object maskNull(Object key) {
+        return threadSafe && key == null ? NULL_KEY : key;
+    }
+
+    private static Object unmaskNull(Object key) {
+        return key == NULL_KEY ? null : key;
+    }
+
     @Override
     public <K, V> void put(WritableSlice<K, V> slice, K key, V value) {
         if (!slice.check(key, value)) {
             return;
         }
 
-        UserDataHolderImpl holder = map.get(key);
+        if (threadSafe) {
+            synchronized (this) {
+                doPut(slice, key, value);
+            }
+        }
+        else {
+            doPut(slice, key, value);
+        }
+    }
+
+    private <K, V> void doPut(WritableSlice<K, V> slice, K key, V value) {
+        UserDataHolderImpl holder = map.get(maskNull(key));
         if (holder == null) {
             holder = new UserDataHolderImpl();
-            map.put(key, holder);
+            map.put(maskNull(key), holder);
         }
 
         Key<V> sliceKey = slice.getKey();
@@ -77,13 +121,21 @@ public class SlicedMapImpl implements MutableSlicedMap {
 
     @Override
     public void clear() {
-        map.clear();
-        collectiveSliceKeys = null;
+        if (threadSafe) {
+            synchronized (this) {
+                map.clear();
+                collectiveSliceKeys = null;
+            }
+        }
+        else {
+            map.clear();
+            collectiveSliceKeys = null;
+        }
     }
 
     @Override
     public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
-        UserDataHolderImpl holder = map.get(key);
+        UserDataHolderImpl holder = map.get(maskNull(key));
 
         V value = holder == null ? null : holder.getUserData(slice.getKey());
 
@@ -95,6 +147,14 @@ public class SlicedMapImpl implements MutableSlicedMap {
     public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
         assert slice.isCollective() : "Keys are not collected for slice " + slice;
 
+        if (threadSafe) {
+            synchronized (this) {
+                // A snapshot is returned because the live view may be modified by other threads while it's being iterated
+                if (collectiveSliceKeys == null) return Collections.emptyList();
+                return (Collection<K>) new ArrayList<Object>(collectiveSliceKeys.get(slice));
+            }
+        }
+
         if (collectiveSliceKeys == null) return Collections.emptyList();
         return (Collection<K>) collectiveSliceKeys.get(slice);
     }
@@ -102,7 +162,7 @@ public class SlicedMapImpl implements MutableSlicedMap {
     @Override
     public void forEach(@NotNull Function3<WritableSlice, Object, Object, Void> f) {
         for (Map.Entry<Object, UserDataHolderImpl> entry : map.entrySet()) {
-            Object key = entry.getKey();
+            Object key = unmaskNull(entry.getKey());
             UserDataHolderImpl holder = entry.getValue();
 
             if (holder == null) continue;
@@ -128,7 +188,7 @@ public class SlicedMapImpl implements MutableSlicedMap {
 
             if (value != null) {
                 //noinspection unchecked
-                builder.put((K) entry.getKey(), value);
+                builder.put((K) unmaskNull(entry.getKey()), value);
             }
         }
         return builder.build();
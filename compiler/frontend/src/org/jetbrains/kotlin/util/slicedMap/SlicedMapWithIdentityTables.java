@@ -0,0 +1,214 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.util.slicedMap;
+
+import com.google.common.collect.ImmutableMap;
+import com.intellij.openapi.util.Key;
+import kotlin.jvm.functions.Function3;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Stores values of the given slices in a table per slice, keyed by identity, instead of a holder per key.
+ * It's intended for slices with a lot of keys which are equal only if they are identical (e.g. PSI elements),
+ * the other slices are stored as in {@link SlicedMapImpl}.
+ * Collective slices can't be stored in tables.
+ */
+public class SlicedMapWithIdentityTables extends SlicedMapImpl {
+    private final Key<?>[] tableSliceKeys;
+    private final IdentityTable[] tables;
+
+    public SlicedMapWithIdentityTables(@NotNull WritableSlice<?, ?>... tableSlices) {
+        tableSliceKeys = new Key<?>[tableSlices.length];
+        tables = new IdentityTable[tableSlices.length];
+        for (int i = 0; i < tableSlices.length; i++) {
+            assert !tableSlices[i].isCollective() : "Collective slice can't be stored in a table: " + tableSlices[i];
+            tableSliceKeys[i] = tableSlices[i].getKey();
+            tables[i] = new IdentityTable();
+        }
+    }
+
+    // Slices are identified by their keys, so that delegating slices are found too
+    private IdentityTable getTable(@NotNull ReadOnlySlice<?, ?> slice) {
+        Key<?> key = slice.getKey();
+        for (int i = 0; i < tableSliceKeys.length; i++) {
+            if (tableSliceKeys[i] == key) return tables[i];
+        }
+        return null;
+    }
+
+    @Override
+    public <K, V> void put(WritableSlice<K, V> slice, K key, V value) {
+        IdentityTable table = getTable(slice);
+        if (table == null) {
+            super.put(slice, key, value);
+            return;
+        }
+
+        if (!slice.check(key, value)) {
+            return;
+        }
+
+        RewritePolicy rewritePolicy = slice.getRewritePolicy();
+        if (rewritePolicy.rewriteProcessingNeeded(key)) {
+            //noinspection unchecked
+            V oldValue = (V) table.get(key);
+            if (oldValue != null) {
+                if (!rewritePolicy.processRewrite(slice, key, oldValue, value)) {
+                    return;
+                }
+            }
+        }
+
+        table.put(key, value);
+        slice.afterPut(this, key, value);
+    }
+
+    @Override
+    public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
+        IdentityTable table = getTable(slice);
+        if (table == null) {
+            return super.get(slice, key);
+        }
+
+        //noinspection unchecked
+        V value = (V) table.get(key);
+        return slice.computeValue(this, key, value, value == null);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        for (IdentityTable table : tables) {
+            table.clear();
+        }
+    }
+
+    @Override
+    public void forEach(@NotNull Function3<WritableSlice, Object, Object, Void> f) {
+        super.forEach(f);
+        for (int i = 0; i < tables.length; i++) {
+            WritableSlice<?, ?> slice = ((AbstractWritableSlice) tableSliceKeys[i]).getSlice();
+            IdentityTable table = tables[i];
+            for (int j = 0; j < table.keys.length; j++) {
+                Object value = table.values[j];
+                if (value != null) {
+                    f.invoke(slice, IdentityTable.unmaskNull(table.keys[j]), value);
+                }
+            }
+        }
+    }
+
+    @NotNull
+    @Override
+    public <K, V> ImmutableMap<K, V> getSliceContents(@NotNull ReadOnlySlice<K, V> slice) {
+        IdentityTable table = getTable(slice);
+        if (table == null) {
+            return super.getSliceContents(slice);
+        }
+
+        ImmutableMap.Builder<K, V> builder = ImmutableMap.builder();
+        for (int i = 0; i < table.keys.length; i++) {
+            Object value = table.values[i];
+            if (value != null) {
+                //noinspection unchecked
+                builder.put((K) IdentityTable.unmaskNull(table.keys[i]), (V) value);
+            }
+        }
+        return builder.build();
+    }
+
+    // Open addressing with linear probing; entries are never removed, a null value means there's no value.
+    // Arrays are allocated on the first put, because most of the temporary traces don't use every slice
+    private static final class IdentityTable {
+        private static final Object NULL_KEY = new Object();
+        private static final Object[] EMPTY = new Object[0];
+        private static final int INITIAL_CAPACITY = 16;
+
+        private Object[] keys = EMPTY;
+        private Object[] values = EMPTY;
+        private int size = 0;
+
+        private static Object unmaskNull(Object key) {
+            return key == NULL_KEY ? null : key;
+        }
+
+        private static int index(Object key, int mask) {
+            int hash = System.identityHashCode(key);
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        Object get(Object key) {
+            Object masked = key == null ? NULL_KEY : key;
+            Object[] keys = this.keys;
+            if (keys.length == 0) return null;
+            int mask = keys.length - 1;
+            for (int i = index(masked, mask); ; i = (i + 1) & mask) {
+                Object candidate = keys[i];
+                if (candidate == masked) return values[i];
+                if (candidate == null) return null;
+            }
+        }
+
+        void put(Object key, Object value) {
+            Object masked = key == null ? NULL_KEY : key;
+            if (keys.length == 0) {
+                keys = new Object[INITIAL_CAPACITY];
+                values = new Object[INITIAL_CAPACITY];
+            }
+            int mask = keys.length - 1;
+            int i = index(masked, mask);
+            while (keys[i] != null) {
+                if (keys[i] == masked) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+
+            keys[i] = masked;
+            values[i] = value;
+            // load factor is 1/2
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+        }
+
+        private void resize() {
+            Object[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new Object[oldKeys.length * 2];
+            values = new Object[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                Object key = oldKeys[j];
+                if (key == null) continue;
+                int i = index(key, mask);
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+
+        void clear() {
+            keys = EMPTY;
+            values = EMPTY;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.generated;
+
+import com.intellij.testFramework.TestDataPath;
+import org.jetbrains.kotlin.test.JUnit3RunnerWithInners;
+import org.jetbrains.kotlin.test.KotlinTestUtils;
+import org.jetbrains.kotlin.test.TestMetadata;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.regex.Pattern;
+
+/** This class is generated by {@link org.jetbrains.kotlin.generators.tests.TestsPackage}. DO NOT MODIFY MANUALLY */
+@SuppressWarnings("all")
+@RunWith(JUnit3RunnerWithInners.class)
+public class BlackBoxReflectionWithMethodHandlesCodegenTestGenerated extends AbstractBlackBoxReflectionWithMethodHandlesCodegenTest {
+    @TestMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call")
+    @TestDataPath("$PROJECT_ROOT")
+    @RunWith(JUnit3RunnerWithInners.class)
+    public static class Call extends AbstractBlackBoxReflectionWithMethodHandlesCodegenTest {
+        public void testAllFilesPresentInCall() throws Exception {
+            KotlinTestUtils.assertAllTestsPresentByMetadata(this.getClass(), new File("compiler/testData/codegen/boxWithStdlib/reflection/call"), Pattern.compile("^(.+)\\.kt$"), true);
+        }
+
+        @TestMetadata("cannotCallEnumConstructor.kt")
+        public void testCannotCallEnumConstructor() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/cannotCallEnumConstructor.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("companionAndObjectMembers.kt")
+        public void testCompanionAndObjectMembers() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/companionAndObjectMembers.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("disallowNullValueForNotNullField.kt")
+        public void testDisallowNullValueForNotNullField() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/disallowNullValueForNotNullField.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("equalsHashCodeToString.kt")
+        public void testEqualsHashCodeToString() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/equalsHashCodeToString.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("exceptionHappened.kt")
+        public void testExceptionHappened() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/exceptionHappened.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("exceptionTypesFromCallee.kt")
+        public void testExceptionTypesFromCallee() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/exceptionTypesFromCallee.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("fakeOverride.kt")
+        public void testFakeOverride() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/fakeOverride.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("fakeOverrideSubstituted.kt")
+        public void testFakeOverrideSubstituted() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/fakeOverrideSubstituted.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("incorrectNumberOfArguments.kt")
+        public void testIncorrectNumberOfArguments() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/incorrectNumberOfArguments.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("innerClassConstructor.kt")
+        public void testInnerClassConstructor() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/innerClassConstructor.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("localClassMember.kt")
+        public void testLocalClassMember() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/localClassMember.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("memberOfGenericClass.kt")
+        public void testMemberOfGenericClass() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/memberOfGenericClass.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("nullReceiver.kt")
+        public void testNullReceiver() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/nullReceiver.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("platformStatic.kt")
+        public void testPlatformStatic() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/platformStatic.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("platformStaticInObjectIncorrectReceiver.kt")
+        public void testPlatformStaticInObjectIncorrectReceiver() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/platformStaticInObjectIncorrectReceiver.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("privateProperty.kt")
+        public void testPrivateProperty() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/privateProperty.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("propertyAccessors.kt")
+        public void testPropertyAccessors() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/propertyAccessors.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("returnUnit.kt")
+        public void testReturnUnit() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/returnUnit.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("simpleConstructor.kt")
+        public void testSimpleConstructor() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/simpleConstructor.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("simpleMemberFunction.kt")
+        public void testSimpleMemberFunction() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/simpleMemberFunction.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("simpleTopLevelFunctions.kt")
+        public void testSimpleTopLevelFunctions() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/simpleTopLevelFunctions.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("wrongArgumentTypes.kt")
+        public void testWrongArgumentTypes() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/call/wrongArgumentTypes.kt");
+            doTestWithStdlib(fileName);
+        }
+    }
+
+    @TestMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy")
+    @TestDataPath("$PROJECT_ROOT")
+    @RunWith(JUnit3RunnerWithInners.class)
+    public static class CallBy extends AbstractBlackBoxReflectionWithMethodHandlesCodegenTest {
+        public void testAllFilesPresentInCallBy() throws Exception {
+            KotlinTestUtils.assertAllTestsPresentByMetadata(this.getClass(), new File("compiler/testData/codegen/boxWithStdlib/reflection/callBy"), Pattern.compile("^(.+)\\.kt$"), true);
+        }
+
+        @TestMetadata("defaultAndNonDefaultIntertwined.kt")
+        public void testDefaultAndNonDefaultIntertwined() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/defaultAndNonDefaultIntertwined.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("extensionFunction.kt")
+        public void testExtensionFunction() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/extensionFunction.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("manyArgumentsOnlyOneDefault.kt")
+        public void testManyArgumentsOnlyOneDefault() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/manyArgumentsOnlyOneDefault.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("manyMaskArguments.kt")
+        public void testManyMaskArguments() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/manyMaskArguments.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("nonDefaultParameterOmitted.kt")
+        public void testNonDefaultParameterOmitted() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/nonDefaultParameterOmitted.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("nullValue.kt")
+        public void testNullValue() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/nullValue.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("ordinaryMethodIsInvokedWhenNoDefaultValuesAreUsed.kt")
+        public void testOrdinaryMethodIsInvokedWhenNoDefaultValuesAreUsed() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/ordinaryMethodIsInvokedWhenNoDefaultValuesAreUsed.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("platformStaticInObject.kt")
+        public void testPlatformStaticInObject() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/platformStaticInObject.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("primitiveDefaultValues.kt")
+        public void testPrimitiveDefaultValues() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/primitiveDefaultValues.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("privateMemberFunction.kt")
+        public void testPrivateMemberFunction() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/privateMemberFunction.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("simpleConstructor.kt")
+        public void testSimpleConstructor() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/simpleConstructor.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("simpleMemberFunciton.kt")
+        public void testSimpleMemberFunciton() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/simpleMemberFunciton.kt");
+            doTestWithStdlib(fileName);
+        }
+
+        @TestMetadata("simpleTopLevelFunction.kt")
+        public void testSimpleTopLevelFunction() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/reflection/callBy/simpleTopLevelFunction.kt");
+            doTestWithStdlib(fileName);
+        }
+    }
+}
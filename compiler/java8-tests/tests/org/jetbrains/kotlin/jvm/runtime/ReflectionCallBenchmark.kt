@@ -0,0 +1,66 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.runtime
+
+import kotlin.reflect.KFunction
+import kotlin.reflect.KProperty1
+import kotlin.reflect.jvm.javaField
+import kotlin.reflect.jvm.javaMethod
+
+/**
+ * Compares direct calls, java.lang.reflect and kotlin.reflect calls of a method and a property getter.
+ * Run twice, with and without -Dkotlin.reflect.jvm.useMethodHandles=true, and compare the numbers for kotlin.reflect.
+ */
+object ReflectionCallBenchmark {
+    private val ITERATIONS = 5000000
+    private val ROUNDS = 10
+
+    class Target(val value: String) {
+        fun plus(a: Int, b: Int): Int = a + b
+    }
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        println("kotlin.reflect.jvm.useMethodHandles=${System.getProperty("kotlin.reflect.jvm.useMethodHandles")}")
+
+        val target = Target("value")
+        val function: KFunction<*> = Target::plus
+        val property: KProperty1<Target, String> = Target::value
+        val method = function.javaMethod!!
+        val field = property.javaField!!.apply { isAccessible = true }
+
+        for (round in 1..ROUNDS) {
+            println("round $round")
+            measure("  direct call") { i -> target.plus(i, 1) }
+            measure("  Method.invoke") { i -> method.invoke(target, i, 1) as Int }
+            measure("  KFunction.call") { i -> function.call(target, i, 1) as Int }
+            measure("  direct get") { i -> target.value.length }
+            measure("  Field.get") { i -> (field.get(target) as String).length }
+            measure("  KProperty1.get") { i -> property.get(target).length }
+        }
+    }
+
+    private inline fun measure(name: String, block: (Int) -> Int) {
+        val start = System.nanoTime()
+        var checksum = 0
+        for (i in 1..ITERATIONS) {
+            checksum += block(i)
+        }
+        val time = System.nanoTime() - start
+        println("$name: ${time * 1000 / ITERATIONS / 1000.0} ns per call ($checksum)")
+    }
+}
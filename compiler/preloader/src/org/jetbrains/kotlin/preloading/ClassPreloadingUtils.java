@@ -46,11 +46,29 @@ public class ClassPreloadingUtils {
             ClassCondition classesToLoadByParent,
             ClassHandler handler
     ) throws IOException {
-        Map<String, Object> entries = loadAllClassesFromJars(jarFiles, classCountEstimation, handler);
+        return preloadClasses(jarFiles, classCountEstimation, parentClassLoader, classesToLoadByParent, handler, false);
+    }
+
+    /**
+     * Same as {@link #preloadClasses(Collection, int, ClassLoader, ClassCondition, ClassHandler)}, but if {@code lazy} is true,
+     * the jars are memory-mapped and only their central directories are read. Bytes of each class are then read
+     * (and instrumented by {@code handler}) when the class is requested for the first time.
+     */
+    public static ClassLoader preloadClasses(
+            Collection<File> jarFiles,
+            int classCountEstimation,
+            ClassLoader parentClassLoader,
+            ClassCondition classesToLoadByParent,
+            ClassHandler handler,
+            boolean lazy
+    ) throws IOException {
+        Map<String, Object> entries = lazy
+                                      ? indexAllClassesInJars(jarFiles, classCountEstimation, handler)
+                                      : loadAllClassesFromJars(jarFiles, classCountEstimation, handler);
 
         Collection<File> classpath = mergeClasspathFromManifests(entries);
         if (!classpath.isEmpty()) {
-            parentClassLoader = preloadClasses(classpath, classCountEstimation, parentClassLoader, null, handler);
+            parentClassLoader = preloadClasses(classpath, classCountEstimation, parentClassLoader, null, handler, lazy);
         }
 
         return new MemoryBasedClassLoader(classesToLoadByParent, parentClassLoader, entries, handler, createFallbackClassLoader(jarFiles));
@@ -89,7 +107,7 @@ public class ClassPreloadingUtils {
     }
 
     private static Collection<File> extractManifestClasspath(ResourceData manifestData) throws IOException {
-        Manifest manifest = new Manifest(new ByteArrayInputStream(manifestData.bytes));
+        Manifest manifest = new Manifest(new ByteArrayInputStream(manifestData.getBytes()));
         String classpathSpaceSeparated = (String) manifest.getMainAttributes().get(Attributes.Name.CLASS_PATH);
         if (classpathSpaceSeparated == null) return Collections.emptyList();
 
@@ -147,23 +165,7 @@ public class ClassPreloadingUtils {
                     if (handler != null) {
                         data = handler.instrument(name, data);
                     }
-                    ResourceData resourceData = new ResourceData(jarFile, name, data);
-
-                    Object previous = resources.get(name);
-                    if (previous == null) {
-                        resources.put(name, resourceData);
-                    }
-                    else if (previous instanceof ResourceData) {
-                        List<ResourceData> list = new ArrayList<ResourceData>();
-                        list.add((ResourceData) previous);
-                        list.add(resourceData);
-                        resources.put(name, list);
-                    }
-                    else {
-                        assert previous instanceof ArrayList :
-                                "Resource map should contain ResourceData or ArrayList<ResourceData>: " + name;
-                        ((ArrayList<ResourceData>) previous).add(resourceData);
-                    }
+                    addResource(resources, new ResourceData(jarFile, name, data));
                 }
             }
             finally {
@@ -180,12 +182,66 @@ public class ClassPreloadingUtils {
             }
         }
 
+        trimResourceLists(resources);
+
+        return resources;
+    }
+
+    /**
+     * @return a map of name to resources in the same format as {@link #loadAllClassesFromJars}, but with resources read from
+     * memory-mapped jars on demand
+     */
+    private static Map<String, Object> indexAllClassesInJars(
+            Collection<File> jarFiles,
+            int classNumberEstimate,
+            ClassHandler handler
+    ) throws IOException {
+        // 0.75 is HashMap.DEFAULT_LOAD_FACTOR
+        Map<String, Object> resources = new HashMap<String, Object>((int) (classNumberEstimate / 0.75));
+
+        for (File jarFile : jarFiles) {
+            if (handler != null) {
+                handler.beforeLoadJar(jarFile);
+            }
+
+            for (MappedJarFile.Entry entry : new MappedJarFile(jarFile).getEntries()) {
+                addResource(resources, new ResourceData(entry, handler));
+            }
+
+            if (handler != null) {
+                handler.afterLoadJar(jarFile);
+            }
+        }
+
+        trimResourceLists(resources);
+
+        return resources;
+    }
+
+    private static void addResource(Map<String, Object> resources, ResourceData resourceData) {
+        String name = resourceData.resourceName;
+        Object previous = resources.get(name);
+        if (previous == null) {
+            resources.put(name, resourceData);
+        }
+        else if (previous instanceof ResourceData) {
+            List<ResourceData> list = new ArrayList<ResourceData>();
+            list.add((ResourceData) previous);
+            list.add(resourceData);
+            resources.put(name, list);
+        }
+        else {
+            assert previous instanceof ArrayList :
+                    "Resource map should contain ResourceData or ArrayList<ResourceData>: " + name;
+            ((ArrayList<ResourceData>) previous).add(resourceData);
+        }
+    }
+
+    private static void trimResourceLists(Map<String, Object> resources) {
         for (Object value : resources.values()) {
             if (value instanceof ArrayList) {
                 ((ArrayList) value).trimToSize();
             }
         }
-
-        return resources;
     }
 }
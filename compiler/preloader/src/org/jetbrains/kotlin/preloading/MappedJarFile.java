@@ -0,0 +1,227 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.preloading;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A jar file mapped into memory, of which only the central directory is read on creation.
+ * Contents of entries are inflated from the mapped buffer on each call to {@link Entry#readBytes()}.
+ *
+ * Only what's needed for jars produced by our build is supported: entries must be stored or deflated, and ZIP64 archives are rejected.
+ */
+public final class MappedJarFile {
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_ENTRY_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int CENTRAL_DIRECTORY_ENTRY_SIZE = 46;
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final List<Entry> entries;
+
+    public MappedJarFile(File file) throws IOException {
+        this.file = file;
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ZipException("Jar is too large to be mapped: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            this.buffer = mapped;
+        }
+        finally {
+            try {
+                randomAccessFile.close();
+            }
+            catch (IOException e) {
+                // Ignore
+            }
+        }
+
+        this.entries = readCentralDirectory();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return all entries of the jar except directories, in the order of the central directory
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    private List<Entry> readCentralDirectory() throws IOException {
+        int endOfCentralDirectory = findEndOfCentralDirectory();
+
+        int entryCount = buffer.getShort(endOfCentralDirectory + 10) & 0xFFFF;
+        long centralDirectorySize = buffer.getInt(endOfCentralDirectory + 12) & 0xFFFFFFFFL;
+        long centralDirectoryOffset = buffer.getInt(endOfCentralDirectory + 16) & 0xFFFFFFFFL;
+        if (entryCount == 0xFFFF || centralDirectorySize == 0xFFFFFFFFL || centralDirectoryOffset == 0xFFFFFFFFL) {
+            throw new ZipException("ZIP64 archives are not supported: " + file);
+        }
+        if (centralDirectoryOffset + centralDirectorySize > endOfCentralDirectory) {
+            throw new ZipException("Invalid central directory bounds: " + file);
+        }
+
+        List<Entry> result = new ArrayList<Entry>(entryCount);
+        int position = (int) centralDirectoryOffset;
+        int end = (int) (centralDirectoryOffset + centralDirectorySize);
+        while (position < end) {
+            if (buffer.getInt(position) != CENTRAL_DIRECTORY_ENTRY_SIGNATURE) {
+                throw new ZipException("Invalid central directory entry at " + position + ": " + file);
+            }
+
+            int method = buffer.getShort(position + 10) & 0xFFFF;
+            long compressedSize = buffer.getInt(position + 20) & 0xFFFFFFFFL;
+            long size = buffer.getInt(position + 24) & 0xFFFFFFFFL;
+            int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+            long localHeaderOffset = buffer.getInt(position + 42) & 0xFFFFFFFFL;
+
+            String name = readString(position + CENTRAL_DIRECTORY_ENTRY_SIZE, nameLength);
+            if (!name.endsWith("/")) {
+                if (method != STORED && method != DEFLATED) {
+                    throw new ZipException("Unsupported compression method " + method + " of " + name + ": " + file);
+                }
+                if (size >= Integer.MAX_VALUE || compressedSize >= Integer.MAX_VALUE) {
+                    throw new ZipException("Entry is too large: " + name + " in " + file);
+                }
+                result.add(new Entry(name, method == DEFLATED, (int) compressedSize, (int) size, (int) localHeaderOffset));
+            }
+
+            position += CENTRAL_DIRECTORY_ENTRY_SIZE + nameLength + extraLength + commentLength;
+        }
+
+        return result;
+    }
+
+    private int findEndOfCentralDirectory() throws ZipException {
+        int limit = Math.max(0, buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE - MAX_COMMENT_SIZE);
+        for (int position = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; position >= limit; position--) {
+            if (buffer.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                return position;
+            }
+        }
+        throw new ZipException("End of central directory not found: " + file);
+    }
+
+    private String readString(int position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    public final class Entry {
+        private final String name;
+        private final boolean deflated;
+        private final int compressedSize;
+        private final int size;
+        private final int localHeaderOffset;
+
+        private Entry(String name, boolean deflated, int compressedSize, int size, int localHeaderOffset) {
+            this.name = name;
+            this.deflated = deflated;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public File getJarFile() {
+            return file;
+        }
+
+        /**
+         * Reads the contents of the entry from the mapped buffer. This method is thread-safe.
+         */
+        public byte[] readBytes() throws IOException {
+            if (buffer.getInt(localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid local header of " + name + ": " + file);
+            }
+
+            // Lengths of the name and the extra field in the local header may differ from those in the central directory
+            int nameLength = buffer.getShort(localHeaderOffset + 26) & 0xFFFF;
+            int extraLength = buffer.getShort(localHeaderOffset + 28) & 0xFFFF;
+            int dataOffset = localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+
+            // Inflater in the 'nowrap' mode may need an extra dummy byte after the compressed data
+            byte[] compressed = new byte[deflated ? compressedSize + 1 : compressedSize];
+            ByteBuffer view = buffer.duplicate();
+            view.position(dataOffset);
+            view.get(compressed, 0, compressedSize);
+
+            if (!deflated) return compressed;
+
+            byte[] result = new byte[size];
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(compressed);
+                int count = 0;
+                while (count < size) {
+                    int read = inflater.inflate(result, count, size - count);
+                    if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) break;
+                    count += read;
+                }
+                if (count != size) {
+                    throw new ZipException("Unexpected size of " + name + ": " + count + " instead of " + size + " in " + file);
+                }
+            }
+            catch (DataFormatException e) {
+                throw new ZipException("Invalid compressed data of " + name + " in " + file + ": " + e.getMessage());
+            }
+            finally {
+                inflater.end();
+            }
+            return result;
+        }
+    }
+}
@@ -28,6 +28,9 @@ import java.util.*;
  * This means that once any class is loaded, it _cannot be found_ as a resource anymore.
  * Therefore if you need to be able to find classes via findResource(), you should pass a fallback
  * class loader which is able to do that at any point of time.
+ *
+ * Resources may also be backed by a memory-mapped jar (see {@link MappedJarFile}), in which case bytecode of a class
+ * is only read when the class is requested for the first time.
  */
 public class MemoryBasedClassLoader extends ClassLoader {
     private final ClassCondition classesToLoadByParent;
@@ -95,12 +98,20 @@ public class MemoryBasedClassLoader extends ClassLoader {
                                     ? ((ResourceData) resources)
                                     : ((List<ResourceData>) resources).get(0);
 
-        int sizeInBytes = resourceData.bytes.length;
+        byte[] bytes;
+        try {
+            bytes = resourceData.getBytes();
+        }
+        catch (IOException e) {
+            throw new ClassNotFoundException("Failed to read class " + name + " from " + resourceData.jarFile, e);
+        }
+
+        int sizeInBytes = bytes.length;
         if (handler != null) {
             handler.beforeDefineClass(name, sizeInBytes);
         }
 
-        Class<?> definedClass = defineClass(name, resourceData.bytes, 0, sizeInBytes);
+        Class<?> definedClass = defineClass(name, bytes, 0, sizeInBytes);
 
         if (handler != null) {
             handler.afterDefineClass(name);
@@ -50,7 +50,9 @@ public class Preloader {
         ClassLoader classLoader = createClassLoader(options);
 
         final Handler handler = getHandler(options, classLoader);
-        ClassLoader preloaded = ClassPreloadingUtils.preloadClasses(options.classpath, options.estimate, classLoader, null, handler);
+        ClassLoader preloaded = ClassPreloadingUtils.preloadClasses(
+                options.classpath, options.estimate, classLoader, null, handler, options.lazy
+        );
 
         Class<?> mainClass = preloaded.loadClass(options.mainClass);
         Method mainMethod = mainClass.getMethod("main", String[].class);
@@ -91,6 +93,7 @@ public class Preloader {
     private static Options parseOptions(String[] args) throws Exception {
         List<File> classpath = Collections.emptyList();
         boolean measure = false;
+        boolean lazy = false;
         List<File> instrumenters = Collections.emptyList();
         int estimate = DEFAULT_CLASS_NUMBER_ESTIMATE;
         String mainClass = null;
@@ -119,6 +122,9 @@ public class Preloader {
             else if ("-measure".equals(arg)) {
                 measure = true;
             }
+            else if ("-lazy".equals(arg)) {
+                lazy = true;
+            }
             else {
                 mainClass = arg;
                 arguments.addAll(Arrays.asList(args).subList(i + 1, args.length));
@@ -128,7 +134,7 @@ public class Preloader {
 
         if (mainClass == null) throw new PreloaderException("no main class name provided");
 
-        return new Options(classpath, measure, instrumenters, estimate, mainClass, arguments);
+        return new Options(classpath, measure, lazy, instrumenters, estimate, mainClass, arguments);
     }
 
     private static List<File> parseClassPath(String classpath) {
@@ -199,12 +205,14 @@ public class Preloader {
         out.println("  -instrument <paths>         Paths where the instrumenter will be looked up by java.util.ServiceLoader");
         out.println("                              (the class must implement " + Instrumenter.class.getCanonicalName() + " interface)");
         out.println("  -estimate <number>          Class number estimate (" + DEFAULT_CLASS_NUMBER_ESTIMATE + " by default)");
+        out.println("  -lazy                       Memory-map the jars and read each class on its first use instead of reading all classes at startup");
         out.println("  -help (-h)                  Output this help message");
     }
 
     private static class Options {
         public final List<File> classpath;
         public final boolean measure;
+        public final boolean lazy;
         public final List<File> instrumenters;
         public final int estimate;
         public final String mainClass;
@@ -213,6 +221,7 @@ public class Preloader {
         private Options(
                 List<File> classpath,
                 boolean measure,
+                boolean lazy,
                 List<File> instrumenters,
                 int estimate,
                 String mainClass,
@@ -220,6 +229,7 @@ public class Preloader {
         ) {
             this.classpath = classpath;
             this.measure = measure;
+            this.lazy = lazy;
             this.instrumenters = instrumenters;
             this.estimate = estimate;
             this.mainClass = mainClass;
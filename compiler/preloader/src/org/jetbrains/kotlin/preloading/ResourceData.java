@@ -28,12 +28,34 @@ import java.net.URLStreamHandler;
 public final class ResourceData {
     public final File jarFile;
     public final String resourceName;
-    public final byte[] bytes;
+    private final byte[] bytes;
+    private final MappedJarFile.Entry entry;
+    private final ClassHandler handler;
 
     public ResourceData(File jarFile, String resourceName, byte[] bytes) {
         this.jarFile = jarFile;
         this.resourceName = resourceName;
         this.bytes = bytes;
+        this.entry = null;
+        this.handler = null;
+    }
+
+    /**
+     * Creates a resource whose contents are read from the mapped jar (and instrumented with the handler, if any) on each request.
+     */
+    public ResourceData(MappedJarFile.Entry entry, ClassHandler handler) {
+        this.jarFile = entry.getJarFile();
+        this.resourceName = entry.getName();
+        this.bytes = null;
+        this.entry = entry;
+        this.handler = handler;
+    }
+
+    public byte[] getBytes() throws IOException {
+        if (entry == null) return bytes;
+
+        byte[] data = entry.readBytes();
+        return handler != null ? handler.instrument(resourceName, data) : data;
     }
 
     public URL getURL() {
@@ -48,7 +70,7 @@ public final class ResourceData {
 
                         @Override
                         public InputStream getInputStream() throws IOException {
-                            return new ByteArrayInputStream(bytes);
+                            return new ByteArrayInputStream(getBytes());
                         }
                     };
                 }
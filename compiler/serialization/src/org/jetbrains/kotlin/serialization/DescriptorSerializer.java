@@ -29,6 +29,7 @@ import org.jetbrains.kotlin.resolve.DescriptorUtils;
 import org.jetbrains.kotlin.resolve.MemberComparator;
 import org.jetbrains.kotlin.resolve.constants.ConstantValue;
 import org.jetbrains.kotlin.resolve.constants.NullValue;
+import org.jetbrains.kotlin.serialization.deserialization.MemberNameIndex;
 import org.jetbrains.kotlin.types.*;
 import org.jetbrains.kotlin.utils.ExceptionUtilsKt;
 import org.jetbrains.kotlin.utils.Interner;
@@ -157,6 +158,8 @@ public class DescriptorSerializer {
             builder.addConstructor(constructorProto(descriptor));
         }
 
+        List<Name> functionNames = new ArrayList<Name>();
+        List<Name> propertyNames = new ArrayList<Name>();
         for (DeclarationDescriptor descriptor : sort(DescriptorUtils.getAllDescriptors(classDescriptor.getDefaultType().getMemberScope()))) {
             if (descriptor instanceof CallableMemberDescriptor) {
                 CallableMemberDescriptor member = (CallableMemberDescriptor) descriptor;
@@ -164,12 +167,15 @@ public class DescriptorSerializer {
 
                 if (descriptor instanceof PropertyDescriptor) {
                     builder.addProperty(propertyProto((PropertyDescriptor) descriptor));
+                    propertyNames.add(descriptor.getName());
                 }
                 else if (descriptor instanceof FunctionDescriptor) {
                     builder.addFunction(functionProto((FunctionDescriptor) descriptor));
+                    functionNames.add(descriptor.getName());
                 }
             }
         }
+        builder.addAllMemberNameIndex(memberNameIndex(functionNames, propertyNames));
 
         for (DeclarationDescriptor descriptor : sort(DescriptorUtils.getAllDescriptors(classDescriptor.getUnsubstitutedInnerClassesScope()))) {
             int name = getSimpleNameIndex(descriptor.getName());
@@ -571,16 +577,21 @@ public class DescriptorSerializer {
             members.addAll(DescriptorUtils.getAllDescriptors(fragment.getMemberScope()));
         }
 
+        List<Name> functionNames = new ArrayList<Name>();
+        List<Name> propertyNames = new ArrayList<Name>();
         for (DeclarationDescriptor declaration : sort(members)) {
             if (skip != null && skip.invoke(declaration)) continue;
 
             if (declaration instanceof PropertyDescriptor) {
                 builder.addProperty(propertyProto((PropertyDescriptor) declaration));
+                propertyNames.add(declaration.getName());
             }
             else if (declaration instanceof FunctionDescriptor) {
                 builder.addFunction(functionProto((FunctionDescriptor) declaration));
+                functionNames.add(declaration.getName());
             }
         }
+        builder.addAllMemberNameIndex(memberNameIndex(functionNames, propertyNames));
 
         ProtoBuf.TypeTable typeTableProto = typeTable.serialize();
         if (typeTableProto != null) {
@@ -596,14 +607,19 @@ public class DescriptorSerializer {
     public ProtoBuf.Package.Builder packagePartProto(@NotNull Collection<DeclarationDescriptor> members) {
         ProtoBuf.Package.Builder builder = ProtoBuf.Package.newBuilder();
 
+        List<Name> functionNames = new ArrayList<Name>();
+        List<Name> propertyNames = new ArrayList<Name>();
         for (DeclarationDescriptor declaration : sort(members)) {
             if (declaration instanceof PropertyDescriptor) {
                 builder.addProperty(propertyProto((PropertyDescriptor) declaration));
+                propertyNames.add(declaration.getName());
             }
             else if (declaration instanceof FunctionDescriptor) {
                 builder.addFunction(functionProto((FunctionDescriptor) declaration));
+                functionNames.add(declaration.getName());
             }
         }
+        builder.addAllMemberNameIndex(memberNameIndex(functionNames, propertyNames));
 
         ProtoBuf.TypeTable typeTableProto = typeTable.serialize();
         if (typeTableProto != null) {
@@ -636,6 +652,16 @@ public class DescriptorSerializer {
         return getStringTable().getStringIndex(name.asString());
     }
 
+    @NotNull
+    private List<Integer> memberNameIndex(@NotNull List<Name> functionNames, @NotNull List<Name> propertyNames) {
+        return MemberNameIndex.serialize(functionNames, propertyNames, new Function1<Name, Integer>() {
+            @Override
+            public Integer invoke(Name name) {
+                return getSimpleNameIndex(name);
+            }
+        });
+    }
+
     private int getTypeParameterId(@NotNull TypeParameterDescriptor descriptor) {
         return typeParameters.intern(descriptor);
     }
@@ -0,0 +1,44 @@
+import kotlin.reflect.KFunction
+import kotlin.reflect.KMutableProperty1
+import kotlin.test.assertEquals
+
+class C {
+    companion object {
+        @JvmField var field: String = "field"
+        @JvmStatic var static: String = "static"
+        @JvmStatic fun foo(s: String) = s + "!"
+        fun bar(s: String) = s + "?"
+    }
+}
+
+object O {
+    @JvmStatic var static: String = "static"
+    @JvmStatic fun foo(s: String) = s + "!"
+    fun bar(s: String) = s + "?"
+}
+
+fun <T : Any> T.property(name: String) = javaClass.kotlin.members.single { it.name == name } as KMutableProperty1<T, String>
+fun <T : Any> T.function(name: String) = javaClass.kotlin.members.single { it.name == name } as KFunction<String>
+
+fun <T : Any> check(receiver: T, propertyNames: List<String>) {
+    for (name in propertyNames) {
+        val property = receiver.property(name)
+        assertEquals(name, property.get(receiver))
+        assertEquals(name, property.getter.call(receiver))
+        assertEquals(Unit, property.setter.call(receiver, "new"))
+        assertEquals("new", property.getter.call(receiver))
+        property.set(receiver, name)
+        assertEquals(name, property.call(receiver))
+    }
+
+    assertEquals("a!", receiver.function("foo").call(receiver, "a"))
+    assertEquals("b?", receiver.function("bar").call(receiver, "b"))
+}
+
+fun box(): String {
+    check(C, listOf("field", "static"))
+    check(O, listOf("static"))
+    assertEquals("field", C.field)
+    assertEquals("static", O.static)
+    return "OK"
+}
@@ -0,0 +1,34 @@
+// FULL_JDK
+
+import java.lang.reflect.InvocationTargetException
+
+class A(s: String?) {
+    init {
+        s!!
+    }
+
+    fun npe(s: String?) = s!!
+    fun cce(a: Any) = a as String
+    fun iae(): Unit = throw IllegalArgumentException("iae")
+}
+
+fun expectTargetException(name: String, exceptionClass: Class<*>, block: () -> Unit): String? {
+    try {
+        block()
+        return "Fail $name: no exception was thrown"
+    }
+    catch (e: InvocationTargetException) {
+        // Exceptions thrown by the callee must not be confused with exceptions about incorrect arguments
+        if (!exceptionClass.isInstance(e.targetException)) return "Fail $name: ${e.targetException}"
+        return null
+    }
+}
+
+fun box(): String {
+    val a = A("")
+    return expectTargetException("constructor", NullPointerException::class.java) { ::A.call(null) }
+           ?: expectTargetException("npe", NullPointerException::class.java) { A::npe.call(a, null) }
+           ?: expectTargetException("cce", ClassCastException::class.java) { A::cce.call(a, 42) }
+           ?: expectTargetException("iae", IllegalArgumentException::class.java) { A::iae.call(a) }
+           ?: "OK"
+}
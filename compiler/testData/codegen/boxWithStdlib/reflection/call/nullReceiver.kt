@@ -0,0 +1,28 @@
+import kotlin.reflect.KMutableProperty1
+
+class A {
+    fun foo(s: String) = s
+    var bar: String = ""
+    @JvmField var baz: String = ""
+}
+
+fun expectNpe(name: String, block: () -> Unit): String? {
+    try {
+        block()
+        return "Fail $name: no exception was thrown"
+    }
+    catch (e: NullPointerException) {
+        return null
+    }
+}
+
+fun box(): String {
+    val baz = A::class.members.single { it.name == "baz" } as KMutableProperty1<A?, String>
+
+    return expectNpe("method") { A::foo.call(null, "") }
+           ?: expectNpe("getter") { A::bar.getter.call(null) }
+           ?: expectNpe("setter") { A::bar.setter.call(null, "") }
+           ?: expectNpe("field getter") { baz.getter.call(null) }
+           ?: expectNpe("field setter") { baz.setter.call(null, "") }
+           ?: "OK"
+}
@@ -0,0 +1,32 @@
+import kotlin.reflect.KMutableProperty1
+
+class A {
+    fun foo(s: String) = s
+    fun bar(i: Int) = i
+    @JvmField var baz: String = ""
+}
+
+class B
+
+fun expectIae(name: String, block: () -> Unit): String? {
+    try {
+        block()
+        return "Fail $name: no exception was thrown"
+    }
+    catch (e: IllegalArgumentException) {
+        return null
+    }
+}
+
+fun box(): String {
+    val baz = A::class.members.single { it.name == "baz" } as KMutableProperty1<Any, Any?>
+
+    return expectIae("String parameter") { A::foo.call(A(), 42) }
+           ?: expectIae("Int parameter") { A::bar.call(A(), "") }
+           ?: expectIae("Long for Int parameter") { A::bar.call(A(), 42L) }
+           ?: expectIae("null for Int parameter") { A::bar.call(A(), null) }
+           ?: expectIae("receiver") { A::foo.call(B(), "") }
+           ?: expectIae("field getter receiver") { baz.getter.call(B()) }
+           ?: expectIae("field setter value") { baz.setter.call(A(), 42) }
+           ?: "OK"
+}
@@ -0,0 +1,19 @@
+package parallel
+
+fun inferredInA() = inferredInB() + 1
+
+fun useB(b: B): String {
+    val unused = b.name
+    return b.describe()
+}
+
+class A(val value: Int) {
+    fun twice() = value * 2
+
+    fun withWarning(x: String?): Int {
+        if (x != null) {
+            return x!!.length
+        }
+        return twice()
+    }
+}
@@ -0,0 +1,14 @@
+package parallel
+
+fun inferredInB() = A(20).twice()
+
+open class B(val name: String) {
+    open fun describe() = "B($name, ${inferredInA()})"
+}
+
+class C : B("c") {
+    override fun describe(): String {
+        val lambda = { s: String -> s + super.describe() }
+        return lambda("C of ")
+    }
+}
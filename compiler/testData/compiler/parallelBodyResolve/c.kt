@@ -0,0 +1,16 @@
+package parallel.other
+
+import parallel.*
+
+fun main(args: Array<String>) {
+    val c = C()
+    val unusedToo = 42
+    when (c) {
+        is B -> println(useB(c))
+    }
+    println(A(1).withWarning(args.firstOrNull()))
+}
+
+object Holder {
+    val lazyValue by lazy { inferredInA().toString() }
+}
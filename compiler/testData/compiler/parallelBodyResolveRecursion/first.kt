@@ -0,0 +1,10 @@
+package recursion
+
+fun even(n: Int) = if (n == 0) true else odd(n - 1)
+
+fun ping(n: Int) = pong(n) + 1
+
+fun useFirst(): String {
+    val x: String? = "first"
+    return x!! + even(2) + ping(0)
+}
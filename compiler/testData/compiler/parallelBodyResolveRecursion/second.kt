@@ -0,0 +1,10 @@
+package recursion
+
+fun odd(n: Int) = if (n == 0) false else even(n - 1)
+
+fun pong(n: Int) = pang(n) * 2
+
+fun useSecond(): String {
+    val x: String? = "second"
+    return x!! + odd(3) + pong(1)
+}
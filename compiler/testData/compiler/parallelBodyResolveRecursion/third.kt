@@ -0,0 +1,8 @@
+package recursion
+
+fun pang(n: Int) = if (n > 0) ping(n - 1) else 0
+
+fun useThird(): String {
+    val x: String? = "third"
+    return x!! + pang(2)
+}
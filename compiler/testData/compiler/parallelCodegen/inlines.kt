@@ -0,0 +1,11 @@
+package parallel.inlines
+
+inline fun <T> runTwice(f: () -> T): List<T> = listOf(f(), f())
+
+inline fun withCallback(crossinline f: () -> String): Runnable {
+    return object : Runnable {
+        override fun run() {
+            println(f())
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package parallel.other
+
+import parallel.usages.Color
+
+interface Shape {
+    fun area(): Double
+}
+
+data class Square(val side: Double) : Shape {
+    override fun area() = side * side
+}
+
+object Registry {
+    val shapes = mutableListOf<Shape>()
+
+    fun colorOf(shape: Shape): Color = when (shape) {
+        is Square -> Color.RED
+        else -> Color.BLUE
+    }
+}
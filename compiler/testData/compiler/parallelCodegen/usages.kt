@@ -0,0 +1,19 @@
+package parallel.usages
+
+import parallel.inlines.*
+
+enum class Color { RED, GREEN, BLUE }
+
+fun describe(color: Color): String = when (color) {
+    Color.RED -> "red"
+    Color.GREEN -> "green"
+    Color.BLUE -> "blue"
+}
+
+fun callbacks(): List<Runnable> = runTwice { withCallback { describe(Color.GREEN) } }
+
+class Holder(val value: Int) {
+    val doubled by lazy { value * 2 }
+
+    fun lambdas() = listOf(1, 2, 3).map { it + value }.filter { it > doubled }
+}
@@ -0,0 +1,7 @@
+@file:JvmName("Utils")
+@file:JvmMultifileClass
+package parallel.utils
+
+fun first(s: String) = s.first()
+
+val counter: Int get() = 42
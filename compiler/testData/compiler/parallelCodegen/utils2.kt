@@ -0,0 +1,9 @@
+@file:JvmName("Utils")
+@file:JvmMultifileClass
+package parallel.utils
+
+import parallel.inlines.withCallback
+
+fun last(s: String) = s.last()
+
+fun callback() = withCallback { last("abc").toString() }
@@ -17,9 +17,11 @@
 package org.jetbrains.kotlin.checkers
 
 import org.jetbrains.kotlin.descriptors.Named
+import org.jetbrains.kotlin.load.java.structure.JavaClass
+import org.jetbrains.kotlin.load.java.structure.JavaClassifierType
 import org.jetbrains.kotlin.load.java.structure.JavaNamedElement
-import org.jetbrains.kotlin.load.java.structure.impl.JavaClassImpl
 import org.jetbrains.kotlin.load.java.structure.impl.JavaTypeImpl
+import org.jetbrains.kotlin.load.java.structure.impl.classFiles.PlainJavaType
 import org.jetbrains.kotlin.name.FqName
 import org.jetbrains.kotlin.name.Name
 import org.jetbrains.kotlin.psi.debugText.getDebugText
@@ -144,12 +146,12 @@ class LazyOperationsLog(
         when {
             o is Named -> o.name.appendQuoted()
             o.javaClass.simpleName == "LazyJavaClassifierType" -> {
-                val javaType = o.field<JavaTypeImpl<*>>("javaType")
-                javaType.psi.presentableText.appendQuoted()
+                val javaType = o.field<JavaClassifierType>("javaType")
+                javaType.presentableText.appendQuoted()
             }
             o.javaClass.simpleName == "LazyJavaClassTypeConstructor" -> {
-                val javaClass = o.field<Any>("this\$0").field<JavaClassImpl>("jClass")
-                javaClass.psi.name!!.appendQuoted()
+                val javaClass = o.field<Any>("this\$0").field<JavaClass>("jClass")
+                javaClass.name.appendQuoted()
             }
             o.javaClass.simpleName == "DeserializedType" -> {
                 val typeDeserializer = o.field<TypeDeserializer>("typeDeserializer")
@@ -171,6 +173,9 @@ class LazyOperationsLog(
             o is JavaTypeImpl<*> -> {
                 o.psi.presentableText.appendQuoted()
             }
+            o is PlainJavaType -> {
+                o.text.appendQuoted()
+            }
             o is Collection<*> -> {
                 if (o.isEmpty()) {
                     sb.append("[empty]")
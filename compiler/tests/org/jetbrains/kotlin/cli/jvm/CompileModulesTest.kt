@@ -0,0 +1,131 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm
+
+import com.intellij.mock.MockProject
+import org.jetbrains.kotlin.cli.CliBaseTest
+import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys
+import org.jetbrains.kotlin.cli.common.ExitCode
+import org.jetbrains.kotlin.cli.common.messages.MessageCollector
+import org.jetbrains.kotlin.cli.common.modules.ModuleBuilder
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinToJVMBytecodeCompiler
+import org.jetbrains.kotlin.cli.jvm.config.addJvmClasspathRoots
+import org.jetbrains.kotlin.codegen.ClassBuilder
+import org.jetbrains.kotlin.codegen.extensions.ExpressionCodegenExtension
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime
+import org.jetbrains.kotlin.codegen.state.GenerationState
+import org.jetbrains.kotlin.compiler.plugin.ComponentRegistrar
+import org.jetbrains.kotlin.config.CompilerConfiguration
+import org.jetbrains.kotlin.descriptors.ClassDescriptor
+import org.jetbrains.kotlin.psi.KtClassOrObject
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import org.jetbrains.kotlin.utils.PathUtil
+import java.io.File
+
+class CompileModulesTest : TestCaseWithTmpdir() {
+    // Modules of a chunk can depend on each other, so none of them can be analyzed from declarations of the others alone,
+    // and each of them is generated and written to its own output directory
+    fun testMutuallyDependentModules() {
+        val a = createSource("a/A.kt", "package a\n\nclass A {\n    fun b() = b.B()\n}\n")
+        val b = createSource("b/B.kt", "package b\n\nclass B {\n    fun a() = a.A()\n}\n")
+        val outputA = File(tmpdir, "outA")
+        val outputB = File(tmpdir, "outB")
+        val runtime = ForTestCompileRuntime.runtimeJarForTests()
+
+        val modules = File(tmpdir, "modules.xml")
+        modules.writeText("""
+            |<modules>
+            |    <module name="a" outputDir="${outputA.path}" type="java-production">
+            |        <sources path="${a.path}"/>
+            |        <classpath path="${runtime.path}"/>
+            |    </module>
+            |    <module name="b" outputDir="${outputB.path}" type="java-production">
+            |        <sources path="${b.path}"/>
+            |        <classpath path="${runtime.path}"/>
+            |    </module>
+            |</modules>
+            |""".trimMargin())
+
+        val result = CliBaseTest.executeCompilerGrabOutput(K2JVMCompiler(), listOf("-module", modules.path, "-no-stdlib"))
+        assertEquals(result.first, ExitCode.OK, result.second)
+
+        assertTrue(File(outputA, "a/A.class").isFile)
+        assertFalse(File(outputA, "b/B.class").exists())
+        assertTrue(File(outputB, "b/B.class").isFile)
+        assertFalse(File(outputB, "a/A.class").exists())
+    }
+
+    fun testNothingIsWrittenIfLaterModuleFailsToGenerate() {
+        val a = createSource("a/A.kt", "package a\n\nopen class A\n")
+        val b = createSource("b/B.kt", "package b\n\nclass B : a.A()\n")
+        val outputA = File(tmpdir, "outA")
+        val outputB = File(tmpdir, "outB")
+        val chunk = listOf(createModule("a", outputA, a), createModule("b", outputB, b))
+
+        val baseConfiguration = CompilerConfiguration()
+        baseConfiguration.put(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, MessageCollector.NONE)
+        baseConfiguration.addJvmClasspathRoots(PathUtil.getJdkClassesRoots())
+        baseConfiguration.add(ComponentRegistrar.PLUGIN_COMPONENT_REGISTRARS, FailingCodegenRegistrar("B"))
+        val configuration = KotlinToJVMBytecodeCompiler.createCompilerConfiguration(baseConfiguration, chunk, tmpdir)
+        val environment = KotlinCoreEnvironment.createForTests(testRootDisposable, configuration, EnvironmentConfigFiles.JVM_CONFIG_FILES)
+
+        try {
+            KotlinToJVMBytecodeCompiler.compileModules(environment, configuration, chunk, tmpdir, null, emptyList(), false)
+            fail("Generation of module b should have failed")
+        }
+        catch (e: Exception) {
+            // expected
+        }
+
+        // Module a has been generated successfully, but its output must not be written without the output of module b
+        assertFalse(File(outputA, "a/A.class").exists())
+        assertFalse(File(outputB, "b/B.class").exists())
+    }
+
+    private fun createModule(name: String, outputDir: File, source: File): ModuleBuilder {
+        val module = ModuleBuilder(name, outputDir.path, "java-production")
+        module.addSourceFiles(source.path)
+        module.addClasspathEntry(ForTestCompileRuntime.runtimeJarForTests().path)
+        return module
+    }
+
+    private class FailingCodegenRegistrar(private val failingClassName: String) : ComponentRegistrar {
+        override fun registerProjectComponents(project: MockProject, configuration: CompilerConfiguration) {
+            ExpressionCodegenExtension.registerExtension(project, object : ExpressionCodegenExtension {
+                override fun generateClassSyntheticParts(
+                        classBuilder: ClassBuilder,
+                        state: GenerationState,
+                        classOrObject: KtClassOrObject,
+                        descriptor: ClassDescriptor
+                ) {
+                    if (descriptor.name.asString() == failingClassName) {
+                        throw IllegalStateException("Code generation failed for $failingClassName")
+                    }
+                }
+            })
+        }
+    }
+
+    private fun createSource(path: String, text: String): File {
+        val file = File(tmpdir, "src/$path")
+        file.parentFile.mkdirs()
+        file.writeText(text)
+        return file
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm
+
+import com.intellij.core.CoreJarFileSystem
+import com.intellij.openapi.vfs.VirtualFile
+import org.jetbrains.kotlin.cli.jvm.compiler.JavaRoot
+import org.jetbrains.kotlin.cli.jvm.compiler.JvmDependenciesIndex
+import org.jetbrains.kotlin.cli.jvm.compiler.JvmDependenciesIndexCache
+import org.jetbrains.kotlin.name.ClassId
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import java.io.File
+import java.io.FileOutputStream
+import java.util.*
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class JvmDependenciesIndexCacheTest : TestCaseWithTmpdir() {
+    private val jarFileSystem = CoreJarFileSystem()
+
+    fun testCacheIsSavedAndLoaded() {
+        val first = createJar("first.jar", "a/b/C.class", "a/D.class")
+        val second = createJar("second.jar", "a/b/E.class", "f/G.class")
+        val roots = listOf(first, second).map { JavaRoot(jarRoot(it), JavaRoot.RootType.BINARY) }
+        val cacheDirectory = File(tmpdir, "index-cache")
+
+        val index = JvmDependenciesIndex(roots, cacheDirectory)
+        assertEquals(listOf("first.jar", "second.jar"), findRootsWithPackage(index, "a.b"))
+        assertEquals(listOf("second.jar"), findRootsWithPackage(index, "f"))
+        assertEquals(listOf<String>(), findRootsWithPackage(index, "x"))
+
+        val jars = roots.map { JvmDependenciesIndexCache.getJar(it)!! }
+        val firstCache = JvmDependenciesIndexCache.load(JvmDependenciesIndexCache.getCacheFile(cacheDirectory, jars[0]), jars[0])!!
+        assertTrue(firstCache.containsPackage("a"))
+        assertTrue(firstCache.containsPackage("a/b"))
+        assertFalse(firstCache.containsPackage("f"))
+        assertFalse(firstCache.containsPackage("a/b/C.class"))
+        val secondCache = JvmDependenciesIndexCache.load(JvmDependenciesIndexCache.getCacheFile(cacheDirectory, jars[1]), jars[1])!!
+        assertTrue(secondCache.containsPackage("f"))
+        assertFalse(secondCache.containsPackage("x"))
+
+        // A new index uses the saved cache and gives the same results
+        val indexFromCache = JvmDependenciesIndex(roots, cacheDirectory)
+        assertEquals(listOf("first.jar", "second.jar"), findRootsWithPackage(indexFromCache, "a.b"))
+        assertEquals(listOf("second.jar"), findRootsWithPackage(indexFromCache, "f"))
+        assertEquals(listOf("first.jar"), findClassRoots(indexFromCache, "a.b.C"))
+    }
+
+    fun testJarsAreNotWalkedUntilLookedInto() {
+        val jar = createJar("lib.jar", "a/B.class")
+        val root = JavaRoot(jarRoot(jar), JavaRoot.RootType.BINARY)
+        val cacheDirectory = File(tmpdir, "index-cache")
+
+        val index = JvmDependenciesIndex(listOf(root), cacheDirectory)
+        val cacheFile = JvmDependenciesIndexCache.getCacheFile(cacheDirectory, JvmDependenciesIndexCache.getJar(root)!!)
+        assertFalse(cacheFile.exists())
+
+        findRootsWithPackage(index, "a")
+        assertTrue(cacheFile.exists())
+    }
+
+    fun testCacheIsInvalidatedByChangedJar() {
+        val changed = createJar("changed.jar", "a/B.class")
+        val unchanged = createJar("unchanged.jar", "c/D.class")
+        val roots = listOf(changed, unchanged).map { JavaRoot(jarRoot(it), JavaRoot.RootType.BINARY) }
+        val cacheDirectory = File(tmpdir, "index-cache")
+        findRootsWithPackage(JvmDependenciesIndex(roots, cacheDirectory), "a")
+
+        val changedJar = JvmDependenciesIndexCache.getJar(roots[0])!!
+        val unchangedJar = JvmDependenciesIndexCache.getJar(roots[1])!!
+        val changedCacheFile = JvmDependenciesIndexCache.getCacheFile(cacheDirectory, changedJar)
+        assertNotNull(JvmDependenciesIndexCache.load(changedCacheFile, changedJar))
+        assertTrue(changed.setLastModified(changed.lastModified() - 10000))
+        assertNull(JvmDependenciesIndexCache.load(changedCacheFile, JvmDependenciesIndexCache.getJar(roots[0])!!))
+        assertNull(JvmDependenciesIndexCache.load(changedCacheFile, unchangedJar))
+
+        // Only the changed jar has to be walked again
+        assertNotNull(JvmDependenciesIndexCache.load(JvmDependenciesIndexCache.getCacheFile(cacheDirectory, unchangedJar), unchangedJar))
+        assertEquals(listOf("changed.jar"), findRootsWithPackage(JvmDependenciesIndex(roots, cacheDirectory), "a"))
+        assertNotNull(JvmDependenciesIndexCache.load(changedCacheFile, JvmDependenciesIndexCache.getJar(roots[0])!!))
+    }
+
+    private fun findClassRoots(index: JvmDependenciesIndex, classFqName: String): List<String> {
+        val result = ArrayList<String>()
+        index.findClass(ClassId.topLevel(FqName(classFqName))) { directory, rootType ->
+            directory.findChild(classFqName.substringAfterLast('.') + ".class")?.apply { result.add(File(directory.path.substringBefore("!/")).name) }
+        }
+        return result
+    }
+
+    private fun findRootsWithPackage(index: JvmDependenciesIndex, packageFqName: String): List<String> {
+        val result = ArrayList<String>()
+        index.traverseDirectoriesInPackage(FqName(packageFqName)) { directory, rootType ->
+            result.add(File(directory.path.substringBefore("!/")).name)
+            true
+        }
+        return result
+    }
+
+    private fun jarRoot(jar: File): VirtualFile = jarFileSystem.findFileByPath(jar.path + "!/")!!
+
+    private fun createJar(name: String, vararg entries: String): File {
+        val jar = File(tmpdir, name)
+        ZipOutputStream(FileOutputStream(jar)).use { zip ->
+            for (entry in entries) {
+                zip.putNextEntry(ZipEntry(entry))
+                zip.closeEntry()
+            }
+        }
+        return jar
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm
+
+import org.jetbrains.kotlin.cli.jvm.compiler.OutputJarWriter
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.util.*
+import java.util.jar.JarFile
+import java.util.zip.ZipEntry
+import java.util.zip.ZipException
+import java.util.zip.ZipFile
+
+class OutputJarWriterTest : TestCaseWithTmpdir() {
+    private val entries = (1..100).map { i ->
+        OutputJarWriter.Entry("a/C$i.class") { "class number $i ".repeat(i).toByteArray() }
+    }
+
+    fun testEntriesAreReadable() {
+        for (level in listOf(0, 1, OutputJarWriter.DEFAULT_COMPRESSION_LEVEL, 9)) {
+            val jar = File(tmpdir, "level$level.jar")
+            jar.writeBytes(write(level, 4) { writeEntries(entries) })
+
+            JarFile(jar).use { zip ->
+                assertEquals(entries.map { it.name }, zip.entries().toList().map { it.name })
+                for (entry in entries) {
+                    val zipEntry = zip.getEntry(entry.name)
+                    assertEquals(if (level == 0) ZipEntry.STORED else ZipEntry.DEFLATED, zipEntry.method)
+                    assertTrue(entry.name, Arrays.equals(entry.contents(), zip.getInputStream(zipEntry).readBytes()))
+                }
+            }
+        }
+    }
+
+    fun testOutputIsReproducible() {
+        val sequential = write(OutputJarWriter.DEFAULT_COMPRESSION_LEVEL, 1) { writeEntries(entries) }
+        val parallel = write(OutputJarWriter.DEFAULT_COMPRESSION_LEVEL, 8) { writeEntries(entries) }
+        assertTrue(Arrays.equals(sequential, parallel))
+        assertTrue(Arrays.equals(parallel, write(OutputJarWriter.DEFAULT_COMPRESSION_LEVEL, 8) { writeEntries(entries) }))
+    }
+
+    fun testCopiedEntriesAreNotRecompressed() {
+        val runtime = ForTestCompileRuntime.runtimeJarForTests()
+        val jar = File(tmpdir, "withRuntime.jar")
+        jar.writeBytes(write(9, 4) {
+            writeEntries(entries)
+            copyEntries(runtime) { it.endsWith(".class") }
+        })
+
+        ZipFile(runtime).use { original ->
+            ZipFile(jar).use { copy ->
+                val originalClasses = original.entries().toList().filter { it.name.endsWith(".class") }
+                assertEquals(entries.size + originalClasses.size, copy.size())
+                for (originalEntry in originalClasses) {
+                    val copiedEntry = copy.getEntry(originalEntry.name)
+                    assertEquals(originalEntry.compressedSize, copiedEntry.compressedSize)
+                    assertEquals(originalEntry.crc, copiedEntry.crc)
+                    assertTrue(originalEntry.name, Arrays.equals(
+                            original.getInputStream(originalEntry).readBytes(), copy.getInputStream(copiedEntry).readBytes()
+                    ))
+                }
+            }
+        }
+    }
+
+    fun testDuplicateEntry() {
+        try {
+            write(OutputJarWriter.DEFAULT_COMPRESSION_LEVEL, 1) { writeEntries(entries + entries.first()) }
+            fail("Duplicate entry should not be written")
+        }
+        catch (e: ZipException) {
+            // OK
+        }
+    }
+
+    private fun write(level: Int, threadCount: Int, block: OutputJarWriter.() -> Unit): ByteArray {
+        val output = ByteArrayOutputStream()
+        with(OutputJarWriter(output, level, threadCount)) {
+            block()
+            finish()
+        }
+        return output.toByteArray()
+    }
+}
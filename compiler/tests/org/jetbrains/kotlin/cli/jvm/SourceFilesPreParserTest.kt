@@ -0,0 +1,78 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm
+
+import com.intellij.psi.impl.DebugUtil
+import org.jetbrains.kotlin.cli.common.ExitCode
+import org.jetbrains.kotlin.cli.jvm.compiler.SourceFilesPreParser
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime
+import org.jetbrains.kotlin.psi.KtFile
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.PrintStream
+import java.util.*
+import java.util.zip.ZipFile
+
+class SourceFilesPreParserTest : TestCaseWithTmpdir() {
+    private val testDataPath = KotlinTestUtils.getTestDataPathBase() + "/compiler/parallelCodegen"
+
+    fun testTreesAreIdenticalWithParallelParsing() {
+        val environment = KotlinTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(testRootDisposable)
+        fun loadFiles(): List<KtFile> =
+                File(testDataPath).listFiles().sortedBy { it.name }.map { KotlinTestUtils.loadJetFile(environment.project, it) }
+
+        val sequential = loadFiles()
+        val parallel = loadFiles()
+        val statistics = SourceFilesPreParser.parse(parallel, 4)
+        assertEquals(parallel, statistics.files.map { it.file })
+        assertEquals(4, statistics.threadCount)
+
+        for ((expected, actual) in sequential.zip(parallel)) {
+            assertEquals(DebugUtil.psiToString(expected, false), DebugUtil.psiToString(actual, false))
+        }
+    }
+
+    fun testJarIsIdenticalWithParallelParsing() {
+        val sequentialJar = File(tmpdir, "sequential.jar")
+        val parallelJar = File(tmpdir, "parallel.jar")
+        assertEquals(compile(sequentialJar), compile(parallelJar, "-Xparallel-parse"))
+
+        val expected = readEntries(sequentialJar)
+        val actual = readEntries(parallelJar)
+        // Entries are compared in the order they're written to the jar
+        assertEquals(expected.keys.toList(), actual.keys.toList())
+        for ((name, bytes) in expected) {
+            assertTrue("Content differs for $name", Arrays.equals(bytes, actual[name]))
+        }
+    }
+
+    private fun compile(jar: File, vararg extraArguments: String): String {
+        val arguments = listOf(testDataPath, "-d", jar.absolutePath, "-no-stdlib",
+                               "-classpath", ForTestCompileRuntime.runtimeJarForTests().absolutePath) + extraArguments
+        val messages = ByteArrayOutputStream()
+        val exitCode = K2JVMCompiler().exec(PrintStream(messages), *arguments.toTypedArray())
+        assertEquals(messages.toString(), ExitCode.OK, exitCode)
+        return messages.toString()
+    }
+
+    private fun readEntries(jar: File): Map<String, ByteArray> =
+            ZipFile(jar).use { zip ->
+                zip.entries().toList().associateTo(LinkedHashMap()) { it.name to zip.getInputStream(it).readBytes() }
+            }
+}
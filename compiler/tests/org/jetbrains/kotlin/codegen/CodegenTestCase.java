@@ -164,13 +164,14 @@ public abstract class CodegenTestCase extends UsefulTestCase {
 
     @NotNull
     protected GeneratedClassLoader createClassLoader() {
-        return new GeneratedClassLoader(
-                generateClassesInFile(),
-                configurationKind == ConfigurationKind.NO_KOTLIN_REFLECT ?
-                ForTestCompileRuntime.runtimeJarClassLoader() :
-                ForTestCompileRuntime.runtimeAndReflectJarClassLoader(),
-                getClassPathURLs()
-        );
+        return new GeneratedClassLoader(generateClassesInFile(), getRuntimeClassLoader(), getClassPathURLs());
+    }
+
+    @NotNull
+    protected ClassLoader getRuntimeClassLoader() {
+        return configurationKind == ConfigurationKind.NO_KOTLIN_REFLECT ?
+               ForTestCompileRuntime.runtimeJarClassLoader() :
+               ForTestCompileRuntime.runtimeAndReflectJarClassLoader();
     }
 
     @NotNull
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen
+
+import junit.framework.TestCase
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime
+import org.jetbrains.kotlin.codegen.inline.InlineMethodNodeCache
+import org.jetbrains.kotlin.name.ClassId
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.org.objectweb.asm.tree.InsnList
+import java.util.zip.ZipFile
+
+class InlineMethodNodeCacheTest : TestCase() {
+    private val CLASS_FILE = "kotlin/io/TextStreamsKt.class"
+    private val METHOD_NAME = "use"
+    private val METHOD_DESCRIPTOR = "(Ljava/io/Closeable;Lkotlin/jvm/functions/Function1;)Ljava/lang/Object;"
+    private val CLASS_ID = ClassId.topLevel(FqName("kotlin.io.TextStreamsKt"))
+
+    private var hashes = InlineMethodNodeCache.ClassFileHashes()
+    private val statistics = InlineMethodNodeCache.Statistics()
+    private var classFileReads = 0
+
+    override fun setUp() {
+        super.setUp()
+        InlineMethodNodeCache.clear()
+    }
+
+    override fun tearDown() {
+        InlineMethodNodeCache.clear()
+        super.tearDown()
+    }
+
+    fun testBodyIsReusedForSameFile() {
+        val classData = readRuntimeClass()
+
+        val first = getMethodNode("lib.jar!/$CLASS_FILE", classData)
+        val second = getMethodNode("lib.jar!/$CLASS_FILE", classData)
+        assertStatistics(reused = 1, read = 1)
+
+        // The class file isn't read again in the same compilation
+        assertEquals(1, classFileReads)
+
+        // Each caller gets its own copy, because inlining modifies the node
+        assertNotSame(first.node, second.node)
+        assertNotSame(first.node.instructions.first, second.node.instructions.first)
+        assertEquals(render(first.node.instructions), render(second.node.instructions))
+        assertEquals(first.node.maxLocals, second.node.maxLocals)
+        assertEquals(first.node.tryCatchBlocks.size, second.node.tryCatchBlocks.size)
+        assertEquals(first.ranges, second.ranges)
+
+        first.node.instructions.clear()
+        assertEquals(render(second.node.instructions), render(getMethodNode("lib.jar!/$CLASS_FILE", classData).node.instructions))
+    }
+
+    fun testBodyIsReusedInNextCompilation() {
+        val classData = readRuntimeClass()
+        getMethodNode("lib.jar!/$CLASS_FILE", classData)
+
+        newCompilation()
+        getMethodNode("lib.jar!/$CLASS_FILE", classData)
+        getMethodNode("other.jar!/$CLASS_FILE", classData)
+
+        // The class file is hashed once per compilation, but parsed only once
+        assertStatistics(reused = 2, read = 1)
+        assertEquals(3, classFileReads)
+    }
+
+    fun testBodyIsReadAgainForFileRewrittenWithSameLength() {
+        val classData = readRuntimeClass()
+        getMethodNode("lib.jar!/$CLASS_FILE", classData)
+
+        // Same location and length, e.g. a jar entry rebuilt with a fixed time stamp
+        val rewritten = changeSourceFileName(classData)
+        assertEquals(classData.size, rewritten.size)
+
+        newCompilation()
+        getMethodNode("lib.jar!/$CLASS_FILE", rewritten)
+
+        assertStatistics(reused = 0, read = 2)
+        assertEquals(2, classFileReads)
+    }
+
+    fun testStatisticsArePerCompilation() {
+        val classData = readRuntimeClass()
+        getMethodNode("lib.jar!/$CLASS_FILE", classData)
+
+        val otherStatistics = InlineMethodNodeCache.Statistics()
+        InlineMethodNodeCache.getMethodNode(
+                "lib.jar!/$CLASS_FILE", METHOD_NAME, METHOD_DESCRIPTOR, CLASS_ID, InlineMethodNodeCache.ClassFileHashes(), otherStatistics
+        ) { classData }
+
+        assertStatistics(reused = 0, read = 1)
+        assertEquals(1L, otherStatistics.reusedCount)
+        assertEquals(0L, otherStatistics.readCount)
+    }
+
+    fun testMissingMethod() {
+        val classData = readRuntimeClass()
+        assertNull(InlineMethodNodeCache.getMethodNode(
+                "lib.jar!/$CLASS_FILE", "missing", "()V", CLASS_ID, hashes, statistics
+        ) { classData })
+    }
+
+    private fun newCompilation() {
+        hashes = InlineMethodNodeCache.ClassFileHashes()
+    }
+
+    private fun getMethodNode(fileIdentity: String, classData: ByteArray) =
+            InlineMethodNodeCache.getMethodNode(
+                    fileIdentity, METHOD_NAME, METHOD_DESCRIPTOR, CLASS_ID, hashes, statistics
+            ) {
+                classFileReads++
+                classData
+            }!!
+
+    private fun assertStatistics(reused: Long, read: Long) {
+        assertEquals(reused, statistics.reusedCount)
+        assertEquals(read, statistics.readCount)
+    }
+
+    private fun render(instructions: InsnList): String =
+            instructions.toArray().joinToString("\n") { "${it.opcode} ${it.type}" }
+
+    // Replaces the last character of the SourceFile attribute in the constant pool
+    private fun changeSourceFileName(classData: ByteArray): ByteArray {
+        val sourceFileName = "ReadWrite.kt".toByteArray()
+        val result = classData.copyOf()
+        val index = (0..result.size - sourceFileName.size).first { start ->
+            sourceFileName.indices.all { result[start + it] == sourceFileName[it] }
+        }
+        result[index + sourceFileName.size - 1] = 'x'.toByte()
+        return result
+    }
+
+    private fun readRuntimeClass(): ByteArray {
+        return ZipFile(ForTestCompileRuntime.runtimeJarForTests()).use { zip ->
+            zip.getInputStream(zip.getEntry(CLASS_FILE)).readBytes()
+        }
+    }
+}
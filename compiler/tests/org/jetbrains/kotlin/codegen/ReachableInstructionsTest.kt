@@ -0,0 +1,72 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen
+
+import junit.framework.TestCase
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime
+import org.jetbrains.kotlin.codegen.optimization.common.findReachableInstructions
+import org.jetbrains.org.objectweb.asm.ClassReader
+import org.jetbrains.org.objectweb.asm.Label
+import org.jetbrains.org.objectweb.asm.Opcodes
+import org.jetbrains.org.objectweb.asm.tree.ClassNode
+import org.jetbrains.org.objectweb.asm.tree.MethodNode
+import org.jetbrains.org.objectweb.asm.tree.analysis.Analyzer
+import org.jetbrains.org.objectweb.asm.tree.analysis.BasicInterpreter
+import java.util.zip.ZipFile
+
+class ReachableInstructionsTest : TestCase() {
+    fun testDeadCodeAfterReturnAndGoto() {
+        val node = MethodNode(Opcodes.ACC_STATIC, "test", "(I)I", null, null)
+        val returnLabel = Label()
+        val deadLabel = Label()
+        with(node) {
+            visitVarInsn(Opcodes.ILOAD, 0)
+            visitJumpInsn(Opcodes.IFEQ, returnLabel)
+            visitJumpInsn(Opcodes.GOTO, returnLabel)
+            visitLabel(deadLabel)
+            visitInsn(Opcodes.ICONST_1)
+            visitInsn(Opcodes.IRETURN)
+            visitLabel(returnLabel)
+            visitInsn(Opcodes.ICONST_0)
+            visitInsn(Opcodes.IRETURN)
+            visitMaxs(1, 1)
+        }
+
+        assertEquals(listOf(true, true, true, false, false, false, true, true, true), node.findReachableInstructions().toList())
+        assertSameAsAnalyzer("Test", node)
+    }
+
+    // Compares the results with frames of the ASM analyzer on all methods of the runtime
+    fun testRuntimeMethods() {
+        ZipFile(ForTestCompileRuntime.runtimeJarForTests()).use { zip ->
+            for (entry in zip.entries()) {
+                if (!entry.name.endsWith(".class")) continue
+
+                val classNode = ClassNode()
+                ClassReader(zip.getInputStream(entry).readBytes()).accept(classNode, ClassReader.SKIP_FRAMES)
+                for (method in classNode.methods) {
+                    assertSameAsAnalyzer(classNode.name, method)
+                }
+            }
+        }
+    }
+
+    private fun assertSameAsAnalyzer(owner: String, node: MethodNode) {
+        val frames = Analyzer(BasicInterpreter()).analyze(owner, node)
+        assertEquals("${owner}.${node.name}${node.desc}", frames.map { it != null }, node.findReachableInstructions().toList())
+    }
+}
@@ -63,12 +63,18 @@ public class ForTestCompileRuntime {
     public static synchronized ClassLoader runtimeAndReflectJarClassLoader() {
         ClassLoader loader = reflectJarClassLoader.get();
         if (loader == null) {
-            loader = createClassLoader(runtimeJarForTests(), reflectJarForTests(), kotlinTestJarForTests());
+            loader = createRuntimeAndReflectJarClassLoader();
             reflectJarClassLoader = new SoftReference<ClassLoader>(loader);
         }
         return loader;
     }
 
+    // A new class loader, which does not share the state of the reflection library (e.g. its caches and settings) with other tests
+    @NotNull
+    public static ClassLoader createRuntimeAndReflectJarClassLoader() {
+        return createClassLoader(runtimeJarForTests(), reflectJarForTests(), kotlinTestJarForTests());
+    }
+
     @NotNull
     public static synchronized ClassLoader runtimeJarClassLoader() {
         ClassLoader loader = runtimeJarClassLoader.get();
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.generated;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime;
+import org.jetbrains.kotlin.utils.ExceptionUtilsKt;
+
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Field;
+
+/**
+ * Runs box tests of the reflection library with calls made through method handles instead of java.lang.reflect.
+ * The setting is read once when the reflection library is initialized, so these tests use a separate copy of it.
+ */
+public abstract class AbstractBlackBoxReflectionWithMethodHandlesCodegenTest extends AbstractBlackBoxCodegenTest {
+    private static final String USE_METHOD_HANDLES_PROPERTY = "kotlin.reflect.jvm.useMethodHandles";
+
+    private static SoftReference<ClassLoader> runtimeClassLoader = new SoftReference<ClassLoader>(null);
+
+    @NotNull
+    @Override
+    protected ClassLoader getRuntimeClassLoader() {
+        return runtimeAndReflectWithMethodHandlesClassLoader();
+    }
+
+    @NotNull
+    private static synchronized ClassLoader runtimeAndReflectWithMethodHandlesClassLoader() {
+        ClassLoader loader = runtimeClassLoader.get();
+        if (loader == null) {
+            loader = ForTestCompileRuntime.createRuntimeAndReflectJarClassLoader();
+            initializeWithMethodHandles(loader);
+            runtimeClassLoader = new SoftReference<ClassLoader>(loader);
+        }
+        return loader;
+    }
+
+    private static void initializeWithMethodHandles(@NotNull ClassLoader loader) {
+        String oldValue = System.setProperty(USE_METHOD_HANDLES_PROPERTY, "true");
+        try {
+            Class<?> functionCaller = Class.forName("kotlin.reflect.jvm.internal.FunctionCaller", true, loader);
+            Field useMethodHandles = functionCaller.getDeclaredField("USE_METHOD_HANDLES");
+            useMethodHandles.setAccessible(true);
+            assertTrue("Method handles are not used by the reflection library", useMethodHandles.getBoolean(null));
+        }
+        catch (Exception e) {
+            throw ExceptionUtilsKt.rethrow(e);
+        }
+        finally {
+            if (oldValue == null) {
+                System.clearProperty(USE_METHOD_HANDLES_PROPERTY);
+            }
+            else {
+                System.setProperty(USE_METHOD_HANDLES_PROPERTY, oldValue);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.daemon
+
+import junit.framework.TestCase
+import org.jetbrains.kotlin.daemon.common.CompilationSlots
+import java.util.*
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+
+class CompilationSlotsTest : TestCase() {
+
+    fun testCompilationsAreAdmittedUpToSlotCount() {
+        val slots = CompilationSlots(2)
+        var waited = 0
+        slots.acquire { waited++ }
+        slots.acquire { waited++ }
+        assertEquals(0, waited)
+
+        val acquired = CountDownLatch(1)
+        val waiter = thread {
+            slots.acquire { waited++ }
+            acquired.countDown()
+        }
+        awaitQueueLength(slots, 1)
+        assertEquals(1, acquired.count)
+
+        slots.release()
+        assertTrue(acquired.await(10, TimeUnit.SECONDS))
+        waiter.join()
+        assertEquals(1, waited)
+    }
+
+    fun testNonPositiveCountStillAdmitsOneCompilation() {
+        assertEquals(1, CompilationSlots(0).count)
+    }
+
+    fun testWaitingCompilationsAreAdmittedInArrivalOrder() {
+        val slots = CompilationSlots(1)
+        slots.acquire()
+
+        val admitted = Collections.synchronizedList(arrayListOf<Int>())
+        val waiters = (0..4).map { i ->
+            val waiter = thread {
+                slots.acquire()
+                admitted.add(i)
+                slots.release()
+            }
+            awaitQueueLength(slots, i + 1)
+            waiter
+        }
+
+        // a newcomer arriving while others are queued must not get the slot ahead of them
+        var newcomerWaited = false
+        val newcomer = thread {
+            slots.acquire { newcomerWaited = true }
+            admitted.add(-1)
+            slots.release()
+        }
+        awaitQueueLength(slots, waiters.size + 1)
+
+        slots.release()
+        waiters.forEach { it.join(10000) }
+        newcomer.join(10000)
+
+        assertTrue(newcomerWaited)
+        assertEquals(listOf(0, 1, 2, 3, 4, -1), admitted.toList())
+    }
+
+    private fun awaitQueueLength(slots: CompilationSlots, length: Int) {
+        val deadline = System.currentTimeMillis() + 10000
+        while (slots.queueLength < length) {
+            if (System.currentTimeMillis() > deadline) fail("expected $length compilations waiting, got ${slots.queueLength}")
+            Thread.sleep(5)
+        }
+    }
+}
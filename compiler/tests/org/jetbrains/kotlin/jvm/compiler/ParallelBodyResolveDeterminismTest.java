@@ -0,0 +1,113 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.kotlin.cli.common.ExitCode;
+import org.jetbrains.kotlin.cli.jvm.K2JVMCompiler;
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime;
+import org.jetbrains.kotlin.test.KotlinTestUtils;
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ParallelBodyResolveDeterminismTest extends TestCaseWithTmpdir {
+    private static final String TEST_DATA_PATH = KotlinTestUtils.getTestDataPathBase() + "/compiler/parallelBodyResolve";
+    private static final String RECURSION_TEST_DATA_PATH = KotlinTestUtils.getTestDataPathBase() + "/compiler/parallelBodyResolveRecursion";
+    private static final int RECURSION_RUNS = 10;
+
+    public void testDiagnosticsAndBytecodeAreIdentical() throws IOException {
+        File sequentialOutput = new File(tmpdir, "sequential");
+        File parallelOutput = new File(tmpdir, "parallel");
+
+        String sequentialMessages = compile(sequentialOutput);
+        String parallelMessages = compile(parallelOutput, "-Xparallel-body-resolve");
+
+        assertTrue("Warnings are expected in the test data:\n" + sequentialMessages, sequentialMessages.contains("warning"));
+        assertEquals(sequentialMessages, parallelMessages);
+
+        List<String> sequentialFiles = collectRelativePaths(sequentialOutput);
+        assertFalse(sequentialFiles.isEmpty());
+        assertEquals(sequentialFiles, collectRelativePaths(parallelOutput));
+
+        for (String path : sequentialFiles) {
+            byte[] expected = FileUtil.loadFileBytes(new File(sequentialOutput, path));
+            byte[] actual = FileUtil.loadFileBytes(new File(parallelOutput, path));
+            assertTrue("Bytecode differs for " + path, Arrays.equals(expected, actual));
+        }
+    }
+
+    public void testRecursiveInferredTypesAcrossFiles() {
+        String sequentialMessages = compile(RECURSION_TEST_DATA_PATH, new File(tmpdir, "sequential"), ExitCode.COMPILATION_ERROR);
+        assertTrue("Recursion errors are expected in the test data:\n" + sequentialMessages,
+                   sequentialMessages.contains("Type checking has run into a recursive problem"));
+
+        // Functions in a cycle of inferred return types are spread over files, so they are resolved by different threads
+        for (int i = 0; i < RECURSION_RUNS; i++) {
+            String parallelMessages = compile(RECURSION_TEST_DATA_PATH, new File(tmpdir, "parallel" + i), ExitCode.COMPILATION_ERROR,
+                                              "-Xparallel-body-resolve");
+            assertEquals("Run " + i, sequentialMessages, parallelMessages);
+        }
+    }
+
+    private static String compile(File output, String... extraArguments) {
+        return compile(TEST_DATA_PATH, output, ExitCode.OK, extraArguments);
+    }
+
+    private static String compile(String sources, File output, ExitCode expectedExitCode, String... extraArguments) {
+        List<String> arguments = new ArrayList<String>();
+        arguments.add(sources);
+        arguments.add("-d");
+        arguments.add(output.getAbsolutePath());
+        arguments.add("-no-stdlib");
+        arguments.add("-classpath");
+        arguments.add(ForTestCompileRuntime.runtimeJarForTests().getAbsolutePath());
+        arguments.addAll(Arrays.asList(extraArguments));
+
+        ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        ExitCode exitCode = new K2JVMCompiler().exec(new PrintStream(messages), arguments.toArray(new String[arguments.size()]));
+        assertEquals(messages.toString(), expectedExitCode, exitCode);
+        return messages.toString();
+    }
+
+    private static List<String> collectRelativePaths(File root) {
+        List<String> result = new ArrayList<String>();
+        collectRelativePaths(root, root, result);
+        Collections.sort(result);
+        return result;
+    }
+
+    private static void collectRelativePaths(File root, File file, List<String> result) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null) return;
+            for (File child : children) {
+                collectRelativePaths(root, child, result);
+            }
+        }
+        else {
+            result.add(FileUtil.getRelativePath(root, file));
+        }
+    }
+}
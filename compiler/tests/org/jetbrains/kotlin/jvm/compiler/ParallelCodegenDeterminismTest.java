@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.kotlin.cli.common.ExitCode;
+import org.jetbrains.kotlin.cli.jvm.K2JVMCompiler;
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime;
+import org.jetbrains.kotlin.test.KotlinTestUtils;
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class ParallelCodegenDeterminismTest extends TestCaseWithTmpdir {
+    private static final String TEST_DATA_PATH = KotlinTestUtils.getTestDataPathBase() + "/compiler/parallelCodegen";
+
+    public void testJarIsIdentical() throws IOException {
+        File sequentialJar = new File(tmpdir, "sequential.jar");
+        File parallelJar = new File(tmpdir, "parallel.jar");
+
+        String sequentialMessages = compile(sequentialJar);
+        String parallelMessages = compile(parallelJar, "-Xparallel-codegen");
+        assertEquals(sequentialMessages, parallelMessages);
+
+        Map<String, byte[]> expected = readEntries(sequentialJar);
+        Map<String, byte[]> actual = readEntries(parallelJar);
+        assertTrue("Facade of the multifile class is expected to be generated: " + expected.keySet(),
+                   expected.containsKey("parallel/utils/Utils.class"));
+        // Entries are compared in the order they're written to the jar
+        assertEquals(new ArrayList<String>(expected.keySet()), new ArrayList<String>(actual.keySet()));
+
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertTrue("Content differs for " + entry.getKey(), Arrays.equals(entry.getValue(), actual.get(entry.getKey())));
+        }
+    }
+
+    private static String compile(File jar, String... extraArguments) {
+        List<String> arguments = new ArrayList<String>();
+        arguments.add(TEST_DATA_PATH);
+        arguments.add("-d");
+        arguments.add(jar.getAbsolutePath());
+        arguments.add("-no-stdlib");
+        arguments.add("-classpath");
+        arguments.add(ForTestCompileRuntime.runtimeJarForTests().getAbsolutePath());
+        arguments.addAll(Arrays.asList(extraArguments));
+
+        ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        ExitCode exitCode = new K2JVMCompiler().exec(new PrintStream(messages), arguments.toArray(new String[arguments.size()]));
+        assertEquals(messages.toString(), ExitCode.OK, exitCode);
+        return messages.toString();
+    }
+
+    private static Map<String, byte[]> readEntries(File jar) throws IOException {
+        Map<String, byte[]> result = new LinkedHashMap<String, byte[]>();
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                result.put(entry.getName(), FileUtil.loadBytes(zipFile.getInputStream(entry)));
+            }
+        }
+        finally {
+            zipFile.close();
+        }
+        return result;
+    }
+}
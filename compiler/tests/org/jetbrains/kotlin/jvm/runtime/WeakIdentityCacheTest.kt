@@ -0,0 +1,173 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+@file:Suppress("INVISIBLE_MEMBER", "INVISIBLE_REFERENCE")
+package org.jetbrains.kotlin.jvm.runtime
+
+import junit.framework.TestCase
+import java.lang.ref.WeakReference
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import kotlin.reflect.jvm.internal.WeakIdentityCache
+
+class WeakIdentityCacheTest : TestCase() {
+    fun testKeysAreComparedByIdentity() {
+        val cache = WeakIdentityCache<String, Any>()
+        val first = String(charArrayOf('a'))
+        val second = String(charArrayOf('a'))
+
+        val value = Any()
+        assertSame(value, cache.putIfAbsent(first, value))
+        assertNull(cache[second])
+        assertSame(value, cache[first])
+    }
+
+    fun testManyEntries() {
+        val cache = WeakIdentityCache<Any, Any>()
+        val entries = (1..10000).map { Any() to Any() }
+        for ((key, value) in entries) {
+            assertSame(value, cache.putIfAbsent(key, value))
+        }
+        for ((key, value) in entries) {
+            assertSame(value, cache[key])
+            assertSame(value, cache.putIfAbsent(key, Any()))
+        }
+        assertEquals(entries.size, cache.statistics().size)
+    }
+
+    fun testConcurrentInsertion() {
+        val cache = WeakIdentityCache<Any, Any>()
+        val keys = (1..1000).map { Any() }
+        val threadCount = 8
+        val start = CountDownLatch(1)
+
+        val executor = Executors.newFixedThreadPool(threadCount)
+        try {
+            val results = (1..threadCount).map {
+                executor.submit(Callable {
+                    start.await()
+                    keys.map { key -> cache[key] ?: cache.putIfAbsent(key, Any()) }
+                })
+            }
+            start.countDown()
+
+            // All threads agree on a single value for each key
+            val cached = results.map { it.get(1, TimeUnit.MINUTES) }
+            for (values in cached) {
+                for (i in keys.indices) {
+                    assertSame(cached.first()[i], values[i])
+                    assertSame(values[i], cache[keys[i]])
+                }
+            }
+            assertEquals(keys.size, cache.statistics().size)
+        }
+        finally {
+            executor.shutdown()
+        }
+    }
+
+    fun testEntryIsRemovedWhenKeyIsCollected() {
+        val cache = WeakIdentityCache<Any, Any>()
+        val value = Any()
+        val key = putWithCollectableKey(cache, value)
+
+        awaitCollection(key)
+        assertEventuallyEmpty(cache)
+    }
+
+    fun testEntryIsRemovedWhenValueIsCollected() {
+        val cache = WeakIdentityCache<Any, Any>()
+        val key = Any()
+        val value = putWithCollectableValue(cache, key)
+
+        awaitCollection(value)
+        assertNull(cache[key])
+        assertEventuallyEmpty(cache)
+
+        // A new value can be cached for the same key
+        val newValue = Any()
+        assertSame(newValue, cache.putIfAbsent(key, newValue))
+        assertSame(newValue, cache[key])
+    }
+
+    fun testStatistics() {
+        val cache = WeakIdentityCache<Any, Any>(collectStatistics = true)
+        val key = Any()
+
+        assertNull(cache[key])
+        cache.putIfAbsent(key, Any())
+        cache[key]
+        cache[key]
+        cache[key]
+
+        val statistics = cache.statistics()
+        assertEquals(1, statistics.size)
+        assertEquals(3L, statistics.hits)
+        assertEquals(1L, statistics.misses)
+        assertEquals(0.75, statistics.hitRate)
+    }
+
+    fun testStatisticsAreNotCollectedByDefault() {
+        val cache = WeakIdentityCache<Any, Any>(collectStatistics = false)
+        val key = Any()
+        cache[key]
+        cache.putIfAbsent(key, Any())
+        cache[key]
+
+        val statistics = cache.statistics()
+        assertEquals(1, statistics.size)
+        assertEquals(0L, statistics.hits)
+        assertEquals(0L, statistics.misses)
+    }
+
+    // Keys and values are created in separate functions, so that no local variable of the test keeps them from being collected
+
+    private fun putWithCollectableKey(cache: WeakIdentityCache<Any, Any>, value: Any): WeakReference<Any> {
+        val key = Any()
+        cache.putIfAbsent(key, value)
+        assertEquals(1, cache.statistics().size)
+        return WeakReference(key)
+    }
+
+    private fun putWithCollectableValue(cache: WeakIdentityCache<Any, Any>, key: Any): WeakReference<Any> {
+        val value = Any()
+        cache.putIfAbsent(key, value)
+        assertSame(value, cache[key])
+        return WeakReference(value)
+    }
+
+    private fun awaitCollection(reference: WeakReference<Any>) {
+        for (i in 1..100) {
+            if (reference.get() == null) return
+            System.gc()
+            Thread.sleep(10)
+        }
+        fail("Object was not collected")
+    }
+
+    // References are enqueued asynchronously after they are cleared, and collected entries are removed on the next miss
+    private fun assertEventuallyEmpty(cache: WeakIdentityCache<Any, Any>) {
+        for (i in 1..100) {
+            cache[Any()]
+            if (cache.statistics().size == 0) return
+            Thread.sleep(10)
+        }
+        fail("Collected entry was not removed: ${cache.statistics()}")
+    }
+}
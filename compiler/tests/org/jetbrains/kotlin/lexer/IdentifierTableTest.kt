@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.lexer
+
+import junit.framework.TestCase
+import org.jetbrains.kotlin.name.Name
+import java.lang.ref.WeakReference
+
+class IdentifierTableTest : TestCase() {
+    fun testNamesAreInterned() {
+        val table = IdentifierTable()
+        val name = table.getName("foo")
+        assertEquals(Name.identifier("foo"), name)
+        assertSame(name, table.getName(String(charArrayOf('f', 'o', 'o'))))
+        assertSame(name, table.getName(StringBuilder("foo")))
+        assertNotSame(name, table.getName("fo"))
+        assertEquals(2, table.size())
+    }
+
+    fun testRanges() {
+        val table = IdentifierTable()
+        val text = "val foo = bar.foo"
+        val name = table.getName(text, 4, 7)
+        assertEquals("foo", name.asString())
+        assertSame(name, table.getName(text, 14, 17))
+        assertSame(name, table.getName("foo"))
+        assertEquals("bar", table.getName(text, 10, 13).asString())
+    }
+
+    fun testUnquotedNames() {
+        val table = IdentifierTable()
+        val name = table.getUnquotedName("`quoted name`")
+        assertEquals("quoted name", name.asString())
+        assertSame(name, table.getName("quoted name"))
+        assertSame(name, table.getUnquotedName("x(`quoted name`)", 2, 15))
+        assertEquals("`", table.getUnquotedName("`").asString())
+    }
+
+    fun testUnusedNamesAreCollected() {
+        val table = IdentifierTable()
+        val name = createName(table)
+
+        for (i in 1..100) {
+            if (name.get() == null) break
+            System.gc()
+            Thread.sleep(10)
+        }
+        assertNull("Name is not collected", name.get())
+
+        // The collected entry is removed when the table is modified
+        val newName = table.getName("collectable")
+        assertEquals("collectable", newName.asString())
+        assertSame(newName, table.getName("collectable"))
+        assertEquals(1, table.size())
+    }
+
+    // Creates the name in a separate function, so that no local variable of the test keeps it from being collected
+    private fun createName(table: IdentifierTable): WeakReference<Name> {
+        val name = table.getName("collectable")
+        assertSame(name, table.getName("collectable"))
+        return WeakReference(name)
+    }
+}
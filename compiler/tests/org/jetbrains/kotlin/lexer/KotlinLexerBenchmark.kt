@@ -0,0 +1,87 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.lexer
+
+import org.jetbrains.kotlin.name.Name
+import java.io.File
+import java.lang.management.ManagementFactory
+
+/**
+ * Lexes Kotlin sources with KotlinLexer and creates names of all identifiers, first from token texts,
+ * then with IdentifierTable from ranges of the text, and reports time and bytes allocated per round.
+ * Arguments are source directories, the standard library sources by default (run from the repository root).
+ */
+object KotlinLexerBenchmark {
+    private val DEFAULT_SOURCES = listOf("libraries/stdlib/src")
+    private val ROUNDS = 10
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        val texts = (if (args.isNotEmpty()) args.toList() else DEFAULT_SOURCES).flatMap { directory ->
+            File(directory).walk().filter { it.isFile && it.extension == "kt" }.map { it.readText() }.toList()
+        }
+        println("${texts.size} files, ${texts.sumBy { it.length }} chars")
+
+        measure("lexer and token texts", texts) { text ->
+            var identifiers = 0
+            val lexer = KotlinLexer()
+            lexer.start(text)
+            while (lexer.tokenType != null) {
+                if (lexer.tokenType == KtTokens.IDENTIFIER) {
+                    Name.identifier(lexer.tokenText)
+                    identifiers++
+                }
+                lexer.advance()
+            }
+            identifiers
+        }
+
+        val table = IdentifierTable()
+        measure("identifier table", texts) { text ->
+            var identifiers = 0
+            val lexer = KotlinLexer()
+            lexer.start(text)
+            while (lexer.tokenType != null) {
+                if (lexer.tokenType == KtTokens.IDENTIFIER) {
+                    table.getUnquotedName(text, lexer.tokenStart, lexer.tokenEnd)
+                    identifiers++
+                }
+                lexer.advance()
+            }
+            identifiers
+        }
+    }
+
+    private inline fun measure(name: String, texts: List<String>, lex: (String) -> Int) {
+        val threadBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        val threadId = Thread.currentThread().id
+
+        for (round in 1..ROUNDS) {
+            val bytesBefore = threadBean.getThreadAllocatedBytes(threadId)
+            val start = System.nanoTime()
+            var identifiers = 0
+            for (text in texts) {
+                identifiers += lex(text)
+            }
+            val nanos = System.nanoTime() - start
+            val bytes = threadBean.getThreadAllocatedBytes(threadId) - bytesBefore
+
+            println("$name, round $round: $identifiers identifiers in ${nanos / 1000000} ms, " +
+                    "${bytes / 1024} KB allocated (${"%.1f".format(bytes * 1e9 / nanos / 1024 / 1024)} MB/s)")
+        }
+    }
+}
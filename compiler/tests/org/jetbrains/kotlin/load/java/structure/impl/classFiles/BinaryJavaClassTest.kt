@@ -0,0 +1,163 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles
+
+import com.intellij.core.CoreJavaFileManager
+import com.intellij.openapi.components.ServiceManager
+import com.intellij.psi.search.GlobalSearchScope
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCliJavaFileManagerImpl
+import org.jetbrains.kotlin.load.java.structure.*
+import org.jetbrains.kotlin.load.java.structure.impl.JavaClassImpl
+import org.jetbrains.kotlin.load.java.structure.impl.JavaTypeSubstitutorImpl
+import org.jetbrains.kotlin.name.ClassId
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import org.jetbrains.kotlin.test.KotlinTestWithEnvironmentManagement
+
+// Checks that classes read with ASM look the same as classes from PSI of class files
+class BinaryJavaClassTest : KotlinTestWithEnvironmentManagement() {
+    fun testString() = doTest("java.lang", "String")
+    fun testEnum() = doTest("java.lang", "Enum")
+    fun testNestedEnum() = doTest("java.lang", "Thread.State")
+    fun testInteger() = doTest("java.lang", "Integer")
+    fun testHashMap() = doTest("java.util", "HashMap")
+    fun testMap() = doTest("java.util", "Map")
+    fun testNestedInterface() = doTest("java.util", "Map.Entry")
+    fun testNestedClass() = doTest("java.util", "AbstractMap.SimpleEntry")
+    fun testCollections() = doTest("java.util", "Collections")
+    fun testAnnotation() = doTest("java.lang.annotation", "Retention")
+    fun testAnnotationEnum() = doTest("java.lang.annotation", "RetentionPolicy")
+    fun testElementType() = doTest("java.lang.annotation", "ElementType")
+
+    fun testBinaryTypesSubstitutedIntoPsiClass() {
+        val (fileManager, scope) = createFileManager()
+        val map = JavaClassImpl(fileManager.findClass(ClassId.topLevel(FqName("java.util.Map")), scope)!!)
+        val list = fileManager.findJavaClass(ClassId.topLevel(FqName("java.util.List")), scope) as BinaryJavaClass
+        val string = fileManager.findJavaClass(ClassId.topLevel(FqName("java.lang.String")), scope) as BinaryJavaClass
+
+        val (key, value) = map.typeParameters
+        val stringType = PlainJavaClassifierType.create(string, emptyList())
+        val listOfStrings = PlainJavaClassifierType.create(list, listOf(stringType))
+
+        fun substitute(keyType: JavaType, valueType: JavaType) =
+                renderType(map.createImmediateType(JavaTypeSubstitutorImpl(mapOf(key to keyType, value to valueType))))
+
+        assertEquals("java.util.Map<java.lang.String, java.util.List<java.lang.String>[]>",
+                     substitute(stringType, listOfStrings.createArrayType()))
+        assertEquals("java.util.Map<? extends java.lang.String, ? super java.lang.String[]>",
+                     substitute(key.typeProvider.createUpperBoundWildcard(stringType),
+                                key.typeProvider.createLowerBoundWildcard(stringType.createArrayType())))
+        // Type parameters of binary classes are erased
+        assertEquals("java.util.Map<java.lang.Object, java.util.List<java.lang.Object>>",
+                     substitute(list.typeParameters.single().type, PlainJavaClassifierType.create(list, listOf(list.typeParameters.single().type))))
+    }
+
+    private fun createFileManager(): Pair<KotlinCliJavaFileManagerImpl, GlobalSearchScope> {
+        val environment = KotlinTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(testRootDisposable!!)
+        val project = environment.project
+        val fileManager = ServiceManager.getService(project, CoreJavaFileManager::class.java) as KotlinCliJavaFileManagerImpl
+        return fileManager to GlobalSearchScope.allScope(project)
+    }
+
+    private fun doTest(packageName: String, relativeClassName: String) {
+        val (fileManager, scope) = createFileManager()
+        val classId = ClassId(FqName(packageName), FqName(relativeClassName), false)
+
+        val psiClass = fileManager.findClass(classId, scope)
+        assertNotNull("PSI class not found: $classId", psiClass)
+        val binaryClass = fileManager.findJavaClass(classId, scope)
+        assertTrue("Class should be read without PSI: $binaryClass", binaryClass is BinaryJavaClass)
+
+        assertEquals(render(JavaClassImpl(psiClass!!)), render(binaryClass!!))
+    }
+
+    private fun render(javaClass: JavaClass): String {
+        val sb = StringBuilder()
+        sb.append(renderModifiers(javaClass))
+        if (javaClass.isInterface) sb.append("interface ")
+        if (javaClass.isAnnotationType) sb.append("annotation ")
+        if (javaClass.isEnum) sb.append("enum ")
+        sb.append(javaClass.fqName).append(renderTypeParameters(javaClass.typeParameters))
+        sb.append(javaClass.supertypes.joinToString(", ", " : ") { renderType(it) })
+        sb.append(renderAnnotations(javaClass.annotations)).append("\n")
+
+        for (constructor in javaClass.constructors) {
+            sb.append("  ").append(renderModifiers(constructor)).append("constructor")
+            sb.append(renderTypeParameters(constructor.typeParameters))
+            sb.append(renderValueParameters(constructor.valueParameters)).append(renderAnnotations(constructor.annotations)).append("\n")
+        }
+        for (method in javaClass.methods) {
+            sb.append("  ").append(renderModifiers(method)).append("fun ").append(renderTypeParameters(method.typeParameters))
+            sb.append(method.name).append(renderValueParameters(method.valueParameters)).append(": ").append(renderType(method.returnType))
+            if (method.hasAnnotationParameterDefaultValue()) sb.append(" = default")
+            sb.append(renderAnnotations(method.annotations)).append("\n")
+        }
+        for (field in javaClass.fields) {
+            sb.append("  ").append(renderModifiers(field)).append(if (field.isEnumEntry) "entry " else "field ")
+            sb.append(field.name).append(": ").append(renderType(field.type)).append(renderAnnotations(field.annotations)).append("\n")
+        }
+        for (innerClass in javaClass.innerClasses) {
+            sb.append("  nested ").append(innerClass.name).append("\n")
+        }
+        return sb.toString()
+    }
+
+    private fun renderModifiers(owner: JavaModifierListOwner): String {
+        val sb = StringBuilder(owner.visibility.toString()).append(" ")
+        if (owner.isAbstract) sb.append("abstract ")
+        if (owner.isStatic) sb.append("static ")
+        if (owner.isFinal) sb.append("final ")
+        if (owner is JavaAnnotationOwner && owner.isDeprecatedInJavaDoc) sb.append("deprecated ")
+        return sb.toString()
+    }
+
+    private fun renderTypeParameters(typeParameters: List<JavaTypeParameter>): String {
+        if (typeParameters.isEmpty()) return ""
+        return typeParameters.joinToString(", ", "<", ">") { typeParameter ->
+            typeParameter.name.asString() + typeParameter.upperBounds.joinToString("") { " : " + renderType(it) }
+        }
+    }
+
+    private fun renderValueParameters(valueParameters: List<JavaValueParameter>): String =
+            valueParameters.joinToString(", ", "(", ")") { parameter ->
+                (if (parameter.isVararg) "vararg " else "") + parameter.name + ": " + renderType(parameter.type) +
+                renderAnnotations(parameter.annotations)
+            }
+
+    private fun renderAnnotations(annotations: Collection<JavaAnnotation>): String =
+            annotations.map { it.classId.toString() }.sorted().joinToString("") { " @$it" }
+
+    private fun renderType(type: JavaType): String = when (type) {
+        is JavaPrimitiveType -> type.type?.typeName?.asString() ?: "void"
+        is JavaArrayType -> renderType(type.componentType) + "[]"
+        is JavaWildcardType -> type.bound?.let { (if (type.isExtends) "? extends " else "? super ") + renderType(it) } ?: "?"
+        is JavaClassifierType -> {
+            val classifier = type.classifier
+            val name = when (classifier) {
+                is JavaClass -> classifier.fqName.toString()
+                is JavaTypeParameter -> classifier.name.asString()
+                else -> "unresolved " + type.presentableText
+            }
+            when {
+                type.isRaw -> "raw $name"
+                type.typeArguments.isEmpty() -> name
+                else -> type.typeArguments.joinToString(", ", "$name<", ">") { renderType(it) }
+            }
+        }
+        else -> throw AssertionError("Unexpected type: $type")
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.load.kotlin
+
+import com.intellij.openapi.util.Disposer
+import com.intellij.openapi.vfs.StandardFileSystems
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.VirtualFileManager
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import java.io.File
+import java.util.*
+import java.util.zip.ZipFile
+
+/**
+ * Replays a trace of binary class lookups against caches of different sizes.
+ * The only argument is the trace: a file with one class file location per line, either a path or "path/to/lib.jar!/a/B.class".
+ * Without a trace, lookups alternating between the classes of the Kotlin runtime are replayed.
+ */
+object KotlinBinaryClassCacheBenchmark {
+    private val ROUNDS = 5
+    // The smallest size keeps only the last class, like a cache of a single entry
+    private val SIZES = longArrayOf(1, 256L * 1024, 4L * 1024 * 1024, 16L * 1024 * 1024)
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        val disposable = Disposer.newDisposable()
+        try {
+            KotlinTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(disposable)
+            val trace = if (args.isNotEmpty()) readTrace(File(args[0])) else alternatingRuntimeTrace()
+            println("${trace.size} lookups of ${trace.toSet().size} classes")
+
+            for (size in SIZES) {
+                var bestTime = Long.MAX_VALUE
+                var statistics: KotlinBinaryClassLruCache.Statistics? = null
+                for (round in 1..ROUNDS) {
+                    val cache = KotlinBinaryClassLruCache(size)
+                    val start = System.nanoTime()
+                    for (file in trace) {
+                        cache.get(file, null)
+                    }
+                    bestTime = Math.min(bestTime, System.nanoTime() - start)
+                    statistics = cache.statistics
+                }
+                println("max size $size: ${bestTime / 1000000} ms, $statistics")
+            }
+        }
+        finally {
+            Disposer.dispose(disposable)
+        }
+    }
+
+    private fun readTrace(file: File): List<VirtualFile> {
+        val fileSystem = VirtualFileManager.getInstance().getFileSystem(StandardFileSystems.FILE_PROTOCOL)
+        val jarFileSystem = VirtualFileManager.getInstance().getFileSystem(StandardFileSystems.JAR_PROTOCOL)
+        return file.readLines().filter { it.isNotBlank() }.map { line ->
+            (if ("!/" in line) jarFileSystem.findFileByPath(line) else fileSystem.findFileByPath(line))
+            ?: error("Class file from the trace is not found: $line")
+        }
+    }
+
+    private fun alternatingRuntimeTrace(): List<VirtualFile> {
+        val jar = ForTestCompileRuntime.runtimeJarForTests()
+        val jarFileSystem = VirtualFileManager.getInstance().getFileSystem(StandardFileSystems.JAR_PROTOCOL)
+        val classes = ZipFile(jar).use { zip ->
+            zip.entries().toList().map { it.name }.filter { it.endsWith(".class") }.sorted().map {
+                jarFileSystem.findFileByPath(jar.path + "!/" + it)!!
+            }
+        }
+
+        // Resolution typically goes back and forth between a few classes (a class, its supertypes, types of its members)
+        val result = ArrayList<VirtualFile>()
+        for (i in classes.indices) {
+            for (j in 0..3) {
+                result.add(classes[i])
+                result.add(classes[(i + j * 7) % classes.size])
+            }
+        }
+        return result
+    }
+}
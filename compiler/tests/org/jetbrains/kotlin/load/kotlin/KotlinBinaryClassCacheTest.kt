@@ -0,0 +1,80 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.load.kotlin
+
+import com.intellij.openapi.vfs.StandardFileSystems
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.VirtualFileManager
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import org.jetbrains.kotlin.test.KotlinTestWithEnvironmentManagement
+
+class KotlinBinaryClassCacheTest : KotlinTestWithEnvironmentManagement() {
+    override fun setUp() {
+        super.setUp()
+        KotlinTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(testRootDisposable!!)
+    }
+
+    fun testAlternatingLookupsHit() {
+        val cache = KotlinBinaryClassLruCache(Long.MAX_VALUE)
+        val unit = runtimeClass("kotlin/Unit.class")
+        val pair = runtimeClass("kotlin/Pair.class")
+
+        for (i in 1..3) {
+            assertEquals("kotlin/Unit", cache.get(unit, null)!!.classId.toString())
+            assertEquals("kotlin/Pair", cache.get(pair, null)!!.classId.toString())
+        }
+
+        val statistics = cache.statistics
+        assertEquals(2L, statistics.misses)
+        assertEquals(4L, statistics.hits)
+        assertEquals(0L, statistics.evictions)
+        assertEquals(2, statistics.entries)
+    }
+
+    fun testLeastRecentlyUsedIsEvicted() {
+        val unit = runtimeClass("kotlin/Unit.class")
+        val pair = runtimeClass("kotlin/Pair.class")
+        val triple = runtimeClass("kotlin/Triple.class")
+
+        fun sizeOf(file: VirtualFile) = with(KotlinBinaryClassLruCache(Long.MAX_VALUE)) {
+            get(file, null)
+            statistics.size
+        }
+
+        // Enough for Unit and any one of the others, but not for all three
+        val maxSize = sizeOf(unit) + Math.max(sizeOf(pair), sizeOf(triple))
+
+        val cache = KotlinBinaryClassLruCache(maxSize)
+        cache.get(unit, null)
+        cache.get(pair, null)
+        cache.get(unit, null)
+        cache.get(triple, null)
+
+        assertEquals(1L, cache.statistics.evictions)
+        cache.get(unit, null)
+        assertEquals(2L, cache.statistics.hits)
+        cache.get(pair, null)
+        assertEquals(4L, cache.statistics.misses)
+    }
+
+    private fun runtimeClass(path: String): VirtualFile {
+        val jarFileSystem = VirtualFileManager.getInstance().getFileSystem(StandardFileSystems.JAR_PROTOCOL)
+        val jar = ForTestCompileRuntime.runtimeJarForTests()
+        return jarFileSystem.findFileByPath(jar.path + "!/" + path) ?: error("$path is not found in $jar")
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.parsing
+
+import com.intellij.psi.impl.DebugUtil
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment
+import org.jetbrains.kotlin.config.CompilerConfiguration
+import org.jetbrains.kotlin.psi.KtElement
+import org.jetbrains.kotlin.psi.KtFile
+import org.jetbrains.kotlin.psi.KtPsiFactory
+import org.jetbrains.kotlin.resolve.lazy.KotlinTestWithEnvironment
+
+class KtFileReparserTest : KotlinTestWithEnvironment() {
+    override fun createEnvironment(): KotlinCoreEnvironment? {
+        return KotlinCoreEnvironment.createForTests(testRootDisposable!!, CompilerConfiguration(), EnvironmentConfigFiles.JVM_CONFIG_FILES)
+    }
+
+    private val TEXT = """
+        |package test
+        |
+        |import java.util.*
+        |
+        |fun first() = 1
+        |
+        |/** Second */
+        |fun second(): Int {
+        |    return 2
+        |}
+        |
+        |class Third {
+        |    fun foo() {}
+        |}
+        |
+        |val fourth = listOf(1)
+        |""".trimMargin()
+
+    fun testChangeInFunctionBody() {
+        val newText = TEXT.replace("return 2", "val x = 2\n    return x")
+        val (file, declarations) = reparse(TEXT, newText, incremental = true)
+        assertSame(declarations[0], file.declarations[0])
+        assertNotSame(declarations[1], file.declarations[1])
+        assertSame(declarations[2], file.declarations[2])
+        assertSame(declarations[3], file.declarations[3])
+    }
+
+    fun testChangeInWhitespaceBetweenDeclarations() {
+        reparse(TEXT, TEXT.replace("}\n\nclass", "}\n\n\n\nclass"), incremental = true)
+    }
+
+    fun testChangeAtTheEnd() {
+        reparse(TEXT, TEXT + "\nfun fifth() {}\n", incremental = true)
+    }
+
+    fun testNewDeclaration() {
+        val (file, declarations) = reparse(TEXT, TEXT.replace("class Third", "fun inserted() {}\n\nclass Third"), incremental = true)
+        assertEquals(5, file.declarations.size)
+        assertSame(declarations[0], file.declarations[0])
+        assertSame(declarations[3], file.declarations[4])
+    }
+
+    fun testRemovedDeclaration() {
+        val (file, declarations) = reparse(TEXT, TEXT.replace("fun first() = 1\n\n", ""), incremental = true)
+        assertEquals(3, file.declarations.size)
+        assertSame(declarations[3], file.declarations[2])
+    }
+
+    fun testChangeInImports() {
+        reparse(TEXT, TEXT.replace("java.util.*", "java.io.*"), incremental = false)
+    }
+
+    fun testUnterminatedComment() {
+        reparse(TEXT, TEXT.replace("    return 2\n}", "    return 2\n} /*"), incremental = false)
+    }
+
+    fun testSyntaxError() {
+        reparse(TEXT, TEXT.replace("return 2\n}", "return 2\n"), incremental = false)
+    }
+
+    fun testIncompleteStatementAtTheEndOfScript() {
+        val oldText = "val a = 1\n\nfun foo(): Int {"
+        val (file, statements) = reparse(oldText, oldText + "\n    return a", incremental = true, fileName = "test.kts")
+        assertEquals(2, topLevelElements(file).size)
+        assertSame(statements[0], topLevelElements(file)[0])
+        assertNotSame(statements[1], topLevelElements(file)[1])
+    }
+
+    fun testNewStatementsInScript() {
+        val oldText = "val a = 1\nprintln(a)"
+        val (file, statements) = reparse(oldText, oldText + "\nval b = a + 1\nprintln(b)", incremental = true, fileName = "test.kts")
+        assertEquals(4, topLevelElements(file).size)
+        assertSame(statements[0], topLevelElements(file)[0])
+    }
+
+    fun testChangeInsideScript() {
+        reparse("val a = 1\nprintln(a)", "val a = 2\nprintln(a)", incremental = false, fileName = "test.kts")
+    }
+
+    private fun topLevelElements(file: KtFile): List<KtElement> {
+        val script = file.script
+        return if (script != null) script.blockExpression.statements else file.declarations
+    }
+
+    private fun reparse(oldText: String, newText: String, incremental: Boolean, fileName: String = "test.kt"): Pair<KtFile, List<Any>> {
+        val factory = KtPsiFactory(environment.project)
+        val file = factory.createFile(fileName, oldText)
+        val declarations = topLevelElements(file).toList()
+
+        assertEquals(incremental, KtFileReparser.reparse(file, newText))
+
+        assertEquals(newText, file.text)
+        val expected = factory.createFile(fileName, newText)
+        assertEquals(DebugUtil.psiToString(expected, false), DebugUtil.psiToString(file, false))
+        return file to declarations
+    }
+}
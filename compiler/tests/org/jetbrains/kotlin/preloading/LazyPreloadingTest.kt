@@ -0,0 +1,113 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.preloading
+
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import java.io.File
+import java.io.FileOutputStream
+import java.util.*
+import java.util.jar.Attributes
+import java.util.jar.JarOutputStream
+import java.util.jar.Manifest
+
+class LazyPreloadingTest : TestCaseWithTmpdir() {
+    private val handler = CountingHandler()
+
+    fun testClassesAreInstrumentedAndDefinedOnce() {
+        val runtime = ForTestCompileRuntime.runtimeJarForTests()
+        val classLoader = preloadLazily(runtime)
+
+        callToList(classLoader)
+        callToList(classLoader)
+
+        assertEquals(listOf(runtime), handler.loadedJars)
+        assertClassesInstrumentedAndDefinedOnce()
+    }
+
+    fun testClassPathFromManifest() {
+        val runtime = ForTestCompileRuntime.runtimeJarForTests()
+        val library = File(tmpdir, "lib.jar")
+        runtime.copyTo(library)
+
+        val manifest = Manifest()
+        manifest.mainAttributes.put(Attributes.Name.MANIFEST_VERSION, "1.0")
+        manifest.mainAttributes.put(Attributes.Name.CLASS_PATH, library.name)
+        val main = File(tmpdir, "main.jar")
+        JarOutputStream(FileOutputStream(main), manifest).close()
+
+        val classLoader = preloadLazily(main)
+        val tuples = callToList(classLoader)
+
+        // Classes from the Class-Path jar are loaded by the parent preloading class loader
+        assertNotSame(classLoader, tuples.classLoader)
+        assertTrue(tuples.classLoader is MemoryBasedClassLoader)
+
+        assertEquals(listOf(main, library), handler.loadedJars)
+        assertClassesInstrumentedAndDefinedOnce()
+    }
+
+    private fun preloadLazily(jar: File): ClassLoader =
+            ClassPreloadingUtils.preloadClasses(listOf(jar), Preloader.DEFAULT_CLASS_NUMBER_ESTIMATE, null, null, handler, true)
+
+    // Loads and runs functions which need several other runtime classes
+    private fun callToList(classLoader: ClassLoader): Class<*> {
+        val tuples = classLoader.loadClass("kotlin.TuplesKt")
+        assertSame(tuples, classLoader.loadClass("kotlin.TuplesKt"))
+
+        val pair = tuples.getMethod("to", Any::class.java, Any::class.java).invoke(null, "a", "b")
+        val result = tuples.getMethod("toList", classLoader.loadClass("kotlin.Pair")).invoke(null, pair)
+        assertEquals(listOf("a", "b"), result)
+        return tuples
+    }
+
+    private fun assertClassesInstrumentedAndDefinedOnce() {
+        assertTrue(handler.defined.keys.toString(), handler.defined.size > 1)
+        assertTrue(handler.defined.keys.toString(), "kotlin.TuplesKt" in handler.defined)
+        assertTrue(handler.defined.keys.toString(), "kotlin.collections.CollectionsKt" in handler.defined)
+
+        for ((name, count) in handler.defined) {
+            assertEquals("Class $name is defined $count times", 1, count)
+        }
+
+        // Classes are only instrumented when they are defined, each of them once
+        val instrumentedClasses = handler.instrumented.filterKeys { it.endsWith(".class") }
+        assertEquals(handler.defined.keys.map { it.replace('.', '/') + ".class" }.toSet(), instrumentedClasses.keys)
+        for ((name, count) in instrumentedClasses) {
+            assertEquals("Class $name is instrumented $count times", 1, count)
+        }
+    }
+
+    private class CountingHandler : ClassHandler() {
+        val instrumented = HashMap<String, Int>()
+        val defined = HashMap<String, Int>()
+        val loadedJars = ArrayList<File>()
+
+        override fun instrument(resourceName: String, data: ByteArray): ByteArray {
+            instrumented[resourceName] = (instrumented[resourceName] ?: 0) + 1
+            return data
+        }
+
+        override fun beforeDefineClass(name: String, sizeInBytes: Int) {
+            defined[name] = (defined[name] ?: 0) + 1
+        }
+
+        override fun afterLoadJar(jarFile: File) {
+            loadedJars.add(jarFile)
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.preloading
+
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import org.jetbrains.kotlin.utils.PathUtil
+import java.io.File
+import java.io.FileOutputStream
+import java.util.*
+import java.util.jar.Attributes
+import java.util.jar.JarOutputStream
+import java.util.jar.Manifest
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+
+class MappedJarFileTest : TestCaseWithTmpdir() {
+    fun testCompilerJar() {
+        assertSameAsZipFile(File(PathUtil.getKotlinPathsForDistDirectory().libPath, "kotlin-compiler.jar"))
+    }
+
+    fun testRuntimeJar() {
+        assertSameAsZipFile(ForTestCompileRuntime.runtimeJarForTests())
+    }
+
+    fun testReflectJar() {
+        assertSameAsZipFile(ForTestCompileRuntime.reflectJarForTests())
+    }
+
+    fun testStoredEntries() {
+        val jar = File(tmpdir, "stored.jar")
+        JarOutputStream(FileOutputStream(jar)).use { output ->
+            for ((name, contents) in CONTENTS) {
+                val entry = ZipEntry(name)
+                entry.method = ZipEntry.STORED
+                entry.size = contents.size.toLong()
+                entry.crc = CRC32().apply { update(contents) }.value
+                output.putNextEntry(entry)
+                output.write(contents)
+                output.closeEntry()
+            }
+        }
+
+        assertSameAsZipFile(jar)
+        assertEquals(CONTENTS.keys.toList(), MappedJarFile(jar).entries.map { it.name })
+    }
+
+    // ZipOutputStream writes deflated entries with data descriptors after their data, because it doesn't know the sizes in advance
+    fun testDeflatedEntriesWithDataDescriptors() {
+        val jar = File(tmpdir, "deflated.jar")
+        JarOutputStream(FileOutputStream(jar)).use { output ->
+            output.setComment("archive comment")
+            for ((name, contents) in CONTENTS) {
+                val entry = ZipEntry(name)
+                entry.extra = byteArrayOf(0xCA.toByte(), 0xFE.toByte(), 2, 0, 1, 2)
+                output.putNextEntry(entry)
+                output.write(contents)
+                output.closeEntry()
+            }
+        }
+
+        assertSameAsZipFile(jar)
+    }
+
+    fun testDirectoriesAreSkipped() {
+        val jar = File(tmpdir, "directories.jar")
+        JarOutputStream(FileOutputStream(jar)).use { output ->
+            output.putNextEntry(ZipEntry("a/"))
+            output.closeEntry()
+            output.putNextEntry(ZipEntry("a/b.txt"))
+            output.write("b".toByteArray())
+            output.closeEntry()
+        }
+
+        assertEquals(listOf("a/b.txt"), MappedJarFile(jar).entries.map { it.name })
+    }
+
+    fun testManifestWithClassPath() {
+        val manifest = Manifest()
+        manifest.mainAttributes.put(Attributes.Name.MANIFEST_VERSION, "1.0")
+        manifest.mainAttributes.put(Attributes.Name.CLASS_PATH, "lib.jar other.jar")
+
+        val jar = File(tmpdir, "manifest.jar")
+        JarOutputStream(FileOutputStream(jar), manifest).use { output ->
+            output.putNextEntry(ZipEntry("a.txt"))
+            output.write("a".toByteArray())
+            output.closeEntry()
+        }
+
+        assertSameAsZipFile(jar)
+
+        val manifestEntry = MappedJarFile(jar).entries.single { it.name == "META-INF/MANIFEST.MF" }
+        val readManifest = Manifest(manifestEntry.readBytes().inputStream())
+        assertEquals("lib.jar other.jar", readManifest.mainAttributes.getValue(Attributes.Name.CLASS_PATH))
+    }
+
+    private fun assertSameAsZipFile(jar: File) {
+        val mapped = MappedJarFile(jar)
+        ZipFile(jar).use { zip ->
+            val zipEntries = zip.entries().toList().filter { !it.isDirectory }
+            assertEquals(zipEntries.map { it.name }, mapped.entries.map { it.name })
+
+            for ((zipEntry, mappedEntry) in zipEntries.zip(mapped.entries)) {
+                assertEquals(jar, mappedEntry.jarFile)
+                val expected = zip.getInputStream(zipEntry).use { it.readBytes() }
+                assertTrue("Different contents of ${zipEntry.name} in $jar", Arrays.equals(expected, mappedEntry.readBytes()))
+            }
+        }
+    }
+
+    companion object {
+        private val CONTENTS = linkedMapOf(
+                "empty.txt" to ByteArray(0),
+                "small.txt" to "small".toByteArray(),
+                "a/b/Large.class" to (0..100000).map { (it * 31 % 251).toByte() }.toByteArray(),
+                "a/b/Repeated.class" to "repeated ".repeat(10000).toByteArray()
+        )
+    }
+}
@@ -196,6 +196,12 @@ public class ReplInterpreterTestGenerated extends AbstractReplInterpreterTest {
             doTest(fileName);
         }
 
+        @TestMetadata("lineNumbersOfIncompleteInput.repl")
+        public void testLineNumbersOfIncompleteInput() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/repl/multiline/lineNumbersOfIncompleteInput.repl");
+            doTest(fileName);
+        }
+
         @TestMetadata("multilineFunctionInvocation.repl")
         public void testMultilineFunctionInvocation() throws Exception {
             String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/repl/multiline/multilineFunctionInvocation.repl");
@@ -208,6 +214,12 @@ public class ReplInterpreterTestGenerated extends AbstractReplInterpreterTest {
             doTest(fileName);
         }
 
+        @TestMetadata("severalStatementsOnSeveralLines.repl")
+        public void testSeveralStatementsOnSeveralLines() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/repl/multiline/severalStatementsOnSeveralLines.repl");
+            doTest(fileName);
+        }
+
         @TestMetadata("simpleFunctionBodyOnNextLine.repl")
         public void testSimpleFunctionBodyOnNextLine() throws Exception {
             String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/repl/multiline/simpleFunctionBodyOnNextLine.repl");
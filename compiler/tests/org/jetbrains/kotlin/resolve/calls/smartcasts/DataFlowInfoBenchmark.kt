@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.resolve.calls.smartcasts
+
+import org.jetbrains.kotlin.builtins.DefaultBuiltIns
+import org.jetbrains.kotlin.types.KotlinType
+import java.lang.management.ManagementFactory
+import java.util.*
+
+/**
+ * Replays data flow info operations of smart-cast-heavy code: functions with a lot of locals,
+ * null checks combined with && and long `when` chains of `is` checks whose branches are merged back.
+ * Reports time and allocated bytes per function, compare the numbers before and after a change.
+ */
+object DataFlowInfoBenchmark {
+    private val FUNCTIONS = 2000
+    private val LOCALS = 30
+    private val BRANCHES = 20
+    private val ROUNDS = 10
+
+    private val builtIns = DefaultBuiltIns.Instance
+    private val types: List<KotlinType> = listOf(
+            builtIns.stringType, builtIns.intType, builtIns.longType, builtIns.doubleType, builtIns.charType,
+            builtIns.booleanType, builtIns.byteType, builtIns.shortType, builtIns.floatType, builtIns.unitType
+    )
+    private val nullValue = DataFlowValue.nullValue(builtIns)
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        val threads = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        val threadId = Thread.currentThread().id
+        for (round in 1..ROUNDS) {
+            val random = Random(42)
+            val allocatedBefore = threads.getThreadAllocatedBytes(threadId)
+            val start = System.nanoTime()
+            var checksum = 0
+            for (i in 1..FUNCTIONS) {
+                checksum += analyzeFunction(random).completeNullabilityInfo.size
+            }
+            val time = System.nanoTime() - start
+            val allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore
+            println("round $round: ${time / FUNCTIONS / 1000} us and ${allocated / FUNCTIONS / 1024} KB per function ($checksum)")
+        }
+    }
+
+    private fun analyzeFunction(random: Random): DataFlowInfo {
+        val locals = (1..LOCALS).map {
+            DataFlowValue(Any(), builtIns.nullableAnyType, DataFlowValue.Kind.STABLE_VALUE, Nullability.UNKNOWN)
+        }
+        var info = DataFlowInfo.EMPTY
+
+        for (statement in 1..LOCALS) {
+            val local = locals[random.nextInt(LOCALS)]
+            when (random.nextInt(4)) {
+                // if (a != null && b is T) { ... }
+                0 -> {
+                    val other = locals[random.nextInt(LOCALS)]
+                    val condition = info.disequate(local, nullValue)
+                    info = condition.and(condition.establishSubtyping(other, types[random.nextInt(types.size)]))
+                }
+                // val a = b
+                1 -> info = info.assign(local, locals[random.nextInt(LOCALS)])
+                // if (a == b) { ... }
+                2 -> info = info.equate(local, locals[random.nextInt(LOCALS)])
+                // when (a) { is T1 -> ...; is T2 -> ...; ... }
+                else -> {
+                    val branches = (0..BRANCHES - 1).map { branch ->
+                        var branchInfo = info.establishSubtyping(local, types[branch % types.size])
+                        // a branch body checks some other locals
+                        for (check in 1..3) {
+                            branchInfo = branchInfo.disequate(locals[random.nextInt(LOCALS)], nullValue)
+                        }
+                        branchInfo
+                    }
+                    info = branches.reduce { first, second -> first.or(second) }.and(info)
+                }
+            }
+            // a loop or a lambda clears some of the info
+            if (random.nextInt(10) == 0) {
+                info = info.clearValueInfo(locals[random.nextInt(LOCALS)])
+            }
+        }
+        return info
+    }
+}
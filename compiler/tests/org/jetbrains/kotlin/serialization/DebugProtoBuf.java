@@ -9530,6 +9530,35 @@ public final class DebugProtoBuf {
      * <code>optional .org.jetbrains.kotlin.serialization.TypeTable type_table = 30;</code>
      */
     org.jetbrains.kotlin.serialization.DebugProtoBuf.TypeTableOrBuilder getTypeTableOrBuilder();
+
+    // repeated int32 member_name_index = 31 [packed = true];
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    java.util.List<java.lang.Integer> getMemberNameIndexList();
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    int getMemberNameIndexCount();
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    int getMemberNameIndex(int index);
   }
   /**
    * Protobuf type {@code org.jetbrains.kotlin.serialization.Class}
@@ -9700,6 +9729,27 @@ public final class DebugProtoBuf {
               bitField0_ |= 0x00000008;
               break;
             }
+            case 248: {
+              if (!((mutable_bitField0_ & 0x00001000) == 0x00001000)) {
+                memberNameIndex_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00001000;
+              }
+              memberNameIndex_.add(input.readInt32());
+              break;
+            }
+            case 250: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00001000) == 0x00001000) && input.getBytesUntilLimit() > 0) {
+                memberNameIndex_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00001000;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                memberNameIndex_.add(input.readInt32());
+              }
+              input.popLimit(limit);
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -9732,6 +9782,9 @@ public final class DebugProtoBuf {
         if (((mutable_bitField0_ & 0x00000400) == 0x00000400)) {
           enumEntry_ = java.util.Collections.unmodifiableList(enumEntry_);
         }
+        if (((mutable_bitField0_ & 0x00001000) == 0x00001000)) {
+          memberNameIndex_ = java.util.Collections.unmodifiableList(memberNameIndex_);
+        }
         this.unknownFields = unknownFields.build();
         makeExtensionsImmutable();
       }
@@ -10253,6 +10306,45 @@ public final class DebugProtoBuf {
       return typeTable_;
     }
 
+    // repeated int32 member_name_index = 31 [packed = true];
+    public static final int MEMBER_NAME_INDEX_FIELD_NUMBER = 31;
+    private java.util.List<java.lang.Integer> memberNameIndex_;
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    public java.util.List<java.lang.Integer>
+        getMemberNameIndexList() {
+      return memberNameIndex_;
+    }
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    public int getMemberNameIndexCount() {
+      return memberNameIndex_.size();
+    }
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    public int getMemberNameIndex(int index) {
+      return memberNameIndex_.get(index);
+    }
+    private int memberNameIndexMemoizedSerializedSize = -1;
+
     private void initFields() {
       flags_ = 6;
       fqName_ = 0;
@@ -10266,6 +10358,7 @@ public final class DebugProtoBuf {
       property_ = java.util.Collections.emptyList();
       enumEntry_ = java.util.Collections.emptyList();
       typeTable_ = org.jetbrains.kotlin.serialization.DebugProtoBuf.TypeTable.getDefaultInstance();
+      memberNameIndex_ = java.util.Collections.emptyList();
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -10376,6 +10469,13 @@ public final class DebugProtoBuf {
       if (((bitField0_ & 0x00000008) == 0x00000008)) {
         output.writeMessage(30, typeTable_);
       }
+      if (getMemberNameIndexList().size() > 0) {
+        output.writeRawVarint32(250);
+        output.writeRawVarint32(memberNameIndexMemoizedSerializedSize);
+      }
+      for (int i = 0; i < memberNameIndex_.size(); i++) {
+        output.writeInt32NoTag(memberNameIndex_.get(i));
+      }
       extensionWriter.writeUntil(200, output);
       getUnknownFields().writeTo(output);
     }
@@ -10454,6 +10554,20 @@ public final class DebugProtoBuf {
         size += com.google.protobuf.CodedOutputStream
           .computeMessageSize(30, typeTable_);
       }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < memberNameIndex_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt32SizeNoTag(memberNameIndex_.get(i));
+        }
+        size += dataSize;
+        if (!getMemberNameIndexList().isEmpty()) {
+          size += 2;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        memberNameIndexMemoizedSerializedSize = dataSize;
+      }
       size += extensionsSerializedSize();
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
@@ -10630,6 +10744,8 @@ public final class DebugProtoBuf {
           typeTableBuilder_.clear();
         }
         bitField0_ = (bitField0_ & ~0x00000800);
+        memberNameIndex_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00001000);
         return this;
       }
 
@@ -10742,6 +10858,11 @@ public final class DebugProtoBuf {
         } else {
           result.typeTable_ = typeTableBuilder_.build();
         }
+        if (((bitField0_ & 0x00001000) == 0x00001000)) {
+          memberNameIndex_ = java.util.Collections.unmodifiableList(memberNameIndex_);
+          bitField0_ = (bitField0_ & ~0x00001000);
+        }
+        result.memberNameIndex_ = memberNameIndex_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -10946,6 +11067,16 @@ public final class DebugProtoBuf {
         if (other.hasTypeTable()) {
           mergeTypeTable(other.getTypeTable());
         }
+        if (!other.memberNameIndex_.isEmpty()) {
+          if (memberNameIndex_.isEmpty()) {
+            memberNameIndex_ = other.memberNameIndex_;
+            bitField0_ = (bitField0_ & ~0x00001000);
+          } else {
+            ensureMemberNameIndexIsMutable();
+            memberNameIndex_.addAll(other.memberNameIndex_);
+          }
+          onChanged();
+        }
         this.mergeExtensionFields(other);
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
@@ -12852,6 +12983,107 @@ public final class DebugProtoBuf {
         return typeTableBuilder_;
       }
 
+      // repeated int32 member_name_index = 31 [packed = true];
+      private java.util.List<java.lang.Integer> memberNameIndex_ = java.util.Collections.emptyList();
+      private void ensureMemberNameIndexIsMutable() {
+        if (!((bitField0_ & 0x00001000) == 0x00001000)) {
+          memberNameIndex_ = new java.util.ArrayList<java.lang.Integer>(memberNameIndex_);
+          bitField0_ |= 0x00001000;
+         }
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public java.util.List<java.lang.Integer>
+          getMemberNameIndexList() {
+        return java.util.Collections.unmodifiableList(memberNameIndex_);
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public int getMemberNameIndexCount() {
+        return memberNameIndex_.size();
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public int getMemberNameIndex(int index) {
+        return memberNameIndex_.get(index);
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder setMemberNameIndex(
+          int index, int value) {
+        ensureMemberNameIndexIsMutable();
+        memberNameIndex_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder addMemberNameIndex(int value) {
+        ensureMemberNameIndexIsMutable();
+        memberNameIndex_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder addAllMemberNameIndex(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureMemberNameIndexIsMutable();
+        super.addAll(values, memberNameIndex_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder clearMemberNameIndex() {
+        memberNameIndex_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00001000);
+        onChanged();
+        return this;
+      }
+
       // @@protoc_insertion_point(builder_scope:org.jetbrains.kotlin.serialization.Class)
     }
 
@@ -12930,6 +13162,35 @@ public final class DebugProtoBuf {
      * <code>optional .org.jetbrains.kotlin.serialization.TypeTable type_table = 30;</code>
      */
     org.jetbrains.kotlin.serialization.DebugProtoBuf.TypeTableOrBuilder getTypeTableOrBuilder();
+
+    // repeated int32 member_name_index = 31 [packed = true];
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    java.util.List<java.lang.Integer> getMemberNameIndexList();
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    int getMemberNameIndexCount();
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    int getMemberNameIndex(int index);
   }
   /**
    * Protobuf type {@code org.jetbrains.kotlin.serialization.Package}
@@ -13011,6 +13272,27 @@ public final class DebugProtoBuf {
               bitField0_ |= 0x00000001;
               break;
             }
+            case 248: {
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+                memberNameIndex_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              memberNameIndex_.add(input.readInt32());
+              break;
+            }
+            case 250: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008) && input.getBytesUntilLimit() > 0) {
+                memberNameIndex_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                memberNameIndex_.add(input.readInt32());
+              }
+              input.popLimit(limit);
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -13025,6 +13307,9 @@ public final class DebugProtoBuf {
         if (((mutable_bitField0_ & 0x00000002) == 0x00000002)) {
           property_ = java.util.Collections.unmodifiableList(property_);
         }
+        if (((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+          memberNameIndex_ = java.util.Collections.unmodifiableList(memberNameIndex_);
+        }
         this.unknownFields = unknownFields.build();
         makeExtensionsImmutable();
       }
@@ -13151,10 +13436,50 @@ public final class DebugProtoBuf {
       return typeTable_;
     }
 
+    // repeated int32 member_name_index = 31 [packed = true];
+    public static final int MEMBER_NAME_INDEX_FIELD_NUMBER = 31;
+    private java.util.List<java.lang.Integer> memberNameIndex_;
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    public java.util.List<java.lang.Integer>
+        getMemberNameIndexList() {
+      return memberNameIndex_;
+    }
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    public int getMemberNameIndexCount() {
+      return memberNameIndex_.size();
+    }
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    public int getMemberNameIndex(int index) {
+      return memberNameIndex_.get(index);
+    }
+    private int memberNameIndexMemoizedSerializedSize = -1;
+
     private void initFields() {
       function_ = java.util.Collections.emptyList();
       property_ = java.util.Collections.emptyList();
       typeTable_ = org.jetbrains.kotlin.serialization.DebugProtoBuf.TypeTable.getDefaultInstance();
+      memberNameIndex_ = java.util.Collections.emptyList();
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -13202,6 +13527,13 @@ public final class DebugProtoBuf {
       if (((bitField0_ & 0x00000001) == 0x00000001)) {
         output.writeMessage(30, typeTable_);
       }
+      if (getMemberNameIndexList().size() > 0) {
+        output.writeRawVarint32(250);
+        output.writeRawVarint32(memberNameIndexMemoizedSerializedSize);
+      }
+      for (int i = 0; i < memberNameIndex_.size(); i++) {
+        output.writeInt32NoTag(memberNameIndex_.get(i));
+      }
       extensionWriter.writeUntil(200, output);
       getUnknownFields().writeTo(output);
     }
@@ -13224,6 +13556,20 @@ public final class DebugProtoBuf {
         size += com.google.protobuf.CodedOutputStream
           .computeMessageSize(30, typeTable_);
       }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < memberNameIndex_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt32SizeNoTag(memberNameIndex_.get(i));
+        }
+        size += dataSize;
+        if (!getMemberNameIndexList().isEmpty()) {
+          size += 2;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        memberNameIndexMemoizedSerializedSize = dataSize;
+      }
       size += extensionsSerializedSize();
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
@@ -13362,6 +13708,8 @@ public final class DebugProtoBuf {
           typeTableBuilder_.clear();
         }
         bitField0_ = (bitField0_ & ~0x00000004);
+        memberNameIndex_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
         return this;
       }
 
@@ -13416,6 +13764,11 @@ public final class DebugProtoBuf {
         } else {
           result.typeTable_ = typeTableBuilder_.build();
         }
+        if (((bitField0_ & 0x00000008) == 0x00000008)) {
+          memberNameIndex_ = java.util.Collections.unmodifiableList(memberNameIndex_);
+          bitField0_ = (bitField0_ & ~0x00000008);
+        }
+        result.memberNameIndex_ = memberNameIndex_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -13487,6 +13840,16 @@ public final class DebugProtoBuf {
         if (other.hasTypeTable()) {
           mergeTypeTable(other.getTypeTable());
         }
+        if (!other.memberNameIndex_.isEmpty()) {
+          if (memberNameIndex_.isEmpty()) {
+            memberNameIndex_ = other.memberNameIndex_;
+            bitField0_ = (bitField0_ & ~0x00000008);
+          } else {
+            ensureMemberNameIndexIsMutable();
+            memberNameIndex_.addAll(other.memberNameIndex_);
+          }
+          onChanged();
+        }
         this.mergeExtensionFields(other);
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
@@ -14134,6 +14497,107 @@ public final class DebugProtoBuf {
         return typeTableBuilder_;
       }
 
+      // repeated int32 member_name_index = 31 [packed = true];
+      private java.util.List<java.lang.Integer> memberNameIndex_ = java.util.Collections.emptyList();
+      private void ensureMemberNameIndexIsMutable() {
+        if (!((bitField0_ & 0x00000008) == 0x00000008)) {
+          memberNameIndex_ = new java.util.ArrayList<java.lang.Integer>(memberNameIndex_);
+          bitField0_ |= 0x00000008;
+         }
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public java.util.List<java.lang.Integer>
+          getMemberNameIndexList() {
+        return java.util.Collections.unmodifiableList(memberNameIndex_);
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public int getMemberNameIndexCount() {
+        return memberNameIndex_.size();
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public int getMemberNameIndex(int index) {
+        return memberNameIndex_.get(index);
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder setMemberNameIndex(
+          int index, int value) {
+        ensureMemberNameIndexIsMutable();
+        memberNameIndex_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder addMemberNameIndex(int value) {
+        ensureMemberNameIndexIsMutable();
+        memberNameIndex_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder addAllMemberNameIndex(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureMemberNameIndexIsMutable();
+        super.addAll(values, memberNameIndex_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder clearMemberNameIndex() {
+        memberNameIndex_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
+        onChanged();
+        return this;
+      }
+
       // @@protoc_insertion_point(builder_scope:org.jetbrains.kotlin.serialization.Package)
     }
 
@@ -21772,7 +22236,7 @@ public final class DebugProtoBuf {
       "per_bound\030\005 \003(\0132(.org.jetbrains.kotlin.s" +
       "erialization.Type\022\026\n\016upper_bound_id\030\006 \003(" +
       "\005\"$\n\010Variance\022\006\n\002IN\020\000\022\007\n\003OUT\020\001\022\007\n\003INV\020\002*" +
-      "\005\010d\020\350\007\"\347\005\n\005Class\022\020\n\005flags\030\001 \001(\005:\0016\022\025\n\007fq" +
+      "\005\010d\020\350\007\"\212\006\n\005Class\022\020\n\005flags\030\001 \001(\005:\0016\022\025\n\007fq" +
       "_name\030\003 \002(\005B\004\220\265\030\001\022#\n\025companion_object_na" +
       "me\030\004 \001(\005B\004\210\265\030\001\022I\n\016type_parameter\030\005 \003(\01321" +
       ".org.jetbrains.kotlin.serialization.Type" +
@@ -21787,58 +22251,60 @@ public final class DebugProtoBuf {
       ".Property\022A\n\nenum_entry\030\r \003(\0132-.org.jetb" +
       "rains.kotlin.serialization.EnumEntry\022A\n\n" +
       "type_table\030\036 \001(\0132-.org.jetbrains.kotlin.",
-      "serialization.TypeTable\"x\n\004Kind\022\t\n\005CLASS" +
-      "\020\000\022\r\n\tINTERFACE\020\001\022\016\n\nENUM_CLASS\020\002\022\016\n\nENU" +
-      "M_ENTRY\020\003\022\024\n\020ANNOTATION_CLASS\020\004\022\n\n\006OBJEC" +
-      "T\020\005\022\024\n\020COMPANION_OBJECT\020\006*\005\010d\020\310\001\"\323\001\n\007Pac" +
-      "kage\022>\n\010function\030\003 \003(\0132,.org.jetbrains.k" +
-      "otlin.serialization.Function\022>\n\010property" +
-      "\030\004 \003(\0132,.org.jetbrains.kotlin.serializat" +
-      "ion.Property\022A\n\ntype_table\030\036 \001(\0132-.org.j" +
-      "etbrains.kotlin.serialization.TypeTable*" +
-      "\005\010d\020\310\001\"_\n\tTypeTable\0226\n\004type\030\001 \003(\0132(.org.",
-      "jetbrains.kotlin.serialization.Type\022\032\n\016f" +
-      "irst_nullable\030\002 \001(\005:\002-1\"s\n\013Constructor\022\020" +
-      "\n\005flags\030\001 \001(\005:\0016\022K\n\017value_parameter\030\002 \003(" +
+      "serialization.TypeTable\022!\n\021member_name_i" +
+      "ndex\030\037 \003(\005B\006\020\001\200\265\030\001\"x\n\004Kind\022\t\n\005CLASS\020\000\022\r\n" +
+      "\tINTERFACE\020\001\022\016\n\nENUM_CLASS\020\002\022\016\n\nENUM_ENT" +
+      "RY\020\003\022\024\n\020ANNOTATION_CLASS\020\004\022\n\n\006OBJECT\020\005\022\024" +
+      "\n\020COMPANION_OBJECT\020\006*\005\010d\020\310\001\"\366\001\n\007Package\022" +
+      ">\n\010function\030\003 \003(\0132,.org.jetbrains.kotlin" +
+      ".serialization.Function\022>\n\010property\030\004 \003(" +
+      "\0132,.org.jetbrains.kotlin.serialization.P" +
+      "roperty\022A\n\ntype_table\030\036 \001(\0132-.org.jetbra" +
+      "ins.kotlin.serialization.TypeTable\022!\n\021me",
+      "mber_name_index\030\037 \003(\005B\006\020\001\200\265\030\001*\005\010d\020\310\001\"_\n\t" +
+      "TypeTable\0226\n\004type\030\001 \003(\0132(.org.jetbrains." +
+      "kotlin.serialization.Type\022\032\n\016first_nulla" +
+      "ble\030\002 \001(\005:\002-1\"s\n\013Constructor\022\020\n\005flags\030\001 " +
+      "\001(\005:\0016\022K\n\017value_parameter\030\002 \003(\01322.org.je" +
+      "tbrains.kotlin.serialization.ValueParame" +
+      "ter*\005\010d\020\310\001\"\332\003\n\010Function\022\020\n\005flags\030\t \001(\005:\001" +
+      "6\022\024\n\told_flags\030\001 \001(\005:\0016\022\022\n\004name\030\002 \002(\005B\004\210" +
+      "\265\030\001\022=\n\013return_type\030\003 \001(\0132(.org.jetbrains" +
+      ".kotlin.serialization.Type\022\026\n\016return_typ",
+      "e_id\030\007 \001(\005\022I\n\016type_parameter\030\004 \003(\01321.org" +
+      ".jetbrains.kotlin.serialization.TypePara" +
+      "meter\022?\n\rreceiver_type\030\005 \001(\0132(.org.jetbr" +
+      "ains.kotlin.serialization.Type\022\030\n\020receiv" +
+      "er_type_id\030\010 \001(\005\022K\n\017value_parameter\030\006 \003(" +
       "\01322.org.jetbrains.kotlin.serialization.V" +
-      "alueParameter*\005\010d\020\310\001\"\332\003\n\010Function\022\020\n\005fla" +
-      "gs\030\t \001(\005:\0016\022\024\n\told_flags\030\001 \001(\005:\0016\022\022\n\004nam" +
-      "e\030\002 \002(\005B\004\210\265\030\001\022=\n\013return_type\030\003 \001(\0132(.org" +
-      ".jetbrains.kotlin.serialization.Type\022\026\n\016" +
-      "return_type_id\030\007 \001(\005\022I\n\016type_parameter\030\004" +
-      " \003(\01321.org.jetbrains.kotlin.serializatio",
-      "n.TypeParameter\022?\n\rreceiver_type\030\005 \001(\0132(" +
-      ".org.jetbrains.kotlin.serialization.Type" +
-      "\022\030\n\020receiver_type_id\030\010 \001(\005\022K\n\017value_para" +
-      "meter\030\006 \003(\01322.org.jetbrains.kotlin.seria" +
-      "lization.ValueParameter\022A\n\ntype_table\030\036 " +
-      "\001(\0132-.org.jetbrains.kotlin.serialization" +
-      ".TypeTable*\005\010d\020\310\001\"\317\003\n\010Property\022\022\n\005flags\030" +
-      "\013 \001(\005:\003518\022\027\n\told_flags\030\001 \001(\005:\0042054\022\022\n\004n" +
-      "ame\030\002 \002(\005B\004\210\265\030\001\022=\n\013return_type\030\003 \001(\0132(.o" +
-      "rg.jetbrains.kotlin.serialization.Type\022\026",
-      "\n\016return_type_id\030\t \001(\005\022I\n\016type_parameter" +
-      "\030\004 \003(\01321.org.jetbrains.kotlin.serializat" +
-      "ion.TypeParameter\022?\n\rreceiver_type\030\005 \001(\013" +
-      "2(.org.jetbrains.kotlin.serialization.Ty" +
-      "pe\022\030\n\020receiver_type_id\030\n \001(\005\022R\n\026setter_v" +
-      "alue_parameter\030\006 \001(\01322.org.jetbrains.kot" +
-      "lin.serialization.ValueParameter\022\024\n\014gett" +
-      "er_flags\030\007 \001(\005\022\024\n\014setter_flags\030\010 \001(\005*\005\010d" +
-      "\020\310\001\"\355\001\n\016ValueParameter\022\020\n\005flags\030\001 \001(\005:\0010" +
-      "\022\022\n\004name\030\002 \002(\005B\004\210\265\030\001\0226\n\004type\030\003 \001(\0132(.org",
-      ".jetbrains.kotlin.serialization.Type\022\017\n\007" +
-      "type_id\030\005 \001(\005\022E\n\023vararg_element_type\030\004 \001" +
-      "(\0132(.org.jetbrains.kotlin.serialization." +
-      "Type\022\036\n\026vararg_element_type_id\030\006 \001(\005*\005\010d" +
-      "\020\310\001\"&\n\tEnumEntry\022\022\n\004name\030\001 \001(\005B\004\210\265\030\001*\005\010d" +
-      "\020\310\001*9\n\010Modality\022\t\n\005FINAL\020\000\022\010\n\004OPEN\020\001\022\014\n\010" +
-      "ABSTRACT\020\002\022\n\n\006SEALED\020\003*b\n\nVisibility\022\014\n\010" +
-      "INTERNAL\020\000\022\013\n\007PRIVATE\020\001\022\r\n\tPROTECTED\020\002\022\n" +
-      "\n\006PUBLIC\020\003\022\023\n\017PRIVATE_TO_THIS\020\004\022\t\n\005LOCAL" +
-      "\020\005*Q\n\nMemberKind\022\017\n\013DECLARATION\020\000\022\021\n\rFAK",
-      "E_OVERRIDE\020\001\022\016\n\nDELEGATION\020\002\022\017\n\013SYNTHESI" +
-      "ZED\020\003B\022B\rDebugProtoBuf\210\001\000"
+      "alueParameter\022A\n\ntype_table\030\036 \001(\0132-.org." +
+      "jetbrains.kotlin.serialization.TypeTable" +
+      "*\005\010d\020\310\001\"\317\003\n\010Property\022\022\n\005flags\030\013 \001(\005:\003518" +
+      "\022\027\n\told_flags\030\001 \001(\005:\0042054\022\022\n\004name\030\002 \002(\005B",
+      "\004\210\265\030\001\022=\n\013return_type\030\003 \001(\0132(.org.jetbrai" +
+      "ns.kotlin.serialization.Type\022\026\n\016return_t" +
+      "ype_id\030\t \001(\005\022I\n\016type_parameter\030\004 \003(\01321.o" +
+      "rg.jetbrains.kotlin.serialization.TypePa" +
+      "rameter\022?\n\rreceiver_type\030\005 \001(\0132(.org.jet" +
+      "brains.kotlin.serialization.Type\022\030\n\020rece" +
+      "iver_type_id\030\n \001(\005\022R\n\026setter_value_param" +
+      "eter\030\006 \001(\01322.org.jetbrains.kotlin.serial" +
+      "ization.ValueParameter\022\024\n\014getter_flags\030\007" +
+      " \001(\005\022\024\n\014setter_flags\030\010 \001(\005*\005\010d\020\310\001\"\355\001\n\016Va",
+      "lueParameter\022\020\n\005flags\030\001 \001(\005:\0010\022\022\n\004name\030\002" +
+      " \002(\005B\004\210\265\030\001\0226\n\004type\030\003 \001(\0132(.org.jetbrains" +
+      ".kotlin.serialization.Type\022\017\n\007type_id\030\005 " +
+      "\001(\005\022E\n\023vararg_element_type\030\004 \001(\0132(.org.j" +
+      "etbrains.kotlin.serialization.Type\022\036\n\026va" +
+      "rarg_element_type_id\030\006 \001(\005*\005\010d\020\310\001\"&\n\tEnu" +
+      "mEntry\022\022\n\004name\030\001 \001(\005B\004\210\265\030\001*\005\010d\020\310\001*9\n\010Mod" +
+      "ality\022\t\n\005FINAL\020\000\022\010\n\004OPEN\020\001\022\014\n\010ABSTRACT\020\002" +
+      "\022\n\n\006SEALED\020\003*b\n\nVisibility\022\014\n\010INTERNAL\020\000" +
+      "\022\013\n\007PRIVATE\020\001\022\r\n\tPROTECTED\020\002\022\n\n\006PUBLIC\020\003",
+      "\022\023\n\017PRIVATE_TO_THIS\020\004\022\t\n\005LOCAL\020\005*Q\n\nMemb" +
+      "erKind\022\017\n\013DECLARATION\020\000\022\021\n\rFAKE_OVERRIDE" +
+      "\020\001\022\016\n\nDELEGATION\020\002\022\017\n\013SYNTHESIZED\020\003B\022B\rD" +
+      "ebugProtoBuf\210\001\000"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
       new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
@@ -21904,13 +22370,13 @@ public final class DebugProtoBuf {
           internal_static_org_jetbrains_kotlin_serialization_Class_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_org_jetbrains_kotlin_serialization_Class_descriptor,
-              new java.lang.String[] { "Flags", "FqName", "CompanionObjectName", "TypeParameter", "Supertype", "SupertypeId", "NestedClassName", "Constructor", "Function", "Property", "EnumEntry", "TypeTable", });
+              new java.lang.String[] { "Flags", "FqName", "CompanionObjectName", "TypeParameter", "Supertype", "SupertypeId", "NestedClassName", "Constructor", "Function", "Property", "EnumEntry", "TypeTable", "MemberNameIndex", });
           internal_static_org_jetbrains_kotlin_serialization_Package_descriptor =
             getDescriptor().getMessageTypes().get(6);
           internal_static_org_jetbrains_kotlin_serialization_Package_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_org_jetbrains_kotlin_serialization_Package_descriptor,
-              new java.lang.String[] { "Function", "Property", "TypeTable", });
+              new java.lang.String[] { "Function", "Property", "TypeTable", "MemberNameIndex", });
           internal_static_org_jetbrains_kotlin_serialization_TypeTable_descriptor =
             getDescriptor().getMessageTypes().get(7);
           internal_static_org_jetbrains_kotlin_serialization_TypeTable_fieldAccessorTable = new
@@ -21961,6 +22427,8 @@ public final class DebugProtoBuf {
           registry.add(org.jetbrains.kotlin.serialization.DebugExtOptionsProtoBuf.fqNameIdInTable);
           registry.add(org.jetbrains.kotlin.serialization.DebugExtOptionsProtoBuf.nameIdInTable);
           registry.add(org.jetbrains.kotlin.serialization.DebugExtOptionsProtoBuf.nameIdInTable);
+          registry.add(org.jetbrains.kotlin.serialization.DebugExtOptionsProtoBuf.skipInComparison);
+          registry.add(org.jetbrains.kotlin.serialization.DebugExtOptionsProtoBuf.skipInComparison);
           registry.add(org.jetbrains.kotlin.serialization.DebugExtOptionsProtoBuf.nameIdInTable);
           registry.add(org.jetbrains.kotlin.serialization.DebugExtOptionsProtoBuf.nameIdInTable);
           registry.add(org.jetbrains.kotlin.serialization.DebugExtOptionsProtoBuf.nameIdInTable);
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.serialization
+
+import junit.framework.TestCase
+import org.jetbrains.kotlin.name.ClassId
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.kotlin.serialization.deserialization.MemberNameIndex
+import org.jetbrains.kotlin.serialization.deserialization.NameResolver
+import java.util.*
+
+class MemberNameIndexTest : TestCase() {
+    private class StringListNameResolver : NameResolver {
+        val strings = ArrayList<String>()
+
+        fun getId(name: Name): Int {
+            val index = strings.indexOf(name.asString())
+            if (index >= 0) return index
+            strings.add(name.asString())
+            return strings.size - 1
+        }
+
+        override fun getString(index: Int) = strings[index]
+
+        override fun getName(index: Int) = Name.guessByFirstCharacter(strings[index])
+
+        override fun getClassId(index: Int): ClassId = throw UnsupportedOperationException()
+    }
+
+    fun testLookup() {
+        // Non-extensions first, then extensions, as in the serialized class
+        val functions = listOf("b", "d", "foo", "foo", "<init>", "a", "foo", "zz").map { Name.guessByFirstCharacter(it) }
+        val properties = (1..10).map { Name.identifier("p${it % 7}") } + Name.identifier("foo")
+
+        val nameResolver = StringListNameResolver()
+        val table = MemberNameIndex.serialize(functions, properties) { nameResolver.getId(it) }
+        val index = MemberNameIndex(table, nameResolver)
+
+        for (name in (functions + properties + Name.identifier("missing")).toSet()) {
+            assertEquals(name.asString(), functions.indices.filter { functions[it] == name }, index.getFunctions(name, functions.indices.toList()))
+            assertEquals(name.asString(), properties.indices.filter { properties[it] == name }, index.getProperties(name, properties.indices.toList()))
+        }
+
+        assertEquals(functions.toSortedSet().toList(), index.functionNames.toList())
+        assertEquals(properties.toSortedSet().toList(), index.propertyNames.toList())
+    }
+
+    fun testNoIndexForSmallScopes() {
+        val names = listOf(Name.identifier("a"), Name.identifier("b"))
+        assertTrue(MemberNameIndex.serialize(names, names) { throw AssertionError() }.isEmpty())
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.serialization
+
+import com.intellij.openapi.util.Disposer
+import org.jetbrains.kotlin.descriptors.ClassDescriptor
+import org.jetbrains.kotlin.descriptors.ModuleDescriptor
+import org.jetbrains.kotlin.incremental.components.NoLookupLocation
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.kotlin.resolve.descriptorUtil.classId
+import org.jetbrains.kotlin.resolve.lazy.JvmResolveUtil
+import org.jetbrains.kotlin.resolve.scopes.DescriptorKindFilter
+import org.jetbrains.kotlin.resolve.scopes.MemberScope
+import org.jetbrains.kotlin.serialization.deserialization.findClassAcrossModuleDependencies
+import org.jetbrains.kotlin.test.ConfigurationKind
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import java.util.*
+
+/**
+ * Resolves members of all packages and classes of the Kotlin runtime, in a new module on each round:
+ * first every function and property is looked up by its name, as the compiler does, then all descriptors are requested.
+ * Compare the numbers for a runtime compiled before and after a change in the metadata format.
+ */
+object StdlibMemberResolutionBenchmark {
+    private val ROUNDS = 10
+
+    private class ScopeNames(val getScope: (ModuleDescriptor) -> MemberScope, val names: Set<Name>)
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        // Names are collected in a separate module, so that lookups by name are measured on fresh scopes
+        val scopes = ArrayList<ScopeNames>()
+        withRuntimeModule { module -> collectNames(module, FqName("kotlin"), scopes) }
+        println("${scopes.size} scopes, ${scopes.sumBy { it.names.size }} names")
+
+        for (round in 1..ROUNDS) {
+            withRuntimeModule { module ->
+                val memberScopes = scopes.map { it.getScope(module) }
+
+                var start = System.nanoTime()
+                var lookedUp = 0
+                for ((scope, scopeNames) in memberScopes.zip(scopes)) {
+                    for (name in scopeNames.names) {
+                        lookedUp += scope.getContributedFunctions(name, NoLookupLocation.FROM_TEST).size
+                        lookedUp += scope.getContributedVariables(name, NoLookupLocation.FROM_TEST).size
+                    }
+                }
+                val lookupTime = System.nanoTime() - start
+
+                start = System.nanoTime()
+                var all = 0
+                for (scope in memberScopes) {
+                    all += scope.getContributedDescriptors().size
+                }
+                val allTime = System.nanoTime() - start
+
+                println("round $round: $lookedUp members looked up by name in ${lookupTime / 1000000} ms, " +
+                        "$all descriptors in ${allTime / 1000000} ms")
+            }
+        }
+    }
+
+    private inline fun withRuntimeModule(block: (ModuleDescriptor) -> Unit) {
+        val disposable = Disposer.newDisposable()
+        try {
+            val environment = KotlinTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(disposable, ConfigurationKind.ALL)
+            block(JvmResolveUtil.analyzeFilesWithJavaIntegration(environment.project, emptyList(), environment).moduleDescriptor)
+        }
+        finally {
+            Disposer.dispose(disposable)
+        }
+    }
+
+    private fun collectNames(module: ModuleDescriptor, fqName: FqName, result: MutableList<ScopeNames>) {
+        val packageScope = module.getPackage(fqName).memberScope
+        result.add(ScopeNames({ it.getPackage(fqName).memberScope }, packageScope.getCallableNames()))
+        for (descriptor in packageScope.getContributedDescriptors(DescriptorKindFilter.CLASSIFIERS)) {
+            if (descriptor is ClassDescriptor) {
+                collectNames(descriptor, result)
+            }
+        }
+        for (subPackage in module.getSubPackagesOf(fqName) { true }) {
+            collectNames(module, subPackage, result)
+        }
+    }
+
+    private fun collectNames(classDescriptor: ClassDescriptor, result: MutableList<ScopeNames>) {
+        val classId = classDescriptor.classId
+        result.add(ScopeNames(
+                { it.findClassAcrossModuleDependencies(classId)!!.unsubstitutedMemberScope },
+                classDescriptor.unsubstitutedMemberScope.getCallableNames()
+        ))
+        for (descriptor in classDescriptor.unsubstitutedInnerClassesScope.getContributedDescriptors(DescriptorKindFilter.CLASSIFIERS)) {
+            if (descriptor is ClassDescriptor) {
+                collectNames(descriptor, result)
+            }
+        }
+    }
+
+    private fun MemberScope.getCallableNames(): Set<Name> =
+            getContributedDescriptors(DescriptorKindFilter.CALLABLES).mapTo(LinkedHashSet()) { it.name }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.serialization.js
+
+import com.google.protobuf.ByteString
+import junit.framework.TestCase
+import org.jetbrains.kotlin.utils.JsBinaryVersion
+import org.jetbrains.kotlin.utils.KotlinJavascriptMetadata
+import org.jetbrains.kotlin.utils.KotlinJavascriptMetadataUtils
+import java.io.ByteArrayOutputStream
+import java.util.zip.GZIPOutputStream
+
+class JsLibraryContentTest : TestCase() {
+    private val CONTENT = mapOf(
+            "a/a.kjsm" to byteArrayOf(1, 2, 3),
+            "a/b/B.kjsm" to ByteArray(10000) { (it % 7).toByte() },
+            "a/b/C.kjsm" to byteArrayOf(),
+            "root.kjsm" to byteArrayOf(4)
+    )
+
+    fun testIndexedFormat() {
+        checkContent(JsLibraryContent.read(JsLibraryContent.write(CONTENT)))
+    }
+
+    fun testGzippedFormat() {
+        val library = JsProtoBuf.Library.newBuilder()
+        for ((path, bytes) in CONTENT) {
+            library.addEntry(JsProtoBuf.Library.FileEntry.newBuilder().setPath(path).setContent(ByteString.copyFrom(bytes)))
+        }
+        val body = ByteArrayOutputStream()
+        GZIPOutputStream(body).use { library.build().writeTo(it) }
+
+        checkContent(JsLibraryContent.read(body.toByteArray()))
+    }
+
+    fun testAbiVersions() {
+        val metadata = arrayListOf<KotlinJavascriptMetadata>()
+        val body = JsLibraryContent.write(CONTENT)
+        KotlinJavascriptMetadataUtils.parseMetadata(KotlinJavascriptMetadataUtils.formatMetadataAsString("lib", body), metadata)
+
+        // Compilers which only know the previous ABI version report the library as incompatible instead of failing to read it
+        assertEquals(JsBinaryVersion.INSTANCE.minor, metadata.single().abiVersion)
+        checkContent(JsLibraryContent.read(metadata.single().body))
+
+        assertTrue(KotlinJavascriptMetadataUtils.isAbiVersionCompatible(JsBinaryVersion.INSTANCE.minor))
+        assertTrue(KotlinJavascriptMetadataUtils.isAbiVersionCompatible(JsBinaryVersion.PREVIOUS.minor))
+        assertFalse(KotlinJavascriptMetadataUtils.isAbiVersionCompatible(JsBinaryVersion.PREVIOUS.minor - 1))
+        assertTrue(JsBinaryVersion(0, JsBinaryVersion.PREVIOUS.minor, 0).isCompatible())
+        assertFalse(JsBinaryVersion.INVALID_VERSION.isCompatible())
+    }
+
+    private fun checkContent(content: JsLibraryContent) {
+        assertEquals(CONTENT.keys, content.paths.toSet())
+        for ((path, bytes) in CONTENT) {
+            assertEquals(path, bytes.toList(), content[path]!!.toList())
+        }
+        assertNull(content["a/missing.kjsm"])
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.storage;
+
+import kotlin.Unit;
+import kotlin.jvm.functions.Function0;
+import kotlin.jvm.functions.Function1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PerKeyLockingStorageManagerTest extends StorageManagerTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        m = LockBasedStorageManager.createWithPerKeyLocking(LockBasedStorageManager.ExceptionHandlingStrategy.THROW);
+    }
+
+    public void testConcurrentCallsComputeOnce() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final MemoizedFunctionToNotNull<String, String> f = m.createMemoizedFunction(
+                new Function1<String, String>() {
+                    @Override
+                    public String invoke(String s) {
+                        counter.incrementAndGet();
+                        sleep(50);
+                        return s + "!";
+                    }
+                }
+        );
+
+        final List<String> results = new ArrayList<String>();
+        runInThreads(8, start, new Runnable() {
+            @Override
+            public void run() {
+                String result = f.invoke("a");
+                synchronized (results) {
+                    results.add(result);
+                }
+            }
+        });
+
+        assertEquals(1, counter.get());
+        assertEquals(8, results.size());
+        for (String result : results) {
+            assertEquals("a!", result);
+        }
+    }
+
+    public void testDifferentKeysAreComputedInParallel() throws Exception {
+        final CountDownLatch bothInside = new CountDownLatch(2);
+        final MemoizedFunctionToNotNull<String, Boolean> f = m.createMemoizedFunction(
+                new Function1<String, Boolean>() {
+                    @Override
+                    public Boolean invoke(String s) {
+                        bothInside.countDown();
+                        try {
+                            return bothInside.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                        }
+                        catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }
+        );
+
+        final AtomicInteger key = new AtomicInteger();
+        runInThreads(2, new CountDownLatch(0), new Runnable() {
+            @Override
+            public void run() {
+                assertTrue("Computations for different keys should not block each other",
+                           f.invoke("key" + key.incrementAndGet()));
+            }
+        });
+    }
+
+    public void testCrossThreadCycleIsResolvedAsInOneThread() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final AtomicReference<NotNullLazyValue<String>> a = new AtomicReference<NotNullLazyValue<String>>();
+        final AtomicReference<NotNullLazyValue<String>> b = new AtomicReference<NotNullLazyValue<String>>();
+        a.set(m.createRecursionTolerantLazyValue(dependentOn("a", b, bothStarted), "recursion"));
+        b.set(m.createRecursionTolerantLazyValue(dependentOn("b", a, bothStarted), "recursion"));
+
+        final List<String> results = new ArrayList<String>();
+        runInThreads(2, new CountDownLatch(0), new Runnable() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public void run() {
+                String result = (index.getAndIncrement() == 0 ? a : b).get().invoke();
+                synchronized (results) {
+                    results.add(result);
+                }
+            }
+        });
+
+        String resultA = a.get().invoke();
+        String resultB = b.get().invoke();
+        // The thread waiting for the value started first sees the recursion, as if it has computed both values itself
+        assertTrue(resultA + " " + resultB, resultA.equals("abrecursion") && resultB.equals("brecursion") ||
+                                            resultA.equals("arecursion") && resultB.equals("barecursion"));
+        assertTrue(results.toString(), results.contains(resultA) && results.contains(resultB));
+    }
+
+    public void testCrossThreadCycleComputesEachValueOnce() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final Map<String, AtomicInteger> computed = new ConcurrentHashMap<String, AtomicInteger>();
+        final Map<String, AtomicInteger> postComputed = new ConcurrentHashMap<String, AtomicInteger>();
+        final AtomicReference<NotNullLazyValue<String>> a = new AtomicReference<NotNullLazyValue<String>>();
+        final AtomicReference<NotNullLazyValue<String>> b = new AtomicReference<NotNullLazyValue<String>>();
+        a.set(countingLazyValue("a", dependentOn("a", b, bothStarted), computed, postComputed));
+        b.set(countingLazyValue("b", dependentOn("b", a, bothStarted), computed, postComputed));
+
+        runInThreads(2, new CountDownLatch(0), new Runnable() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public void run() {
+                (index.getAndIncrement() == 0 ? a : b).get().invoke();
+            }
+        });
+
+        for (String key : Arrays.asList("a", "b")) {
+            assertEquals("Computations of " + key, 1, computed.get(key).get());
+            assertEquals("Post-computations of " + key, 1, postComputed.get(key).get());
+        }
+    }
+
+    public void testCrossThreadCycleInMemoizedFunctionComputesEachKeyOnce() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final Map<String, AtomicInteger> computed = new ConcurrentHashMap<String, AtomicInteger>();
+        final AtomicReference<MemoizedFunctionToNotNull<String, String>> f =
+                new AtomicReference<MemoizedFunctionToNotNull<String, String>>();
+        f.set(m.createMemoizedFunction(new Function1<String, String>() {
+            @Override
+            public String invoke(String s) {
+                counter(computed, s).incrementAndGet();
+                awaitBoth(bothStarted);
+                return s + f.get().invoke(s.equals("a") ? "b" : "a");
+            }
+        }));
+
+        final AtomicInteger recursions = new AtomicInteger();
+        runInThreads(2, new CountDownLatch(0), new Runnable() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public void run() {
+                try {
+                    f.get().invoke(index.getAndIncrement() == 0 ? "a" : "b");
+                }
+                catch (AssertionError e) {
+                    assertTrue(e.getMessage(), e.getMessage().startsWith("Recursion detected"));
+                    recursions.incrementAndGet();
+                }
+            }
+        });
+
+        // The recursion is thrown in one thread and reaches the other one through the cached exception
+        assertEquals(2, recursions.get());
+        assertEquals(1, computed.get("a").get());
+        assertEquals(1, computed.get("b").get());
+    }
+
+    public void testCycleThroughComputeLockIsNotRecursion() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final AtomicInteger counter = new AtomicInteger();
+        final NotNullLazyValue<Object> value = m.createLazyValue(new Function0<Object>() {
+            @Override
+            public Object invoke() {
+                counter.incrementAndGet();
+                awaitBoth(bothStarted);
+                return m.compute(new Function0<Object>() {
+                    @Override
+                    public Object invoke() {
+                        return new Object();
+                    }
+                });
+            }
+        });
+
+        final List<Object> results = new ArrayList<Object>();
+        runInThreads(2, new CountDownLatch(0), new Runnable() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public void run() {
+                Object result;
+                if (index.getAndIncrement() == 0) {
+                    result = value.invoke();
+                }
+                else {
+                    result = m.compute(new Function0<Object>() {
+                        @Override
+                        public Object invoke() {
+                            awaitBoth(bothStarted);
+                            return value.invoke();
+                        }
+                    });
+                }
+                synchronized (results) {
+                    results.add(result);
+                }
+            }
+        });
+
+        // The compute lock is released while waiting, so the value is computed once by the thread that has started it
+        assertEquals(1, counter.get());
+        assertEquals(2, results.size());
+        assertSame(value.invoke(), results.get(0));
+        assertSame(value.invoke(), results.get(1));
+    }
+
+    public void testCycleThroughComputeLockInMemoizedFunction() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final AtomicInteger counter = new AtomicInteger();
+        final MemoizedFunctionToNotNull<String, Object> f = m.createMemoizedFunction(new Function1<String, Object>() {
+            @Override
+            public Object invoke(String s) {
+                counter.incrementAndGet();
+                awaitBoth(bothStarted);
+                return m.compute(new Function0<Object>() {
+                    @Override
+                    public Object invoke() {
+                        return new Object();
+                    }
+                });
+            }
+        });
+
+        final List<Object> results = new ArrayList<Object>();
+        runInThreads(2, new CountDownLatch(0), new Runnable() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public void run() {
+                Object result;
+                if (index.getAndIncrement() == 0) {
+                    result = f.invoke("a");
+                }
+                else {
+                    result = m.compute(new Function0<Object>() {
+                        @Override
+                        public Object invoke() {
+                            awaitBoth(bothStarted);
+                            return f.invoke("a");
+                        }
+                    });
+                }
+                synchronized (results) {
+                    results.add(result);
+                }
+            }
+        });
+
+        assertEquals(1, counter.get());
+        assertEquals(2, results.size());
+        assertSame(f.invoke("a"), results.get(0));
+        assertSame(f.invoke("a"), results.get(1));
+    }
+
+    private static Function0<String> dependentOn(
+            final String prefix,
+            final AtomicReference<NotNullLazyValue<String>> other,
+            final CountDownLatch bothStarted
+    ) {
+        return new Function0<String>() {
+            @Override
+            public String invoke() {
+                awaitBoth(bothStarted);
+                return prefix + other.get().invoke();
+            }
+        };
+    }
+
+    private NotNullLazyValue<String> countingLazyValue(
+            final String key,
+            final Function0<String> computable,
+            final Map<String, AtomicInteger> computed,
+            final Map<String, AtomicInteger> postComputed
+    ) {
+        return m.createLazyValueWithPostCompute(
+                new Function0<String>() {
+                    @Override
+                    public String invoke() {
+                        counter(computed, key).incrementAndGet();
+                        return computable.invoke();
+                    }
+                },
+                new Function1<Boolean, String>() {
+                    @Override
+                    public String invoke(Boolean firstTime) {
+                        return "recursion";
+                    }
+                },
+                new Function1<String, Unit>() {
+                    @Override
+                    public Unit invoke(String value) {
+                        counter(postComputed, key).incrementAndGet();
+                        return Unit.INSTANCE;
+                    }
+                }
+        );
+    }
+
+    private static AtomicInteger counter(Map<String, AtomicInteger> counters, String key) {
+        synchronized (counters) {
+            AtomicInteger counter = counters.get(key);
+            if (counter == null) {
+                counter = new AtomicInteger();
+                counters.put(key, counter);
+            }
+            return counter;
+        }
+    }
+
+    private static void runInThreads(int threadCount, final CountDownLatch start, final Runnable runnable) throws Exception {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        runnable.run();
+                    }
+                    catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+            assertFalse("Thread is still running, probably a deadlock", thread.isAlive());
+        }
+
+        Throwable throwable = failure.get();
+        if (throwable instanceof Error) throw (Error) throwable;
+        if (throwable instanceof Exception) throw (Exception) throwable;
+    }
+
+    private static void awaitBoth(CountDownLatch bothStarted) {
+        bothStarted.countDown();
+        try {
+            bothStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
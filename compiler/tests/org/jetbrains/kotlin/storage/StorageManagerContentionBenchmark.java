@@ -0,0 +1,132 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.storage;
+
+import kotlin.jvm.functions.Function1;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Compares the global lock of {@link LockBasedStorageManager} with per-key locking under contention.
+ * Every thread resolves its own range of keys (all misses) and then reads keys computed by all threads (all hits).
+ * Run with {@code main()}, optional arguments: number of keys per thread, number of rounds.
+ */
+public class StorageManagerContentionBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+
+    public static void main(String[] args) throws Exception {
+        int keysPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.println("threads\tmanager\tmisses (ms)\thits (ms)");
+        for (int threads : THREAD_COUNTS) {
+            for (boolean perKey : new boolean[] {false, true}) {
+                long missesTime = Long.MAX_VALUE;
+                long hitsTime = Long.MAX_VALUE;
+                for (int round = 0; round < rounds; round++) {
+                    long[] result = run(perKey, threads, keysPerThread);
+                    missesTime = Math.min(missesTime, result[0]);
+                    hitsTime = Math.min(hitsTime, result[1]);
+                }
+                System.out.println(threads + "\t" + (perKey ? "per-key" : "global") + "\t" +
+                                   TimeUnit.NANOSECONDS.toMillis(missesTime) + "\t" + TimeUnit.NANOSECONDS.toMillis(hitsTime));
+            }
+        }
+    }
+
+    private static long[] run(boolean perKey, final int threads, final int keysPerThread) throws Exception {
+        StorageManager storageManager = perKey
+                                        ? LockBasedStorageManager.createWithPerKeyLocking(
+                                                LockBasedStorageManager.ExceptionHandlingStrategy.THROW)
+                                        : new LockBasedStorageManager();
+        final MemoizedFunctionToNotNull<Integer, Integer> function = storageManager.createMemoizedFunction(
+                new Function1<Integer, Integer>() {
+                    @Override
+                    public Integer invoke(Integer key) {
+                        // Simulates a small amount of work done by a typical computation, e.g. a member scope lookup
+                        int result = key;
+                        for (int i = 0; i < 200; i++) {
+                            result = result * 31 + i;
+                        }
+                        return result;
+                    }
+                }
+        );
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long misses = runTasks(executor, threads, new TaskFactory() {
+                @Override
+                public Callable<Integer> create(final int threadIndex) {
+                    return new Callable<Integer>() {
+                        @Override
+                        public Integer call() {
+                            int sum = 0;
+                            for (int i = 0; i < keysPerThread; i++) {
+                                sum += function.invoke(threadIndex * keysPerThread + i);
+                            }
+                            return sum;
+                        }
+                    };
+                }
+            });
+
+            long hits = runTasks(executor, threads, new TaskFactory() {
+                @Override
+                public Callable<Integer> create(final int threadIndex) {
+                    return new Callable<Integer>() {
+                        @Override
+                        public Integer call() {
+                            int sum = 0;
+                            int total = threads * keysPerThread;
+                            for (int i = 0; i < keysPerThread; i++) {
+                                sum += function.invoke((threadIndex + i * threads) % total);
+                            }
+                            return sum;
+                        }
+                    };
+                }
+            });
+
+            return new long[] {misses, hits};
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface TaskFactory {
+        @NotNull
+        Callable<Integer> create(int threadIndex);
+    }
+
+    private static long runTasks(@NotNull ExecutorService executor, int threads, @NotNull TaskFactory factory) throws Exception {
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(threads);
+        for (int i = 0; i < threads; i++) {
+            tasks.add(factory.create(i));
+        }
+
+        long start = System.nanoTime();
+        for (Future<Integer> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        return System.nanoTime() - start;
+    }
+}
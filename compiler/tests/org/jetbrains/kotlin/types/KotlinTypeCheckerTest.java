@@ -18,13 +18,18 @@ package org.jetbrains.kotlin.types;
 
 import com.google.common.collect.Sets;
 import com.intellij.openapi.project.Project;
+import kotlin.jvm.functions.Function0;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.builtins.KotlinBuiltIns;
 import org.jetbrains.kotlin.cli.jvm.compiler.CliLightClassGenerationSupport;
 import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment;
-import org.jetbrains.kotlin.descriptors.PackageFragmentProvider;
+import org.jetbrains.kotlin.descriptors.*;
+import org.jetbrains.kotlin.descriptors.impl.ClassDescriptorImpl;
 import org.jetbrains.kotlin.descriptors.impl.ModuleDescriptorImpl;
+import org.jetbrains.kotlin.descriptors.impl.PackageFragmentDescriptorImpl;
 import org.jetbrains.kotlin.descriptors.impl.ReceiverParameterDescriptorImpl;
+import org.jetbrains.kotlin.name.FqName;
+import org.jetbrains.kotlin.name.Name;
 import org.jetbrains.kotlin.psi.KtExpression;
 import org.jetbrains.kotlin.psi.KtFile;
 import org.jetbrains.kotlin.psi.KtPsiFactoryKt;
@@ -37,6 +42,7 @@ import org.jetbrains.kotlin.resolve.lazy.LazyResolveTestUtil;
 import org.jetbrains.kotlin.resolve.scopes.LexicalScope;
 import org.jetbrains.kotlin.resolve.scopes.LexicalScopeImpl;
 import org.jetbrains.kotlin.resolve.scopes.LexicalScopeKind;
+import org.jetbrains.kotlin.resolve.scopes.MemberScope;
 import org.jetbrains.kotlin.resolve.scopes.receivers.TransientReceiver;
 import org.jetbrains.kotlin.test.ConfigurationKind;
 import org.jetbrains.kotlin.test.KotlinLiteFixture;
@@ -44,6 +50,7 @@ import org.jetbrains.kotlin.test.KotlinTestUtils;
 import org.jetbrains.kotlin.tests.di.ContainerForTests;
 import org.jetbrains.kotlin.tests.di.InjectionKt;
 import org.jetbrains.kotlin.types.checker.KotlinTypeChecker;
+import org.jetbrains.kotlin.types.checker.SubtypingCache;
 import org.jetbrains.kotlin.types.expressions.ExpressionTypingServices;
 
 import java.io.File;
@@ -308,6 +315,61 @@ public class KotlinTypeCheckerTest extends KotlinLiteFixture {
 //        assertSubtype("java.lang.Integer", "java.lang.Comparable<java.lang.Integer>?");
     }
 
+    public void testSubtypingCache() throws Exception {
+        SubtypingCache cache = new SubtypingCache();
+        assertTrue(isSubtypeOf(makeType("Int"), makeType("Number"), cache));
+        assertTrue(isSubtypeOf(makeType("Int"), makeType("Number?"), cache));
+        assertFalse(isSubtypeOf(makeType("Int?"), makeType("Number"), cache));
+        assertTrue(isSubtypeOf(makeType("Int?"), makeType("Number?"), cache));
+        assertFalse(isSubtypeOf(makeType("Number"), makeType("Int"), cache));
+
+        SubtypingCache.Statistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.size);
+        assertEquals(2, statistics.hits);
+        assertEquals(2, statistics.misses);
+
+        // Types with arguments are not cached, but their arguments are
+        assertTrue(isSubtypeOf(makeType("List<Int>"), makeType("Collection<Number>"), cache));
+        assertEquals(3, cache.getStatistics().hits);
+    }
+
+    public void testSubtypingCacheAgreesWithTypeChecker() throws Exception {
+        String[] types = {
+                "Any", "Any?", "Nothing", "Nothing?", "Unit", "Int", "Int?", "Long", "Number", "Number?", "Comparable<Int>",
+                "CharSequence", "String", "String?", "List<Int>", "List<Int>?", "List<Any>", "Collection<Number>",
+                "Base_T<Int>", "Base_T<*>", "Base_T<out Any>", "Base_T<in Int>", "Derived_T<Int>", "Derived_T<*>",
+                "Base_inT<Any>", "Base_inT<Int>", "Base_outT<Int>", "Base_outT<Any>", "Derived_outT<Int>"
+        };
+
+        // The cache is shared by all checks, so that later ones read results of earlier ones
+        SubtypingCache cache = new SubtypingCache();
+        for (int i = 0; i < 2; i++) {
+            for (String subtype : types) {
+                for (String supertype : types) {
+                    KotlinType typeNode1 = makeType(subtype);
+                    KotlinType typeNode2 = makeType(supertype);
+                    assertEquals(subtype + " <: " + supertype + " with the subtyping cache",
+                                 KotlinTypeChecker.DEFAULT.isSubtypeOf(typeNode1, typeNode2), isSubtypeOf(typeNode1, typeNode2, cache));
+                }
+            }
+        }
+        assertTrue(cache.getStatistics().hits > 0);
+    }
+
+    public void testSubtypingCacheDistinguishesClassesWithSameNameInDifferentModules() throws Exception {
+        ModuleDescriptorImpl firstModule = KotlinTestUtils.createEmptyModule("<first>");
+        ModuleDescriptorImpl secondModule = KotlinTestUtils.createEmptyModule("<second>");
+        KotlinType base = createClass(firstModule, "Base", builtIns.getAnyType()).getDefaultType();
+        KotlinType derivedInFirst = createClass(firstModule, "Derived", base).getDefaultType();
+        KotlinType derivedInSecond = createClass(secondModule, "Derived", builtIns.getAnyType()).getDefaultType();
+        assertEquals(derivedInFirst.getConstructor(), derivedInSecond.getConstructor());
+
+        SubtypingCache cache = new SubtypingCache();
+        assertTrue(isSubtypeOf(derivedInFirst, base, cache));
+        assertFalse(isSubtypeOf(derivedInSecond, base, cache));
+        assertEquals(2, cache.getStatistics().size);
+    }
+
     public void testNullable() throws Exception {
         assertSubtype("Any?", "Any?");
         assertSubtype("Any", "Any?");
@@ -541,6 +603,32 @@ public class KotlinTypeCheckerTest extends KotlinLiteFixture {
         assertTrue(typeNode1 + " is " + modifier + "a subtype of " + typeNode2, result == expected);
     }
 
+    private static boolean isSubtypeOf(final KotlinType subtype, final KotlinType supertype, SubtypingCache cache) {
+        return SubtypingCache.runWith(cache, new Function0<Boolean>() {
+            @Override
+            public Boolean invoke() {
+                return KotlinTypeChecker.WITH_SUBTYPING_CACHE.isSubtypeOf(subtype, supertype);
+            }
+        });
+    }
+
+    @NotNull
+    private static ClassDescriptor createClass(@NotNull ModuleDescriptor module, @NotNull String name, @NotNull KotlinType supertype) {
+        PackageFragmentDescriptor packageFragment = new PackageFragmentDescriptorImpl(module, new FqName("test")) {
+            @NotNull
+            @Override
+            public MemberScope getMemberScope() {
+                return MemberScope.Empty.INSTANCE;
+            }
+        };
+        ClassDescriptorImpl classDescriptor = new ClassDescriptorImpl(
+                packageFragment, Name.identifier(name), Modality.OPEN, ClassKind.CLASS, Collections.singletonList(supertype),
+                SourceElement.NO_SOURCE
+        );
+        classDescriptor.initialize(MemberScope.Empty.INSTANCE, Collections.<ConstructorDescriptor>emptySet(), null);
+        return classDescriptor;
+    }
+
     private void assertType(String expression, KotlinType expectedType) {
         Project project = getProject();
         KtExpression ktExpression = KtPsiFactoryKt.KtPsiFactory(project).createExpression(expression);
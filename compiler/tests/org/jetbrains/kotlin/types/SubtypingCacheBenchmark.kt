@@ -0,0 +1,67 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.types
+
+import com.intellij.openapi.util.Disposer
+import org.jetbrains.kotlin.resolve.lazy.JvmResolveUtil
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import org.jetbrains.kotlin.types.checker.SubtypingCache
+import java.io.File
+
+/**
+ * Analyzes Kotlin sources in a new environment on each round, alternately with and without the subtyping cache,
+ * and reports analysis times and the hit rate of the cache.
+ * Arguments are source directories, the compiler's own frontend sources by default (run from the repository root).
+ * Errors of unresolved dependencies don't matter, the type checker is called anyway.
+ */
+object SubtypingCacheBenchmark {
+    private val DEFAULT_SOURCES = listOf("compiler/frontend/src")
+    private val ROUNDS = 5
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        val directories = if (args.isNotEmpty()) args.toList() else DEFAULT_SOURCES
+        for (round in 1..ROUNDS) {
+            analyze(directories, null)
+
+            val cache = SubtypingCache()
+            analyze(directories, cache)
+            println("cache: ${cache.statistics}")
+        }
+    }
+
+    private fun analyze(directories: List<String>, cache: SubtypingCache?) {
+        val disposable = Disposer.newDisposable()
+        try {
+            val environment = KotlinTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(disposable)
+            val project = environment.project
+            val files = directories.flatMap { directory ->
+                File(directory).walk().filter { it.isFile && it.extension == "kt" }.map { KotlinTestUtils.loadJetFile(project, it) }.toList()
+            }
+
+            val start = System.nanoTime()
+            SubtypingCache.runWith(cache) {
+                JvmResolveUtil.analyzeFilesWithJavaIntegration(project, files, environment)
+            }
+            println("${files.size} files analyzed ${if (cache != null) "with" else "without"} the subtyping cache " +
+                    "in ${(System.nanoTime() - start) / 1000000} ms")
+        }
+        finally {
+            Disposer.dispose(disposable)
+        }
+    }
+}
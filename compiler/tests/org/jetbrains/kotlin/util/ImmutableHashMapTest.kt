@@ -0,0 +1,75 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.util
+
+import junit.framework.TestCase
+import java.util.*
+
+class ImmutableHashMapTest : TestCase() {
+    // Keys with few distinct hash codes, so that full hash collisions are frequent
+    private data class Key(val id: Int) {
+        override fun hashCode() = id % 7 * 0x10001
+    }
+
+    fun testSameAsHashMap() {
+        val random = Random(42)
+        val expected = HashMap<Key, Int>()
+        var map = ImmutableHashMap.empty<Key, Int>()
+        val snapshots = ArrayList<Pair<ImmutableHashMap<Key, Int>, Map<Key, Int>>>()
+
+        for (i in 1..20000) {
+            val key = Key(random.nextInt(500))
+            if (random.nextInt(3) == 0) {
+                expected.remove(key)
+                map = map.minus(key)
+            }
+            else {
+                val value = random.nextInt(10)
+                expected.put(key, value)
+                map = map.plus(key, value)
+            }
+            if (i % 1000 == 0) {
+                snapshots.add(map to HashMap(expected))
+            }
+            assertEquals(expected.size, map.size())
+        }
+
+        // Earlier versions are not affected by later modifications
+        for ((snapshot, contents) in snapshots) {
+            assertEquals(contents, toMap(snapshot))
+            for (id in 0..499) {
+                assertEquals(contents[Key(id)], snapshot[Key(id)])
+            }
+        }
+    }
+
+    fun testNoChanges() {
+        val map = ImmutableHashMap.empty<Key, String>().plus(Key(1), "a").plus(Key(8), "b")
+        assertSame(map, map.plus(Key(1), "a"))
+        assertSame(map, map.minus(Key(15)))
+        assertSame(ImmutableHashMap.empty<Key, String>(), map.minus(Key(1)).minus(Key(8)))
+        assertTrue(map.minus(Key(1)).minus(Key(8)).isEmpty)
+    }
+
+    private fun <K, V> toMap(map: ImmutableHashMap<K, V>): Map<K, V> {
+        val result = HashMap<K, V>()
+        for ((key, value) in map) {
+            assertNull(result.put(key, value))
+        }
+        return result
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.util.slicedMap
+
+import com.intellij.openapi.util.Disposer
+import org.jetbrains.kotlin.resolve.BindingContext
+import org.jetbrains.kotlin.resolve.BindingTraceContext
+import org.jetbrains.kotlin.resolve.lazy.JvmResolveUtil
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import java.io.File
+import java.util.*
+
+/**
+ * Analyzes Kotlin sources once, then replays everything written to the binding context into the default sliced map
+ * and into the one with identity tables, and compares their retained heap and read times.
+ * Arguments are source directories, the compiler's own Kotlin sources by default (run from the repository root).
+ * Errors of unresolved dependencies don't matter, expressions get their types anyway.
+ */
+object SlicedMapFootprintBenchmark {
+    private val DEFAULT_SOURCES = listOf("compiler/frontend/src", "compiler/frontend.java/src", "compiler/backend/src")
+    private val ROUNDS = 5
+
+    private class Entry(val slice: WritableSlice<Any?, Any?>, val key: Any?, val value: Any?)
+
+    private class RecordingTrace : BindingTraceContext() {
+        val entries = ArrayList<Entry>()
+
+        override fun <K, V> record(slice: WritableSlice<K, V>, key: K, value: V) {
+            @Suppress("UNCHECKED_CAST")
+            entries.add(Entry(slice as WritableSlice<Any?, Any?>, key, value))
+        }
+    }
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        val disposable = Disposer.newDisposable()
+        try {
+            val environment = KotlinTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(disposable)
+            val project = environment.project
+            val files = (if (args.isNotEmpty()) args.toList() else DEFAULT_SOURCES).flatMap { directory ->
+                File(directory).walk().filter { it.isFile && it.extension == "kt" }.map { KotlinTestUtils.loadJetFile(project, it) }.toList()
+            }
+
+            val start = System.nanoTime()
+            val bindingContext = JvmResolveUtil.analyzeFilesWithJavaIntegration(project, files, environment).bindingContext
+            println("${files.size} files analyzed in ${(System.nanoTime() - start) / 1000000} ms")
+
+            val trace = RecordingTrace()
+            bindingContext.addOwnDataTo(trace, false)
+            val entries = trace.entries
+            val tableSlices = setOf<Any>(BindingContext.EXPRESSION_TYPE_INFO, BindingContext.REFERENCE_TARGET, BindingContext.RESOLVED_CALL)
+            println("${entries.size} entries, ${entries.count { it.slice in tableSlices }} of them in " +
+                    "EXPRESSION_TYPE_INFO, REFERENCE_TARGET and RESOLVED_CALL")
+
+            measure("default", entries) { SlicedMapImpl.create() }
+            measure("identity tables", entries) {
+                SlicedMapWithIdentityTables(BindingContext.EXPRESSION_TYPE_INFO, BindingContext.REFERENCE_TARGET, BindingContext.RESOLVED_CALL)
+            }
+        }
+        finally {
+            Disposer.dispose(disposable)
+        }
+    }
+
+    private fun measure(name: String, entries: List<Entry>, create: () -> MutableSlicedMap) {
+        val before = usedMemory()
+        val map = create()
+        for (entry in entries) {
+            map.put(entry.slice, entry.key, entry.value)
+        }
+        val retained = usedMemory() - before
+
+        var bestReadTime = Long.MAX_VALUE
+        var found = 0
+        for (round in 1..ROUNDS) {
+            found = 0
+            val start = System.nanoTime()
+            for (entry in entries) {
+                if (map.get(entry.slice, entry.key) != null) found++
+            }
+            bestReadTime = Math.min(bestReadTime, System.nanoTime() - start)
+        }
+
+        println("$name: retained ${retained / 1024} KB, reads ${bestReadTime / 1000000} ms ($found found)")
+    }
+
+    private fun usedMemory(): Long {
+        val runtime = Runtime.getRuntime()
+        for (i in 1..5) {
+            System.gc()
+        }
+        return runtime.totalMemory() - runtime.freeMemory()
+    }
+}
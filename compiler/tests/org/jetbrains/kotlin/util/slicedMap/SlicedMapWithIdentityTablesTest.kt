@@ -0,0 +1,81 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.util.slicedMap
+
+import junit.framework.TestCase
+import java.util.*
+
+class SlicedMapWithIdentityTablesTest : TestCase() {
+    private class Key(val name: String) {
+        override fun toString() = name
+    }
+
+    private val TABLE = Slices.createSimpleSlice<Key?, String>()
+    private val OTHER = Slices.createSimpleSlice<Key?, String>()
+    private val COLLECTIVE = Slices.createCollectiveSlice<Key?, String>()
+
+    fun testSameAsDefault() {
+        val keys = (1..1000).map { Key("k$it") } + null
+        val default = SlicedMapImpl.create()
+        val tables = SlicedMapWithIdentityTables(TABLE)
+
+        for (map in listOf(default, tables)) {
+            for ((i, key) in keys.withIndex()) {
+                map.put(TABLE, key, "table$i")
+                if (i % 3 == 0) map.put(OTHER, key, "other$i")
+                if (i % 5 == 0) map.put(COLLECTIVE, key, "collective$i")
+            }
+            // A rewrite
+            map.put(TABLE, keys[0], "rewritten")
+        }
+
+        for (key in keys) {
+            for (slice in listOf(TABLE, OTHER, COLLECTIVE)) {
+                assertEquals(default.get(slice, key), tables.get(slice, key))
+            }
+        }
+        assertEquals("rewritten", tables.get(TABLE, keys[0]))
+        assertNull(tables.get(TABLE, Key("missing")))
+        assertEquals(default.getKeys(COLLECTIVE), tables.getKeys(COLLECTIVE))
+        assertEquals(dump(default), dump(tables))
+        assertEquals(default.getSliceContents(OTHER), tables.getSliceContents(OTHER))
+
+        tables.clear()
+        assertNull(tables.get(TABLE, keys[1]))
+        assertNull(tables.get(OTHER, keys[0]))
+        assertEquals(0, dump(tables).size)
+    }
+
+    fun testRawValueVersionOfTableSlice() {
+        val slice = Slices.sliceBuilder<Key?, String>().setFurtherLookupSlices(TABLE).build()
+        val map = SlicedMapWithIdentityTables(TABLE)
+        val key = Key("a")
+        map.put(TABLE, key, "value")
+
+        assertEquals("value", map.get(TABLE.makeRawValueVersion(), key))
+        assertEquals("value", map.get(slice, key))
+    }
+
+    private fun dump(map: SlicedMap): Set<String> {
+        val result = HashSet<String>()
+        map.forEach { slice, key, value ->
+            result.add("$slice ${System.identityHashCode(key)} $value")
+            null
+        }
+        return result
+    }
+}
@@ -21,11 +21,16 @@ import org.jetbrains.annotations.TestOnly;
 public class IncrementalCompilation {
     private static final String INCREMENTAL_COMPILATION_PROPERTY = "kotlin.incremental.compilation";
     private static final String IS_EXPERIMENTAL_PROPERTY = "kotlin.incremental.compilation.experimental";
+    private static final String SEGMENTED_LOOKUP_STORAGE_PROPERTY = "kotlin.incremental.compilation.segmented.lookups";
 
     public static boolean isExperimental() {
         return isEnabled() && "true".equals(System.getProperty(IS_EXPERIMENTAL_PROPERTY));
     }
 
+    public static boolean isSegmentedLookupStorage() {
+        return "true".equals(System.getProperty(SEGMENTED_LOOKUP_STORAGE_PROPERTY));
+    }
+
     public static boolean isEnabled() {
         return !"false".equals(System.getProperty(INCREMENTAL_COMPILATION_PROPERTY));
     }
@@ -39,4 +44,9 @@ public class IncrementalCompilation {
     public static void setIsExperimental(boolean value) {
         System.setProperty(IS_EXPERIMENTAL_PROPERTY, String.valueOf(value));
     }
+
+    @TestOnly
+    public static void setIsSegmentedLookupStorage(boolean value) {
+        System.setProperty(SEGMENTED_LOOKUP_STORAGE_PROPERTY, String.valueOf(value));
+    }
 }
\ No newline at end of file
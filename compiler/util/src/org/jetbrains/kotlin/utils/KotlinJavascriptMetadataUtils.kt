@@ -27,11 +27,15 @@ class KotlinJavascriptMetadata(val abiVersion: Int, val moduleName: String, val
 
 // TODO: move to JS modules
 class JsBinaryVersion(vararg numbers: Int) : BinaryVersion(*numbers) {
-    override fun isCompatible() = this.isCompatibleTo(INSTANCE)
+    override fun isCompatible() = this.isCompatibleTo(INSTANCE) || this.isCompatibleTo(PREVIOUS)
 
     companion object {
         @JvmField
-        val INSTANCE = JsBinaryVersion(0, 3, 0)
+        val INSTANCE = JsBinaryVersion(0, 4, 0)
+
+        // Metadata bodies of this version are gzipped JsProtoBuf.Library messages, which are still read
+        @JvmField
+        val PREVIOUS = JsBinaryVersion(0, 3, 0)
 
         @JvmField
         val INVALID_VERSION = JsBinaryVersion()
@@ -51,10 +55,11 @@ object KotlinJavascriptMetadataUtils {
     private val METADATA_PATTERN = "(?m)\\w+\\.$KOTLIN_JAVASCRIPT_METHOD_NAME\\((\\d+),\\s*(['\"])([^'\"]*)\\2,\\s*(['\"])([^'\"]*)\\4\\)".toPattern()
 
     @JvmField val ABI_VERSION: Int = JsBinaryVersion.INSTANCE.minor
+    private val PREVIOUS_ABI_VERSION: Int = JsBinaryVersion.PREVIOUS.minor
 
     fun replaceSuffix(filePath: String): String = filePath.substringBeforeLast(JS_EXT) + META_JS_SUFFIX
 
-    @JvmStatic fun isAbiVersionCompatible(abiVersion: Int): Boolean = abiVersion == ABI_VERSION
+    @JvmStatic fun isAbiVersionCompatible(abiVersion: Int): Boolean = abiVersion == ABI_VERSION || abiVersion == PREVIOUS_ABI_VERSION
 
     @JvmStatic fun hasMetadata(text: String): Boolean =
             KOTLIN_JAVASCRIPT_METHOD_NAME_PATTERN.matcher(text).find() && METADATA_PATTERN.matcher(text).find()
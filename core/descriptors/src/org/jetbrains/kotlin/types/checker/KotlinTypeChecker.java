@@ -26,7 +26,12 @@ public class KotlinTypeChecker {
         boolean equals(@NotNull TypeConstructor a, @NotNull TypeConstructor b);
     }
 
-    public static final KotlinTypeChecker DEFAULT = new KotlinTypeChecker(new TypeCheckingProcedure(new TypeCheckerProcedureCallbacksImpl()));
+    public static final KotlinTypeChecker DEFAULT =
+            new KotlinTypeChecker(new TypeCheckingProcedure(new TypeCheckerProcedureCallbacksImpl(), SubtypingCache.ENABLED));
+
+    // The same as DEFAULT, but uses the subtyping cache installed on the current thread even if the cache is not enabled
+    public static final KotlinTypeChecker WITH_SUBTYPING_CACHE =
+            new KotlinTypeChecker(new TypeCheckingProcedure(new TypeCheckerProcedureCallbacksImpl(), true));
 
     public static final KotlinTypeChecker ERROR_TYPES_ARE_EQUAL_TO_ANYTHING = new KotlinTypeChecker(new TypeCheckingProcedure(new TypeCheckerProcedureCallbacksImpl() {
         @Override
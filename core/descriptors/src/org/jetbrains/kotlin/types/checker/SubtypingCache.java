@@ -0,0 +1,134 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.types.checker;
+
+import kotlin.jvm.functions.Function0;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.descriptors.ClassDescriptor;
+import org.jetbrains.kotlin.types.*;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers whether one class is a subclass of another, so that {@link KotlinTypeChecker#DEFAULT} doesn't walk the supertypes
+ * again for the same pair of types. Only types without arguments whose constructors are classes are cached:
+ * for them the result depends on the type constructors only (and on nullability, which is checked separately).
+ *
+ * The cache is used by the type checker only while it's installed with {@link #runWith} on the current thread,
+ * and only if it's enabled with the system property (otherwise the type checker doesn't even look for it).
+ * Descriptors of different resolution sessions are different, so a cache should be installed for one session only.
+ *
+ * Type constructors are compared by identity: equal constructors of classes with the same name
+ * in different modules may have different supertypes.
+ */
+public final class SubtypingCache {
+    public static final boolean ENABLED = Boolean.getBoolean("kotlin.type.checker.subtyping.cache");
+
+    private static final ThreadLocal<SubtypingCache> CURRENT = new ThreadLocal<SubtypingCache>();
+
+    @Nullable
+    public static SubtypingCache getCurrent() {
+        return CURRENT.get();
+    }
+
+    public static <T> T runWith(@Nullable SubtypingCache cache, @NotNull Function0<T> block) {
+        SubtypingCache previous = CURRENT.get();
+        CURRENT.set(cache);
+        try {
+            return block.invoke();
+        }
+        finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static boolean isCacheable(@NotNull KotlinType type) {
+        return !FlexibleTypesKt.isFlexible(type) &&
+               !type.isError() &&
+               type.getArguments().isEmpty() &&
+               type.getConstructor().getDeclarationDescriptor() instanceof ClassDescriptor &&
+               type.getCapability(SubtypingRepresentatives.class) == null &&
+               !TypeCapabilitiesKt.isCustomTypeVariable(type);
+    }
+
+    private final ConcurrentHashMap<ConstructorPair, Boolean> results = new ConcurrentHashMap<ConstructorPair, Boolean>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Nullable
+    Boolean get(@NotNull TypeConstructor subtype, @NotNull TypeConstructor supertype) {
+        Boolean result = results.get(new ConstructorPair(subtype, supertype));
+        (result != null ? hits : misses).incrementAndGet();
+        return result;
+    }
+
+    void put(@NotNull TypeConstructor subtype, @NotNull TypeConstructor supertype, boolean result) {
+        results.put(new ConstructorPair(subtype, supertype), result);
+    }
+
+    @NotNull
+    public Statistics getStatistics() {
+        return new Statistics(results.size(), hits.get(), misses.get());
+    }
+
+    public static final class Statistics {
+        public final int size;
+        public final long hits;
+        public final long misses;
+
+        public Statistics(int size, long hits, long misses) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public double getHitRate() {
+            return hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+        }
+
+        @Override
+        public String toString() {
+            return "size: " + size + ", hits: " + hits + ", misses: " + misses + ", hit rate: " + String.format(Locale.US, "%.3f", getHitRate());
+        }
+    }
+
+    private static final class ConstructorPair {
+        private final TypeConstructor subtype;
+        private final TypeConstructor supertype;
+
+        ConstructorPair(@NotNull TypeConstructor subtype, @NotNull TypeConstructor supertype) {
+            this.subtype = subtype;
+            this.supertype = supertype;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ConstructorPair)) return false;
+            ConstructorPair other = (ConstructorPair) o;
+            return subtype == other.subtype && supertype == other.supertype;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(subtype) + System.identityHashCode(supertype);
+        }
+    }
+}
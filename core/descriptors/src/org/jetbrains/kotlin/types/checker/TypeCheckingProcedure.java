@@ -59,9 +59,16 @@ public class TypeCheckingProcedure {
     }
 
     private final TypeCheckingProcedureCallbacks constraints;
+    private final boolean useSubtypingCache;
 
     public TypeCheckingProcedure(TypeCheckingProcedureCallbacks constraints) {
+        this(constraints, false);
+    }
+
+    // The cache may only be used with callbacks which have no side effects and compare type constructors with equals()
+    /* package */ TypeCheckingProcedure(TypeCheckingProcedureCallbacks constraints, boolean useSubtypingCache) {
         this.constraints = constraints;
+        this.useSubtypingCache = useSubtypingCache;
     }
 
     public boolean equalTypes(@NotNull KotlinType type1, @NotNull KotlinType type2) {
@@ -184,6 +191,23 @@ public class TypeCheckingProcedure {
     }
 
     public boolean isSubtypeOf(@NotNull KotlinType subtype, @NotNull KotlinType supertype) {
+        if (!useSubtypingCache) return isSubtypeOfNoCache(subtype, supertype);
+
+        SubtypingCache cache = SubtypingCache.getCurrent();
+        if (cache != null && SubtypingCache.isCacheable(subtype) && SubtypingCache.isCacheable(supertype)) {
+            if (subtype.isMarkedNullable() && !supertype.isMarkedNullable()) return false;
+
+            Boolean cached = cache.get(subtype.getConstructor(), supertype.getConstructor());
+            if (cached != null) return cached;
+
+            boolean result = isSubtypeOfNoCache(subtype, supertype);
+            cache.put(subtype.getConstructor(), supertype.getConstructor(), result);
+            return result;
+        }
+        return isSubtypeOfNoCache(subtype, supertype);
+    }
+
+    private boolean isSubtypeOfNoCache(@NotNull KotlinType subtype, @NotNull KotlinType supertype) {
         if (TypeCapabilitiesKt.sameTypeConstructors(subtype, supertype)) {
             return !subtype.isMarkedNullable() || supertype.isMarkedNullable();
         }
@@ -7562,6 +7562,35 @@ public final class ProtoBuf {
      * <code>optional .org.jetbrains.kotlin.serialization.TypeTable type_table = 30;</code>
      */
     org.jetbrains.kotlin.serialization.ProtoBuf.TypeTable getTypeTable();
+
+    // repeated int32 member_name_index = 31 [packed = true];
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    java.util.List<java.lang.Integer> getMemberNameIndexList();
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    int getMemberNameIndexCount();
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    int getMemberNameIndex(int index);
   }
   /**
    * Protobuf type {@code org.jetbrains.kotlin.serialization.Class}
@@ -7724,6 +7753,27 @@ public final class ProtoBuf {
               bitField0_ |= 0x00000008;
               break;
             }
+            case 248: {
+              if (!((mutable_bitField0_ & 0x00001000) == 0x00001000)) {
+                memberNameIndex_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00001000;
+              }
+              memberNameIndex_.add(input.readInt32());
+              break;
+            }
+            case 250: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00001000) == 0x00001000) && input.getBytesUntilLimit() > 0) {
+                memberNameIndex_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00001000;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                memberNameIndex_.add(input.readInt32());
+              }
+              input.popLimit(limit);
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -7756,6 +7806,9 @@ public final class ProtoBuf {
         if (((mutable_bitField0_ & 0x00000400) == 0x00000400)) {
           enumEntry_ = java.util.Collections.unmodifiableList(enumEntry_);
         }
+        if (((mutable_bitField0_ & 0x00001000) == 0x00001000)) {
+          memberNameIndex_ = java.util.Collections.unmodifiableList(memberNameIndex_);
+        }
         makeExtensionsImmutable();
       }
     }
@@ -8232,6 +8285,45 @@ public final class ProtoBuf {
       return typeTable_;
     }
 
+    // repeated int32 member_name_index = 31 [packed = true];
+    public static final int MEMBER_NAME_INDEX_FIELD_NUMBER = 31;
+    private java.util.List<java.lang.Integer> memberNameIndex_;
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    public java.util.List<java.lang.Integer>
+        getMemberNameIndexList() {
+      return memberNameIndex_;
+    }
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    public int getMemberNameIndexCount() {
+      return memberNameIndex_.size();
+    }
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    public int getMemberNameIndex(int index) {
+      return memberNameIndex_.get(index);
+    }
+    private int memberNameIndexMemoizedSerializedSize = -1;
+
     private void initFields() {
       flags_ = 6;
       fqName_ = 0;
@@ -8245,6 +8337,7 @@ public final class ProtoBuf {
       property_ = java.util.Collections.emptyList();
       enumEntry_ = java.util.Collections.emptyList();
       typeTable_ = org.jetbrains.kotlin.serialization.ProtoBuf.TypeTable.getDefaultInstance();
+      memberNameIndex_ = java.util.Collections.emptyList();
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -8355,6 +8448,13 @@ public final class ProtoBuf {
       if (((bitField0_ & 0x00000008) == 0x00000008)) {
         output.writeMessage(30, typeTable_);
       }
+      if (getMemberNameIndexList().size() > 0) {
+        output.writeRawVarint32(250);
+        output.writeRawVarint32(memberNameIndexMemoizedSerializedSize);
+      }
+      for (int i = 0; i < memberNameIndex_.size(); i++) {
+        output.writeInt32NoTag(memberNameIndex_.get(i));
+      }
       extensionWriter.writeUntil(200, output);
     }
 
@@ -8432,6 +8532,20 @@ public final class ProtoBuf {
         size += com.google.protobuf.CodedOutputStream
           .computeMessageSize(30, typeTable_);
       }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < memberNameIndex_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt32SizeNoTag(memberNameIndex_.get(i));
+        }
+        size += dataSize;
+        if (!getMemberNameIndexList().isEmpty()) {
+          size += 2;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        memberNameIndexMemoizedSerializedSize = dataSize;
+      }
       size += extensionsSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -8547,6 +8661,8 @@ public final class ProtoBuf {
         bitField0_ = (bitField0_ & ~0x00000400);
         typeTable_ = org.jetbrains.kotlin.serialization.ProtoBuf.TypeTable.getDefaultInstance();
         bitField0_ = (bitField0_ & ~0x00000800);
+        memberNameIndex_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00001000);
         return this;
       }
 
@@ -8626,6 +8742,11 @@ public final class ProtoBuf {
           to_bitField0_ |= 0x00000008;
         }
         result.typeTable_ = typeTable_;
+        if (((bitField0_ & 0x00001000) == 0x00001000)) {
+          memberNameIndex_ = java.util.Collections.unmodifiableList(memberNameIndex_);
+          bitField0_ = (bitField0_ & ~0x00001000);
+        }
+        result.memberNameIndex_ = memberNameIndex_;
         result.bitField0_ = to_bitField0_;
         return result;
       }
@@ -8724,6 +8845,16 @@ public final class ProtoBuf {
         if (other.hasTypeTable()) {
           mergeTypeTable(other.getTypeTable());
         }
+        if (!other.memberNameIndex_.isEmpty()) {
+          if (memberNameIndex_.isEmpty()) {
+            memberNameIndex_ = other.memberNameIndex_;
+            bitField0_ = (bitField0_ & ~0x00001000);
+          } else {
+            ensureMemberNameIndexIsMutable();
+            memberNameIndex_.addAll(other.memberNameIndex_);
+          }
+          
+        }
         this.mergeExtensionFields(other);
         return this;
       }
@@ -9883,6 +10014,107 @@ public final class ProtoBuf {
         return this;
       }
 
+      // repeated int32 member_name_index = 31 [packed = true];
+      private java.util.List<java.lang.Integer> memberNameIndex_ = java.util.Collections.emptyList();
+      private void ensureMemberNameIndexIsMutable() {
+        if (!((bitField0_ & 0x00001000) == 0x00001000)) {
+          memberNameIndex_ = new java.util.ArrayList<java.lang.Integer>(memberNameIndex_);
+          bitField0_ |= 0x00001000;
+         }
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public java.util.List<java.lang.Integer>
+          getMemberNameIndexList() {
+        return java.util.Collections.unmodifiableList(memberNameIndex_);
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public int getMemberNameIndexCount() {
+        return memberNameIndex_.size();
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public int getMemberNameIndex(int index) {
+        return memberNameIndex_.get(index);
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder setMemberNameIndex(
+          int index, int value) {
+        ensureMemberNameIndexIsMutable();
+        memberNameIndex_.set(index, value);
+        
+        return this;
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder addMemberNameIndex(int value) {
+        ensureMemberNameIndexIsMutable();
+        memberNameIndex_.add(value);
+        
+        return this;
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder addAllMemberNameIndex(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureMemberNameIndexIsMutable();
+        super.addAll(values, memberNameIndex_);
+        
+        return this;
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder clearMemberNameIndex() {
+        memberNameIndex_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00001000);
+        
+        return this;
+      }
+
       // @@protoc_insertion_point(builder_scope:org.jetbrains.kotlin.serialization.Class)
     }
 
@@ -9937,6 +10169,35 @@ public final class ProtoBuf {
      * <code>optional .org.jetbrains.kotlin.serialization.TypeTable type_table = 30;</code>
      */
     org.jetbrains.kotlin.serialization.ProtoBuf.TypeTable getTypeTable();
+
+    // repeated int32 member_name_index = 31 [packed = true];
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    java.util.List<java.lang.Integer> getMemberNameIndexList();
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    int getMemberNameIndexCount();
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    int getMemberNameIndex(int index);
   }
   /**
    * Protobuf type {@code org.jetbrains.kotlin.serialization.Package}
@@ -10010,6 +10271,27 @@ public final class ProtoBuf {
               bitField0_ |= 0x00000001;
               break;
             }
+            case 248: {
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+                memberNameIndex_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              memberNameIndex_.add(input.readInt32());
+              break;
+            }
+            case 250: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008) && input.getBytesUntilLimit() > 0) {
+                memberNameIndex_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                memberNameIndex_.add(input.readInt32());
+              }
+              input.popLimit(limit);
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -10024,6 +10306,9 @@ public final class ProtoBuf {
         if (((mutable_bitField0_ & 0x00000002) == 0x00000002)) {
           property_ = java.util.Collections.unmodifiableList(property_);
         }
+        if (((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+          memberNameIndex_ = java.util.Collections.unmodifiableList(memberNameIndex_);
+        }
         makeExtensionsImmutable();
       }
     }
@@ -10131,10 +10416,50 @@ public final class ProtoBuf {
       return typeTable_;
     }
 
+    // repeated int32 member_name_index = 31 [packed = true];
+    public static final int MEMBER_NAME_INDEX_FIELD_NUMBER = 31;
+    private java.util.List<java.lang.Integer> memberNameIndex_;
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    public java.util.List<java.lang.Integer>
+        getMemberNameIndexList() {
+      return memberNameIndex_;
+    }
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    public int getMemberNameIndexCount() {
+      return memberNameIndex_.size();
+    }
+    /**
+     * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+     *
+     * <pre>
+     * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+     * Written only for classes and packages with a lot of members
+     * </pre>
+     */
+    public int getMemberNameIndex(int index) {
+      return memberNameIndex_.get(index);
+    }
+    private int memberNameIndexMemoizedSerializedSize = -1;
+
     private void initFields() {
       function_ = java.util.Collections.emptyList();
       property_ = java.util.Collections.emptyList();
       typeTable_ = org.jetbrains.kotlin.serialization.ProtoBuf.TypeTable.getDefaultInstance();
+      memberNameIndex_ = java.util.Collections.emptyList();
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -10182,6 +10507,13 @@ public final class ProtoBuf {
       if (((bitField0_ & 0x00000001) == 0x00000001)) {
         output.writeMessage(30, typeTable_);
       }
+      if (getMemberNameIndexList().size() > 0) {
+        output.writeRawVarint32(250);
+        output.writeRawVarint32(memberNameIndexMemoizedSerializedSize);
+      }
+      for (int i = 0; i < memberNameIndex_.size(); i++) {
+        output.writeInt32NoTag(memberNameIndex_.get(i));
+      }
       extensionWriter.writeUntil(200, output);
     }
 
@@ -10203,6 +10535,20 @@ public final class ProtoBuf {
         size += com.google.protobuf.CodedOutputStream
           .computeMessageSize(30, typeTable_);
       }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < memberNameIndex_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt32SizeNoTag(memberNameIndex_.get(i));
+        }
+        size += dataSize;
+        if (!getMemberNameIndexList().isEmpty()) {
+          size += 2;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        memberNameIndexMemoizedSerializedSize = dataSize;
+      }
       size += extensionsSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -10300,6 +10646,8 @@ public final class ProtoBuf {
         bitField0_ = (bitField0_ & ~0x00000002);
         typeTable_ = org.jetbrains.kotlin.serialization.ProtoBuf.TypeTable.getDefaultInstance();
         bitField0_ = (bitField0_ & ~0x00000004);
+        memberNameIndex_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
         return this;
       }
 
@@ -10337,6 +10685,11 @@ public final class ProtoBuf {
           to_bitField0_ |= 0x00000001;
         }
         result.typeTable_ = typeTable_;
+        if (((bitField0_ & 0x00000008) == 0x00000008)) {
+          memberNameIndex_ = java.util.Collections.unmodifiableList(memberNameIndex_);
+          bitField0_ = (bitField0_ & ~0x00000008);
+        }
+        result.memberNameIndex_ = memberNameIndex_;
         result.bitField0_ = to_bitField0_;
         return result;
       }
@@ -10366,6 +10719,16 @@ public final class ProtoBuf {
         if (other.hasTypeTable()) {
           mergeTypeTable(other.getTypeTable());
         }
+        if (!other.memberNameIndex_.isEmpty()) {
+          if (memberNameIndex_.isEmpty()) {
+            memberNameIndex_ = other.memberNameIndex_;
+            bitField0_ = (bitField0_ & ~0x00000008);
+          } else {
+            ensureMemberNameIndexIsMutable();
+            memberNameIndex_.addAll(other.memberNameIndex_);
+          }
+          
+        }
         this.mergeExtensionFields(other);
         return this;
       }
@@ -10726,6 +11089,107 @@ public final class ProtoBuf {
         return this;
       }
 
+      // repeated int32 member_name_index = 31 [packed = true];
+      private java.util.List<java.lang.Integer> memberNameIndex_ = java.util.Collections.emptyList();
+      private void ensureMemberNameIndexIsMutable() {
+        if (!((bitField0_ & 0x00000008) == 0x00000008)) {
+          memberNameIndex_ = new java.util.ArrayList<java.lang.Integer>(memberNameIndex_);
+          bitField0_ |= 0x00000008;
+         }
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public java.util.List<java.lang.Integer>
+          getMemberNameIndexList() {
+        return java.util.Collections.unmodifiableList(memberNameIndex_);
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public int getMemberNameIndexCount() {
+        return memberNameIndex_.size();
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public int getMemberNameIndex(int index) {
+        return memberNameIndex_.get(index);
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder setMemberNameIndex(
+          int index, int value) {
+        ensureMemberNameIndexIsMutable();
+        memberNameIndex_.set(index, value);
+        
+        return this;
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder addMemberNameIndex(int value) {
+        ensureMemberNameIndexIsMutable();
+        memberNameIndex_.add(value);
+        
+        return this;
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder addAllMemberNameIndex(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureMemberNameIndexIsMutable();
+        super.addAll(values, memberNameIndex_);
+        
+        return this;
+      }
+      /**
+       * <code>repeated int32 member_name_index = 31 [packed = true];</code>
+       *
+       * <pre>
+       * Names of functions and properties, sorted, and indices of members with each name, see MemberNameIndex.
+       * Written only for classes and packages with a lot of members
+       * </pre>
+       */
+      public Builder clearMemberNameIndex() {
+        memberNameIndex_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
+        
+        return this;
+      }
+
       // @@protoc_insertion_point(builder_scope:org.jetbrains.kotlin.serialization.Package)
     }
 
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.serialization.deserialization
+
+import org.jetbrains.kotlin.name.Name
+import java.util.*
+
+/**
+ * Maps names of functions and properties of a class or a package to their indices in the proto, without grouping all members by name.
+ *
+ * The table (member_name_index in descriptors.proto) consists of the number of names N, N ids of names sorted by the name,
+ * N end offsets of entries for each name and the entries: for each function with the name its index * 2,
+ * for each property its index * 2 + 1. Offsets are relative to the start of the entries.
+ */
+class MemberNameIndex(table: List<Int>, private val nameResolver: NameResolver) {
+    private val table = table.toIntArray()
+    private val nameCount = this.table[0]
+    private val entriesStart = 1 + 2 * nameCount
+
+    init {
+        if (this.table.size < entriesStart) throw IllegalStateException("Corrupted member name index: ${this.table.size} < $entriesStart")
+    }
+
+    val functionNames: Collection<Name>
+        get() = getNames(FUNCTION)
+
+    val propertyNames: Collection<Name>
+        get() = getNames(PROPERTY)
+
+    fun <F> getFunctions(name: Name, functions: List<F>): List<F> = getMembers(name, functions, FUNCTION)
+
+    fun <P> getProperties(name: Name, properties: List<P>): List<P> = getMembers(name, properties, PROPERTY)
+
+    private fun getNames(kind: Int): Collection<Name> {
+        val result = ArrayList<Name>(nameCount)
+        for (i in 0..nameCount - 1) {
+            if ((entriesStart(i)..entriesEnd(i) - 1).any { table[it] and 1 == kind }) {
+                result.add(nameResolver.getName(table[1 + i]))
+            }
+        }
+        return result
+    }
+
+    private fun <M> getMembers(name: Name, members: List<M>, kind: Int): List<M> {
+        val i = findName(name.asString())
+        if (i < 0) return emptyList()
+
+        val result = ArrayList<M>(1)
+        for (entry in entriesStart(i)..entriesEnd(i) - 1) {
+            val value = table[entry]
+            if (value and 1 == kind) {
+                result.add(members[value shr 1])
+            }
+        }
+        return result
+    }
+
+    private fun findName(name: String): Int {
+        var low = 0
+        var high = nameCount - 1
+        while (low <= high) {
+            val middle = (low + high) ushr 1
+            val comparison = nameResolver.getString(table[1 + middle]).compareTo(name)
+            when {
+                comparison < 0 -> low = middle + 1
+                comparison > 0 -> high = middle - 1
+                else -> return middle
+            }
+        }
+        return -1
+    }
+
+    private fun entriesStart(i: Int) = entriesStart + (if (i == 0) 0 else table[nameCount + i])
+
+    private fun entriesEnd(i: Int) = entriesStart + table[1 + nameCount + i]
+
+    companion object {
+        private val FUNCTION = 0
+        private val PROPERTY = 1
+
+        // For smaller classes grouping members by name is cheap, and the table is not worth the space
+        private val MIN_MEMBER_COUNT = 16
+
+        /**
+         * @param functionNames names of functions in the order in which they are serialized
+         * @param propertyNames names of properties in the order in which they are serialized
+         * @return the table to be written to member_name_index, or an empty list if there are too few members for it
+         */
+        @JvmStatic
+        fun serialize(functionNames: List<Name>, propertyNames: List<Name>, getNameId: (Name) -> Int): List<Int> {
+            if (functionNames.size + propertyNames.size < MIN_MEMBER_COUNT) return emptyList()
+
+            val entries = TreeMap<Name, MutableList<Int>>()
+            for ((index, name) in functionNames.withIndex()) {
+                entries.getOrPut(name) { ArrayList(1) }.add(index shl 1 or FUNCTION)
+            }
+            for ((index, name) in propertyNames.withIndex()) {
+                entries.getOrPut(name) { ArrayList(1) }.add(index shl 1 or PROPERTY)
+            }
+
+            val result = ArrayList<Int>(1 + 2 * entries.size + functionNames.size + propertyNames.size)
+            result.add(entries.size)
+            entries.keys.mapTo(result) { getNameId(it) }
+            var end = 0
+            for (indices in entries.values) {
+                end += indices.size
+                result.add(end)
+            }
+            for (indices in entries.values) {
+                result.addAll(indices)
+            }
+            return result
+        }
+    }
+}
@@ -32,12 +32,16 @@ import java.util.*
 
 abstract class DeserializedMemberScope protected constructor(
         protected val c: DeserializationContext,
-        functionList: Collection<ProtoBuf.Function>,
-        propertyList: Collection<ProtoBuf.Property>
+        private val functionList: List<ProtoBuf.Function>,
+        private val propertyList: List<ProtoBuf.Property>,
+        memberNameIndex: List<Int>
 ) : MemberScopeImpl() {
 
     private data class ProtoKey(val name: Name, val isExtension: Boolean)
 
+    // Members of classes and packages serialized with the name index are looked up there, other members are grouped by name once
+    private val memberNameIndex = if (memberNameIndex.isNotEmpty()) MemberNameIndex(memberNameIndex, c.nameResolver) else null
+
     private val functionProtos =
             c.storageManager.createLazyValue {
                 groupByKey(functionList, { it.name }) { it.receiverType(c.typeTable) != null }
@@ -63,9 +67,16 @@ abstract class DeserializedMemberScope protected constructor(
         return map
     }
 
+    private fun getFunctionProtos(name: Name): List<ProtoBuf.Function> =
+            memberNameIndex?.getFunctions(name, functionList) ?:
+            functionProtos()[ProtoKey(name, isExtension = false)].orEmpty() + functionProtos()[ProtoKey(name, isExtension = true)].orEmpty()
+
+    private fun getPropertyProtos(name: Name): List<ProtoBuf.Property> =
+            memberNameIndex?.getProperties(name, propertyList) ?:
+            propertyProtos()[ProtoKey(name, isExtension = false)].orEmpty() + propertyProtos()[ProtoKey(name, isExtension = true)].orEmpty()
+
     private fun computeFunctions(name: Name): Collection<FunctionDescriptor> {
-        val protos = functionProtos()[ProtoKey(name, isExtension = false)].orEmpty() +
-                     functionProtos()[ProtoKey(name, isExtension = true)].orEmpty()
+        val protos = getFunctionProtos(name)
 
         val descriptors = protos.mapTo(linkedSetOf()) {
             c.memberDeserializer.loadFunction(it)
@@ -84,8 +95,7 @@ abstract class DeserializedMemberScope protected constructor(
     }
 
     private fun computeProperties(name: Name): Collection<PropertyDescriptor> {
-        val protos = propertyProtos()[ProtoKey(name, isExtension = false)].orEmpty() +
-                     propertyProtos()[ProtoKey(name, isExtension = true)].orEmpty()
+        val protos = getPropertyProtos(name)
 
         val descriptors = protos.mapTo(linkedSetOf()) {
             c.memberDeserializer.loadProperty(it)
@@ -143,16 +153,20 @@ abstract class DeserializedMemberScope protected constructor(
             location: LookupLocation
     ) {
         if (kindFilter.acceptsKinds(DescriptorKindFilter.VARIABLES_MASK)) {
-            val keys = propertyProtos().keys.filter { nameFilter(it.name) }
-            addMembers(result, keys) { getContributedVariables(it, location) }
+            val keys = memberNameIndex?.let { indexedKeys(it.propertyNames) } ?: propertyProtos().keys
+            addMembers(result, keys.filter { nameFilter(it.name) }) { getContributedVariables(it, location) }
         }
 
         if (kindFilter.acceptsKinds(DescriptorKindFilter.FUNCTIONS_MASK)) {
-            val keys = functionProtos().keys.filter { nameFilter(it.name) }
-            addMembers(result, keys) { getContributedFunctions(it, location) }
+            val keys = memberNameIndex?.let { indexedKeys(it.functionNames) } ?: functionProtos().keys
+            addMembers(result, keys.filter { nameFilter(it.name) }) { getContributedFunctions(it, location) }
         }
     }
 
+    // The index doesn't tell extensions from non-extensions, members with each name are filtered in addMembers anyway
+    private fun indexedKeys(names: Collection<Name>): List<ProtoKey> =
+            listOf(false, true).flatMap { isExtension -> names.map { ProtoKey(it, isExtension) } }
+
     private fun addMembers(
             result: MutableCollection<DeclarationDescriptor>,
             keys: Collection<ProtoKey>,
@@ -41,7 +41,7 @@ open class DeserializedPackageMemberScope(
         classNames: () -> Collection<Name>
 ) : DeserializedMemberScope(
         components.createContext(packageDescriptor, nameResolver, TypeTable(proto.typeTable), packagePartSource),
-        proto.functionList, proto.propertyList
+        proto.functionList, proto.propertyList, proto.memberNameIndexList
 ) {
     private val packageFqName = packageDescriptor.fqName
 
@@ -33,12 +33,43 @@ internal abstract class FunctionCaller<out M : Member>(
             instanceClass?.let { listOf(it, *valueParameterTypes) } ?:
             valueParameterTypes.toList()
 
-    abstract fun call(args: Array<*>): Any?
+    // Null until the first call through a method handle; NO_INVOKER if the member can't be called this way
+    @Volatile
+    private var invoker: Any? = null
+
+    fun call(args: Array<*>): Any? {
+        if (USE_METHOD_HANDLES) {
+            val invoker = getMethodHandleInvoker()
+            if (invoker != null && invoker.isUsable) {
+                checkArguments(args)
+                val result = invoker.invoke(args)
+                return if (returnType == Void.TYPE) Unit else result
+            }
+        }
+        return callReflectively(args)
+    }
+
+    protected abstract fun callReflectively(args: Array<*>): Any?
+
+    private fun getMethodHandleInvoker(): MethodHandleInvoker? {
+        val cached = invoker
+        if (cached != null) return if (cached === NO_INVOKER) null else cached as MethodHandleInvoker
+
+        // Several invokers may be created concurrently, any of them can be used
+        val created = MethodHandleInvoker.create(member, this is FieldSetter || this is ClassCompanionFieldSetter, parameterTypes.size)
+        invoker = created ?: NO_INVOKER
+        return created
+    }
 
     protected open fun checkArguments(args: Array<*>) {
         if (parameterTypes.size != args.size) {
             throw IllegalArgumentException("Callable expects ${parameterTypes.size} arguments, but ${args.size} were provided.")
         }
+
+        // Same as java.lang.reflect for a null receiver of an instance member, which a method handle would report differently
+        if (instanceClass != null && member !is ReflectConstructor<*> && !Modifier.isStatic(member.modifiers) && args[0] == null) {
+            throw NullPointerException("Null receiver of an instance member ${member.name}")
+        }
     }
 
     protected fun checkObjectInstance(obj: Any?) {
@@ -58,7 +89,7 @@ internal abstract class FunctionCaller<out M : Member>(
             },
             constructor.genericParameterTypes
     ) {
-        override fun call(args: Array<*>): Any? {
+        override fun callReflectively(args: Array<*>): Any? {
             checkArguments(args)
             return member.newInstance(*args)
         }
@@ -86,23 +117,27 @@ internal abstract class FunctionCaller<out M : Member>(
     }
 
     class StaticMethod(method: ReflectMethod) : Method(method) {
-        override fun call(args: Array<*>): Any? {
+        override fun callReflectively(args: Array<*>): Any? {
             checkArguments(args)
             return callMethod(null, args)
         }
     }
 
     class InstanceMethod(method: ReflectMethod) : Method(method) {
-        override fun call(args: Array<*>): Any? {
+        override fun callReflectively(args: Array<*>): Any? {
             checkArguments(args)
             return callMethod(args[0], args.asList().subList(1, args.size).toTypedArray())
         }
     }
 
     class JvmStaticInObject(method: ReflectMethod) : Method(method, requiresInstance = true) {
-        override fun call(args: Array<*>): Any? {
-            checkArguments(args)
+        override fun checkArguments(args: Array<*>) {
+            super.checkArguments(args)
             checkObjectInstance(args.firstOrNull())
+        }
+
+        override fun callReflectively(args: Array<*>): Any? {
+            checkArguments(args)
             return callMethod(null, args.asList().subList(1, args.size).toTypedArray())
         }
     }
@@ -118,7 +153,7 @@ internal abstract class FunctionCaller<out M : Member>(
             if (requiresInstance) field.declaringClass else null,
             emptyArray()
     ) {
-        override fun call(args: Array<*>): Any? {
+        override fun callReflectively(args: Array<*>): Any? {
             checkArguments(args)
             return member.get(if (instanceClass != null) args.first() else null)
         }
@@ -141,7 +176,7 @@ internal abstract class FunctionCaller<out M : Member>(
             }
         }
 
-        override fun call(args: Array<*>): Any? {
+        override fun callReflectively(args: Array<*>): Any? {
             checkArguments(args)
             return member.set(if (instanceClass != null) args.first() else null, args.last())
         }
@@ -167,7 +202,7 @@ internal abstract class FunctionCaller<out M : Member>(
             klass,
             emptyArray()
     ) {
-        override fun call(args: Array<*>): Any? {
+        override fun callReflectively(args: Array<*>): Any? {
             checkArguments(args)
             return member.get(args.first())
         }
@@ -193,9 +228,27 @@ internal abstract class FunctionCaller<out M : Member>(
             klass,
             arrayOf(field.genericType)
     ) {
-        override fun call(args: Array<*>): Any? {
+        override fun callReflectively(args: Array<*>): Any? {
             checkArguments(args)
             return member.set(instanceClass, args.last())
         }
     }
+
+    companion object {
+        // Opt-in: calls through method handles are faster once the handle is created, but creating it takes more time.
+        // Requires Java 7
+        private val USE_METHOD_HANDLES =
+                java.lang.Boolean.getBoolean("kotlin.reflect.jvm.useMethodHandles") && isMethodHandleSupported()
+
+        private val NO_INVOKER = Any()
+
+        private fun isMethodHandleSupported(): Boolean =
+                try {
+                    Class.forName("java.lang.invoke.MethodHandle")
+                    true
+                }
+                catch (e: ClassNotFoundException) {
+                    false
+                }
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kotlin.reflect.jvm.internal;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+
+/**
+ * Calls a member through a method handle taking all arguments in one array, adapted once for the member.
+ * Exceptions are reported the same way as by java.lang.reflect: exceptions thrown by the member are wrapped
+ * into {@link InvocationTargetException}, arguments of wrong types lead to {@link IllegalArgumentException}.
+ * A null receiver of an instance member must be rejected by the caller, since it's reported by java.lang.reflect as {@link NullPointerException}.
+ *
+ * Requires Java 7, so this class must only be loaded if {@link FunctionCaller} is configured to use method handles.
+ */
+/* package */ final class MethodHandleInvoker {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodHandle NEW_INVOCATION_TARGET_EXCEPTION;
+
+    static {
+        try {
+            NEW_INVOCATION_TARGET_EXCEPTION = LOOKUP.findConstructor(
+                    InvocationTargetException.class, MethodType.methodType(void.class, Throwable.class)
+            );
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Member member;
+    private final boolean isPublic;
+    // (Object[])Object
+    private final MethodHandle handle;
+
+    private MethodHandleInvoker(@NotNull Member member, @NotNull MethodHandle handle) {
+        this.member = member;
+        this.isPublic = Modifier.isPublic(member.getModifiers()) && Modifier.isPublic(member.getDeclaringClass().getModifiers());
+        this.handle = handle;
+    }
+
+    /**
+     * @param arity the number of arguments of a call, if the member takes one argument less (e.g. a static method of an object),
+     *              the first argument is ignored
+     * @return null if the member is not accessible from here
+     */
+    @Nullable
+    static MethodHandleInvoker create(@NotNull Member member, boolean isFieldSetter, int arity) {
+        MethodHandle handle;
+        try {
+            if (member instanceof Method) {
+                handle = wrapExceptions(LOOKUP.unreflect((Method) member));
+            }
+            else if (member instanceof Constructor) {
+                if (Modifier.isAbstract(member.getDeclaringClass().getModifiers())) return null;
+                handle = wrapExceptions(LOOKUP.unreflectConstructor((Constructor<?>) member));
+            }
+            else if (member instanceof Field) {
+                handle = isFieldSetter ? LOOKUP.unreflectSetter((Field) member) : LOOKUP.unreflectGetter((Field) member);
+            }
+            else {
+                return null;
+            }
+        }
+        catch (IllegalAccessException e) {
+            return null;
+        }
+
+        int parameterCount = handle.type().parameterCount();
+        if (parameterCount == arity - 1) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        else if (parameterCount != arity) {
+            return null;
+        }
+
+        handle = handle.asType(MethodType.genericMethodType(arity)).asSpreader(Object[].class, arity);
+        return new MethodHandleInvoker(member, handle);
+    }
+
+    private static MethodHandle wrapExceptions(@NotNull MethodHandle target) {
+        MethodType type = target.type();
+        MethodHandle rethrow = MethodHandles.filterArguments(
+                MethodHandles.throwException(type.returnType(), InvocationTargetException.class), 0, NEW_INVOCATION_TARGET_EXCEPTION
+        );
+        MethodHandle handler = MethodHandles.dropArguments(rethrow, 1, type.parameterList());
+        return MethodHandles.catchException(target, Throwable.class, handler);
+    }
+
+    // The handle was created with access checks suppressed for a non-public member, and the member may have been made inaccessible since
+    boolean isUsable() {
+        return isPublic || ((AccessibleObject) member).isAccessible();
+    }
+
+    Object invoke(@NotNull Object[] args) throws Throwable {
+        try {
+            return (Object) handle.invokeExact(args);
+        }
+        catch (ClassCastException e) {
+            throw new IllegalArgumentException("argument type mismatch", e);
+        }
+        catch (NullPointerException e) {
+            // The receiver is checked by FunctionCaller, so this is a null argument for a parameter of a primitive type
+            throw new IllegalArgumentException("null argument for a parameter of a primitive type", e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kotlin.reflect.jvm.internal
+
+import java.util.Locale
+
+/**
+ * Statistics of a cache used by the reflection implementation.
+ * Hits and misses are only counted if the system property `kotlin.reflect.jvm.cacheStatistics` is set to `true`
+ * before the reflection is first used, otherwise they are always zero.
+ *
+ * @property size the number of cached entries, including the ones whose keys or values are collected but not removed yet
+ */
+internal class ReflectionCacheStatistics(val size: Int, val hits: Long, val misses: Long) {
+    val hitRate: Double
+        get() = if (hits + misses == 0L) 0.0 else hits.toDouble() / (hits + misses)
+
+    override fun toString() = "size: $size, hits: $hits, misses: $misses, hit rate: ${"%.3f".format(Locale.US, hitRate)}"
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kotlin.reflect.jvm.internal
+
+import java.lang.ref.Reference
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+import java.util.*
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+// Hits and misses of reflection caches are only counted if this property is set, because counting slows down each lookup
+internal val COLLECT_CACHE_STATISTICS = java.lang.Boolean.getBoolean("kotlin.reflect.jvm.cacheStatistics")
+
+private const val INITIAL_CAPACITY = 64
+
+/**
+ * A concurrent cache from keys compared by identity to values, which neither keeps keys nor values from being garbage collected.
+ *
+ * Lookups take no locks and allocate nothing: entries form immutable chains in an atomic array, which are replaced under the lock
+ * on the cache by insertions and removals. Entries whose key or value has been collected are removed on subsequent misses and insertions.
+ */
+internal class WeakIdentityCache<K : Any, V : Any>(collectStatistics: Boolean = COLLECT_CACHE_STATISTICS) {
+    private val queue = ReferenceQueue<Any>()
+
+    @Volatile
+    private var table = AtomicReferenceArray<Entry<V>?>(INITIAL_CAPACITY)
+
+    // Guarded by this
+    private var size = 0
+
+    private val hits: AtomicLong? = if (collectStatistics) AtomicLong() else null
+    private val misses: AtomicLong? = if (collectStatistics) AtomicLong() else null
+
+    operator fun get(key: K): V? {
+        val value = find(key)
+        if (value != null) {
+            hits?.incrementAndGet()
+        }
+        else {
+            misses?.incrementAndGet()
+            removeCollectedEntries()
+        }
+        return value
+    }
+
+    /**
+     * Caches the given value unless a value for the key is already cached.
+     * @return the value which is cached for the key after this call
+     */
+    fun putIfAbsent(key: K, value: V): V {
+        removeCollectedEntries()
+
+        synchronized(this) {
+            find(key)?.let { return it }
+
+            val current = if (size >= table.length() / 4 * 3) resize() else table
+            val hash = System.identityHashCode(key)
+            val index = hash and (current.length() - 1)
+            current.set(index, Entry(key, hash, value, current.get(index), queue))
+            size++
+            return value
+        }
+    }
+
+    fun statistics(): ReflectionCacheStatistics =
+            ReflectionCacheStatistics(synchronized(this) { size }, hits?.get() ?: 0L, misses?.get() ?: 0L)
+
+    private fun find(key: Any): V? {
+        val table = table
+        var entry = table.get(System.identityHashCode(key) and (table.length() - 1))
+        while (entry != null) {
+            if (entry.get() === key) {
+                // An entry with the collected value can be followed by a new one for the same key
+                entry.value.get()?.let { return it }
+            }
+            entry = entry.next
+        }
+        return null
+    }
+
+    private fun removeCollectedEntries() {
+        val first = queue.poll() ?: return
+        synchronized(this) {
+            var ref: Reference<*>? = first
+            while (ref != null) {
+                remove(entryOf(ref))
+                ref = queue.poll()
+            }
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun entryOf(ref: Reference<*>): Entry<V> = (if (ref is ValueReference<*>) ref.entry else ref) as Entry<V>
+
+    // Entries before the removed one are copied, since chains are immutable; copies are not made for entries which are collected too
+    private fun remove(entry: Entry<V>) {
+        val table = table
+        val index = entry.hash and (table.length() - 1)
+
+        val preceding = ArrayList<Entry<V>>()
+        var current = table.get(index)
+        while (current !== entry) {
+            if (current == null) return // The entry has already been removed
+            preceding.add(current)
+            current = current.next
+        }
+
+        var head = entry.next
+        size--
+        for (i in preceding.indices.reversed()) {
+            val copy = preceding[i].copy(head)
+            if (copy != null) {
+                head = copy
+            }
+            else {
+                size--
+            }
+        }
+        table.set(index, head)
+    }
+
+    private fun resize(): AtomicReferenceArray<Entry<V>?> {
+        val oldTable = table
+        val newTable = AtomicReferenceArray<Entry<V>?>(oldTable.length() * 2)
+        var newSize = 0
+        for (i in 0..oldTable.length() - 1) {
+            var entry = oldTable.get(i)
+            while (entry != null) {
+                val index = entry.hash and (newTable.length() - 1)
+                val copy = entry.copy(newTable.get(index))
+                if (copy != null) {
+                    newTable.set(index, copy)
+                    newSize++
+                }
+                entry = entry.next
+            }
+        }
+        size = newSize
+        table = newTable
+        return newTable
+    }
+
+    // The identity hash code is saved because once the key is collected it cannot be computed anymore to find and remove the entry
+    private class Entry<V : Any>(key: Any, val hash: Int, value: V, val next: Entry<V>?, queue: ReferenceQueue<Any>) :
+            WeakReference<Any>(key, queue) {
+        val value = ValueReference(value, this, queue)
+    }
+
+    private class ValueReference<V : Any>(value: V, val entry: Entry<V>, queue: ReferenceQueue<Any>) : WeakReference<V>(value, queue)
+
+    // A copy of the entry followed by the given one, or null if its key or value is collected
+    private fun Entry<V>.copy(next: Entry<V>?): Entry<V>? {
+        val liveKey = get() ?: return null
+        val liveValue = value.get() ?: return null
+        return Entry(liveKey, hash, liveValue, next, queue)
+    }
+}
@@ -18,55 +18,13 @@ package kotlin.reflect.jvm.internal
 
 import org.jetbrains.kotlin.load.java.structure.reflect.safeClassLoader
 import org.jetbrains.kotlin.load.kotlin.reflect.RuntimeModuleData
-import java.lang.ref.WeakReference
-import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.ConcurrentMap
 
-// TODO: collect nulls periodically
-private val moduleByClassLoader: ConcurrentMap<WeakClassLoaderBox, WeakReference<RuntimeModuleData>> = ConcurrentHashMap()
-
-private class WeakClassLoaderBox(classLoader: ClassLoader) {
-    val ref: WeakReference<ClassLoader> = WeakReference(classLoader)
-
-    // Identity hash code is saved because otherwise once the weak reference is GC'd we cannot compute it anymore
-    val identityHashCode: Int = System.identityHashCode(classLoader)
-
-    // Temporary strong reference to the class loader to ensure it won't get GC'd while we're inserting this box into the map
-    var temporaryStrongRef: ClassLoader? = classLoader
-
-    override fun equals(other: Any?) =
-            other is WeakClassLoaderBox && ref.get() === other.ref.get()
-
-    override fun hashCode() =
-            identityHashCode
-
-    override fun toString() =
-            ref.get()?.let { it.toString() } ?: "<null>"
-}
+private val moduleByClassLoader = WeakIdentityCache<ClassLoader, RuntimeModuleData>()
 
 internal fun Class<*>.getOrCreateModule(): RuntimeModuleData {
     val classLoader = this.safeClassLoader
 
-    val key = WeakClassLoaderBox(classLoader)
-
-    val cached = moduleByClassLoader[key]
-    if (cached != null) {
-        cached.get()?.let { return it }
-        moduleByClassLoader.remove(key, cached)
-    }
-
-    val module = RuntimeModuleData.create(classLoader)
-    try {
-        while (true) {
-            val ref = moduleByClassLoader.putIfAbsent(key, WeakReference(module))
-            if (ref == null) return module
-
-            val result = ref.get()
-            if (result != null) return result
-            moduleByClassLoader.remove(key, ref)
-        }
-    }
-    finally {
-        key.temporaryStrongRef = null
-    }
+    return moduleByClassLoader[classLoader] ?: moduleByClassLoader.putIfAbsent(classLoader, RuntimeModuleData.create(classLoader))
 }
+
+internal fun getModuleCacheStatistics(): ReflectionCacheStatistics = moduleByClassLoader.statistics()
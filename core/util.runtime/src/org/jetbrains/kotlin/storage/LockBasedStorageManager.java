@@ -28,8 +28,6 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class LockBasedStorageManager implements StorageManager {
     public interface ExceptionHandlingStrategy {
@@ -65,26 +63,53 @@ public class LockBasedStorageManager implements StorageManager {
         return new LockBasedStorageManager(exceptionHandlingStrategy);
     }
 
-    protected final Lock lock;
+    /**
+     * Creates a storage manager that doesn't serialize all computations on one lock: every lazy value and every key of a memoized
+     * function is locked separately, and recursion is detected per thread. A wait-for cycle between threads is reported as recursion
+     * on the value started first, as it would have been under one global lock. See {@link PerKeyLocking} for details.
+     * {@link #compute} still runs its argument under a single (re-entrant) lock, which is released while waiting for a value.
+     */
+    @NotNull
+    public static LockBasedStorageManager createWithPerKeyLocking(@NotNull ExceptionHandlingStrategy exceptionHandlingStrategy) {
+        PerKeyLocking perKeyLocking = new PerKeyLocking();
+        return new LockBasedStorageManager(
+                getPointOfConstruction(), exceptionHandlingStrategy, perKeyLocking.getComputeLock(), perKeyLocking
+        );
+    }
+
+    private final SimpleLock lock;
     private final ExceptionHandlingStrategy exceptionHandlingStrategy;
     private final String debugText;
+    // null if all computations are guarded by the lock
+    @Nullable
+    private final PerKeyLocking perKeyLocking;
+
+    private LockBasedStorageManager(
+            @NotNull String debugText,
+            @NotNull ExceptionHandlingStrategy exceptionHandlingStrategy,
+            @NotNull SimpleLock lock
+    ) {
+        this(debugText, exceptionHandlingStrategy, lock, null);
+    }
 
     private LockBasedStorageManager(
             @NotNull String debugText,
             @NotNull ExceptionHandlingStrategy exceptionHandlingStrategy,
-            @NotNull Lock lock
+            @NotNull SimpleLock lock,
+            @Nullable PerKeyLocking perKeyLocking
     ) {
         this.lock = lock;
         this.exceptionHandlingStrategy = exceptionHandlingStrategy;
         this.debugText = debugText;
+        this.perKeyLocking = perKeyLocking;
     }
 
     public LockBasedStorageManager() {
-        this(getPointOfConstruction(), ExceptionHandlingStrategy.THROW, new ReentrantLock());
+        this(getPointOfConstruction(), ExceptionHandlingStrategy.THROW, new SimpleLock.Reentrant());
     }
 
     protected LockBasedStorageManager(@NotNull ExceptionHandlingStrategy exceptionHandlingStrategy) {
-        this(getPointOfConstruction(), exceptionHandlingStrategy, new ReentrantLock());
+        this(getPointOfConstruction(), exceptionHandlingStrategy, new SimpleLock.Reentrant());
     }
 
     private static String getPointOfConstruction() {
@@ -283,18 +308,26 @@ public class LockBasedStorageManager implements StorageManager {
 
         @Override
         public boolean isComputed() {
-            return value != NotValue.NOT_COMPUTED && value != NotValue.COMPUTING;
+            Object _value = value;
+            return _value != NotValue.NOT_COMPUTED && _value != NotValue.COMPUTING && !(_value instanceof PerKeyLocking.Computation);
         }
 
         @Override
         public boolean isComputing() {
-            return value == NotValue.COMPUTING;
+            Object _value = value;
+            return _value == NotValue.COMPUTING || _value instanceof PerKeyLocking.Computation;
         }
 
         @Override
         public T invoke() {
             Object _value = value;
-            if (!(_value instanceof NotValue)) return WrappedValues.unescapeThrowable(_value);
+            if (!(_value instanceof NotValue) && !(_value instanceof PerKeyLocking.Computation)) {
+                return WrappedValues.unescapeThrowable(_value);
+            }
+
+            if (perKeyLocking != null) {
+                return invokeWithPerKeyLocking(perKeyLocking);
+            }
 
             lock.lock();
             try {
@@ -336,6 +369,94 @@ public class LockBasedStorageManager implements StorageManager {
             }
         }
 
+        @SuppressWarnings("unchecked")
+        private T invokeWithPerKeyLocking(@NotNull PerKeyLocking perKeyLocking) {
+            while (true) {
+                Object _value;
+                PerKeyLocking.Computation newComputation = null;
+                synchronized (this) {
+                    _value = value;
+                    if (_value == NotValue.NOT_COMPUTED) {
+                        newComputation = new PerKeyLocking.Computation();
+                        value = newComputation;
+                    }
+                }
+
+                if (newComputation != null) {
+                    return computeWithPerKeyLocking(newComputation);
+                }
+
+                if (_value == NotValue.RECURSION_WAS_DETECTED) {
+                    RecursionDetectedResult<T> result = recursionDetected(/*firstTime = */ false);
+                    return result.isFallThrough() ? computeWithoutStoring() : result.getValue();
+                }
+
+                if (!(_value instanceof PerKeyLocking.Computation)) {
+                    return WrappedValues.unescapeThrowable(_value);
+                }
+
+                PerKeyLocking.Computation computation = (PerKeyLocking.Computation) _value;
+                if (computation.isOwnedByCurrentThread()) {
+                    if (computation.hasResult()) {
+                        // Requested from postCompute()
+                        return (T) computation.getResult();
+                    }
+                    return recursionDetectedWithPerKeyLocking(computation);
+                }
+
+                if (perKeyLocking.await(computation)) continue;
+
+                // The value depends on itself through computations in other threads
+                return recursionDetectedWithPerKeyLocking(computation);
+            }
+        }
+
+        private T recursionDetectedWithPerKeyLocking(@NotNull PerKeyLocking.Computation computation) {
+            RecursionDetectedResult<T> result = recursionDetected(computation.markRecursionDetected());
+            return result.isFallThrough() ? computeWithoutStoring() : result.getValue();
+        }
+
+        private T computeWithPerKeyLocking(@NotNull PerKeyLocking.Computation computation) {
+            try {
+                T typedValue = computable.invoke();
+                computation.setResult(typedValue);
+                postCompute(typedValue);
+                publish(computation, typedValue);
+                return typedValue;
+            }
+            catch (Throwable throwable) {
+                if (computation.hasResult()) {
+                    // postCompute() has failed, the value itself is fine
+                    publish(computation, computation.getResult());
+                }
+                else if (computation.isRecursionDetected()) {
+                    // Store only if it's a genuine result, not something thrown through recursionDetected()
+                    publish(computation, NotValue.RECURSION_WAS_DETECTED);
+                }
+                else {
+                    publish(computation, WrappedValues.escapeThrowable(throwable));
+                }
+                throw exceptionHandlingStrategy.handleException(throwable);
+            }
+        }
+
+        private void publish(@NotNull PerKeyLocking.Computation computation, @Nullable Object newValue) {
+            synchronized (this) {
+                assert value == computation : "Another computation has published a value: " + value;
+                value = newValue;
+            }
+            computation.finish();
+        }
+
+        private T computeWithoutStoring() {
+            try {
+                return computable.invoke();
+            }
+            catch (Throwable throwable) {
+                throw exceptionHandlingStrategy.handleException(throwable);
+            }
+        }
+
         /**
          * @param firstTime {@code true} when recursion has been just detected, {@code false} otherwise
          * @return a value to be returned on a recursive call or subsequent calls
@@ -378,7 +499,13 @@ public class LockBasedStorageManager implements StorageManager {
         @Nullable
         public V invoke(K input) {
             Object value = cache.get(input);
-            if (value != null && value != NotValue.COMPUTING) return WrappedValues.unescapeExceptionOrNull(value);
+            if (value != null && value != NotValue.COMPUTING && !(value instanceof PerKeyLocking.Computation)) {
+                return WrappedValues.unescapeExceptionOrNull(value);
+            }
+
+            if (perKeyLocking != null) {
+                return invokeWithPerKeyLocking(perKeyLocking, input);
+            }
 
             lock.lock();
             try {
@@ -421,6 +548,60 @@ public class LockBasedStorageManager implements StorageManager {
             }
         }
 
+        @Nullable
+        private V invokeWithPerKeyLocking(@NotNull PerKeyLocking perKeyLocking, K input) {
+            while (true) {
+                Object value = cache.get(input);
+                if (value == null) {
+                    PerKeyLocking.Computation computation = new PerKeyLocking.Computation();
+                    value = cache.putIfAbsent(input, computation);
+                    if (value == null) {
+                        return computeWithPerKeyLocking(input, computation);
+                    }
+                }
+
+                if (!(value instanceof PerKeyLocking.Computation)) {
+                    return WrappedValues.unescapeExceptionOrNull(value);
+                }
+
+                PerKeyLocking.Computation computation = (PerKeyLocking.Computation) value;
+                if (computation.isOwnedByCurrentThread()) {
+                    throw recursionDetected(input);
+                }
+
+                if (perKeyLocking.await(computation)) continue;
+
+                // The value depends on itself through computations in other threads
+                throw recursionDetected(input);
+            }
+        }
+
+        @Nullable
+        private V computeWithPerKeyLocking(K input, @NotNull PerKeyLocking.Computation computation) {
+            V typedValue;
+            try {
+                typedValue = compute.invoke(input);
+            }
+            catch (Throwable throwable) {
+                publish(input, computation, WrappedValues.escapeThrowable(throwable));
+                throw exceptionHandlingStrategy.handleException(throwable);
+            }
+
+            publish(input, computation, WrappedValues.escapeNull(typedValue));
+            return typedValue;
+        }
+
+        private void publish(K input, @NotNull PerKeyLocking.Computation computation, @NotNull Object newValue) {
+            try {
+                if (!cache.replace(input, computation, newValue)) {
+                    throw raceCondition(input, cache.get(input));
+                }
+            }
+            finally {
+                computation.finish();
+            }
+        }
+
         @NotNull
         private AssertionError recursionDetected(K input) {
             return sanitizeStackTrace(
@@ -439,7 +620,7 @@ public class LockBasedStorageManager implements StorageManager {
         @Override
         public boolean isComputed(K key) {
             Object value = cache.get(key);
-            return value != null && value != NotValue.COMPUTING;
+            return value != null && value != NotValue.COMPUTING && !(value instanceof PerKeyLocking.Computation);
         }
     }
 
@@ -466,7 +647,7 @@ public class LockBasedStorageManager implements StorageManager {
             @NotNull LockBasedStorageManager base,
             @NotNull ExceptionHandlingStrategy newStrategy
     ) {
-        return new LockBasedStorageManager(getPointOfConstruction(), newStrategy, base.lock);
+        return new LockBasedStorageManager(getPointOfConstruction(), newStrategy, base.lock, base.perKeyLocking);
     }
 
     @NotNull
@@ -16,14 +16,8 @@
 
 package org.jetbrains.kotlin.storage;
 
-import org.jetbrains.annotations.NotNull;
-
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-
-/*package*/ class NoLock implements Lock {
-    public static final Lock INSTANCE = new NoLock();
+/*package*/ class NoLock implements SimpleLock {
+    public static final SimpleLock INSTANCE = new NoLock();
 
     private NoLock() {
     }
@@ -37,25 +31,4 @@ import java.util.concurrent.locks.Lock;
     public void unlock() {
         // Do nothing
     }
-
-    @Override
-    public void lockInterruptibly() throws InterruptedException {
-        throw new UnsupportedOperationException("Should not be called");
-    }
-
-    @Override
-    public boolean tryLock() {
-        throw new UnsupportedOperationException("Should not be called");
-    }
-
-    @Override
-    public boolean tryLock(long time, @NotNull TimeUnit unit) throws InterruptedException {
-        throw new UnsupportedOperationException("Should not be called");
-    }
-
-    @NotNull
-    @Override
-    public Condition newCondition() {
-        throw new UnsupportedOperationException("Should not be called");
-    }
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.storage;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.utils.ExceptionUtilsKt;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bookkeeping for storage managers created by {@link LockBasedStorageManager#createWithPerKeyLocking}.
+ *
+ * Each lazy value and each key of a memoized function is guarded by its own {@link Computation} instead of one lock per storage
+ * manager, so independent values can be computed by different threads at the same time. Recursion is detected per thread: a thread
+ * requesting a value it is computing itself sees a recursive call, a thread requesting a value computed by another thread waits.
+ * Every computation runs exactly once, in the thread that has started it.
+ *
+ * A thread holding the compute lock releases it while it waits, so the compute lock never takes part in a wait-for cycle. A cycle of
+ * computations waiting for each other means that the values depend on each other: with one global lock a single thread would have
+ * computed all of them and seen a recursive call on the value it has started first. The same happens here: the thread waiting for the
+ * computation started first stops waiting and sees a recursive call, and all other threads keep waiting.
+ */
+/*package*/ class PerKeyLocking {
+    // Waiting threads wake up this often to check if a wait-for cycle has appeared
+    private static final long CYCLE_CHECK_INTERVAL_MS = 10;
+
+    /*package*/ static final class Computation {
+        private static final Object NO_RESULT = new Object();
+        private static final AtomicLong startCounter = new AtomicLong();
+
+        private final Thread owner = Thread.currentThread();
+        // Orders computations by start, so that a cycle is always broken at the one started first
+        private final long startIndex = startCounter.getAndIncrement();
+        private volatile boolean finished = false;
+        private boolean recursionDetected = false;
+        // Only the owner thread accesses the result: it's needed while post-compute is running and other threads can't see the value yet
+        private Object result = NO_RESULT;
+
+        @Nullable
+        private Thread getOwner() {
+            return finished ? null : owner;
+        }
+
+        public boolean isOwnedByCurrentThread() {
+            return owner == Thread.currentThread();
+        }
+
+        /**
+         * @return {@code true} if recursion has been detected for the first time in this computation
+         */
+        public synchronized boolean markRecursionDetected() {
+            boolean firstTime = !recursionDetected;
+            recursionDetected = true;
+            return firstTime;
+        }
+
+        public synchronized boolean isRecursionDetected() {
+            return recursionDetected;
+        }
+
+        public void setResult(@Nullable Object result) {
+            this.result = result;
+        }
+
+        public boolean hasResult() {
+            return result != NO_RESULT;
+        }
+
+        @Nullable
+        public Object getResult() {
+            assert hasResult() : "No result computed yet";
+            return result;
+        }
+
+        public synchronized void finish() {
+            finished = true;
+            notifyAll();
+        }
+
+        @Override
+        public String toString() {
+            return "Computation in " + owner.getName() + (finished ? " (finished)" : "");
+        }
+    }
+
+    private final ConcurrentMap<Thread, Computation> waitingFor = new ConcurrentHashMap<Thread, Computation>();
+    private final ComputeLock computeLock = new ComputeLock();
+
+    /**
+     * The lock for {@link StorageManager#compute}: a re-entrant lock released while its owner waits for a computation
+     */
+    @NotNull
+    public SimpleLock getComputeLock() {
+        return computeLock;
+    }
+
+    /**
+     * Waits until a computation owned by another thread is finished
+     *
+     * @return {@code true} if the computation has finished, {@code false} if it is a part of a wait-for cycle which the current thread
+     * has to break by treating the request as a recursive call
+     */
+    public boolean await(@NotNull Computation computation) {
+        assert !computation.isOwnedByCurrentThread() : "Waiting for own computation: " + computation;
+
+        Thread current = Thread.currentThread();
+        int holdCount = computeLock.release();
+        waitingFor.put(current, computation);
+        try {
+            synchronized (computation) {
+                while (!computation.finished) {
+                    if (breaksCycle(computation)) return false;
+                    computation.wait(CYCLE_CHECK_INTERVAL_MS);
+                }
+                return true;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ExceptionUtilsKt.rethrow(e);
+        }
+        finally {
+            waitingFor.remove(current);
+            computeLock.reacquire(holdCount);
+        }
+    }
+
+    /**
+     * Every thread in a cycle waits for exactly one computation, and the cycle can't change until it is broken, so all threads in it
+     * agree on which one has to break it: the one waiting for the computation started first.
+     */
+    private boolean breaksCycle(@NotNull Computation computation) {
+        Thread current = Thread.currentThread();
+        Computation next = computation;
+        // A path longer than the number of waiting threads can't lead back to us
+        int limit = waitingFor.size() + 1;
+        for (int i = 0; i < limit; i++) {
+            Thread owner = next.getOwner();
+            if (owner == null) return false;
+            if (owner == current) return true;
+
+            next = waitingFor.get(owner);
+            if (next == null || next.startIndex < computation.startIndex) return false;
+        }
+        return false;
+    }
+
+    private static class ComputeLock implements SimpleLock {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        @Override
+        public void lock() {
+            lock.lock();
+        }
+
+        @Override
+        public void unlock() {
+            lock.unlock();
+        }
+
+        /**
+         * @return how many times the current thread has held the lock
+         */
+        public int release() {
+            int holdCount = lock.getHoldCount();
+            for (int i = 0; i < holdCount; i++) {
+                lock.unlock();
+            }
+            return holdCount;
+        }
+
+        public void reacquire(int holdCount) {
+            for (int i = 0; i < holdCount; i++) {
+                lock.lock();
+            }
+        }
+    }
+}
@@ -35,6 +35,7 @@ import org.jetbrains.kotlin.codegen.defaultConstructor.AbstractDefaultArgumentsR
 import org.jetbrains.kotlin.codegen.flags.AbstractWriteFlagsTest
 import org.jetbrains.kotlin.codegen.generated.AbstractBlackBoxCodegenTest
 import org.jetbrains.kotlin.codegen.generated.AbstractBlackBoxInlineCodegenTest
+import org.jetbrains.kotlin.codegen.generated.AbstractBlackBoxReflectionWithMethodHandlesCodegenTest
 import org.jetbrains.kotlin.findUsages.AbstractFindUsagesTest
 import org.jetbrains.kotlin.findUsages.AbstractKotlinFindUsagesWithLibraryTest
 import org.jetbrains.kotlin.formatter.AbstractFormatterTest
@@ -361,6 +362,10 @@ fun main(args: Array<String>) {
         testClass<AbstractBlackBoxCodegenTest>("BlackBoxWithJava8CodegenTestGenerated") {
             model("codegen/java8/boxWithJava", testMethod = "doTestWithJava", extension = null, recursive = true, excludeParentDirs = true)
         }
+        testClass<AbstractBlackBoxReflectionWithMethodHandlesCodegenTest>("BlackBoxReflectionWithMethodHandlesCodegenTestGenerated") {
+            model("codegen/boxWithStdlib/reflection/call", testMethod = "doTestWithStdlib")
+            model("codegen/boxWithStdlib/reflection/callBy", testMethod = "doTestWithStdlib")
+        }
         testClass<AbstractDiagnosticsWithFullJdkTest>("DiagnosticsWithJava8TestGenerated") {
             model("diagnostics/testsWithJava8")
         }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jps.incremental
+
+import com.intellij.openapi.util.io.FileUtil
+import org.jetbrains.kotlin.incremental.LookupStorage
+import org.jetbrains.kotlin.incremental.LookupSymbol
+import java.io.File
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Replays a recorded stream of LookupTracker.record calls against the default and the segmented lookup storages.
+ * The only argument is the stream: a file with a line "path<TAB>scopeFqName<TAB>name" for every call,
+ * lookups of different builds are separated by empty lines.
+ * Without a stream, builds of a synthetic project are replayed.
+ */
+object LookupStorageBenchmark {
+    private val READER_THREADS = 4
+
+    private class Build(val lookups: Map<LookupSymbol, Collection<String>>, val paths: Set<String>)
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        val builds = if (args.isNotEmpty()) readBuilds(File(args[0])) else syntheticBuilds()
+        val symbols = builds.flatMap { it.lookups.keys }.distinct()
+        println("${builds.size} builds, ${symbols.size} lookup symbols")
+
+        for (isSegmented in listOf(false, true)) {
+            val directory = FileUtil.createTempDirectory("lookups", null)
+            try {
+                val storage = LookupStorage(directory, isSegmented)
+                var updateNanos = 0L
+                var flushNanos = 0L
+                for (build in builds) {
+                    val start = System.nanoTime()
+                    storage.removeLookupsFrom(build.paths.asSequence().map { File(it) })
+                    storage.addAll(build.lookups.entries, build.paths)
+                    val flushStart = System.nanoTime()
+                    storage.flush(false)
+                    updateNanos += flushStart - start
+                    flushNanos += System.nanoTime() - flushStart
+                }
+
+                val readNanos = readConcurrently(storage, symbols)
+                storage.close()
+
+                println("${if (isSegmented) "segmented" else "default"}: " +
+                        "update ${TimeUnit.NANOSECONDS.toMillis(updateNanos)} ms, " +
+                        "flush ${TimeUnit.NANOSECONDS.toMillis(flushNanos)} ms, " +
+                        "reads in $READER_THREADS threads ${TimeUnit.NANOSECONDS.toMillis(readNanos)} ms, " +
+                        "size on disk ${directory.walk().filter { it.isFile }.map { it.length() }.sum() / 1024} KB")
+            }
+            finally {
+                FileUtil.delete(directory)
+            }
+        }
+    }
+
+    private fun readConcurrently(storage: LookupStorage, symbols: List<LookupSymbol>): Long {
+        val executor = Executors.newFixedThreadPool(READER_THREADS)
+        try {
+            val tasks = (0..READER_THREADS - 1).map { thread ->
+                Callable {
+                    var found = 0
+                    for (i in thread..symbols.size - 1 step READER_THREADS) {
+                        found += storage.get(symbols[i]).size
+                    }
+                    found
+                }
+            }
+
+            val start = System.nanoTime()
+            executor.invokeAll(tasks).forEach { it.get() }
+            return System.nanoTime() - start
+        }
+        finally {
+            executor.shutdownNow()
+        }
+    }
+
+    private fun readBuilds(file: File): List<Build> {
+        val result = ArrayList<Build>()
+        var lookups = HashMap<LookupSymbol, MutableSet<String>>()
+        for (line in file.readLines() + "") {
+            if (line.isEmpty()) {
+                if (lookups.isNotEmpty()) {
+                    result.add(Build(lookups, lookups.values.flatten().toSet()))
+                    lookups = HashMap()
+                }
+                continue
+            }
+
+            val (path, scope, name) = line.split('\t')
+            lookups.getOrPut(LookupSymbol(name, scope)) { HashSet() }.add(path)
+        }
+        return result
+    }
+
+    // The first build compiles all files, then every build recompiles a small random part of them
+    private fun syntheticBuilds(): List<Build> {
+        val fileCount = 5000
+        val symbolCount = 50000
+        val lookupsPerFile = 200
+        val random = Random(42)
+        val directory = File("/synthetic").absoluteFile
+
+        fun build(files: Iterable<Int>): Build {
+            val lookups = HashMap<LookupSymbol, MutableSet<String>>()
+            val paths = HashSet<String>()
+            for (fileIndex in files) {
+                val path = File(directory, "file$fileIndex.kt").path
+                paths.add(path)
+                for (i in 1..lookupsPerFile) {
+                    // Lookups are skewed towards a small number of popular symbols, as in real projects
+                    val symbolIndex = (Math.pow(random.nextDouble(), 3.0) * symbolCount).toInt()
+                    lookups.getOrPut(LookupSymbol("name$symbolIndex", "scope${symbolIndex % 100}")) { HashSet() }.add(path)
+                }
+            }
+            return Build(lookups, paths)
+        }
+
+        val result = arrayListOf(build(0..fileCount - 1))
+        for (i in 1..30) {
+            result.add(build((1..50).map { random.nextInt(fileCount) }.toSet()))
+        }
+        return result
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jps.incremental
+
+import org.jetbrains.kotlin.incremental.LookupStorage
+import org.jetbrains.kotlin.incremental.LookupSymbol
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import java.io.File
+
+class LookupStorageTest : TestCaseWithTmpdir() {
+    private val FOO = LookupSymbol("foo", "a")
+    private val BAR = LookupSymbol("bar", "a.b")
+    private val BAZ = LookupSymbol("baz", "")
+
+    fun testSegmentedStorageIsSameAsDefault() {
+        val default = LookupStorage(File(tmpdir, "default"), isSegmented = false)
+        val segmented = LookupStorage(File(tmpdir, "segmented"), isSegmented = true)
+
+        for (storage in listOf(default, segmented)) {
+            addAll(storage, FOO to listOf("a.kt", "b.kt"), BAR to listOf("b.kt"))
+            storage.flush(false)
+            addAll(storage, FOO to listOf("c.kt"), BAZ to listOf("c.kt"))
+            storage.removeLookupsFrom(sequenceOf(file("b.kt")))
+        }
+
+        for (symbol in listOf(FOO, BAR, BAZ)) {
+            assertEquals(get(default, symbol), get(segmented, symbol))
+        }
+        assertEquals(listOf("a.kt", "c.kt"), get(segmented, FOO))
+        assertEquals(listOf<String>(), get(segmented, BAR))
+
+        val symbols = setOf(FOO, BAR, BAZ)
+        default.forceGC()
+        segmented.forceGC()
+        assertEquals(default.dump(symbols), segmented.dump(symbols))
+
+        default.close()
+        segmented.close()
+    }
+
+    fun testSegmentsAreReloadedAndCompacted() {
+        val directory = File(tmpdir, "segmented")
+        val storage = LookupStorage(directory, isSegmented = true)
+        for (i in 1..20) {
+            addAll(storage, FOO to listOf("$i.kt"), BAR to listOf("common.kt"))
+            storage.flush(false)
+        }
+        storage.removeLookupsFrom((1..10).asSequence().map { file("$it.kt") })
+        storage.flush(false)
+        storage.close()
+
+        val reloaded = LookupStorage(directory, isSegmented = true)
+        assertEquals((11..20).map { "$it.kt" }.sorted(), get(reloaded, FOO))
+        assertEquals(listOf("common.kt"), get(reloaded, BAR))
+
+        reloaded.forceGC()
+        assertEquals(1, segmentFiles(directory).size)
+        assertEquals((11..20).map { "$it.kt" }.sorted(), get(reloaded, FOO))
+
+        reloaded.clean()
+        assertEquals(listOf<String>(), get(reloaded, FOO))
+        reloaded.close()
+    }
+
+    fun testFlushOfMemoryCachesDoesNotWriteSegments() {
+        val directory = File(tmpdir, "segmented")
+        val storage = LookupStorage(directory, isSegmented = true)
+        addAll(storage, FOO to listOf("a.kt"))
+        storage.flush(true)
+        assertEquals(0, segmentFiles(directory).size)
+        assertEquals(listOf("a.kt"), get(storage, FOO))
+
+        storage.flush(false)
+        assertEquals(1, segmentFiles(directory).size)
+
+        // Lookups not written by a flush of memory caches are written on close
+        addAll(storage, BAR to listOf("b.kt"))
+        storage.flush(true)
+        assertEquals(1, segmentFiles(directory).size)
+        storage.close()
+
+        val reloaded = LookupStorage(directory, isSegmented = true)
+        assertEquals(listOf("a.kt"), get(reloaded, FOO))
+        assertEquals(listOf("b.kt"), get(reloaded, BAR))
+        reloaded.close()
+    }
+
+    private fun segmentFiles(directory: File): List<File> =
+            File(directory, "lookup-segments").listFiles { file -> file.name.startsWith("segment-") }?.toList() ?: emptyList()
+
+    private fun file(name: String) = File(tmpdir.canonicalFile, name)
+
+    private fun addAll(storage: LookupStorage, vararg lookups: Pair<LookupSymbol, List<String>>) {
+        val withPaths = lookups.associate { it.first to it.second.map { file(it).path } }
+        storage.addAll(withPaths.entries, withPaths.values.flatten().toSet())
+    }
+
+    private fun get(storage: LookupStorage, symbol: LookupSymbol): List<String> =
+            storage.get(symbol).map { File(it).name }.sorted()
+}
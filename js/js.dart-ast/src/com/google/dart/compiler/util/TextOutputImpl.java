@@ -4,15 +4,24 @@
 
 package com.google.dart.compiler.util;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.utils.ExceptionUtilsKt;
+
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Arrays;
 
 public class TextOutputImpl implements TextOutput {
     private final boolean compact;
     private int identLevel = 0;
     private final static int indentGranularity = 2;
+    private final static int SINK_BUFFER_SIZE = 8192;
     private char[][] indents = new char[][] {new char[0]};
     private boolean justNewlined;
     private final StringBuilder out;
+    @Nullable
+    private final Writer sink;
     private int position = 0;
     private int line = 0;
     private int column = 0;
@@ -30,13 +39,49 @@ public class TextOutputImpl implements TextOutput {
     public TextOutputImpl(boolean compact) {
         this.compact = compact;
         out = new StringBuilder();
+        sink = null;
+    }
+
+    /**
+     * Creates an output which passes the text on to the sink line by line, instead of keeping all of it in memory.
+     * {@link #flush()} should be called once everything is printed. The text is not available with {@link #toString()}.
+     */
+    public TextOutputImpl(@NotNull Writer sink, boolean compact) {
+        this.compact = compact;
+        out = new StringBuilder(2 * SINK_BUFFER_SIZE);
+        this.sink = sink;
     }
 
     @Override
     public String toString() {
+        if (sink != null) {
+            throw new IllegalStateException("The text is passed on to the sink and is not kept by the output");
+        }
         return out.toString();
     }
 
+    public void flush() {
+        if (sink == null) return;
+        writeToSink();
+        try {
+            sink.flush();
+        }
+        catch (IOException e) {
+            throw ExceptionUtilsKt.rethrow(e);
+        }
+    }
+
+    private void writeToSink() {
+        assert sink != null;
+        try {
+            sink.append(out);
+        }
+        catch (IOException e) {
+            throw ExceptionUtilsKt.rethrow(e);
+        }
+        out.setLength(0);
+    }
+
     @Override
     public int getPosition() {
         return position;
@@ -81,6 +126,9 @@ public class TextOutputImpl implements TextOutput {
         if (outListener != null) {
             outListener.newLined();
         }
+        if (sink != null && out.length() >= SINK_BUFFER_SIZE) {
+            writeToSink();
+        }
     }
 
     @Override
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.serialization.js
+
+import java.io.*
+import java.util.*
+import java.util.zip.Deflater
+import java.util.zip.GZIPInputStream
+import java.util.zip.Inflater
+
+/**
+ * Serialized files of a Kotlin/JavaScript library, i.e. the body of its metadata.
+ *
+ * A body is either an indexed container or (in libraries of the previous ABI version, see JsBinaryVersion.PREVIOUS)
+ * a gzipped JsProtoBuf.Library. Older compilers don't accept the current ABI version, so they never see the container.
+ * The indexed container starts with a directory of packages and their files, followed by a separately compressed block
+ * for every package, so only blocks of the packages which are actually loaded get decompressed.
+ */
+abstract class JsLibraryContent {
+    abstract val paths: Collection<String>
+
+    abstract operator fun get(path: String): ByteArray?
+
+    companion object {
+        private val MAGIC = 0x4B4A534D // "KJSM"
+        private val VERSION = 1
+
+        @JvmStatic
+        fun read(body: ByteArray): JsLibraryContent =
+                if (isIndexed(body)) IndexedLibraryContent(body) else GzippedLibraryContent(body)
+
+        // Layout: magic, version, package count, then for every package: its directory, block offset, compressed block size,
+        // file count, path, offset and size of every file in the block, block size; compressed blocks follow.
+        // Files of a package are the ones in the same directory
+        @JvmStatic
+        fun write(contentMap: Map<String, ByteArray>): ByteArray {
+            val packages = contentMap.keys.sorted().groupBy { it.substringBeforeLast('/', "") }.toSortedMap()
+
+            val result = ByteArrayOutputStream()
+            val output = DataOutputStream(result)
+            output.writeInt(MAGIC)
+            output.writeInt(VERSION)
+            output.writeInt(packages.size)
+
+            val blocks = ArrayList<ByteArray>(packages.size)
+            var blockOffset = 0
+            for ((packagePath, paths) in packages) {
+                val raw = ByteArrayOutputStream()
+                for (path in paths) {
+                    raw.write(contentMap[path]!!)
+                }
+                val block = compress(raw.toByteArray())
+                blocks.add(block)
+
+                output.writeUTF(packagePath)
+                output.writeInt(blockOffset)
+                output.writeInt(block.size)
+                output.writeInt(paths.size)
+                var fileOffset = 0
+                for (path in paths) {
+                    val size = contentMap[path]!!.size
+                    output.writeUTF(path)
+                    output.writeInt(fileOffset)
+                    output.writeInt(size)
+                    fileOffset += size
+                }
+                output.writeInt(fileOffset)
+                blockOffset += block.size
+            }
+
+            for (block in blocks) {
+                output.write(block)
+            }
+            output.close()
+
+            return result.toByteArray()
+        }
+
+        private fun isIndexed(body: ByteArray) =
+                body.size >= 4 && DataInputStream(ByteArrayInputStream(body, 0, 4)).readInt() == MAGIC
+
+        private fun compress(bytes: ByteArray): ByteArray {
+            val deflater = Deflater(Deflater.BEST_COMPRESSION)
+            try {
+                deflater.setInput(bytes)
+                deflater.finish()
+                val result = ByteArrayOutputStream()
+                val buffer = ByteArray(8192)
+                while (!deflater.finished()) {
+                    result.write(buffer, 0, deflater.deflate(buffer))
+                }
+                return result.toByteArray()
+            }
+            finally {
+                deflater.end()
+            }
+        }
+    }
+
+    private class GzippedLibraryContent(body: ByteArray) : JsLibraryContent() {
+        private val contentMap = HashMap<String, ByteArray>()
+
+        init {
+            val content = GZIPInputStream(ByteArrayInputStream(body)).use { JsProtoBuf.Library.parseFrom(it) }
+            content.entryList.forEach { entry -> contentMap[entry.path] = entry.content.toByteArray() }
+        }
+
+        override val paths: Collection<String>
+            get() = contentMap.keys
+
+        override fun get(path: String) = contentMap[path]
+    }
+
+    private class IndexedLibraryContent(private val body: ByteArray) : JsLibraryContent() {
+        private class Block(val offset: Int, val compressedSize: Int, val size: Int) {
+            @Volatile
+            var bytes: ByteArray? = null
+        }
+
+        private class FileLocation(val block: Block, val offset: Int, val size: Int)
+
+        private val files = HashMap<String, FileLocation>()
+
+        // Block offsets are relative to the end of the directory
+        private val dataStart: Int
+
+        init {
+            val input = DataInputStream(ByteArrayInputStream(body))
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw IllegalStateException("Unsupported Kotlin/JavaScript metadata format")
+            }
+
+            val packageCount = input.readInt()
+            for (i in 1..packageCount) {
+                // package directory
+                input.readUTF()
+                val blockOffset = input.readInt()
+                val compressedSize = input.readInt()
+                val fileCount = input.readInt()
+                val fileInfos = (1..fileCount).map { Triple(input.readUTF(), input.readInt(), input.readInt()) }
+                val block = Block(blockOffset, compressedSize, input.readInt())
+                for ((path, offset, size) in fileInfos) {
+                    files[path] = FileLocation(block, offset, size)
+                }
+            }
+            dataStart = body.size - input.available()
+        }
+
+        override val paths: Collection<String>
+            get() = files.keys
+
+        override fun get(path: String): ByteArray? {
+            val location = files[path] ?: return null
+            val blockBytes = decompress(location.block)
+            return Arrays.copyOfRange(blockBytes, location.offset, location.offset + location.size)
+        }
+
+        private fun decompress(block: Block): ByteArray {
+            block.bytes?.let { return it }
+            synchronized(block) {
+                block.bytes?.let { return it }
+
+                val inflater = Inflater()
+                try {
+                    inflater.setInput(body, dataStart + block.offset, block.compressedSize)
+                    val result = ByteArray(block.size)
+                    var size = 0
+                    while (size < result.size) {
+                        val inflated = inflater.inflate(result, size, result.size - size)
+                        if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                            throw IllegalStateException("Kotlin/JavaScript metadata is corrupted")
+                        }
+                        size += inflated
+                    }
+                    block.bytes = result
+                    return result
+                }
+                finally {
+                    inflater.end()
+                }
+            }
+        }
+    }
+}
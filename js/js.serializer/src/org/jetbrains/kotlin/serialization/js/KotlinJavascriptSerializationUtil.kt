@@ -16,7 +16,6 @@
 
 package org.jetbrains.kotlin.serialization.js
 
-import com.google.protobuf.ByteString
 import org.jetbrains.kotlin.descriptors.*
 import org.jetbrains.kotlin.name.FqName
 import org.jetbrains.kotlin.resolve.DescriptorUtils
@@ -32,8 +31,6 @@ import org.jetbrains.kotlin.utils.KotlinJavascriptMetadataUtils
 import java.io.ByteArrayInputStream
 import java.io.ByteArrayOutputStream
 import java.util.*
-import java.util.zip.GZIPInputStream
-import java.util.zip.GZIPOutputStream
 
 object KotlinJavascriptSerializationUtil {
     val CLASS_METADATA_FILE_EXTENSION: String = "kjsm"
@@ -58,14 +55,15 @@ object KotlinJavascriptSerializationUtil {
     }
 
     @JvmStatic fun createPackageFragmentProvider(moduleDescriptor: ModuleDescriptor, metadata: ByteArray, storageManager: StorageManager): PackageFragmentProvider? {
-        val contentMap = metadata.toContentMap()
+        val content = JsLibraryContent.read(metadata)
 
-        val packageFqNames = getPackages(contentMap).map { FqName(it) }.toSet()
+        val packageFqNames = getPackages(content.paths).map { FqName(it) }.toSet()
         if (packageFqNames.isEmpty()) return null
 
         return createKotlinJavascriptPackageFragmentProvider(storageManager, moduleDescriptor, packageFqNames) {
             path ->
-            if (!contentMap.containsKey(path)) {
+            val bytes = content[path]
+            if (bytes == null) {
                 when {
                     isPackageMetadataFile(path) ->
                         ByteArrayInputStream(PACKAGE_DEFAULT_BYTES)
@@ -77,24 +75,11 @@ object KotlinJavascriptSerializationUtil {
                         null
                 }
             }
-            else ByteArrayInputStream(contentMap.get(path))
+            else ByteArrayInputStream(bytes)
         }
     }
 
-    fun contentMapToByteArray(contentMap: Map<String, ByteArray>): ByteArray {
-        val contentBuilder = JsProtoBuf.Library.newBuilder()
-        contentMap.forEach {
-            val entry = JsProtoBuf.Library.FileEntry.newBuilder().setPath(it.key).setContent(ByteString.copyFrom(it.value)).build()
-            contentBuilder.addEntry(entry)
-        }
-
-        val byteStream = ByteArrayOutputStream()
-        val gzipOutputStream = GZIPOutputStream(byteStream)
-        contentBuilder.build().writeTo(gzipOutputStream)
-        gzipOutputStream.close()
-
-        return byteStream.toByteArray()
-    }
+    fun contentMapToByteArray(contentMap: Map<String, ByteArray>): ByteArray = JsLibraryContent.write(contentMap)
 
     fun metadataAsString(moduleName: String, moduleDescriptor: ModuleDescriptor): String =
         KotlinJavascriptMetadataUtils.formatMetadataAsString(moduleName, moduleDescriptor.toBinaryMetadata())
@@ -199,8 +184,8 @@ object KotlinJavascriptSerializationUtil {
         }
     }
 
-    private fun getPackages(contentMap: Map<String, ByteArray>): Set<String> {
-        val keys = contentMap.keys.map { (if (it.startsWith('/')) it else "/" + it).substringBeforeLast('/') }.toSet()
+    private fun getPackages(paths: Collection<String>): Set<String> {
+        val keys = paths.map { (if (it.startsWith('/')) it else "/" + it).substringBeforeLast('/') }.toSet()
 
         val result = hashSetOf<String>()
 
@@ -220,16 +205,7 @@ object KotlinJavascriptSerializationUtil {
             KotlinJavascriptSerializationUtil.contentMapToByteArray(toContentMap(this))
 }
 
-fun KotlinJavascriptMetadata.forEachFile(operation: (filePath: String, fileContent: ByteArray) -> Unit): Unit =
-        this.body.toContentMap().forEach { operation(it.key, it.value) }
-
-private fun ByteArray.toContentMap(): Map<String, ByteArray> {
-    val gzipInputStream = GZIPInputStream(ByteArrayInputStream(this))
-    val content = JsProtoBuf.Library.parseFrom(gzipInputStream)
-    gzipInputStream.close()
-
-    val contentMap: MutableMap<String, ByteArray> = hashMapOf()
-    content.entryList.forEach { entry -> contentMap[entry.path] = entry.content.toByteArray() }
-
-    return contentMap
-}
\ No newline at end of file
+fun KotlinJavascriptMetadata.forEachFile(operation: (filePath: String, fileContent: ByteArray) -> Unit) {
+    val content = JsLibraryContent.read(this.body)
+    content.paths.forEach { operation(it, content[it]!!) }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.js.test;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.backend.common.output.OutputFile;
+import org.jetbrains.kotlin.backend.common.output.OutputFileCollection;
+import org.jetbrains.kotlin.backend.common.output.SimpleOutputFileCollection;
+import org.jetbrains.kotlin.backend.common.output.StreamingOutputFile;
+import org.jetbrains.kotlin.cli.common.output.outputUtils.OutputUtilsKt;
+import org.jetbrains.kotlin.js.config.Config;
+import org.jetbrains.kotlin.js.facade.K2JSTranslator;
+import org.jetbrains.kotlin.js.facade.MainCallParameters;
+import org.jetbrains.kotlin.js.facade.TranslationResult;
+import org.jetbrains.kotlin.psi.KtFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class StreamingOutputTest extends SingleFileTranslationTest {
+    private File outputPrefixFile;
+    private File outputPostfixFile;
+
+    public StreamingOutputTest() {
+        super("outputPrefixPostfix/");
+    }
+
+    public void testWithoutPrefixAndPostfix() throws Exception {
+        checkFooBoxIsOk("simple.kt");
+    }
+
+    public void testWithPrefixAndPostfix() throws Exception {
+        outputPrefixFile = new File(getInputFilePath("simpleWithPrefixAndPostfix.kt.prefix"));
+        outputPostfixFile = new File(getInputFilePath("simpleWithPrefixAndPostfix.kt.postfix"));
+        checkFooBoxIsOk("simpleWithPrefixAndPostfix.kt");
+    }
+
+    public void testFailureWhileStreamingLeavesPreviousOutput() throws Exception {
+        File outputDir = FileUtil.createTempDirectory("streamingOutput", null);
+        try {
+            File output = new File(outputDir, "out.js");
+            FileUtil.writeToFile(output, "previous");
+
+            OutputFileCollection files =
+                    new SimpleOutputFileCollection(Collections.<OutputFile>singletonList(new FailingOutputFile("out.js")));
+            try {
+                OutputUtilsKt.writeAllTo(files, outputDir);
+                fail("Translation failure should be propagated");
+            }
+            catch (IllegalStateException e) {
+                assertEquals(FailingOutputFile.MESSAGE, e.getMessage());
+            }
+
+            assertEquals("previous", FileUtil.loadFile(output));
+            assertEquals("Temporary files should be deleted", 1, outputDir.listFiles().length);
+        }
+        finally {
+            FileUtil.delete(outputDir);
+        }
+    }
+
+    @Override
+    protected boolean shouldGenerateSourceMap() {
+        return true;
+    }
+
+    @Override
+    protected File getOutputPrefixFile() {
+        return outputPrefixFile;
+    }
+
+    @Override
+    protected File getOutputPostfixFile() {
+        return outputPostfixFile;
+    }
+
+    @Override
+    protected void translateFiles(
+            @NotNull List<KtFile> jetFiles,
+            @NotNull File outputFile,
+            @NotNull MainCallParameters mainCallParameters,
+            @NotNull Config config
+    ) throws Exception {
+        TranslationResult.Success result = (TranslationResult.Success) new K2JSTranslator(config).translate(jetFiles, mainCallParameters);
+
+        // Files are streamed in the order writeAll writes them, so the source map comes from the streamed traversal
+        OutputFileCollection streamed = result.getOutputFiles(outputFile, outputPrefixFile, outputPostfixFile);
+        OutputFileCollection inMemory = result.getOutputFiles(outputFile, outputPrefixFile, outputPostfixFile);
+        for (OutputFile file : streamed.asList()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            if (file instanceof StreamingOutputFile) {
+                ((StreamingOutputFile) file).writeTo(bytes);
+            }
+            else {
+                bytes.write(file.asByteArray());
+            }
+            OutputFile expected = inMemory.get(file.getRelativePath());
+            assertNotNull(file.getRelativePath(), expected);
+            assertTrue("Streamed " + file.getRelativePath() + " differs from asText()",
+                       Arrays.equals(expected.asText().getBytes("UTF-8"), bytes.toByteArray()));
+        }
+
+        String code = inMemory.get(outputFile.getName()).asText();
+        assertEquals(loadText(outputPrefixFile) + result.getCode() + loadText(outputPostfixFile), code);
+
+        // Lines of the prefix are not mapped, the mappings of the code follow them
+        String sourceMapName = outputFile.getName() + ".map";
+        String mappings = getMappings(inMemory.get(sourceMapName).asText());
+        String mappingsWithoutPrefix = getMappings(result.getOutputFiles(outputFile, null, null).get(sourceMapName).asText());
+        int prefixLines = StringUtil.getLineBreakCount(loadText(outputPrefixFile));
+        assertEquals(StringUtil.repeatSymbol(';', prefixLines) + mappingsWithoutPrefix, mappings);
+
+        super.translateFiles(jetFiles, outputFile, mainCallParameters, config);
+    }
+
+    // Writes the beginning of the code and fails, like a translation throwing in the middle of the output
+    private static class FailingOutputFile implements StreamingOutputFile {
+        static final String MESSAGE = "Translation failed";
+
+        private final String relativePath;
+
+        FailingOutputFile(@NotNull String relativePath) {
+            this.relativePath = relativePath;
+        }
+
+        @Override
+        public void writeTo(@NotNull OutputStream output) {
+            try {
+                output.write("var partial".getBytes("UTF-8"));
+                output.flush();
+            }
+            catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            throw new IllegalStateException(MESSAGE);
+        }
+
+        @NotNull
+        @Override
+        public String getRelativePath() {
+            return relativePath;
+        }
+
+        @NotNull
+        @Override
+        public List<File> getSourceFiles() {
+            return Collections.emptyList();
+        }
+
+        @NotNull
+        @Override
+        public byte[] asByteArray() {
+            throw new IllegalStateException(MESSAGE);
+        }
+
+        @NotNull
+        @Override
+        public String asText() {
+            throw new IllegalStateException(MESSAGE);
+        }
+    }
+
+    @NotNull
+    private static String getMappings(@NotNull String sourceMap) {
+        String mappingsStart = "\"mappings\":\"";
+        int start = sourceMap.indexOf(mappingsStart);
+        assertTrue(sourceMap, start >= 0);
+        start += mappingsStart.length();
+        return sourceMap.substring(start, sourceMap.indexOf('"', start));
+    }
+
+    @NotNull
+    private static String loadText(@Nullable File file) throws Exception {
+        return file == null ? "" : FileUtil.loadFile(file);
+    }
+}
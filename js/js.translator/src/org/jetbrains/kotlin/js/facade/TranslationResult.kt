@@ -32,6 +32,8 @@ import org.jetbrains.kotlin.resolve.diagnostics.Diagnostics
 import org.jetbrains.kotlin.serialization.js.KotlinJavascriptSerializationUtil
 import org.jetbrains.kotlin.utils.KotlinJavascriptMetadataUtils
 import java.io.File
+import java.io.OutputStream
+import java.io.Writer
 import java.util.ArrayList
 
 abstract class TranslationResult protected constructor(val diagnostics: Diagnostics) {
@@ -45,16 +47,13 @@ abstract class TranslationResult protected constructor(val diagnostics: Diagnost
             diagnostics: Diagnostics,
             private val moduleDescriptor: ModuleDescriptor
     ) : TranslationResult(diagnostics) {
-        fun getCode(): String = getCode(TextOutputImpl(), sourceMapBuilder = null)
-
-        fun getOutputFiles(outputFile: File, outputPrefixFile: File?, outputPostfixFile: File?): OutputFileCollection {
+        fun getCode(): String {
             val output = TextOutputImpl()
-            val sourceMapBuilder = when {
-                config.isSourcemap -> SourceMap3Builder(outputFile, output, SourceMapBuilderConsumer())
-                else -> null
-            }
+            generateCode(output, sourceMapBuilder = null)
+            return output.toString()
+        }
 
-            val code = getCode(output, sourceMapBuilder)
+        fun getOutputFiles(outputFile: File, outputPrefixFile: File?, outputPostfixFile: File?): OutputFileCollection {
             val prefix = outputPrefixFile?.readText() ?: ""
             val postfix = outputPostfixFile?.readText() ?: ""
             val sourceFiles = files.map {
@@ -66,7 +65,8 @@ abstract class TranslationResult protected constructor(val diagnostics: Diagnost
                 }
             }
 
-            val jsFile = SimpleOutputFile(sourceFiles, outputFile.name, prefix + code + postfix)
+            val code = GeneratedCode(outputFile, prefix, postfix)
+            val jsFile = JsOutputFile(sourceFiles, outputFile.name, code)
             val outputFiles = arrayListOf<OutputFile>(jsFile)
 
             if (config.isMetaInfo) {
@@ -84,18 +84,96 @@ abstract class TranslationResult protected constructor(val diagnostics: Diagnost
                 }
             }
 
-            if (sourceMapBuilder != null) {
-                sourceMapBuilder.skipLinesAtBeginning(StringUtil.getLineBreakCount(prefix))
-                val sourceMapFile = SimpleOutputFile(sourceFiles, sourceMapBuilder.outFile.name, sourceMapBuilder.build())
-                outputFiles.add(sourceMapFile)
+            if (config.isSourcemap) {
+                outputFiles.add(SourceMapOutputFile(sourceFiles, SourceMap3Builder.getOutFile(outputFile).name, code))
             }
 
             return SimpleOutputFileCollection(outputFiles)
         }
 
-        private fun getCode(output: TextOutput, sourceMapBuilder: SourceMapBuilder?): String {
+        /**
+         * JS code is generated when it's requested for the first time. When the JS file is written before anything else
+         * (as writeAll does it), the code is streamed to the file as the program is traversed and is not kept in memory;
+         * the source map is built during the same traversal.
+         */
+        private inner class GeneratedCode(private val outputFile: File, val prefix: String, val postfix: String) {
+            private var text: String? = null
+            private var sourceMapBuilder: SourceMapBuilder? = null
+
+            fun getText(): String {
+                text?.let { return it }
+
+                val output = TextOutputImpl()
+                generate(output)
+                val result = prefix + output.toString() + postfix
+                text = result
+                return result
+            }
+
+            fun writeTo(writer: Writer) {
+                text?.let {
+                    writer.write(it)
+                    return
+                }
+
+                writer.write(prefix)
+                val output = TextOutputImpl(writer, false)
+                generate(output)
+                output.flush()
+                writer.write(postfix)
+            }
+
+            fun getSourceMapBuilder(): SourceMapBuilder {
+                if (sourceMapBuilder == null) {
+                    getText()
+                }
+                return sourceMapBuilder!!
+            }
+
+            private fun generate(output: TextOutput) {
+                val builder = if (config.isSourcemap) SourceMap3Builder(outputFile, output, SourceMapBuilderConsumer()) else null
+                generateCode(output, builder)
+                builder?.skipLinesAtBeginning(StringUtil.getLineBreakCount(prefix))
+                sourceMapBuilder = builder
+            }
+        }
+
+        private class JsOutputFile(
+                override val sourceFiles: List<File>,
+                override val relativePath: String,
+                private val code: GeneratedCode
+        ) : StreamingOutputFile {
+            override fun asByteArray(): ByteArray = asText().toByteArray()
+            override fun asText(): String = code.getText()
+
+            override fun writeTo(output: OutputStream) {
+                val writer = output.writer().buffered()
+                code.writeTo(writer)
+                writer.flush()
+            }
+
+            override fun toString() = "$relativePath (compiled from $sourceFiles)"
+        }
+
+        private class SourceMapOutputFile(
+                override val sourceFiles: List<File>,
+                override val relativePath: String,
+                private val code: GeneratedCode
+        ) : StreamingOutputFile {
+            override fun asByteArray(): ByteArray = asText().toByteArray()
+            override fun asText(): String = code.getSourceMapBuilder().build()
+
+            override fun writeTo(output: OutputStream) {
+                val writer = output.writer().buffered()
+                code.getSourceMapBuilder().writeTo(writer)
+                writer.flush()
+            }
+
+            override fun toString() = "$relativePath (compiled from $sourceFiles)"
+        }
+
+        private fun generateCode(output: TextOutput, sourceMapBuilder: SourceMapBuilder?) {
             program.accept(JsSourceGenerationVisitor(output, sourceMapBuilder))
-            return output.toString()
         }
     }
 }
@@ -18,11 +18,11 @@ package org.jetbrains.kotlin.js.sourceMap;
 
 import com.google.dart.compiler.common.SourceInfo;
 import com.google.dart.compiler.util.TextOutput;
-import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.PairConsumer;
 import gnu.trove.TObjectIntHashMap;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -45,6 +45,8 @@ public class SourceMap3Builder implements SourceMapBuilder {
 
     private final List<String> orderedSources = new ArrayList<String>();
 
+    private int skippedLines;
+
     private int previousGeneratedColumn = -1;
     private int previousSourceIndex;
     private int previousSourceLine;
@@ -58,22 +60,39 @@ public class SourceMap3Builder implements SourceMapBuilder {
 
     @Override
     public File getOutFile() {
+        return getOutFile(generatedFile);
+    }
+
+    public static File getOutFile(File generatedFile) {
         return new File(generatedFile.getParentFile(), generatedFile.getName() + ".map");
     }
 
     @Override
     public String build() {
-        StringBuilder sb = new StringBuilder(out.length() + (128 * orderedSources.size()));
+        StringBuilder sb = new StringBuilder(out.length() + skippedLines + (128 * orderedSources.size()));
+        try {
+            writeTo(sb);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("StringBuilder doesn't throw", e);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void writeTo(Appendable sb) throws IOException {
         sb.append("{\"version\":3,\"file\":\"").append(generatedFile.getName()).append('"').append(',');
         appendSources(sb);
         sb.append(",\"names\":[");
         sb.append("],\"mappings\":\"");
+        for (int i = 0; i < skippedLines; i++) {
+            sb.append(';');
+        }
         sb.append(out);
         sb.append("\"}");
-        return sb.toString();
     }
 
-    private void appendSources(StringBuilder sb) {
+    private void appendSources(Appendable sb) throws IOException {
         boolean isNotFirst = false;
         sb.append('"').append("sources").append("\":[");
         for (String source : orderedSources) {
@@ -96,7 +115,8 @@ public class SourceMap3Builder implements SourceMapBuilder {
 
     @Override
     public void skipLinesAtBeginning(int count) {
-        out.insert(0, StringUtil.repeatSymbol(';', count));
+        // Written before the mappings instead of being inserted into them, which would copy all mappings
+        skippedLines += count;
     }
 
     @Override